@@ -2,6 +2,10 @@ package io.github.nsfeconomy.bank;
 
 import io.github.nsfeconomy.NSFEconomy;
 import io.github.nsfeconomy.currency.CurrencyManager;
+import io.github.nsfeconomy.currency.Money;
+import io.github.nsfeconomy.database.ChangeOutbox;
+import io.github.nsfeconomy.database.StreamingQuery;
+import io.github.nsfeconomy.database.UnitOfWork;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -11,6 +15,8 @@ import org.bukkit.inventory.PlayerInventory;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
@@ -27,6 +33,9 @@ public class BankManager {
     // Withdrawal queue
     private final List<WithdrawalRequest> withdrawalQueue;
 
+    // Players with an async deposit or withdrawal still in flight
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
     public BankManager(NSFEconomy plugin) {
         this.plugin = plugin;
         this.bankLocations = new ConcurrentHashMap<>();
@@ -34,6 +43,8 @@ public class BankManager {
         this.hourlyTransactionCounts = new ConcurrentHashMap<>();
         this.withdrawalQueue = Collections.synchronizedList(new ArrayList<>());
         
+        plugin.getDatabaseManager().getChangeOutbox().subscribe(ChangeOutbox.TOPIC_BANK, this::reloadBankLocation);
+
         // Clear hourly transaction counts every hour
         Bukkit.getScheduler().runTaskTimerAsync(plugin, hourlyTransactionCounts::clear, 
             20L * 60 * 60, 20L * 60 * 60);
@@ -46,21 +57,12 @@ public class BankManager {
         bankLocations.clear();
         String sql = "SELECT * FROM bank_locations";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             
             while (rs.next()) {
-                BankLocation location = new BankLocation(
-                    rs.getInt("id"),
-                    rs.getString("name"),
-                    rs.getString("type"),
-                    rs.getString("world"),
-                    rs.getInt("x"),
-                    rs.getInt("y"),
-                    rs.getInt("z"),
-                    rs.getInt("radius")
-                );
+                BankLocation location = bankLocationFromResultSet(rs);
                 bankLocations.put(location.getName().toLowerCase(), location);
             }
             
@@ -70,6 +72,39 @@ public class BankManager {
         }
     }
 
+    /**
+     * Re-read one bank location after another server created or removed it
+     */
+    private void reloadBankLocation(String name) {
+        String sql = "SELECT * FROM bank_locations WHERE name = ?";
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    bankLocations.put(name.toLowerCase(), bankLocationFromResultSet(rs));
+                } else {
+                    bankLocations.remove(name.toLowerCase());
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to reload bank location " + name, e);
+        }
+    }
+
+    private BankLocation bankLocationFromResultSet(ResultSet rs) throws SQLException {
+        return new BankLocation(
+            rs.getInt("id"),
+            rs.getString("name"),
+            rs.getString("type"),
+            rs.getString("world"),
+            rs.getInt("x"),
+            rs.getInt("y"),
+            rs.getInt("z"),
+            rs.getInt("radius")
+        );
+    }
+
     /**
      * Save bank locations to database
      */
@@ -116,6 +151,7 @@ public class BankManager {
                             location.getBlockX(), location.getBlockY(), location.getBlockZ(), 
                             radius);
                         bankLocations.put(name.toLowerCase(), bankLoc);
+                        plugin.getDatabaseManager().getChangeOutbox().publish(conn, ChangeOutbox.TOPIC_BANK, name);
                         return true;
                     }
                 }
@@ -142,6 +178,7 @@ public class BankManager {
             ps.setInt(1, location.getId());
             if (ps.executeUpdate() > 0) {
                 bankLocations.remove(name.toLowerCase());
+                plugin.getDatabaseManager().getChangeOutbox().publish(conn, ChangeOutbox.TOPIC_BANK, location.getName());
                 return true;
             }
         } catch (SQLException e) {
@@ -208,11 +245,12 @@ public class BankManager {
         }
         
         // Calculate F$ to issue
-        double fDollars = currencyManager.starsToFDollars(starAmount);
+        Money fDollars = currencyManager.starsToFDollars(starAmount);
         Map<Integer, Integer> denomBreakdown = currencyManager.calculateDenominations(fDollars);
         
         // Calculate actual stars used (rounded down to nearest F$1)
-        long actualStars = currencyManager.fDollarsToStars(Math.floor(fDollars));
+        Money issued = Money.ofMajor(fDollars.wholeMajor());
+        long actualStars = currencyManager.fDollarsToStars(issued);
         
         if (actualStars == 0) {
             return new DepositResult(false, "amount_too_small", 0, null);
@@ -223,29 +261,24 @@ public class BankManager {
             return new DepositResult(false, "removal_failed", 0, null);
         }
         
-        // Add to reserve
-        if (!plugin.getDatabaseManager().addToReserve(actualStars)) {
+        // Reserve, ledger and log commit together
+        UUID playerId = player.getUniqueId();
+        Map<Integer, List<UUID>> serials;
+        try {
+            serials = plugin.getDatabaseManager().inTransaction(
+                unit -> recordDeposit(unit, playerId, actualStars, issued, denomBreakdown));
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Deposit failed for " + player.getName(), e);
+            serials = null;
+        }
+        if (serials == null) {
             // Rollback: return stars
             giveNetherStars(player, (int) actualStars);
             return new DepositResult(false, "reserve_failed", 0, null);
         }
         
         // Create and give F-notes
-        List<ItemStack> notes = new ArrayList<>();
-        for (Map.Entry<Integer, Integer> entry : denomBreakdown.entrySet()) {
-            notes.addAll(currencyManager.createNotes(entry.getKey(), entry.getValue(), player.getUniqueId()));
-        }
-        
-        for (ItemStack note : notes) {
-            HashMap<Integer, ItemStack> overflow = player.getInventory().addItem(note);
-            for (ItemStack overflowItem : overflow.values()) {
-                player.getWorld().dropItemNaturally(player.getLocation(), overflowItem);
-            }
-        }
-        
-        // Log transaction
-        plugin.getDatabaseManager().logTransaction("deposit", player.getUniqueId(), 
-            Math.floor(fDollars), actualStars, "Deposited " + actualStars + " stars");
+        deliverItems(player, buildNotes(serials));
         
         incrementTransactionCount(player);
         
@@ -255,7 +288,7 @@ public class BankManager {
     /**
      * Process a withdrawal
      */
-    public WithdrawalResult processWithdrawal(Player player, double fDollars) {
+    public WithdrawalResult processWithdrawal(Player player, Money fDollars) {
         if (!isAtBank(player)) {
             return new WithdrawalResult(false, "not_at_bank", 0);
         }
@@ -274,19 +307,20 @@ public class BankManager {
         
         // Check emergency mode
         if (isEmergencyModeActive()) {
-            double maxWithdrawal = plugin.getConfig().getDouble("bank.emergency_mode.max_withdrawal_per_day", 10);
-            if (fDollars > maxWithdrawal) {
-                return new WithdrawalResult(false, "emergency_limit", maxWithdrawal);
+            Money maxWithdrawal = Money.fromDouble(
+                plugin.getConfig().getDouble("bank.emergency_mode.max_withdrawal_per_day", 10));
+            if (fDollars.isGreaterThan(maxWithdrawal)) {
+                return new WithdrawalResult(false, "emergency_limit", maxWithdrawal.toDouble());
             }
         }
         
         // Count valid F-notes in inventory
         Map<Integer, Integer> notesInInventory = currencyManager.countNotesInInventory(
             player.getInventory().getContents());
-        double totalValue = currencyManager.calculateTotalValue(notesInInventory);
+        Money totalValue = currencyManager.calculateTotalValue(notesInInventory);
         
-        if (totalValue < fDollars) {
-            return new WithdrawalResult(false, "insufficient_notes", totalValue);
+        if (totalValue.isLessThan(fDollars)) {
+            return new WithdrawalResult(false, "insufficient_notes", totalValue.toDouble());
         }
         
         // Calculate stars needed
@@ -298,15 +332,30 @@ public class BankManager {
             return new WithdrawalResult(false, "insufficient_reserve", currentReserve);
         }
         
-        // Remove F-notes from inventory and redeem them
-        double notesRemoved = removeAndRedeemNotes(player, fDollars);
-        if (notesRemoved < fDollars) {
-            return new WithdrawalResult(false, "note_removal_failed", notesRemoved);
+        // Redeem F-notes, remove from reserve and log in one transaction;
+        // the notes leave the inventory once it commits
+        WithdrawalResult failure;
+        try {
+            failure = plugin.getDatabaseManager().inTransaction(unit -> {
+                Money notesRemoved = removeAndRedeemNotes(player, fDollars);
+                if (notesRemoved.isLessThan(fDollars)) {
+                    unit.setRollbackOnly();
+                    return new WithdrawalResult(false, "note_removal_failed", notesRemoved.toDouble());
+                }
+                if (!plugin.getDatabaseManager().removeFromReserve(starsNeeded)) {
+                    unit.setRollbackOnly();
+                    return new WithdrawalResult(false, "reserve_removal_failed", 0);
+                }
+                plugin.getDatabaseManager().logTransaction("withdraw", player.getUniqueId(),
+                    fDollars, starsNeeded, "Withdrew " + starsNeeded + " stars");
+                return null;
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Withdrawal failed for " + player.getName(), e);
+            failure = new WithdrawalResult(false, "reserve_removal_failed", 0);
         }
-        
-        // Remove from reserve
-        if (!plugin.getDatabaseManager().removeFromReserve(starsNeeded)) {
-            return new WithdrawalResult(false, "reserve_removal_failed", 0);
+        if (failure != null) {
+            return failure;
         }
         
         // Give Nether Stars
@@ -319,28 +368,300 @@ public class BankManager {
             // In a real implementation, this would be handled before giving stars
         }
         
-        // Log transaction
-        plugin.getDatabaseManager().logTransaction("withdraw", player.getUniqueId(), 
-            fDollars, starsNeeded, "Withdrew " + starsNeeded + " stars");
-        
         setWithdrawalCooldown(player);
         incrementTransactionCount(player);
         
         return new WithdrawalResult(true, "success", starsNeeded);
     }
 
+    // ══════════════════════════════════════════════════════════════════════
+    // Async Deposits and Withdrawals
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Deposit without blocking the server thread. Stars are taken up front
+     * and held while the reserve and ledger are updated off-thread; notes are
+     * built and handed over back on the server thread, or the stars returned
+     * if the database step fails. Must be called on the server thread.
+     */
+    public CompletableFuture<DepositResult> processDepositAsync(Player player, int starAmount) {
+        if (!isAtBank(player)) {
+            return CompletableFuture.completedFuture(new DepositResult(false, "not_at_bank", 0, null));
+        }
+        if (!checkRateLimit(player)) {
+            return CompletableFuture.completedFuture(new DepositResult(false, "rate_limited", 0, null));
+        }
+
+        CurrencyManager currencyManager = plugin.getCurrencyManager();
+        int starsPerDollar = currencyManager.getStarsPerDollar();
+        if (starAmount < starsPerDollar) {
+            return CompletableFuture.completedFuture(new DepositResult(false, "minimum_deposit", starsPerDollar, null));
+        }
+
+        int starsInInventory = countNetherStars(player.getInventory());
+        if (starsInInventory < starAmount) {
+            return CompletableFuture.completedFuture(new DepositResult(false, "insufficient_stars", starsInInventory, null));
+        }
+
+        Money fDollars = currencyManager.starsToFDollars(starAmount);
+        Map<Integer, Integer> denomBreakdown = currencyManager.calculateDenominations(fDollars);
+        Money issued = Money.ofMajor(fDollars.wholeMajor());
+        long actualStars = currencyManager.fDollarsToStars(issued);
+        if (actualStars == 0) {
+            return CompletableFuture.completedFuture(new DepositResult(false, "amount_too_small", 0, null));
+        }
+
+        UUID playerId = player.getUniqueId();
+        if (!inFlight.add(playerId)) {
+            return CompletableFuture.completedFuture(new DepositResult(false, "busy", 0, null));
+        }
+
+        // Hold the stars until the database work has finished
+        if (!removeNetherStars(player.getInventory(), (int) actualStars)) {
+            inFlight.remove(playerId);
+            return CompletableFuture.completedFuture(new DepositResult(false, "removal_failed", 0, null));
+        }
+        incrementTransactionCount(player);
+
+        var executor = plugin.getDatabaseManager().getExecutor();
+        return executor.supply(() -> {
+            try {
+                return plugin.getDatabaseManager().inTransaction(
+                    unit -> recordDeposit(unit, playerId, actualStars, issued, denomBreakdown));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).handleAsync((serials, error) -> {
+            inFlight.remove(playerId);
+            if (error != null || serials == null) {
+                if (error != null) {
+                    plugin.getLogger().log(Level.SEVERE, "Async deposit failed for " + player.getName(), error);
+                }
+                giveNetherStars(player, (int) actualStars);
+                return new DepositResult(false, "reserve_failed", 0, null);
+            }
+
+            deliverItems(player, buildNotes(serials));
+            return new DepositResult(true, "success", actualStars, denomBreakdown);
+        }, executor.mainThread());
+    }
+
+    /**
+     * Reserve update, note issue and log for a deposit, run in a unit of
+     * work. Returns the serials by denomination, or null with the unit set
+     * to roll back. A detached unit cannot roll back, so there a note that
+     * fails to record is skipped as before.
+     */
+    private Map<Integer, List<UUID>> recordDeposit(UnitOfWork unit, UUID playerId, long actualStars,
+                                                   Money issued, Map<Integer, Integer> denomBreakdown) {
+        if (!plugin.getDatabaseManager().addToReserve(actualStars)) {
+            unit.setRollbackOnly();
+            return null;
+        }
+        CurrencyManager currencyManager = plugin.getCurrencyManager();
+        Map<Integer, List<UUID>> serials = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : denomBreakdown.entrySet()) {
+            List<UUID> issuedSerials = new ArrayList<>();
+            for (int i = 0; i < entry.getValue(); i++) {
+                UUID serial = currencyManager.issueNote(entry.getKey(), playerId);
+                if (serial != null) {
+                    issuedSerials.add(serial);
+                } else if (unit.isBound()) {
+                    unit.setRollbackOnly();
+                    return null;
+                }
+            }
+            serials.put(entry.getKey(), issuedSerials);
+        }
+        plugin.getDatabaseManager().logTransaction("deposit", playerId,
+            issued, actualStars, "Deposited " + actualStars + " stars");
+        return serials;
+    }
+
+    private List<ItemStack> buildNotes(Map<Integer, List<UUID>> serials) {
+        CurrencyManager currencyManager = plugin.getCurrencyManager();
+        List<ItemStack> notes = new ArrayList<>();
+        for (Map.Entry<Integer, List<UUID>> entry : serials.entrySet()) {
+            for (UUID serial : entry.getValue()) {
+                notes.add(currencyManager.buildNote(entry.getKey(), serial));
+            }
+        }
+        return notes;
+    }
+
+    /**
+     * Withdrawal without blocking the server thread. Notes are read from the
+     * inventory here, checked against the ledger off-thread, then taken on the
+     * server thread only if they are still in place; redemption and the
+     * reserve update run off-thread before the stars are handed over.
+     * Must be called on the server thread.
+     */
+    public CompletableFuture<WithdrawalResult> processWithdrawalAsync(Player player, Money fDollars) {
+        if (!isAtBank(player)) {
+            return CompletableFuture.completedFuture(new WithdrawalResult(false, "not_at_bank", 0));
+        }
+        if (!checkRateLimit(player)) {
+            return CompletableFuture.completedFuture(new WithdrawalResult(false, "rate_limited", 0));
+        }
+        if (!checkWithdrawalCooldown(player)) {
+            return CompletableFuture.completedFuture(new WithdrawalResult(false, "cooldown", 0));
+        }
+
+        CurrencyManager currencyManager = plugin.getCurrencyManager();
+
+        // Snapshot well-formed notes by slot; the ledger check happens off-thread
+        PlayerInventory inventory = player.getInventory();
+        Map<Integer, ItemStack> snapshot = new LinkedHashMap<>();
+        Map<Integer, CurrencyManager.ValidationResult> inspected = new LinkedHashMap<>();
+        long inspectedValue = 0;
+        for (int i = 0; i < inventory.getSize(); i++) {
+            ItemStack item = inventory.getItem(i);
+            if (item == null) continue;
+            CurrencyManager.ValidationResult result = currencyManager.inspectNote(item);
+            if (result.isValid()) {
+                snapshot.put(i, item.clone());
+                inspected.put(i, result);
+                inspectedValue += result.getDenomination() * Money.MINOR_PER_MAJOR;
+            }
+        }
+        if (inspectedValue < fDollars.minor()) {
+            return CompletableFuture.completedFuture(
+                new WithdrawalResult(false, "insufficient_notes", Money.ofMinor(inspectedValue).toDouble()));
+        }
+
+        UUID playerId = player.getUniqueId();
+        if (!inFlight.add(playerId)) {
+            return CompletableFuture.completedFuture(new WithdrawalResult(false, "busy", 0));
+        }
+
+        long starsNeeded = currencyManager.fDollarsToStars(fDollars);
+        var executor = plugin.getDatabaseManager().getExecutor();
+        // Notes taken from the inventory and not yet spent by a committed redemption
+        List<ItemStack> returned = new ArrayList<>();
+
+        CompletableFuture<WithdrawalResult> result = executor.supply(() -> {
+            // Emergency limit and ledger check
+            if (isEmergencyModeActive()) {
+                Money maxWithdrawal = Money.fromDouble(
+                    plugin.getConfig().getDouble("bank.emergency_mode.max_withdrawal_per_day", 10));
+                if (fDollars.isGreaterThan(maxWithdrawal)) {
+                    return new WithdrawalPlan(new WithdrawalResult(false, "emergency_limit", maxWithdrawal.toDouble()));
+                }
+            }
+
+            Map<Integer, CurrencyManager.ValidationResult> chosen = new LinkedHashMap<>();
+            long validValue = 0;
+            for (Map.Entry<Integer, CurrencyManager.ValidationResult> entry : inspected.entrySet()) {
+                if (validValue >= fDollars.minor()) break;
+                CurrencyManager.ValidationResult verified = currencyManager.verifyNote(entry.getValue());
+                if (verified.isValid()) {
+                    chosen.put(entry.getKey(), verified);
+                    validValue += verified.getDenomination() * Money.MINOR_PER_MAJOR;
+                }
+            }
+            if (validValue < fDollars.minor()) {
+                return new WithdrawalPlan(new WithdrawalResult(false, "insufficient_notes", Money.ofMinor(validValue).toDouble()));
+            }
+
+            long currentReserve = plugin.getDatabaseManager().getReserve();
+            if (currentReserve < starsNeeded) {
+                return new WithdrawalPlan(new WithdrawalResult(false, "insufficient_reserve", currentReserve));
+            }
+            return new WithdrawalPlan(chosen);
+        }).thenApplyAsync(plan -> {
+            if (plan.failure != null) {
+                return plan;
+            }
+            // Take the chosen notes, provided the inventory has not changed meanwhile
+            for (int slot : plan.notes.keySet()) {
+                ItemStack current = inventory.getItem(slot);
+                if (current == null || !current.isSimilar(snapshot.get(slot))) {
+                    return new WithdrawalPlan(new WithdrawalResult(false, "note_removal_failed", 0));
+                }
+            }
+            for (int slot : plan.notes.keySet()) {
+                inventory.setItem(slot, null);
+                // Handed back unless the redemption commits
+                returned.add(snapshot.get(slot));
+            }
+            return plan;
+        }, executor.mainThread()).thenCompose(plan -> {
+            if (plan.failure != null) {
+                return CompletableFuture.completedFuture(plan.failure);
+            }
+            return executor.supply(() -> redeemForWithdrawal(plan, playerId, fDollars, starsNeeded, returned));
+        });
+
+        return result.handleAsync((withdrawal, error) -> {
+            inFlight.remove(playerId);
+            // Whatever was not spent is still circulating; hand it back
+            deliverItems(player, returned);
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "Async withdrawal failed for " + player.getName(), error);
+                return new WithdrawalResult(false, "reserve_removal_failed", 0);
+            }
+            if (withdrawal.isSuccess()) {
+                giveNetherStars(player, (int) starsNeeded);
+                setWithdrawalCooldown(player);
+                incrementTransactionCount(player);
+            }
+            return withdrawal;
+        }, executor.mainThread());
+    }
+
+    /**
+     * Redeem the taken notes, remove the stars from the reserve and log the
+     * withdrawal in one unit of work. Once it commits the notes are spent
+     * and no longer handed back.
+     */
+    private WithdrawalResult redeemForWithdrawal(WithdrawalPlan plan, UUID playerId, Money fDollars,
+                                                 long starsNeeded, List<ItemStack> returned) {
+        try {
+            return plugin.getDatabaseManager().inTransaction(unit -> {
+                long redeemed = 0;
+                for (CurrencyManager.ValidationResult note : plan.notes.values()) {
+                    if (plugin.getDatabaseManager().redeemNote(note.getSerial(), playerId)) {
+                        redeemed += note.getDenomination() * Money.MINOR_PER_MAJOR;
+                    }
+                }
+                if (redeemed < fDollars.minor()) {
+                    unit.setRollbackOnly();
+                    return new WithdrawalResult(false, "note_removal_failed", Money.ofMinor(redeemed).toDouble());
+                }
+                if (!plugin.getDatabaseManager().removeFromReserve(starsNeeded)) {
+                    unit.setRollbackOnly();
+                    return new WithdrawalResult(false, "reserve_removal_failed", 0);
+                }
+                plugin.getDatabaseManager().logTransaction("withdraw", playerId,
+                    fDollars, starsNeeded, "Withdrew " + starsNeeded + " stars");
+                UnitOfWork.afterCommit(returned::clear);
+                return new WithdrawalResult(true, "success", starsNeeded);
+            });
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    public CompletableFuture<Boolean> addToWithdrawalQueueAsync(Player player, Money amount) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> addToWithdrawalQueue(player, amount));
+    }
+
+    public CompletableFuture<Boolean> removeFromQueueAsync(UUID playerUUID) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> removeFromQueue(playerUUID));
+    }
+
     /**
      * Add a player to the withdrawal queue
      */
-    public boolean addToWithdrawalQueue(Player player, double amount) {
+    public boolean addToWithdrawalQueue(Player player, Money amount) {
         WithdrawalRequest request = new WithdrawalRequest(player.getUniqueId(), amount);
         withdrawalQueue.add(request);
         
         String sql = "INSERT INTO withdrawal_queue (player, amount) VALUES (?, ?)";
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, player.getUniqueId().toString());
-            ps.setDouble(2, amount);
+            plugin.getDatabaseManager().setUuid(ps, 1, player.getUniqueId());
+            ps.setLong(2, amount.minor());
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to add to withdrawal queue", e);
@@ -402,7 +723,7 @@ public class BankManager {
         String sql = "DELETE FROM withdrawal_queue WHERE player = ? AND processed = 0";
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, playerUUID.toString());
+            plugin.getDatabaseManager().setUuid(ps, 1, playerUUID);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to remove from queue", e);
@@ -430,12 +751,16 @@ public class BankManager {
             totalCirculating += count * denom;
         }
         
-        long starsNeededForFull = cm.fDollarsToStars(totalCirculating);
+        long starsNeededForFull = cm.fDollarsToStars(Money.ofMajor(totalCirculating));
         double reserveRatio = starsNeededForFull > 0 ? (double) reserve / starsNeededForFull : 1.0;
         
         return new ReserveStats(reserve, totalCirculating, circulatingByDenom, reserveRatio);
     }
 
+    public CompletableFuture<ReserveStats> getReserveStatsAsync() {
+        return plugin.getDatabaseManager().getExecutor().supply(this::getReserveStats);
+    }
+
     /**
      * Check if emergency mode is active
      */
@@ -444,8 +769,18 @@ public class BankManager {
             return false;
         }
         
+        return isEmergencyModeActive(getReserveStats());
+    }
+
+    /**
+     * Check emergency mode against already-fetched reserve statistics
+     */
+    public boolean isEmergencyModeActive(ReserveStats stats) {
+        if (!plugin.getConfig().getBoolean("bank.emergency_mode.enabled", true)) {
+            return false;
+        }
+        
         double criticalRatio = plugin.getConfig().getDouble("bank.reserve_ratio_critical", 0.05);
-        ReserveStats stats = getReserveStats();
         return stats.getReserveRatio() < criticalRatio;
     }
 
@@ -474,17 +809,15 @@ public class BankManager {
      * Get circulating currency counts by denomination
      */
     public Map<Integer, Integer> getCirculatingByDenomination() {
-        Map<Integer, Integer> counts = new HashMap<>();
+        Map<Integer, Integer> counts = new TreeMap<>();
         String sql = "SELECT denomination, COUNT(*) as count FROM currency_ledger " +
                      "WHERE status = 'circulating' GROUP BY denomination";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            
-            while (rs.next()) {
+        try {
+            plugin.getDatabaseManager().getStreaming().forEach(sql, StreamingQuery.Binder.NONE, rs -> {
                 counts.put(rs.getInt("denomination"), rs.getInt("count"));
-            }
+                return true;
+            });
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to get circulating by denomination", e);
         }
@@ -492,6 +825,10 @@ public class BankManager {
         return counts;
     }
 
+    public CompletableFuture<Map<Integer, Integer>> getCirculatingByDenominationAsync() {
+        return plugin.getDatabaseManager().getExecutor().supply(this::getCirculatingByDenomination);
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     // Helper Methods
     // ══════════════════════════════════════════════════════════════════════
@@ -524,28 +861,45 @@ public class BankManager {
     }
 
     private void giveNetherStars(Player player, int amount) {
+        List<ItemStack> stacks = new ArrayList<>();
         int remaining = amount;
         while (remaining > 0) {
             int stackSize = Math.min(remaining, 64);
-            ItemStack stars = new ItemStack(Material.NETHER_STAR, stackSize);
-            HashMap<Integer, ItemStack> overflow = player.getInventory().addItem(stars);
-            for (ItemStack item : overflow.values()) {
+            stacks.add(new ItemStack(Material.NETHER_STAR, stackSize));
+            remaining -= stackSize;
+        }
+        deliverItems(player, stacks);
+    }
+
+    /**
+     * Give items to a player, dropping overflow at their feet. Players who
+     * logged out while an async operation was in flight get the items
+     * dropped where they left.
+     */
+    private void deliverItems(Player player, List<ItemStack> items) {
+        for (ItemStack item : items) {
+            if (!player.isOnline()) {
                 player.getWorld().dropItemNaturally(player.getLocation(), item);
+                continue;
+            }
+            HashMap<Integer, ItemStack> overflow = player.getInventory().addItem(item);
+            for (ItemStack overflowItem : overflow.values()) {
+                player.getWorld().dropItemNaturally(player.getLocation(), overflowItem);
             }
-            remaining -= stackSize;
         }
     }
 
-    private double removeAndRedeemNotes(Player player, double amountNeeded) {
+    private Money removeAndRedeemNotes(Player player, Money amountNeeded) {
         CurrencyManager cm = plugin.getCurrencyManager();
-        double removed = 0;
+        long needed = amountNeeded.minor();
+        long removed = 0;
         PlayerInventory inventory = player.getInventory();
         
         // Sort denominations descending for optimal removal
         List<Integer> sortedDenoms = new ArrayList<>(cm.getDenominations());
         sortedDenoms.sort(Collections.reverseOrder());
         
-        for (int i = 0; i < inventory.getSize() && removed < amountNeeded; i++) {
+        for (int i = 0; i < inventory.getSize() && removed < needed; i++) {
             ItemStack item = inventory.getItem(i);
             if (item == null) continue;
             
@@ -553,13 +907,15 @@ public class BankManager {
             if (result.isValid()) {
                 // Redeem this note
                 if (plugin.getDatabaseManager().redeemNote(result.getSerial(), player.getUniqueId())) {
-                    removed += result.getDenomination();
-                    inventory.setItem(i, null);
+                    removed += result.getDenomination() * Money.MINOR_PER_MAJOR;
+                    int slot = i;
+                    // Taken only if the caller's unit of work commits
+                    UnitOfWork.afterCommit(() -> inventory.setItem(slot, null));
                 }
             }
         }
         
-        return removed;
+        return Money.ofMinor(removed);
     }
 
     private boolean checkRateLimit(Player player) {
@@ -588,7 +944,7 @@ public class BankManager {
         String sql = "UPDATE withdrawal_queue SET processed = 1 WHERE player = ?";
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, playerUUID.toString());
+            plugin.getDatabaseManager().setUuid(ps, 1, playerUUID);
             ps.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to mark queue request processed", e);
@@ -671,19 +1027,37 @@ public class BankManager {
         public double getReserveRatio() { return reserveRatio; }
     }
 
+    /**
+     * Notes chosen for an async withdrawal by slot, or the reason it stopped
+     */
+    private static class WithdrawalPlan {
+        private final Map<Integer, CurrencyManager.ValidationResult> notes;
+        private final WithdrawalResult failure;
+
+        WithdrawalPlan(Map<Integer, CurrencyManager.ValidationResult> notes) {
+            this.notes = notes;
+            this.failure = null;
+        }
+
+        WithdrawalPlan(WithdrawalResult failure) {
+            this.notes = Collections.emptyMap();
+            this.failure = failure;
+        }
+    }
+
     private static class WithdrawalRequest {
         private final UUID playerUUID;
-        private final double amount;
+        private final Money amount;
         private final long requestTime;
 
-        public WithdrawalRequest(UUID playerUUID, double amount) {
+        public WithdrawalRequest(UUID playerUUID, Money amount) {
             this.playerUUID = playerUUID;
             this.amount = amount;
             this.requestTime = System.currentTimeMillis();
         }
 
         public UUID getPlayerUUID() { return playerUUID; }
-        public double getAmount() { return amount; }
+        public Money getAmount() { return amount; }
         public long getRequestTime() { return requestTime; }
     }
 }
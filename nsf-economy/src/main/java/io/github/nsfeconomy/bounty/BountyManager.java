@@ -1,11 +1,15 @@
 package io.github.nsfeconomy.bounty;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+import io.github.nsfeconomy.database.ChangeOutbox;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
@@ -22,19 +26,21 @@ public class BountyManager {
     /**
      * Create a new bounty
      */
-    public int createBounty(String description, double reward, UUID createdBy, Timestamp deadline) {
+    public int createBounty(String description, Money reward, UUID createdBy, Timestamp deadline) {
         String sql = "INSERT INTO bounties (description, reward, created_by, deadline) VALUES (?, ?, ?, ?)";
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, description);
-            ps.setDouble(2, reward);
-            ps.setString(3, createdBy.toString());
+            ps.setLong(2, reward.minor());
+            plugin.getDatabaseManager().setUuid(ps, 3, createdBy);
             ps.setTimestamp(4, deadline);
             
             if (ps.executeUpdate() > 0) {
                 try (ResultSet rs = ps.getGeneratedKeys()) {
                     if (rs.next()) {
-                        return rs.getInt(1);
+                        int id = rs.getInt(1);
+                        plugin.getDatabaseManager().getChangeOutbox().publish(conn, ChangeOutbox.TOPIC_BOUNTY, Integer.toString(id));
+                        return id;
                     }
                 }
             }
@@ -51,7 +57,7 @@ public class BountyManager {
         List<Bounty> bounties = new ArrayList<>();
         String sql = "SELECT * FROM bounties WHERE status = 'open' ORDER BY created_at DESC";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReplicaConnection(ChangeOutbox.TOPIC_BOUNTY, null);
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -68,7 +74,7 @@ public class BountyManager {
      */
     public Bounty getBounty(int id) {
         String sql = "SELECT * FROM bounties WHERE id = ?";
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -89,9 +95,10 @@ public class BountyManager {
         String sql = "UPDATE bounties SET status = 'claimed', claimed_by = ? WHERE id = ? AND status = 'open'";
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(ps, 1, playerId);
             ps.setInt(2, bountyId);
-            return ps.executeUpdate() > 0;
+            return plugin.getDatabaseManager().getChangeOutbox().publishIfChanged(conn, ps.executeUpdate(),
+                ChangeOutbox.TOPIC_BOUNTY, Integer.toString(bountyId));
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to claim bounty", e);
             return false;
@@ -106,8 +113,9 @@ public class BountyManager {
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, bountyId);
-            ps.setString(2, playerId.toString());
-            return ps.executeUpdate() > 0;
+            plugin.getDatabaseManager().setUuid(ps, 2, playerId);
+            return plugin.getDatabaseManager().getChangeOutbox().publishIfChanged(conn, ps.executeUpdate(),
+                ChangeOutbox.TOPIC_BOUNTY, Integer.toString(bountyId));
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to submit bounty", e);
             return false;
@@ -122,7 +130,8 @@ public class BountyManager {
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, bountyId);
-            return ps.executeUpdate() > 0;
+            return plugin.getDatabaseManager().getChangeOutbox().publishIfChanged(conn, ps.executeUpdate(),
+                ChangeOutbox.TOPIC_BOUNTY, Integer.toString(bountyId));
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to approve bounty", e);
             return false;
@@ -137,7 +146,8 @@ public class BountyManager {
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, bountyId);
-            return ps.executeUpdate() > 0;
+            return plugin.getDatabaseManager().getChangeOutbox().publishIfChanged(conn, ps.executeUpdate(),
+                ChangeOutbox.TOPIC_BOUNTY, Integer.toString(bountyId));
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to cancel bounty", e);
             return false;
@@ -151,9 +161,9 @@ public class BountyManager {
         List<Bounty> bounties = new ArrayList<>();
         String sql = "SELECT * FROM bounties WHERE claimed_by = ? AND status IN ('claimed', 'submitted') ORDER BY created_at DESC";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(ps, 1, playerId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     bounties.add(bountyFromResultSet(rs));
@@ -165,15 +175,65 @@ public class BountyManager {
         return bounties;
     }
 
+    /**
+     * Stream bounties newest first without loading them all, optionally
+     * filtered by status. Returns the number of bounties passed on, or -1
+     * if the query failed.
+     */
+    public long forEachBounty(String status, Consumer<Bounty> action) {
+        String sql = "SELECT * FROM bounties" + (status != null ? " WHERE status = ?" : "") + " ORDER BY created_at DESC";
+        try {
+            return plugin.getDatabaseManager().getStreaming().forEach(sql, ps -> {
+                if (status != null) {
+                    ps.setString(1, status);
+                }
+            }, this::bountyFromResultSet, action);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to stream bounties", e);
+            return -1;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Async API
+    // ══════════════════════════════════════════════════════════════════════
+
+    public CompletableFuture<List<Bounty>> getOpenBountiesAsync() {
+        return plugin.getDatabaseManager().getExecutor().supply(this::getOpenBounties);
+    }
+
+    public CompletableFuture<Bounty> getBountyAsync(int id) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> getBounty(id));
+    }
+
+    public CompletableFuture<List<Bounty>> getPlayerBountiesAsync(UUID playerId) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> getPlayerBounties(playerId));
+    }
+
+    public CompletableFuture<Boolean> claimBountyAsync(int bountyId, UUID playerId) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> claimBounty(bountyId, playerId));
+    }
+
+    public CompletableFuture<Boolean> submitBountyAsync(int bountyId, UUID playerId) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> submitBounty(bountyId, playerId));
+    }
+
+    public CompletableFuture<Boolean> approveBountyAsync(int bountyId) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> approveBounty(bountyId));
+    }
+
+    public CompletableFuture<Boolean> cancelBountyAsync(int bountyId) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> cancelBounty(bountyId));
+    }
+
     private Bounty bountyFromResultSet(ResultSet rs) throws SQLException {
-        String claimedByStr = rs.getString("claimed_by");
         return new Bounty(
             rs.getInt("id"),
             rs.getString("description"),
-            rs.getDouble("reward"),
+            Money.ofMinor(rs.getLong("reward")),
             rs.getString("status"),
-            UUID.fromString(rs.getString("created_by")),
-            claimedByStr != null ? UUID.fromString(claimedByStr) : null,
+            plugin.getDatabaseManager().getUuid(rs, "created_by"),
+            plugin.getDatabaseManager().getUuid(rs, "claimed_by"),
             rs.getTimestamp("deadline"),
             rs.getTimestamp("created_at")
         );
@@ -185,14 +245,14 @@ public class BountyManager {
     public static class Bounty {
         private final int id;
         private final String description;
-        private final double reward;
+        private final Money reward;
         private final String status;
         private final UUID createdBy;
         private final UUID claimedBy;
         private final Timestamp deadline;
         private final Timestamp createdAt;
 
-        public Bounty(int id, String description, double reward, String status,
+        public Bounty(int id, String description, Money reward, String status,
                      UUID createdBy, UUID claimedBy, Timestamp deadline, Timestamp createdAt) {
             this.id = id;
             this.description = description;
@@ -206,7 +266,7 @@ public class BountyManager {
 
         public int getId() { return id; }
         public String getDescription() { return description; }
-        public double getReward() { return reward; }
+        public Money getReward() { return reward; }
         public String getStatus() { return status; }
         public UUID getCreatedBy() { return createdBy; }
         public UUID getClaimedBy() { return claimedBy; }
@@ -2,8 +2,8 @@ package io.github.nsfeconomy.commands;
 
 import io.github.nsfeconomy.NSFEconomy;
 import io.github.nsfeconomy.bank.BankLocation;
-import io.github.nsfeconomy.bank.BankManager;
 import io.github.nsfeconomy.currency.CurrencyManager;
+import io.github.nsfeconomy.currency.Money;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -90,24 +90,26 @@ public class BankCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        BankManager.DepositResult result = plugin.getBankManager().processDeposit(player, starAmount);
+        var depositFuture = plugin.getBankManager().processDepositAsync(player, starAmount);
 
-        if (result.isSuccess()) {
-            // Format the notes issued
-            StringBuilder notes = new StringBuilder();
-            CurrencyManager cm = plugin.getCurrencyManager();
-            for (Map.Entry<Integer, Integer> entry : result.getNotesIssued().entrySet()) {
-                if (!notes.isEmpty()) notes.append(", ");
-                notes.append(entry.getValue()).append("x ").append(cm.getCurrencySymbol()).append(entry.getKey());
-            }
+        plugin.getDatabaseManager().getExecutor().sync(depositFuture, result -> {
+            if (result.isSuccess()) {
+                // Format the notes issued
+                StringBuilder notes = new StringBuilder();
+                CurrencyManager cm = plugin.getCurrencyManager();
+                for (Map.Entry<Integer, Integer> entry : result.getNotesIssued().entrySet()) {
+                    if (!notes.isEmpty()) notes.append(", ");
+                    notes.append(entry.getValue()).append("x ").append(cm.getCurrencySymbol()).append(entry.getKey());
+                }
             
-            String message = plugin.getRawMessage("deposit_success")
-                .replace("{stars}", String.valueOf(result.getStarsUsed()))
-                .replace("{notes}", notes.toString());
-            sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + message));
-        } else {
-            handleDepositError(player, result.getReason(), result.getStarsUsed());
-        }
+                String message = plugin.getRawMessage("deposit_success")
+                    .replace("{stars}", String.valueOf(result.getStarsUsed()))
+                    .replace("{notes}", notes.toString());
+                sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + message));
+            } else {
+                handleDepositError(player, result.getReason(), result.getStarsUsed());
+            }
+        });
     }
 
     private void handleDepositError(Player player, String reason, long value) {
@@ -119,6 +121,7 @@ public class BankCommand implements CommandExecutor, TabCompleter {
                 plugin.getCurrencyManager().getCurrencySymbol() + "1)."));
             case "insufficient_stars" -> player.sendMessage(plugin.getMessage("error_insufficient_stars"));
             case "amount_too_small" -> player.sendMessage(plugin.colorize("&cAmount too small for any F-notes."));
+            case "busy" -> player.sendMessage(plugin.colorize("&cYour previous bank transaction is still processing."));
             default -> player.sendMessage(plugin.getMessage("error_generic"));
         }
     }
@@ -139,10 +142,10 @@ public class BankCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        double amount;
+        Money amount;
         try {
-            amount = Double.parseDouble(args[1].replace(plugin.getCurrencyManager().getCurrencySymbol(), ""));
-            if (amount <= 0) throw new NumberFormatException();
+            amount = Money.fromDouble(Double.parseDouble(args[1].replace(plugin.getCurrencyManager().getCurrencySymbol(), "")));
+            if (!amount.isPositive()) throw new NumberFormatException();
         } catch (NumberFormatException e) {
             sender.sendMessage(plugin.getMessage("error_invalid_amount"));
             return;
@@ -150,22 +153,25 @@ public class BankCommand implements CommandExecutor, TabCompleter {
 
         boolean useQueue = args.length >= 3 && "--queue".equalsIgnoreCase(args[2]);
 
-        BankManager.WithdrawalResult result = plugin.getBankManager().processWithdrawal(player, amount);
+        var withdrawalFuture = plugin.getBankManager().processWithdrawalAsync(player, amount);
 
-        if (result.isSuccess()) {
-            String message = plugin.getRawMessage("withdraw_success")
-                .replace("{stars}", String.valueOf((long) result.getValue()));
-            sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + message));
-        } else {
-            handleWithdrawError(player, result.getReason(), result.getValue(), amount, useQueue);
-        }
+        plugin.getDatabaseManager().getExecutor().sync(withdrawalFuture, result -> {
+            if (result.isSuccess()) {
+                String message = plugin.getRawMessage("withdraw_success")
+                    .replace("{stars}", String.valueOf((long) result.getValue()));
+                sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + message));
+            } else {
+                handleWithdrawError(player, result.getReason(), result.getValue(), amount, useQueue);
+            }
+        });
     }
 
-    private void handleWithdrawError(Player player, String reason, double value, double requestedAmount, boolean useQueue) {
+    private void handleWithdrawError(Player player, String reason, double value, Money requestedAmount, boolean useQueue) {
         switch (reason) {
             case "not_at_bank" -> player.sendMessage(plugin.getMessage("not_at_bank"));
             case "rate_limited" -> player.sendMessage(plugin.colorize("&cYou're doing that too fast. Please wait."));
             case "cooldown" -> player.sendMessage(plugin.colorize("&cYou must wait before withdrawing again."));
+            case "busy" -> player.sendMessage(plugin.colorize("&cYour previous bank transaction is still processing."));
             case "emergency_limit" -> player.sendMessage(plugin.colorize(
                 "&cEmergency mode active. Maximum withdrawal: " + 
                 plugin.getCurrencyManager().formatCurrency(value)));
@@ -173,11 +179,14 @@ public class BankCommand implements CommandExecutor, TabCompleter {
             case "insufficient_reserve" -> {
                 player.sendMessage(plugin.getMessage("withdraw_insufficient_reserve"));
                 if (useQueue && player.hasPermission("nsf.bank.queue")) {
-                    if (plugin.getBankManager().addToWithdrawalQueue(player, requestedAmount)) {
-                        int position = plugin.getBankManager().getQueuePosition(player.getUniqueId());
-                        String msg = plugin.getRawMessage("queue_joined").replace("{position}", String.valueOf(position));
-                        player.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + msg));
-                    }
+                    var queueFuture = plugin.getBankManager().addToWithdrawalQueueAsync(player, requestedAmount);
+                    plugin.getDatabaseManager().getExecutor().sync(queueFuture, queued -> {
+                        if (queued) {
+                            int position = plugin.getBankManager().getQueuePosition(player.getUniqueId());
+                            String msg = plugin.getRawMessage("queue_joined").replace("{position}", String.valueOf(position));
+                            player.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + msg));
+                        }
+                    });
                 } else {
                     player.sendMessage(plugin.colorize("&7Tip: Use --queue to join the withdrawal queue."));
                 }
@@ -257,7 +266,7 @@ public class BankCommand implements CommandExecutor, TabCompleter {
 
         CurrencyManager cm = plugin.getCurrencyManager();
         Map<Integer, Integer> notes = cm.countNotesInInventory(player.getInventory().getContents());
-        double totalValue = cm.calculateTotalValue(notes);
+        Money totalValue = cm.calculateTotalValue(notes);
 
         sender.sendMessage(plugin.colorize("&6══════ &lYour F-Note Balance &r&6══════"));
         
@@ -290,11 +299,14 @@ public class BankCommand implements CommandExecutor, TabCompleter {
         }
 
         if (args.length >= 2 && "leave".equalsIgnoreCase(args[1])) {
-            if (plugin.getBankManager().removeFromQueue(player.getUniqueId())) {
-                sender.sendMessage(plugin.getMessage("queue_left"));
-            } else {
-                sender.sendMessage(plugin.colorize("&cYou're not in the withdrawal queue."));
-            }
+            var leaveFuture = plugin.getBankManager().removeFromQueueAsync(player.getUniqueId());
+            plugin.getDatabaseManager().getExecutor().sync(leaveFuture, removed -> {
+                if (removed) {
+                    sender.sendMessage(plugin.getMessage("queue_left"));
+                } else {
+                    sender.sendMessage(plugin.colorize("&cYou're not in the withdrawal queue."));
+                }
+            });
             return;
         }
 
@@ -419,32 +431,35 @@ public class BankCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        BankManager.ReserveStats stats = plugin.getBankManager().getReserveStats();
-        CurrencyManager cm = plugin.getCurrencyManager();
+        var statsFuture = plugin.getBankManager().getReserveStatsAsync();
 
-        sender.sendMessage(plugin.colorize("&6══════ &lReserve Status &r&6══════"));
-        sender.sendMessage(plugin.colorize("  &fNether Stars in Vault: &a" + String.format("%,d", stats.getReserveStars())));
-        sender.sendMessage(plugin.colorize("  &fTotal " + cm.getCurrencySymbol() + " Circulating: &e" + 
-            cm.formatCurrency(stats.getTotalCirculating())));
-        sender.sendMessage(plugin.colorize("  &fCirculating by denomination:"));
+        plugin.getDatabaseManager().getExecutor().sync(statsFuture, stats -> {
+            CurrencyManager cm = plugin.getCurrencyManager();
+
+            sender.sendMessage(plugin.colorize("&6══════ &lReserve Status &r&6══════"));
+            sender.sendMessage(plugin.colorize("  &fNether Stars in Vault: &a" + String.format("%,d", stats.getReserveStars())));
+            sender.sendMessage(plugin.colorize("  &fTotal " + cm.getCurrencySymbol() + " Circulating: &e" + 
+                cm.formatCurrency(stats.getTotalCirculating())));
+            sender.sendMessage(plugin.colorize("  &fCirculating by denomination:"));
         
-        for (Map.Entry<Integer, Long> entry : stats.getCirculatingByDenom().entrySet()) {
-            if (entry.getValue() > 0) {
-                sender.sendMessage(plugin.colorize("    &7" + cm.getCurrencySymbol() + entry.getKey() + 
-                    ": &f" + String.format("%,d", entry.getValue()) + " notes"));
+            for (Map.Entry<Integer, Long> entry : stats.getCirculatingByDenom().entrySet()) {
+                if (entry.getValue() > 0) {
+                    sender.sendMessage(plugin.colorize("    &7" + cm.getCurrencySymbol() + entry.getKey() + 
+                        ": &f" + String.format("%,d", entry.getValue()) + " notes"));
+                }
             }
-        }
         
-        String ratioColor = stats.getReserveRatio() < 0.05 ? "&c" : 
-                           stats.getReserveRatio() < 0.10 ? "&e" : "&a";
-        sender.sendMessage(plugin.colorize("  &fReserve Ratio: " + ratioColor + 
-            String.format("%.2f%%", stats.getReserveRatio() * 100)));
+            String ratioColor = stats.getReserveRatio() < 0.05 ? "&c" : 
+                               stats.getReserveRatio() < 0.10 ? "&e" : "&a";
+            sender.sendMessage(plugin.colorize("  &fReserve Ratio: " + ratioColor + 
+                String.format("%.2f%%", stats.getReserveRatio() * 100)));
         
-        if (plugin.getBankManager().isEmergencyModeActive()) {
-            sender.sendMessage(plugin.colorize("  &c&l⚠ EMERGENCY MODE ACTIVE"));
-        }
+            if (plugin.getBankManager().isEmergencyModeActive(stats)) {
+                sender.sendMessage(plugin.colorize("  &c&l⚠ EMERGENCY MODE ACTIVE"));
+            }
         
-        sender.sendMessage(plugin.colorize("&6══════════════════════════════"));
+            sender.sendMessage(plugin.colorize("&6══════════════════════════════"));
+        });
     }
 
     private void handleMint(CommandSender sender, String[] args) {
@@ -492,32 +507,43 @@ public class BankCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        // Create the notes
-        List<ItemStack> notes = cm.createNotes(denomination, quantity, targetPlayer.getUniqueId());
-        
-        // Give to player
-        for (ItemStack note : notes) {
-            HashMap<Integer, ItemStack> overflow = targetPlayer.getInventory().addItem(note);
-            for (ItemStack item : overflow.values()) {
-                targetPlayer.getWorld().dropItemNaturally(targetPlayer.getLocation(), item);
+        // Record the serials off-thread, then build and hand over the notes
+        Player recipient = targetPlayer;
+        UUID minter = sender instanceof Player ? ((Player) sender).getUniqueId() : UUID.fromString("00000000-0000-0000-0000-000000000000");
+        var mintFuture = plugin.getDatabaseManager().getExecutor().supply(() -> {
+            List<UUID> serials = new ArrayList<>();
+            for (int i = 0; i < quantity; i++) {
+                UUID serial = cm.issueNote(denomination, recipient.getUniqueId());
+                if (serial != null) {
+                    serials.add(serial);
+                }
+            }
+            plugin.getDatabaseManager().logTransaction("mint", minter,
+                Money.ofMajor((long) denomination * serials.size()), 0,
+                "Admin mint: " + serials.size() + "x " + cm.getCurrencySymbol() + denomination + " to " + recipient.getName());
+            return serials;
+        });
+
+        plugin.getDatabaseManager().getExecutor().sync(mintFuture, serials -> {
+            // Give to player
+            for (UUID serial : serials) {
+                ItemStack note = cm.buildNote(denomination, serial);
+                HashMap<Integer, ItemStack> overflow = recipient.getInventory().addItem(note);
+                for (ItemStack item : overflow.values()) {
+                    recipient.getWorld().dropItemNaturally(recipient.getLocation(), item);
+                }
             }
-        }
 
-        // Log transaction
-        plugin.getDatabaseManager().logTransaction("mint", 
-            sender instanceof Player ? ((Player) sender).getUniqueId() : UUID.fromString("00000000-0000-0000-0000-000000000000"),
-            denomination * quantity, 0,
-            "Admin mint: " + quantity + "x " + cm.getCurrencySymbol() + denomination + " to " + targetPlayer.getName());
+            String message = plugin.getRawMessage("admin_mint_success")
+                .replace("{amount}", String.valueOf(serials.size()))
+                .replace("{denomination}", String.valueOf(denomination));
+            sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + message));
 
-        String message = plugin.getRawMessage("admin_mint_success")
-            .replace("{amount}", String.valueOf(quantity))
-            .replace("{denomination}", String.valueOf(denomination));
-        sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + message));
-        
-        if (targetPlayer != sender) {
-            targetPlayer.sendMessage(plugin.colorize("&aYou received " + quantity + "x " + 
-                cm.getCurrencySymbol() + denomination + " notes from an admin."));
-        }
+            if (recipient != sender) {
+                recipient.sendMessage(plugin.colorize("&aYou received " + serials.size() + "x " +
+                    cm.getCurrencySymbol() + denomination + " notes from an admin."));
+            }
+        });
     }
 
     private void handleDestroy(CommandSender sender, String[] args) {
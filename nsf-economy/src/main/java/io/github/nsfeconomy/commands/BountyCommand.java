@@ -70,13 +70,17 @@ public class BountyCommand implements CommandExecutor, TabCompleter {
                 }
                 bounties = bountyManager.getPlayerBounties(player.getUniqueId());
             }
-            case "claimed" -> bounties = bountyManager.getBountiesByStatus("claimed");
+            case "claimed" -> {
+                streamBounties(sender, "claimed");
+                return;
+            }
             case "all" -> {
                 if (!sender.hasPermission("nsf.admin.bounty")) {
                     sender.sendMessage(plugin.getMessage("error_no_permission"));
                     return;
                 }
-                bounties = bountyManager.getAllBounties();
+                streamBounties(sender, null);
+                return;
             }
             default -> {
                 sender.sendMessage(plugin.colorize("&cInvalid filter. Use: open, my, claimed, all"));
@@ -91,15 +95,45 @@ public class BountyCommand implements CommandExecutor, TabCompleter {
 
         sender.sendMessage(plugin.colorize("&6══════ &lBounty Board &r&6══════"));
         for (Bounty bounty : bounties) {
-            String status = getStatusColor(bounty.getStatus()) + bounty.getStatus();
-            sender.sendMessage(plugin.colorize(String.format(
-                "&7[#%d] &f%s &7- &e%s &7(%s&7)",
-                bounty.getId(),
-                truncate(bounty.getDescription(), 30),
-                plugin.getCurrencyManager().formatCurrency(bounty.getReward()),
-                status
-            )));
+            sendBountyLine(sender, bounty);
+        }
+        sendBountyFooter(sender);
+    }
+
+    /**
+     * List bounties straight from the database cursor; the full board can be
+     * much larger than the open set, so it is never collected into a list
+     */
+    private void streamBounties(CommandSender sender, String status) {
+        long[] shown = {0};
+        long count = plugin.getBountyManager().forEachBounty(status, bounty -> {
+            if (shown[0]++ == 0) {
+                sender.sendMessage(plugin.colorize("&6══════ &lBounty Board &r&6══════"));
+            }
+            sendBountyLine(sender, bounty);
+        });
+
+        if (count < 0) {
+            sender.sendMessage(plugin.colorize("&cFailed to load bounties, see console for details."));
+        } else if (count == 0) {
+            sender.sendMessage(plugin.colorize("&7No bounties found."));
+        } else {
+            sendBountyFooter(sender);
         }
+    }
+
+    private void sendBountyLine(CommandSender sender, Bounty bounty) {
+        String status = getStatusColor(bounty.getStatus()) + bounty.getStatus();
+        sender.sendMessage(plugin.colorize(String.format(
+            "&7[#%d] &f%s &7- &e%s &7(%s&7)",
+            bounty.getId(),
+            truncate(bounty.getDescription(), 30),
+            plugin.getCurrencyManager().formatCurrency(bounty.getReward()),
+            status
+        )));
+    }
+
+    private void sendBountyFooter(CommandSender sender) {
         sender.sendMessage(plugin.colorize("&6══════════════════════════════"));
         sender.sendMessage(plugin.colorize("&7Use &e/bounty info <id> &7for details."));
     }
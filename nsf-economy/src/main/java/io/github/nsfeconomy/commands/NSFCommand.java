@@ -1,14 +1,38 @@
 package io.github.nsfeconomy.commands;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
 import io.github.nsfeconomy.bank.BankLocation;
+import io.github.nsfeconomy.database.BinaryJournal;
+import io.github.nsfeconomy.database.ChangeOutbox;
+import io.github.nsfeconomy.database.DatabaseGuard;
+import io.github.nsfeconomy.database.DatabaseManager;
+import io.github.nsfeconomy.database.LogStore;
+import io.github.nsfeconomy.database.PoolTuner;
+import io.github.nsfeconomy.database.PostingLedger;
+import io.github.nsfeconomy.database.QueryMetrics;
+import io.github.nsfeconomy.database.QueryPlanAudit;
+import io.github.nsfeconomy.database.ReplicaRouter;
+import io.github.nsfeconomy.database.ShardSet;
+import io.github.nsfeconomy.database.SqliteMaintenance;
+import io.github.nsfeconomy.database.TransactionJournal;
+import io.github.nsfeconomy.database.TransactionRetention;
+import io.github.nsfeconomy.database.WriteSpool;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 /**
@@ -16,6 +40,9 @@ import java.util.stream.Collectors;
  */
 public class NSFCommand implements CommandExecutor, TabCompleter {
 
+    private static final DateTimeFormatter AUDIT_TIME_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
     private final NSFEconomy plugin;
 
     public NSFCommand(NSFEconomy plugin) {
@@ -40,6 +67,7 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
             case "debug" -> handleDebug(sender, args);
             case "emergency" -> handleEmergency(sender, args);
             case "audit" -> handleAudit(sender, args);
+            case "db" -> handleDatabase(sender, args);
             case "version" -> handleVersion(sender, args);
             case "help" -> sendHelp(sender);
             default -> sendHelp(sender);
@@ -122,6 +150,21 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
         int openBounties = plugin.getBountyManager().getOpenBounties().size();
         sender.sendMessage(plugin.colorize("&eOpen Bounties: &f" + openBounties));
 
+        // Transaction journal
+        TransactionJournal journal = plugin.getDatabaseManager().getTransactionJournal();
+        if (journal != null) {
+            TransactionJournal.JournalStats js = journal.getStats();
+            sender.sendMessage(plugin.colorize(""));
+            sender.sendMessage(plugin.colorize("&eTransaction Journal:"));
+            sender.sendMessage(plugin.colorize("  &7Pending: &f" + js.getPending() + "/" + js.getCapacity() +
+                " &7(peak " + js.getHighWaterMark() + ")" + (journal.isBackpressured() ? " &c[BACKPRESSURE]" : "")));
+            sender.sendMessage(plugin.colorize("  &7Written: &f" + js.getWritten() + " &7in &f" + js.getBatches() +
+                " &7batches (last " + String.format("%.1f", js.getLastFlushMillis()) + "ms)"));
+            sender.sendMessage(plugin.colorize("  &7Overflowed: &f" + js.getOverflowed() +
+                " &7Dropped: " + (js.getDropped() > 0 ? "&c" : "&f") + js.getDropped() +
+                " &7Failed flushes: &f" + js.getFailedFlushes()));
+        }
+
         sender.sendMessage(plugin.colorize("&6═══════════════════════════════════"));
     }
 
@@ -249,7 +292,7 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
         }
 
         if (args.length < 2) {
-            sender.sendMessage(plugin.colorize("&cUsage: /nsf audit <player|transactions|full>"));
+            sender.sendMessage(plugin.colorize("&cUsage: /nsf audit <player|transactions|archive|retention|ledger|full>"));
             return;
         }
 
@@ -268,33 +311,233 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
 
                 sender.sendMessage(plugin.colorize("&6══════ &lPlayer Audit: " + target.getName() + " &r&6══════"));
                 
-                // Get player's F-notes
+                // Get player's F-notes (inventory, so read here on the main thread)
                 double holdings = plugin.getCurrencyManager().countPlayerCurrency(target);
                 sender.sendMessage(plugin.colorize("&7Current Holdings: &e" + 
                     plugin.getCurrencyManager().formatCurrency(holdings)));
                 
-                // Tax obligations
-                double taxOwed = plugin.getTaxManager().getTotalOwed(target.getUniqueId());
-                sender.sendMessage(plugin.colorize("&7Tax Owed: &c" + 
-                    plugin.getCurrencyManager().formatCurrency(taxOwed)));
-                
-                // Active permits
-                var permits = plugin.getPermitManager().getPlayerPermits(target.getUniqueId());
-                sender.sendMessage(plugin.colorize("&7Active Permits: &f" + permits.size()));
-                
-                sender.sendMessage(plugin.colorize("&6═══════════════════════════════════════"));
-            }
-            case "transactions" -> {
-                int limit = args.length > 2 ? Integer.parseInt(args[2]) : 20;
-                sender.sendMessage(plugin.colorize("&7Recent transaction audit requires database query."));
-                sender.sendMessage(plugin.colorize("&7Use: /bank audit for detailed transaction logs."));
+                UUID targetId = target.getUniqueId();
+                runAudit(sender, () -> {
+                    // Tax obligations
+                    Money taxOwed = plugin.getTaxManager().getTotalOwed(targetId);
+                    
+                    // Active permits
+                    var permits = plugin.getPermitManager().getPlayerPermits(targetId);
+                    
+                    return List.of(
+                        "&7Tax Owed: &c" + plugin.getCurrencyManager().formatCurrency(taxOwed),
+                        "&7Active Permits: &f" + permits.size(),
+                        "&6═══════════════════════════════════════");
+                });
             }
+            case "transactions" -> auditTransactions(sender, args);
+            case "archive" -> auditArchive(sender, args);
+            case "retention" -> auditRetention(sender, args);
+            case "ledger" -> auditLedger(sender, args);
             case "full" -> {
                 sender.sendMessage(plugin.colorize("&7Generating full audit report..."));
                 generateFullAudit(sender);
             }
-            default -> sender.sendMessage(plugin.colorize("&cUnknown audit type. Use: player, transactions, full"));
+            default -> sender.sendMessage(plugin.colorize("&cUnknown audit type. Use: player, transactions, archive, retention, ledger, full"));
+        }
+    }
+
+    private void auditTransactions(CommandSender sender, String[] args) {
+        TransactionRetention retention = requireRetention(sender);
+        if (retention == null) {
+            return;
+        }
+        if (args.length < 3) {
+            sender.sendMessage(plugin.colorize("&cUsage: /nsf audit transactions <player> [limit]"));
+            return;
+        }
+
+        OfflinePlayer target = resolvePlayer(sender, args[2]);
+        if (target == null) {
+            return;
+        }
+        int limit;
+        try {
+            limit = args.length > 3 ? Math.max(1, Math.min(100, Integer.parseInt(args[3]))) : 20;
+        } catch (NumberFormatException e) {
+            sender.sendMessage(plugin.getMessage("error_invalid_amount"));
+            return;
+        }
+
+        runAudit(sender, () -> {
+            List<String> lines = new ArrayList<>();
+            lines.add("&6══════ &lTransactions: " + target.getName() + " &r&6══════");
+            var entries = retention.queryRecent(target.getUniqueId(), limit);
+            if (entries.isEmpty()) {
+                lines.add("&7No transactions in the live log. Try /nsf audit archive.");
+            }
+            for (var entry : entries) {
+                lines.add(formatEntry(entry));
+            }
+            return lines;
+        });
+    }
+
+    private void auditArchive(CommandSender sender, String[] args) {
+        TransactionRetention retention = requireRetention(sender);
+        if (retention == null) {
+            return;
+        }
+        if (args.length < 4) {
+            sender.sendMessage(plugin.colorize("&cUsage: /nsf audit archive <player> <yyyy-MM> [raw]"));
+            return;
+        }
+
+        OfflinePlayer target = resolvePlayer(sender, args[2]);
+        if (target == null) {
+            return;
+        }
+        YearMonth month;
+        try {
+            month = YearMonth.parse(args[3]);
+        } catch (DateTimeParseException e) {
+            sender.sendMessage(plugin.colorize("&cInvalid month: " + args[3] + " (expected yyyy-MM)"));
+            return;
         }
+        boolean raw = args.length > 4 && args[4].equalsIgnoreCase("raw");
+
+        if (raw) {
+            sender.sendMessage(plugin.colorize("&7Scanning archives for " + month + "..."));
+        }
+        runAudit(sender, () -> {
+            var result = retention.queryArchive(target.getUniqueId(), month, raw ? 50 : 0);
+            List<String> lines = new ArrayList<>();
+            lines.add("&6══════ &lArchive: " + target.getName() + " " + month + " &r&6══════");
+
+            if (result.getRollups().isEmpty()) {
+                lines.add("&7No archived activity for this month.");
+            }
+            for (var rollup : result.getRollups()) {
+                lines.add("&7" + rollup.getDay() + " &f" + rollup.getType() + " &7x" + rollup.getCount()
+                    + " &e" + plugin.getCurrencyManager().formatCurrency(rollup.getAmount())
+                    + (rollup.getAmountStars() != 0 ? " &7(" + rollup.getAmountStars() + " stars)" : ""));
+            }
+
+            if (raw) {
+                lines.add("&eRaw entries &7(" + result.getArchivesScanned() + " archive files scanned)");
+                for (var entry : result.getRows()) {
+                    lines.add(formatEntry(entry));
+                }
+            }
+            return lines;
+        });
+    }
+
+    private void auditRetention(CommandSender sender, String[] args) {
+        TransactionRetention retention = requireRetention(sender);
+        if (retention == null) {
+            return;
+        }
+        boolean run = args.length > 2 && args[2].equalsIgnoreCase("run");
+
+        runAudit(sender, () -> {
+            List<String> lines = new ArrayList<>();
+            if (run) {
+                lines.add("&aMaintenance archived " + retention.runMaintenance() + " partition(s).");
+            }
+            var status = retention.getStatus();
+            lines.add("&6══════ &lTransaction Retention &r&6══════");
+            lines.add("&7Hot window: &f" + status.getHotMonths() + " month(s)");
+            for (var segment : status.getHotRows().entrySet()) {
+                lines.add("  &7" + segment.getKey() + ": &f" + String.format("%,d", segment.getValue()) + " rows");
+            }
+            lines.add("&7Archived: &f" + status.getArchivedSegments() + " partition(s), "
+                + String.format("%,d", status.getArchivedRows()) + " rows");
+            lines.add("&7Daily rollups: &f" + String.format("%,d", status.getRollupRows()));
+            LogStore logStore = plugin.getDatabaseManager().getLogStore();
+            if (logStore != null) {
+                LogStore.LogStatus log = logStore.getStatus();
+                lines.add(String.format("&7Log store: &f%,d &7paid withdrawals, &f%,d &7settled tax obligations, &f%.1f MB",
+                    log.getWithdrawals(), log.getObligations(), log.getFileBytes() / (1024.0 * 1024.0)));
+            }
+            return lines;
+        });
+    }
+
+    private void auditLedger(CommandSender sender, String[] args) {
+        PostingLedger ledger = plugin.getDatabaseManager().getPostingLedger();
+        if (args.length < 3) {
+            runAudit(sender, () -> {
+                var summary = ledger.reconcilePending(Integer.MAX_VALUE);
+                return List.of(
+                    "&6══════ &lLedger Reconciliation &r&6══════",
+                    "&7Accounts with new postings: &f" + summary.getChecked(),
+                    summary.getMismatched() == 0
+                        ? "&aAll balances match their postings."
+                        : "&c" + summary.getMismatched() + " account(s) do not match, see console for details.");
+            });
+            return;
+        }
+
+        OfflinePlayer target = resolvePlayer(sender, args[2]);
+        if (target == null) {
+            return;
+        }
+        runAudit(sender, () -> {
+            var result = ledger.reconcile(PostingLedger.playerAccount(target.getUniqueId()));
+            List<String> lines = new ArrayList<>();
+            lines.add("&6══════ &lLedger: " + target.getName() + " &r&6══════");
+            lines.add("&7Balance: &e" + plugin.getCurrencyManager().formatCurrency(result.getBalance()));
+            lines.add("&7New postings checked: &f" + result.getPostings());
+            if (result.isConsistent()) {
+                lines.add("&aBalance matches its postings.");
+            } else {
+                lines.add("&cPostings add up to " + plugin.getCurrencyManager().formatCurrency(result.getExpected()) + ".");
+            }
+            return lines;
+        });
+    }
+
+    private TransactionRetention requireRetention(CommandSender sender) {
+        TransactionRetention retention = plugin.getDatabaseManager().getTransactionRetention();
+        if (retention == null) {
+            sender.sendMessage(plugin.colorize("&cTransaction retention is disabled (database.retention.enabled)."));
+        }
+        return retention;
+    }
+
+    @SuppressWarnings("deprecation")
+    private OfflinePlayer resolvePlayer(CommandSender sender, String name) {
+        OfflinePlayer target = plugin.getServer().getOfflinePlayer(name);
+        if (!target.isOnline() && !target.hasPlayedBefore()) {
+            sender.sendMessage(plugin.colorize("&cPlayer not found: " + name));
+            return null;
+        }
+        return target;
+    }
+
+    private String formatEntry(TransactionRetention.TransactionEntry entry) {
+        String time = AUDIT_TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTimestamp()));
+        String amount = entry.getAmount() != null
+            ? " &e" + plugin.getCurrencyManager().formatCurrency(entry.getAmount()) : "";
+        String stars = entry.getAmountStars() != 0 ? " &7(" + entry.getAmountStars() + " stars)" : "";
+        String details = entry.getDetails() != null && !entry.getDetails().isEmpty() ? " &8" + entry.getDetails() : "";
+        return "&7" + time + " &f" + entry.getType() + amount + stars + details;
+    }
+
+    /**
+     * Run an audit query off the main thread and send the result back on it
+     */
+    private void runAudit(CommandSender sender, AuditQuery query) {
+        var executor = plugin.getDatabaseManager().getExecutor();
+        var linesFuture = executor.supply(() -> {
+            try {
+                return query.run();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Audit query failed", e);
+                return List.of("&cAudit query failed, see console for details.");
+            }
+        });
+        executor.sync(linesFuture, lines -> {
+            for (String line : lines) {
+                sender.sendMessage(plugin.colorize(line));
+            }
+        });
     }
 
     private void generateFullAudit(CommandSender sender) {
@@ -340,6 +583,323 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(plugin.colorize("&7Audit generated at: " + new Date()));
     }
 
+    private void handleDatabase(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("nsf.admin.database")) {
+            sender.sendMessage(plugin.getMessage("error_no_permission"));
+            return;
+        }
+
+        if (args.length < 2) {
+            sender.sendMessage(plugin.colorize("&cUsage: /nsf db <stats|guard|maintenance|pool|explain|shards|journal>"));
+            return;
+        }
+
+        switch (args[1].toLowerCase()) {
+            case "stats" -> databaseStats(sender, args);
+            case "guard" -> databaseGuard(sender, args);
+            case "maintenance" -> databaseMaintenance(sender, args);
+            case "pool" -> databasePool(sender, args);
+            case "explain" -> databaseExplain(sender, args);
+            case "shards" -> databaseShards(sender, args);
+            case "journal" -> databaseJournal(sender, args);
+            default -> sender.sendMessage(plugin.colorize("&cUnknown database command. Use: stats, guard, maintenance, pool, explain, shards, journal"));
+        }
+    }
+
+    private void databaseShards(CommandSender sender, String[] args) {
+        ShardSet shards = plugin.getDatabaseManager().getShards();
+        if (shards == null) {
+            sender.sendMessage(plugin.colorize("&cPlayer data is not sharded (SQLite files only, database.sqlite.shards.count)."));
+            return;
+        }
+        runAudit(sender, () -> {
+            List<String> lines = new ArrayList<>();
+            lines.add("&6══════ &lPlayer Data Shards &r&6══════");
+            for (ShardSet.ShardStatus status : shards.getStatus()) {
+                lines.add(String.format("&e%s&7: &f%d &7players, &f%d &7live transactions, &f%.1f MB",
+                    status.getShard(), status.getPlayers(), status.getTransactions(),
+                    status.getFileBytes() / (1024.0 * 1024.0)));
+            }
+            return lines;
+        });
+    }
+
+    private void databaseJournal(CommandSender sender, String[] args) {
+        BinaryJournal journal = plugin.getDatabaseManager().getBinaryJournal();
+        if (journal == null) {
+            sender.sendMessage(plugin.colorize("&cTransactions are written as SQL rows (database.journal.engine)."));
+            return;
+        }
+        if (args.length < 3) {
+            BinaryJournal.JournalStats stats = journal.getStats();
+            sender.sendMessage(plugin.colorize("&6══════ &lBinary Journal &r&6══════"));
+            sender.sendMessage(plugin.colorize("&eRecords: &f" + String.format("%,d", stats.getRecords()) + " &7in &f"
+                + stats.getSegments() + " &7segment(s), &f" + String.format("%.1f MB", stats.getBytes() / (1024.0 * 1024.0))));
+            sender.sendMessage(plugin.colorize("&eAppended: &f" + stats.getAppended() + " &7forces &f" + stats.getForces()
+                + (stats.getFailed() > 0 ? " &cfailed " + stats.getFailed() : "")));
+            return;
+        }
+        if (!args[2].equalsIgnoreCase("export")) {
+            sender.sendMessage(plugin.colorize("&cUsage: /nsf db journal [export [yyyy-MM]]"));
+            return;
+        }
+
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        if (args.length > 3) {
+            try {
+                YearMonth month = YearMonth.parse(args[3]);
+                from = month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                to = month.plusMonths(1).atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                sender.sendMessage(plugin.colorize("&cInvalid month: " + args[3] + " (expected yyyy-MM)"));
+                return;
+            }
+        }
+        long exportFrom = from;
+        long exportTo = to;
+        sender.sendMessage(plugin.colorize("&7Loading journal records into journal_export..."));
+        runAudit(sender, () -> List.of("&aExported &f" + String.format("%,d", journal.export(exportFrom, exportTo))
+            + " &arecords to the journal_export table."));
+    }
+
+    private void databaseExplain(CommandSender sender, String[] args) {
+        QueryPlanAudit audit = plugin.getDatabaseManager().getQueryPlanAudit();
+        if (audit == null) {
+            sender.sendMessage(plugin.colorize("&cThe query plan audit needs database.metrics.enabled and database.explain.enabled."));
+            return;
+        }
+        boolean saveBaseline = args.length >= 3 && args[2].equalsIgnoreCase("baseline");
+        sender.sendMessage(plugin.colorize("&7Explaining the statements recorded since the last /nsf db stats reset..."));
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<String> lines = new ArrayList<>();
+            try {
+                QueryPlanAudit.Report report = audit.run();
+                List<QueryPlanAudit.Finding> failures = report.getFailures();
+                lines.add("&6══════ &lQuery Plan Audit &r&6══════");
+                lines.add("&7Explained &f" + report.getExplained() + " &7statements, skipped &f" + report.getSkipped()
+                    + (audit.hasBaseline() ? " &7(compared with the saved baseline)" : " &7(no baseline saved)"));
+                lines.add(report.isPassed() ? "&aPassed." : "&c" + failures.size() + " failure(s):");
+                int shown = 0;
+                for (QueryPlanAudit.Finding finding : report.getFindings()) {
+                    if (shown++ == 10) {
+                        lines.add("&7... " + (report.getFindings().size() - 10) + " more, see console");
+                        break;
+                    }
+                    lines.add((finding.isFailure() ? "&c✗ " : "&e! ") + finding.getKind().getLabel() + " &7"
+                        + finding.getDetail() + ": &f" + finding.getShape());
+                }
+                for (QueryPlanAudit.Finding finding : report.getFindings()) {
+                    plugin.getLogger().info("Query plan audit: " + (finding.isFailure() ? "FAIL " : "warn ")
+                        + finding.getKind().getLabel() + " " + finding.getDetail() + ": " + finding.getShape());
+                }
+                if (saveBaseline) {
+                    lines.add("&aSaved a baseline of " + audit.saveBaseline() + " statements.");
+                }
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Query plan audit failed", e);
+                lines.add("&cAudit failed: " + e.getMessage());
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                for (String line : lines) {
+                    sender.sendMessage(plugin.colorize(line));
+                }
+            });
+        });
+    }
+
+    private void databasePool(CommandSender sender, String[] args) {
+        PoolTuner tuner = plugin.getDatabaseManager().getPoolTuner();
+        if (tuner == null) {
+            sender.sendMessage(plugin.colorize("&cNo connection pool is tuned (MySQL or SQLite WAL readers, database.pool_tuner.enabled)."));
+            return;
+        }
+        sender.sendMessage(plugin.colorize("&6══════ &lConnection Pool Tuner &r&6══════"));
+        for (PoolTuner.TargetStatus status : tuner.getStatus()) {
+            sender.sendMessage(plugin.colorize("&e" + status.getPool() + ": &f" + status.getSize() + " &7connections (&f"
+                + status.getActive() + " &7active, &f" + status.getIdle() + " &7idle, &f" + status.getWaiting() + " &7waiting)"));
+            sender.sendMessage(plugin.colorize(String.format("  &7last sample: &f%d &7checkouts, p99 wait &f%.2fms",
+                status.getCheckouts(), status.getP99WaitNanos() / 1e6)
+                + (status.getTimeouts() > 0 ? " &c(" + status.getTimeouts() + " timed out)" : "")));
+        }
+        List<PoolTuner.Decision> decisions = tuner.getDecisions();
+        if (decisions.isEmpty()) {
+            sender.sendMessage(plugin.colorize("&7No resizes since startup."));
+            return;
+        }
+        sender.sendMessage(plugin.colorize("&eRecent resizes:"));
+        for (PoolTuner.Decision decision : decisions.subList(0, Math.min(5, decisions.size()))) {
+            sender.sendMessage(plugin.colorize("  &7" + AUDIT_TIME_FORMAT.format(Instant.ofEpochMilli(decision.getAt()))
+                + " &f" + decision.getPool() + " " + decision.getFrom() + " -> " + decision.getTo() + " &7" + decision.getReason()));
+        }
+    }
+
+    private void databaseMaintenance(CommandSender sender, String[] args) {
+        SqliteMaintenance maintenance = plugin.getDatabaseManager().getSqliteMaintenance();
+        if (maintenance == null) {
+            sender.sendMessage(plugin.colorize("&cSQLite maintenance is not running (SQLite file databases only, database.maintenance.enabled)."));
+            return;
+        }
+        if (args.length >= 3 && args[2].equalsIgnoreCase("run")) {
+            maintenance.runNow(true);
+            sender.sendMessage(plugin.colorize("&aSQLite maintenance started; see /nsf db maintenance for the result."));
+            return;
+        }
+
+        sender.sendMessage(plugin.colorize("&6══════ &lSQLite Maintenance &r&6══════"));
+        sender.sendMessage(plugin.colorize("&eWindow: " + (maintenance.isQuiet() ? "&aquiet" : "&cbusy")
+            + String.format(" &7(%d online, %.1f TPS)", maintenance.getOnlinePlayers(), maintenance.getTps())));
+        SqliteMaintenance.RunReport run = maintenance.getLastRun();
+        if (run == null) {
+            sender.sendMessage(plugin.colorize("&7No maintenance has run since startup."));
+            return;
+        }
+        sender.sendMessage(plugin.colorize("&eLast run: &f" + AUDIT_TIME_FORMAT.format(Instant.ofEpochMilli(run.getStartedAt()))
+            + (run.isCompleted() ? " &7in &f" + run.getDurationMs() + "ms" : " &e(stopped early)")));
+        sender.sendMessage(plugin.colorize("  &7analyzed &f" + run.getAnalyzed() + " &7tables, vacuumed &f"
+            + run.getVacuumedPages() + " &7pages, checkpointed &f" + run.getCheckpointedFrames() + " &7WAL frames"
+            + (run.isCheckpointBusy() ? " &e(readers kept part of the WAL)" : "")));
+    }
+
+    private void databaseGuard(CommandSender sender, String[] args) {
+        DatabaseGuard guard = plugin.getDatabaseManager().getGuard();
+        if (!guard.isEnabled()) {
+            sender.sendMessage(plugin.colorize("&cThe database circuit breaker is disabled (database.guard.enabled)."));
+            return;
+        }
+        if (args.length >= 3) {
+            switch (args[2].toLowerCase()) {
+                case "open" -> {
+                    guard.force(DatabaseGuard.State.OPEN);
+                    sender.sendMessage(plugin.colorize("&eDatabase circuit opened; database calls will fail fast."));
+                }
+                case "close" -> {
+                    guard.force(DatabaseGuard.State.CLOSED);
+                    sender.sendMessage(plugin.colorize("&aDatabase circuit closed."));
+                }
+                default -> sender.sendMessage(plugin.colorize("&cUsage: /nsf db guard [open|close]"));
+            }
+            return;
+        }
+
+        DatabaseGuard.GuardStats stats = guard.getStats();
+        String color = switch (stats.getState()) {
+            case CLOSED -> "&a";
+            case HALF_OPEN -> "&e";
+            case OPEN -> "&c";
+        };
+        sender.sendMessage(plugin.colorize("&6══════ &lDatabase Guard &r&6══════"));
+        sender.sendMessage(plugin.colorize("&eCircuit: " + color + stats.getState()
+            + (stats.getState() != DatabaseGuard.State.CLOSED && stats.getOpenedAt() > 0
+                ? " &7since " + AUDIT_TIME_FORMAT.format(Instant.ofEpochMilli(stats.getOpenedAt())) : "")));
+        sender.sendMessage(plugin.colorize("&eFailures in a row: &f" + stats.getConsecutiveFailures()
+            + " &7trips &f" + stats.getTrips() + " &7rejected &f" + stats.getRejected()));
+        if (stats.getLastFailure() != null) {
+            sender.sendMessage(plugin.colorize("&eLast failure: &7" + stats.getLastFailure()));
+        }
+        // Writes held back until the database answers again
+        TransactionJournal journal = plugin.getDatabaseManager().getTransactionJournal();
+        sender.sendMessage(plugin.colorize("&eDeferred writes: &f" + (journal != null ? journal.getStats().getPending() : 0)
+            + " &7journal, &f" + plugin.getDatabaseManager().getPlayerPresence().getPendingCount() + " &7presence"));
+
+        WriteSpool spool = plugin.getDatabaseManager().getWriteSpool();
+        if (spool.isEnabled()) {
+            WriteSpool.SpoolStats spoolStats = spool.getStats();
+            sender.sendMessage(plugin.colorize("&eWrite spool: &f" + spoolStats.getPending() + " &7pending ("
+                + spoolStats.getBytes() / 1024 + " KB), spooled &f" + spoolStats.getSpooled()
+                + " &7replayed &f" + spoolStats.getApplied() + " &7fsyncs &f" + spoolStats.getSyncs()
+                + (spoolStats.getRejected() > 0 ? " &crefused " + spoolStats.getRejected() : "")));
+            if (spoolStats.getLastError() != null) {
+                sender.sendMessage(plugin.colorize("  &7replay waiting: &8" + spoolStats.getLastError()));
+            }
+        }
+    }
+
+    private void databaseStats(CommandSender sender, String[] args) {
+        DatabaseManager db = plugin.getDatabaseManager();
+        QueryMetrics metrics = db.getQueryMetrics();
+        if (metrics == null) {
+            sender.sendMessage(plugin.colorize("&cQuery metrics are disabled (database.metrics.enabled)."));
+            return;
+        }
+        if (args.length >= 3 && args[2].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sender.sendMessage(plugin.colorize("&aDatabase metrics reset."));
+            return;
+        }
+        int limit = 5;
+        if (args.length >= 3) {
+            try {
+                limit = Math.max(1, Math.min(20, Integer.parseInt(args[2])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(plugin.colorize("&cUsage: /nsf db stats [top|reset]"));
+                return;
+            }
+        }
+
+        String since = AUDIT_TIME_FORMAT.format(Instant.ofEpochMilli(metrics.getSince()));
+        sender.sendMessage(plugin.colorize("&6══════ &lDatabase Stats &r&6══════ &7since " + since));
+
+        for (QueryMetrics.PoolStatus pool : db.getPoolStatus()) {
+            QueryMetrics.Histogram wait = metrics.getCheckoutWait(pool.getName());
+            long timeouts = metrics.getCheckoutTimeouts(pool.getName());
+            sender.sendMessage(plugin.colorize("&ePool " + pool.getName() + ": &f" + pool.getActive() + "/" + pool.getMax()
+                + " &7active, &f" + pool.getIdle() + " &7idle, &f" + pool.getWaiting() + " &7waiting"));
+            sender.sendMessage(plugin.colorize(String.format("  &7checkout p50 &f%s &7p99 &f%s &7max &f%s &7(%,d)%s",
+                millis(wait.getPercentileNanos(0.50)), millis(wait.getPercentileNanos(0.99)),
+                millis(wait.getMaxNanos()), wait.getCount(), timeouts > 0 ? " &c" + timeouts + " timed out" : "")));
+        }
+
+        ReplicaRouter router = db.getReplicaRouter();
+        if (router != null) {
+            for (ReplicaRouter.Replica replica : router.getReplicas()) {
+                sender.sendMessage(plugin.colorize("  &7replica " + replica.getName() + ": " + (replica.isHealthy()
+                    ? "&a" + replica.getLagSeconds() + "s behind"
+                    : "&cdown &8" + replica.getLastError())));
+            }
+        }
+
+        var executor = db.getExecutor();
+        sender.sendMessage(plugin.colorize("&eExecutor: &f" + executor.getKind() + " x" + executor.getParallelism()
+            + " &7active &f" + executor.getActiveCount() + " &7queued &f" + executor.getQueuedCount()
+            + " &7done &f" + executor.getCompletedCount()));
+
+        ChangeOutbox outbox = db.getChangeOutbox();
+        if (outbox.isEnabled()) {
+            ChangeOutbox.OutboxStats feed = outbox.getStats();
+            sender.sendMessage(plugin.colorize("&eChange feed: &f" + feed.getServerId() + " &7at id &f" + feed.getHighWater()
+                + " &7published &f" + feed.getPublished() + " &7received &f" + feed.getReceived()
+                + (feed.getGaps() > 0 ? " &7gaps &f" + feed.getGaps() : "")));
+        }
+
+        List<QueryMetrics.QueryStats> top = metrics.getTopQueries(limit);
+        sender.sendMessage(plugin.colorize("&eTop statements by total time &7(" + metrics.getShapeCount() + " shapes)"));
+        if (top.isEmpty()) {
+            sender.sendMessage(plugin.colorize("  &7No statements recorded yet."));
+        }
+        for (QueryMetrics.QueryStats stats : top) {
+            QueryMetrics.Histogram latency = stats.getLatency();
+            long calls = latency.getCount();
+            sender.sendMessage(plugin.colorize(String.format(
+                "  &f%s &7x%,d p50 &f%s &7p95 &f%s &7p99 &f%s &7max &f%s &7rows/call &f%.1f%s",
+                millis(latency.getTotalNanos()), calls,
+                millis(latency.getPercentileNanos(0.50)), millis(latency.getPercentileNanos(0.95)),
+                millis(latency.getPercentileNanos(0.99)), millis(latency.getMaxNanos()),
+                calls > 0 ? (double) stats.getRows() / calls : 0,
+                stats.getErrors() > 0 ? " &c" + stats.getErrors() + " failed" : "")));
+            sender.sendMessage(plugin.colorize("    &8" + truncateShape(stats.getShape())));
+        }
+    }
+
+    private static String millis(long nanos) {
+        return nanos >= 1_000_000_000L ? String.format("%.1fs", nanos / 1e9) : String.format("%.2fms", nanos / 1e6);
+    }
+
+    private static String truncateShape(String shape) {
+        return shape.length() > 90 ? shape.substring(0, 87) + "..." : shape;
+    }
+
     private void handleVersion(CommandSender sender, String[] args) {
         sender.sendMessage(plugin.colorize("&6NSF Economy &7v" + 
             plugin.getDescription().getVersion()));
@@ -370,7 +930,16 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage(plugin.colorize("&c/nsf emergency <activate|deactivate|status>"));
         }
         if (sender.hasPermission("nsf.admin.audit")) {
-            sender.sendMessage(plugin.colorize("&c/nsf audit <player|transactions|full>"));
+            sender.sendMessage(plugin.colorize("&c/nsf audit <player|transactions|archive|retention|ledger|full>"));
+        }
+        if (sender.hasPermission("nsf.admin.database")) {
+            sender.sendMessage(plugin.colorize("&c/nsf db stats [top|reset] &7- Pool and query latency"));
+            sender.sendMessage(plugin.colorize("&c/nsf db guard [open|close] &7- Database circuit breaker"));
+            sender.sendMessage(plugin.colorize("&c/nsf db maintenance [run] &7- SQLite ANALYZE, vacuum and checkpoints"));
+            sender.sendMessage(plugin.colorize("&c/nsf db pool &7- Connection pool tuner"));
+            sender.sendMessage(plugin.colorize("&c/nsf db explain [baseline] &7- Check query plans and latencies"));
+            sender.sendMessage(plugin.colorize("&c/nsf db shards &7- Player data shards"));
+            sender.sendMessage(plugin.colorize("&c/nsf db journal [export [yyyy-MM]] &7- Binary transaction journal"));
         }
         if (sender.hasPermission("nsf.admin.debug")) {
             sender.sendMessage(plugin.colorize("&c/nsf debug [on|off] &7- Toggle debug mode"));
@@ -393,6 +962,7 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
             if (sender.hasPermission("nsf.admin.economy")) completions.add("economy");
             if (sender.hasPermission("nsf.admin.emergency")) completions.add("emergency");
             if (sender.hasPermission("nsf.admin.audit")) completions.add("audit");
+            if (sender.hasPermission("nsf.admin.database")) completions.add("db");
             if (sender.hasPermission("nsf.admin.debug")) completions.add("debug");
             
             return completions.stream()
@@ -404,19 +974,51 @@ public class NSFCommand implements CommandExecutor, TabCompleter {
             switch (args[0].toLowerCase()) {
                 case "economy" -> completions.addAll(Arrays.asList("status", "freeze", "unfreeze"));
                 case "emergency" -> completions.addAll(Arrays.asList("activate", "deactivate", "status"));
-                case "audit" -> completions.addAll(Arrays.asList("player", "transactions", "full"));
+                case "audit" -> completions.addAll(Arrays.asList("player", "transactions", "archive", "retention", "ledger", "full"));
+                case "db" -> completions.addAll(Arrays.asList("stats", "guard", "maintenance", "pool", "explain", "shards", "journal"));
                 case "debug" -> completions.addAll(Arrays.asList("on", "off"));
             }
         }
         
         if (args.length == 3) {
-            if (args[0].equalsIgnoreCase("audit") && args[1].equalsIgnoreCase("player")) {
+            if (args[0].equalsIgnoreCase("audit")
+                    && Arrays.asList("player", "transactions", "archive", "ledger").contains(args[1].toLowerCase())) {
                 return null; // Show player names
             }
+            if (args[0].equalsIgnoreCase("audit") && args[1].equalsIgnoreCase("retention")) {
+                completions.add("run");
+            }
+            if (args[0].equalsIgnoreCase("db") && args[1].equalsIgnoreCase("stats")) {
+                completions.add("reset");
+            }
+            if (args[0].equalsIgnoreCase("db") && args[1].equalsIgnoreCase("guard")) {
+                completions.addAll(Arrays.asList("open", "close"));
+            }
+            if (args[0].equalsIgnoreCase("db") && args[1].equalsIgnoreCase("maintenance")) {
+                completions.add("run");
+            }
+            if (args[0].equalsIgnoreCase("db") && args[1].equalsIgnoreCase("explain")) {
+                completions.add("baseline");
+            }
+            if (args[0].equalsIgnoreCase("db") && args[1].equalsIgnoreCase("journal")) {
+                completions.add("export");
+            }
+        }
+
+        if (args.length == 4 && args[0].equalsIgnoreCase("audit") && args[1].equalsIgnoreCase("archive")) {
+            completions.add(YearMonth.now().minusMonths(1).toString());
+        }
+        if (args.length == 4 && args[0].equalsIgnoreCase("db") && args[1].equalsIgnoreCase("journal")) {
+            completions.add(YearMonth.now().toString());
         }
         
         return completions.stream()
             .filter(s -> s.toLowerCase().startsWith(args[args.length - 1].toLowerCase()))
             .collect(Collectors.toList());
     }
+
+    @FunctionalInterface
+    private interface AuditQuery {
+        List<String> run() throws Exception;
+    }
 }
@@ -1,6 +1,7 @@
 package io.github.nsfeconomy.commands;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
 import io.github.nsfeconomy.tax.TaxManager;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -8,6 +9,9 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -18,6 +22,10 @@ import java.util.stream.Collectors;
  */
 public class TaxCommand implements CommandExecutor, TabCompleter {
 
+    private static final int HISTORY_LIMIT = 10;
+    private static final DateTimeFormatter HISTORY_DATE_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
+
     private final NSFEconomy plugin;
 
     public TaxCommand(NSFEconomy plugin) {
@@ -58,25 +66,28 @@ public class TaxCommand implements CommandExecutor, TabCompleter {
         }
 
         TaxManager taxManager = plugin.getTaxManager();
-        List<TaxManager.TaxObligation> obligations = taxManager.getUnpaidTaxes(player.getUniqueId());
-        double total = taxManager.getTotalOwed(player.getUniqueId());
+        var obligationsFuture = taxManager.getUnpaidTaxesAsync(player.getUniqueId());
 
-        if (obligations.isEmpty()) {
-            sender.sendMessage(plugin.colorize("&aYou have no outstanding taxes. Good citizen!"));
-            return;
-        }
+        plugin.getDatabaseManager().getExecutor().sync(obligationsFuture, obligations -> {
+            if (obligations.isEmpty()) {
+                sender.sendMessage(plugin.colorize("&aYou have no outstanding taxes. Good citizen!"));
+                return;
+            }
 
-        sender.sendMessage(plugin.colorize("&6══════ &lYour Tax Obligations &r&6══════"));
-        for (TaxManager.TaxObligation obligation : obligations) {
-            sender.sendMessage(plugin.colorize(String.format(
-                "  &7[%s] &f%s &7- Due: &e%s",
-                obligation.getType(),
-                plugin.getCurrencyManager().formatCurrency(obligation.getAmount()),
-                obligation.getDueDate().toString().substring(0, 10)
-            )));
-        }
-        sender.sendMessage(plugin.colorize("&6Total Owed: &c" + plugin.getCurrencyManager().formatCurrency(total)));
-        sender.sendMessage(plugin.colorize("&6════════════════════════════════════"));
+            Money total = Money.ZERO;
+            sender.sendMessage(plugin.colorize("&6══════ &lYour Tax Obligations &r&6══════"));
+            for (TaxManager.TaxObligation obligation : obligations) {
+                total = total.plus(obligation.getAmount());
+                sender.sendMessage(plugin.colorize(String.format(
+                    "  &7[%s] &f%s &7- Due: &e%s",
+                    obligation.getType(),
+                    plugin.getCurrencyManager().formatCurrency(obligation.getAmount()),
+                    obligation.getDueDate().toString().substring(0, 10)
+                )));
+            }
+            sender.sendMessage(plugin.colorize("&6Total Owed: &c" + plugin.getCurrencyManager().formatCurrency(total)));
+            sender.sendMessage(plugin.colorize("&6════════════════════════════════════"));
+        });
     }
 
     private void handlePay(CommandSender sender, String[] args) {
@@ -112,15 +123,17 @@ public class TaxCommand implements CommandExecutor, TabCompleter {
         }
 
         // TODO: Verify player has enough F-notes and process payment
-        TaxManager.PaymentResult result = plugin.getTaxManager().payTaxes(player.getUniqueId(), amount);
-
-        if (result.isSuccess()) {
-            String msg = plugin.getRawMessage("tax_paid")
-                .replace("{amount}", plugin.getCurrencyManager().formatCurrency(result.getAmountPaid()));
-            sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + msg));
-        } else {
-            sender.sendMessage(plugin.colorize("&cFailed to process payment: " + result.getMessage()));
-        }
+        var paymentFuture = plugin.getTaxManager().payTaxesAsync(player.getUniqueId(), Money.fromDouble(amount));
+
+        plugin.getDatabaseManager().getExecutor().sync(paymentFuture, result -> {
+            if (result.isSuccess()) {
+                String msg = plugin.getRawMessage("tax_paid")
+                    .replace("{amount}", plugin.getCurrencyManager().formatCurrency(result.getAmountPaid()));
+                sender.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + msg));
+            } else {
+                sender.sendMessage(plugin.colorize("&cFailed to process payment: " + result.getMessage()));
+            }
+        });
     }
 
     private void handleHistory(CommandSender sender, String[] args) {
@@ -134,8 +147,24 @@ public class TaxCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        // TODO: Implement payment history
-        sender.sendMessage(plugin.colorize("&7Tax payment history coming soon."));
+        var historyFuture = plugin.getTaxManager().getPaymentHistoryAsync(player.getUniqueId(), HISTORY_LIMIT);
+
+        plugin.getDatabaseManager().getExecutor().sync(historyFuture, payments -> {
+            if (payments.isEmpty()) {
+                sender.sendMessage(plugin.colorize("&7No tax payments on record."));
+                return;
+            }
+
+            sender.sendMessage(plugin.colorize("&6══════ &lYour Tax Payments &r&6══════"));
+            for (var payment : payments) {
+                sender.sendMessage(plugin.colorize(String.format(
+                    "  &7%s &f%s",
+                    HISTORY_DATE_FORMAT.format(Instant.ofEpochMilli(payment.getTimestamp())),
+                    payment.getAmount() != null ? plugin.getCurrencyManager().formatCurrency(payment.getAmount()) : "-"
+                )));
+            }
+            sender.sendMessage(plugin.colorize("&6════════════════════════════════════"));
+        });
     }
 
     private void handleSet(CommandSender sender, String[] args) {
@@ -202,14 +231,18 @@ public class TaxCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        if (plugin.getTaxManager().forgiveTaxes(target.getUniqueId(), amount)) {
-            sender.sendMessage(plugin.colorize("&aForgave " + plugin.getCurrencyManager().formatCurrency(amount) + 
-                " of " + target.getName() + "'s taxes."));
-            target.sendMessage(plugin.colorize("&aAn admin has forgiven " + 
-                plugin.getCurrencyManager().formatCurrency(amount) + " of your taxes!"));
-        } else {
-            sender.sendMessage(plugin.colorize("&cFailed to forgive taxes."));
-        }
+        var forgiveFuture = plugin.getTaxManager().forgiveTaxesAsync(target.getUniqueId(), amount);
+
+        plugin.getDatabaseManager().getExecutor().sync(forgiveFuture, forgiven -> {
+            if (forgiven) {
+                sender.sendMessage(plugin.colorize("&aForgave " + plugin.getCurrencyManager().formatCurrency(amount) + 
+                    " of " + target.getName() + "'s taxes."));
+                target.sendMessage(plugin.colorize("&aAn admin has forgiven " + 
+                    plugin.getCurrencyManager().formatCurrency(amount) + " of your taxes!"));
+            } else {
+                sender.sendMessage(plugin.colorize("&cFailed to forgive taxes."));
+            }
+        });
     }
 
     private void sendHelp(CommandSender sender) {
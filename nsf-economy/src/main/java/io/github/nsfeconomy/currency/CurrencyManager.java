@@ -25,6 +25,8 @@ public class CurrencyManager {
     private final String currencySymbol;
     private final int starsPerDollar;
     private final List<Integer> denominations;
+    private final int[] denominationsDescending;
+    private final boolean logValidations;
     
     // Pattern to extract serial from book page
     private static final Pattern SERIAL_PATTERN = Pattern.compile("Serial:\\s*([a-f0-9-]+)", Pattern.CASE_INSENSITIVE);
@@ -42,6 +44,11 @@ public class CurrencyManager {
         if (denominations.isEmpty()) {
             denominations.addAll(Arrays.asList(1, 10, 100));
         }
+        this.denominationsDescending = denominations.stream()
+            .sorted(Collections.reverseOrder())
+            .mapToInt(Integer::intValue)
+            .toArray();
+        this.logValidations = plugin.getConfig().getBoolean("debug.log_validations", false);
     }
 
     /**
@@ -52,6 +59,17 @@ public class CurrencyManager {
      * @return The created ItemStack, or null if failed
      */
     public ItemStack createNote(int denomination, UUID issuedTo) {
+        UUID serial = issueNote(denomination, issuedTo);
+        return serial != null ? buildNote(denomination, serial) : null;
+    }
+
+    /**
+     * Generate a serial and record it in the ledger, without building the item.
+     * Safe to call off the server thread.
+     *
+     * @return The new serial, or null if failed
+     */
+    public UUID issueNote(int denomination, UUID issuedTo) {
         if (!denominations.contains(denomination)) {
             plugin.getLogger().warning("Invalid denomination: " + denomination);
             return null;
@@ -59,13 +77,20 @@ public class CurrencyManager {
 
         // Generate unique serial
         UUID serial = UUID.randomUUID();
-        String shortSerial = serial.toString().substring(0, 13); // Short format for display
 
         // Record in ledger
         if (!plugin.getDatabaseManager().recordNote(serial, denomination, issuedTo)) {
             plugin.getLogger().severe("Failed to record note in ledger!");
             return null;
         }
+        return serial;
+    }
+
+    /**
+     * Build the book item for a serial that is already in the ledger
+     */
+    public ItemStack buildNote(int denomination, UUID serial) {
+        String shortSerial = serial.toString().substring(0, 13); // Short format for display
 
         // Create the book item
         ItemStack book = new ItemStack(Material.WRITTEN_BOOK, 1);
@@ -142,6 +167,15 @@ public class CurrencyManager {
      * @return ValidationResult containing validity and details
      */
     public ValidationResult validateNote(ItemStack item) {
+        ValidationResult inspected = inspectNote(item);
+        return inspected.isValid() ? verifyNote(inspected) : inspected;
+    }
+
+    /**
+     * Check an item's book format and read its serial and denomination,
+     * without consulting the ledger. Must run on the server thread.
+     */
+    public ValidationResult inspectNote(ItemStack item) {
         if (item == null || item.getType() != Material.WRITTEN_BOOK) {
             return new ValidationResult(false, "Not a written book", null, 0);
         }
@@ -190,19 +224,41 @@ public class CurrencyManager {
             return new ValidationResult(false, "Cannot extract serial", null, 0);
         }
 
+        return new ValidationResult(true, "Well-formed", serial, denomination);
+    }
+
+    /**
+     * Check an inspected note against the ledger. Safe to call off the
+     * server thread.
+     */
+    public ValidationResult verifyNote(ValidationResult inspected) {
+        UUID serial = inspected.getSerial();
+        int denomination = inspected.getDenomination();
+
         // Verify serial in database
         if (!plugin.getDatabaseManager().isNoteValid(serial)) {
-            return new ValidationResult(false, "Invalid or redeemed serial", serial, denomination);
+            return logValidation(new ValidationResult(false, "Invalid or redeemed serial", serial, denomination));
         }
 
         // Verify denomination matches ledger
         int ledgerDenom = plugin.getDatabaseManager().getNoteDenomination(serial);
         if (ledgerDenom != denomination) {
-            return new ValidationResult(false, "Denomination mismatch", serial, denomination);
+            return logValidation(new ValidationResult(false, "Denomination mismatch", serial, denomination));
         }
 
         plugin.debug("Validated " + currencySymbol + denomination + " note: " + serial);
-        return new ValidationResult(true, "Valid", serial, denomination);
+        return logValidation(new ValidationResult(true, "Valid", serial, denomination));
+    }
+
+    /**
+     * Log a ledger check when debug.log_validations is on
+     */
+    private ValidationResult logValidation(ValidationResult result) {
+        if (logValidations) {
+            plugin.getLogger().info("Note validation: " + currencySymbol + result.getDenomination()
+                + " " + result.getSerial() + " - " + result.getReason());
+        }
+        return result;
     }
 
     /**
@@ -256,20 +312,17 @@ public class CurrencyManager {
     }
 
     /**
-     * Calculate the optimal denomination breakdown for a given amount
+     * Calculate the optimal denomination breakdown for the whole F$ in an amount.
+     * Cents are ignored since notes only exist in whole denominations.
      */
-    public Map<Integer, Integer> calculateDenominations(double amount) {
+    public Map<Integer, Integer> calculateDenominations(Money amount) {
         Map<Integer, Integer> breakdown = new LinkedHashMap<>();
         
-        // Sort denominations in descending order
-        List<Integer> sortedDenoms = new ArrayList<>(denominations);
-        sortedDenoms.sort(Collections.reverseOrder());
-        
-        double remaining = amount;
-        for (int denom : sortedDenoms) {
-            int count = (int) (remaining / denom);
+        long remaining = amount.wholeMajor();
+        for (int denom : denominationsDescending) {
+            long count = remaining / denom;
             if (count > 0) {
-                breakdown.put(denom, count);
+                breakdown.put(denom, Math.toIntExact(count));
                 remaining -= count * denom;
             }
         }
@@ -302,26 +355,26 @@ public class CurrencyManager {
     /**
      * Calculate total F$ value from denomination counts
      */
-    public double calculateTotalValue(Map<Integer, Integer> denomCounts) {
-        double total = 0;
+    public Money calculateTotalValue(Map<Integer, Integer> denomCounts) {
+        long total = 0;
         for (Map.Entry<Integer, Integer> entry : denomCounts.entrySet()) {
-            total += entry.getKey() * entry.getValue();
+            total = Math.addExact(total, (long) entry.getKey() * entry.getValue());
         }
-        return total;
+        return Money.ofMajor(total);
     }
 
     /**
-     * Convert F$ to Nether Stars
+     * Convert F$ to Nether Stars, rounding down to a whole star
      */
-    public long fDollarsToStars(double fDollars) {
-        return (long) (fDollars * starsPerDollar);
+    public long fDollarsToStars(Money fDollars) {
+        return Math.multiplyExact(fDollars.minor(), (long) starsPerDollar) / Money.MINOR_PER_MAJOR;
     }
 
     /**
-     * Convert Nether Stars to F$
+     * Convert Nether Stars to F$, rounding down to a whole cent
      */
-    public double starsToFDollars(long stars) {
-        return (double) stars / starsPerDollar;
+    public Money starsToFDollars(long stars) {
+        return Money.ofMinor(Math.multiplyExact(stars, Money.MINOR_PER_MAJOR) / starsPerDollar);
     }
 
     /**
@@ -334,6 +387,19 @@ public class CurrencyManager {
         return currencySymbol + String.format("%,.2f", amount);
     }
 
+    /**
+     * Format an exact currency amount for display
+     */
+    public String formatCurrency(Money amount) {
+        long minor = amount.minor();
+        long major = Math.abs(minor / Money.MINOR_PER_MAJOR);
+        String sign = minor < 0 ? "-" : "";
+        if (amount.isWhole()) {
+            return currencySymbol + sign + String.format("%,d", major);
+        }
+        return currencySymbol + sign + String.format("%,d.%02d", major, Math.abs(minor % Money.MINOR_PER_MAJOR));
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     // Getters
     // ══════════════════════════════════════════════════════════════════════
@@ -0,0 +1,169 @@
+package io.github.nsfeconomy.currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An exact F$ amount, stored as a whole number of minor units (cents).
+ *
+ * Money is immutable and all arithmetic is integer arithmetic on the
+ * underlying long, so sums never drift the way doubles do. Overflow throws
+ * instead of wrapping. Loops that accumulate many amounts should work on
+ * {@link #minor()} directly and wrap the result once at the end.
+ */
+public final class Money implements Comparable<Money> {
+
+    /** Decimal places of the minor unit, matching Vault's fractionalDigits() */
+    public static final int SCALE = 2;
+    public static final long MINOR_PER_MAJOR = 100;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minor;
+
+    private Money(long minor) {
+        this.minor = minor;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Factories
+    // ══════════════════════════════════════════════════════════════════════
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    public static Money ofMajor(long major) {
+        return ofMinor(Math.multiplyExact(major, MINOR_PER_MAJOR));
+    }
+
+    /**
+     * Convert a double at an API boundary (Vault, commands, config),
+     * rounding half away from zero to the nearest cent. The double is read
+     * as its shortest decimal form, so 1.005 becomes F$1.01.
+     *
+     * @throws IllegalArgumentException for NaN or infinity
+     * @throws ArithmeticException if the amount does not fit
+     */
+    public static Money fromDouble(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Not a money amount: " + amount);
+        }
+        return ofMinor(BigDecimal.valueOf(amount).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Arithmetic
+    // ══════════════════════════════════════════════════════════════════════
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minor, other.minor));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minor, other.minor));
+    }
+
+    public Money times(long factor) {
+        return ofMinor(Math.multiplyExact(minor, factor));
+    }
+
+    /**
+     * Multiply by a rate (e.g. a tax rate), rounding half away from zero
+     * to the nearest cent like {@link #fromDouble(double)}
+     */
+    public Money times(double rate) {
+        return ofMinor(BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(rate))
+            .setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    /**
+     * Split into {@code parts} shares, rounding down; the remainder is
+     * {@code minus(share.times(parts))}
+     */
+    public Money divideFloor(long parts) {
+        return ofMinor(Math.floorDiv(minor, parts));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minor));
+    }
+
+    public Money min(Money other) {
+        return minor <= other.minor ? this : other;
+    }
+
+    public Money max(Money other) {
+        return minor >= other.minor ? this : other;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Queries
+    // ══════════════════════════════════════════════════════════════════════
+
+    public long minor() {
+        return minor;
+    }
+
+    /**
+     * Whole F$ contained in this amount, rounded down
+     */
+    public long wholeMajor() {
+        return Math.floorDiv(minor, MINOR_PER_MAJOR);
+    }
+
+    public boolean isZero() {
+        return minor == 0;
+    }
+
+    public boolean isPositive() {
+        return minor > 0;
+    }
+
+    public boolean isNegative() {
+        return minor < 0;
+    }
+
+    public boolean isWhole() {
+        return minor % MINOR_PER_MAJOR == 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minor < other.minor;
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return minor > other.minor;
+    }
+
+    /**
+     * Convert back to a double for APIs that require one (Vault, placeholders)
+     */
+    public double toDouble() {
+        return minor / (double) MINOR_PER_MAJOR;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Money other && other.minor == minor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor);
+    }
+
+    /**
+     * Plain decimal form, e.g. "-12.05"
+     */
+    @Override
+    public String toString() {
+        // Exact for every long, Long.MIN_VALUE included
+        return BigDecimal.valueOf(minor, SCALE).toPlainString();
+    }
+}
@@ -0,0 +1,286 @@
+package io.github.nsfeconomy.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Dynamic proxies around pooled JDBC objects that report to
+ * {@link QueryMetrics}.
+ *
+ * Updates are timed around the execute call. Queries are timed from
+ * execute until their ResultSet, Statement or Connection is closed,
+ * whichever comes first, so the time spent fetching rows counts too.
+ */
+final class InstrumentedJdbc {
+
+    private InstrumentedJdbc() {
+    }
+
+    static Connection wrap(Connection conn, QueryMetrics metrics) {
+        return proxy(Connection.class, new ConnectionHandler(conn, metrics));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Connection
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final QueryMetrics metrics;
+        // Statements with a query still being read; connections are used by one thread at a time
+        private final Set<StatementHandler> open = new HashSet<>();
+
+        ConnectionHandler(Connection target, QueryMetrics metrics) {
+            this.target = target;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement" -> {
+                    PreparedStatement ps = (PreparedStatement) invoke(target, method, args);
+                    return proxy(PreparedStatement.class, new StatementHandler(ps, (String) args[0], this));
+                }
+                case "createStatement" -> {
+                    Statement stmt = (Statement) invoke(target, method, args);
+                    return proxy(Statement.class, new StatementHandler(stmt, null, this));
+                }
+                case "close" -> {
+                    for (StatementHandler statement : new HashSet<>(open)) {
+                        statement.finish();
+                    }
+                    open.clear();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                }
+            }
+            return invoke(target, method, args);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Statements
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private final ConnectionHandler connection;
+        private final TreeMap<Integer, String> params = new TreeMap<>();
+        private String batchSql;
+        private Execution pending;
+
+        StatementHandler(Statement target, String preparedSql, ConnectionHandler connection) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery" -> {
+                    return executeQuery(method, args);
+                }
+                case "execute", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch" -> {
+                    return executeUpdate(method, args);
+                }
+                case "addBatch" -> {
+                    if (args != null && args.length == 1 && args[0] instanceof String sql) {
+                        batchSql = sql;
+                    }
+                }
+                case "clearParameters" -> params.clear();
+                case "close" -> finish();
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    if (preparedSql != null && name.startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index && method.getDeclaringClass() != Statement.class) {
+                        params.put(index, parameterType(name, args[1]));
+                    }
+                }
+            }
+            return invoke(target, method, args);
+        }
+
+        private Object executeQuery(Method method, Object[] args) throws Throwable {
+            finish();
+            String sql = sqlFor(args);
+            long start = System.nanoTime();
+            ResultSet rs;
+            try {
+                rs = (ResultSet) invoke(target, method, args);
+            } catch (Throwable e) {
+                connection.metrics.recordStatement(sql, paramShape(), System.nanoTime() - start, 0, true);
+                throw e;
+            }
+            pending = new Execution(sql, paramShape(), start);
+            connection.open.add(this);
+            return proxy(ResultSet.class, new ResultSetHandler(rs, this));
+        }
+
+        private Object executeUpdate(Method method, Object[] args) throws Throwable {
+            finish();
+            String name = method.getName();
+            String sql = name.endsWith("Batch") && preparedSql == null ? batchSql : sqlFor(args);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(target, method, args);
+            } catch (Throwable e) {
+                connection.metrics.recordStatement(sql, paramShape(), System.nanoTime() - start, 0, true);
+                throw e;
+            }
+            connection.metrics.recordStatement(sql, paramShape(), System.nanoTime() - start, affectedRows(result), false);
+            return result;
+        }
+
+        /**
+         * Report the open query, if any
+         */
+        void finish() {
+            if (pending != null) {
+                Execution execution = pending;
+                pending = null;
+                connection.open.remove(this);
+                connection.metrics.recordStatement(execution.sql, execution.params,
+                    System.nanoTime() - execution.start, execution.rows, false);
+            }
+        }
+
+        private String sqlFor(Object[] args) {
+            return args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql;
+        }
+
+        private String paramShape() {
+            if (params.isEmpty()) {
+                return "()";
+            }
+            StringJoiner joiner = new StringJoiner(", ", "(", ")");
+            for (String type : params.values()) {
+                joiner.add(type);
+            }
+            return joiner.toString();
+        }
+
+        private static String parameterType(String setter, Object value) {
+            if (value == null || setter.equals("setNull")) {
+                return "null";
+            }
+            if (setter.equals("setObject")) {
+                return value.getClass().getSimpleName().toLowerCase();
+            }
+            if (setter.equals("setBytes") && value instanceof byte[] bytes) {
+                return "bytes[" + bytes.length + "]";
+            }
+            return setter.substring(3).toLowerCase();
+        }
+
+        private static long affectedRows(Object result) {
+            if (result instanceof Integer count) {
+                return count;
+            }
+            if (result instanceof Long count) {
+                return count;
+            }
+            long total = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    total += Math.max(0, count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class Execution {
+        private final String sql;
+        private final String params;
+        private final long start;
+        private long rows;
+
+        Execution(String sql, String params, long start) {
+            this.sql = sql;
+            this.params = params;
+            this.start = start;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Result Sets
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final StatementHandler statement;
+
+        ResultSetHandler(ResultSet target, StatementHandler statement) {
+            this.target = target;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    Object hasRow = invoke(target, method, args);
+                    if (Boolean.TRUE.equals(hasRow) && statement.pending != null) {
+                        statement.pending.rows++;
+                    }
+                    return hasRow;
+                }
+                case "close" -> {
+                    Object result = invoke(target, method, args);
+                    statement.finish();
+                    return result;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    return invoke(target, method, args);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.io.File;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Append-only history in its own SQLite file, apart from the hot state in
+ * the core database.
+ *
+ * The transaction log, paid-out withdrawal requests and settled tax
+ * obligations only ever grow, while the reserve, notes, balances and
+ * permits are updated in place. In one file both wait for the same writer
+ * and the same WAL checkpoints. With the log store on, the transaction
+ * journal writes to log.db through its own writer in larger batches, and
+ * every move_interval_seconds processed withdrawal_queue rows and paid
+ * tax_obligations rows move over from the core database. Open requests and
+ * unpaid obligations stay where the managers update them.
+ *
+ * With {@link ShardSet shards} the transaction log already lives in the
+ * shard files and the log store keeps the rest of the history. Once enabled
+ * the store stays on, since moved rows exist only in log.db.
+ */
+public class LogStore {
+
+    static final String SETTING = "log_store";
+    private static final int MOVE_CHUNK = 1000;
+    private static final String TRANSACTION_COLUMNS = "id, type, player, amount_f, amount_stars, details, timestamp";
+    private static final String WITHDRAWAL_COLUMNS = "id, player, amount, requested_at, processed";
+    private static final String OBLIGATION_COLUMNS = "id, player, type, amount, due_date, paid, paid_at";
+
+    private static final String[] SCHEMA = {
+        """
+        CREATE TABLE IF NOT EXISTS transactions (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            type VARCHAR(32) NOT NULL,
+            player VARCHAR(36) NOT NULL,
+            amount_f BIGINT NULL,
+            amount_stars BIGINT,
+            details TEXT,
+            timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_transactions_player_time ON transactions(player, timestamp)",
+        """
+        CREATE TABLE IF NOT EXISTS withdrawal_queue (
+            id INTEGER PRIMARY KEY,
+            player VARCHAR(36) NOT NULL,
+            amount BIGINT NOT NULL,
+            requested_at TIMESTAMP,
+            processed INTEGER NOT NULL DEFAULT 1
+        )
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_withdrawal_player ON withdrawal_queue(player)",
+        """
+        CREATE TABLE IF NOT EXISTS tax_obligations (
+            id INTEGER PRIMARY KEY,
+            player VARCHAR(36) NOT NULL,
+            type VARCHAR(32) NOT NULL,
+            amount BIGINT NOT NULL,
+            due_date TIMESTAMP NOT NULL,
+            paid INTEGER NOT NULL DEFAULT 1,
+            paid_at TIMESTAMP
+        )
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_tax_player ON tax_obligations(player)",
+        """
+        CREATE TABLE IF NOT EXISTS storage_settings (
+            name VARCHAR(64) PRIMARY KEY,
+            value VARCHAR(64) NOT NULL
+        )
+        """,
+        // Replayed spool records, committed with the transaction rows they wrote
+        """
+        CREATE TABLE IF NOT EXISTS spool_applied (
+            op_id VARCHAR(36) PRIMARY KEY,
+            applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_spool_applied_at ON spool_applied(applied_at)"
+    };
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final long moveIntervalSeconds;
+    private SqliteFile file;
+    private ScheduledExecutorService mover;
+
+    public LogStore(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.moveIntervalSeconds = Math.max(5, plugin.getConfig().getLong("database.sqlite.log_store.move_interval_seconds", 60));
+    }
+
+    /**
+     * Open log.db and, the first time, move the live transaction log into it
+     *
+     * @return false if the log store is off
+     */
+    public boolean open() throws SQLException {
+        boolean configured = plugin.getConfig().getBoolean("database.sqlite.log_store.enabled", false);
+        String stored = databaseManager.getStorageSetting(SETTING, null);
+        if (stored != null && !configured) {
+            plugin.getLogger().warning("History already lives in the log store; "
+                + "database.sqlite.log_store.enabled: false is ignored.");
+        }
+        if (stored == null && !configured) {
+            return false;
+        }
+
+        String fileName = plugin.getConfig().getString("database.sqlite.log_store.file", "log.db");
+        file = new SqliteFile(plugin, "log", new File(plugin.getDataFolder(), fileName),
+            plugin.getConfig().getInt("database.sqlite.log_store.reader_pool_size", 2));
+        try (Connection conn = databaseManager.getFileMaintenanceConnection(file)) {
+            for (String sql : SCHEMA) {
+                SchemaMigrator.execute(conn, sql);
+            }
+        }
+
+        if (stored == null) {
+            // Carry the id counter over; rotated core tables keep their ids
+            seedSequence();
+            long moved = move("transactions", TRANSACTION_COLUMNS, null);
+            databaseManager.setStorageSetting(SETTING, "on");
+            plugin.getLogger().info("Moved " + moved + " transactions into the log store.");
+        }
+        plugin.getLogger().info("Transaction history kept in " + fileName);
+        return true;
+    }
+
+    public void start() {
+        mover = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-LogStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mover.scheduleWithFixedDelay(this::moveSafely, moveIntervalSeconds, moveIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (mover != null) {
+            mover.shutdown();
+            try {
+                mover.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public void close() {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    public SqliteFile getFile() {
+        return file;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Moving History
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void moveSafely() {
+        try {
+            moveSettled();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to move settled rows into the log store", e);
+        }
+    }
+
+    /**
+     * Move paid-out withdrawals and settled tax obligations out of the core
+     * database
+     */
+    public void moveSettled() throws SQLException {
+        long withdrawals = move("withdrawal_queue", WITHDRAWAL_COLUMNS, "processed = 1");
+        long obligations = move("tax_obligations", OBLIGATION_COLUMNS, "paid = 1");
+        if (withdrawals > 0 || obligations > 0) {
+            plugin.debug("Moved " + withdrawals + " withdrawal requests and " + obligations
+                + " tax obligations into the log store");
+        }
+    }
+
+    /**
+     * Copy matching rows in id order, then delete them from the core table.
+     * Ids are kept, so a chunk copied again after a crash is ignored.
+     *
+     * @param settled Condition a row must meet to move, or null for all rows
+     */
+    private long move(String table, String columns, String settled) throws SQLException {
+        String where = settled != null ? " AND " + settled : "";
+        int width = columns.split(", ").length;
+        long moved = 0;
+        long cursor = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = databaseManager.getReadConnection();
+                 PreparedStatement ps = conn.prepareStatement("SELECT " + columns + " FROM " + table
+                     + " WHERE id > ?" + where + " ORDER BY id LIMIT " + MOVE_CHUNK)) {
+                ps.setLong(1, cursor);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Object[] row = new Object[width];
+                        for (int i = 0; i < width; i++) {
+                            row[i] = rs.getObject(i + 1);
+                        }
+                        rows.add(row);
+                    }
+                }
+            }
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            long first = ((Number) rows.get(0)[0]).longValue();
+            long last = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+
+            try (Connection conn = databaseManager.getFileConnection(file);
+                 PreparedStatement ps = conn.prepareStatement("INSERT OR IGNORE INTO " + table + " (" + columns
+                     + ") VALUES (" + "?, ".repeat(width - 1) + "?)")) {
+                conn.setAutoCommit(false);
+                try {
+                    for (Object[] row : rows) {
+                        for (int i = 0; i < width; i++) {
+                            ps.setObject(i + 1, row[i]);
+                        }
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+
+            // Only after the copy committed
+            try (Connection conn = databaseManager.getConnection();
+                 PreparedStatement ps = conn.prepareStatement("DELETE FROM " + table
+                     + " WHERE id >= ? AND id <= ?" + where)) {
+                ps.setLong(1, first);
+                ps.setLong(2, last);
+                ps.executeUpdate();
+            }
+
+            moved += rows.size();
+            cursor = last;
+            if (rows.size() < MOVE_CHUNK) {
+                return moved;
+            }
+        }
+    }
+
+    private void seedSequence() throws SQLException {
+        long seq = 0;
+        try (Connection conn = databaseManager.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT COALESCE(MAX(seq), 0) FROM sqlite_sequence WHERE name LIKE 'transactions%'")) {
+            if (rs.next()) {
+                seq = rs.getLong(1);
+            }
+        }
+        try (Connection conn = databaseManager.getFileMaintenanceConnection(file);
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO sqlite_sequence (name, seq) "
+                 + "SELECT 'transactions', ? WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = 'transactions')")) {
+            ps.setLong(1, seq);
+            ps.executeUpdate();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Status
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Rows held in log.db
+     */
+    public LogStatus getStatus() throws SQLException {
+        long[] counts = new long[3];
+        String[] tables = {"transactions", "withdrawal_queue", "tax_obligations"};
+        try (Connection conn = databaseManager.getFileReadConnection(file);
+             Statement stmt = conn.createStatement()) {
+            for (int i = 0; i < tables.length; i++) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tables[i])) {
+                    counts[i] = rs.next() ? rs.getLong(1) : 0;
+                }
+            }
+        }
+        return new LogStatus(counts[0], counts[1], counts[2], file.getFile().length());
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    public static class LogStatus {
+        private final long transactions;
+        private final long withdrawals;
+        private final long obligations;
+        private final long fileBytes;
+
+        public LogStatus(long transactions, long withdrawals, long obligations, long fileBytes) {
+            this.transactions = transactions;
+            this.withdrawals = withdrawals;
+            this.obligations = obligations;
+            this.fileBytes = fileBytes;
+        }
+
+        public long getTransactions() { return transactions; }
+        public long getWithdrawals() { return withdrawals; }
+        public long getObligations() { return obligations; }
+        public long getFileBytes() { return fileBytes; }
+    }
+}
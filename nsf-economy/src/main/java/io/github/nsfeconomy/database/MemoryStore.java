@@ -0,0 +1,744 @@
+package io.github.nsfeconomy.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.io.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Backend for database.type: memory. The schema lives in an in-memory
+ * SQLite database, so every manager runs its usual SQLite statements
+ * without touching disk or the network.
+ *
+ * Durability comes from a snapshot plus a statement log. Every committed
+ * write is appended to the log with its bind parameters; the log is forced
+ * to disk every database.memory.log_fsync_ms (0 forces on every commit).
+ * Every snapshot_interval_seconds the database is copied out with the
+ * backup API and the log drops what the copy holds. On startup the snapshot
+ * is restored and the log replayed on top of it.
+ *
+ * Like the WAL backend it has one writer and a pool of query-only readers.
+ * The database is a memdb file, which uses SQLite's usual locking between
+ * connections rather than the table locks of a shared cache. The single
+ * writer runs writes one at a time, and a commit and its log records are
+ * made under one lock, so the log replays them in the order they were made.
+ * Snapshots read from a connection of their own: reads carry on while it
+ * runs and commits wait for it. An anchor connection outside the pools
+ * keeps the database alive when they retire their connections. SQL defaults
+ * such as CURRENT_TIMESTAMP take the replay time.
+ */
+public class MemoryStore {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 << 20;
+
+    private final NSFEconomy plugin;
+    private final String url;
+    private final File snapshotFile;
+    private final File logFile;
+    private final long snapshotIntervalMs;
+    private final long logFsyncMs;
+    private final int busyTimeout;
+
+    private Connection anchor;
+    private HikariDataSource pool;
+    private HikariDataSource readers;
+    private FileChannel log;
+    // Held over each commit and its log append, and over a snapshot's copy
+    private final Object logLock = new Object();
+    // Sequence of the last logged statement (logLock)
+    private long lastSeq;
+    private volatile boolean logDirty;
+    private ScheduledExecutorService scheduler;
+
+    // Metrics
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private volatile long lastSnapshotAt;
+    private volatile long lastSnapshotBytes;
+
+    public MemoryStore(NSFEconomy plugin) {
+        this.plugin = plugin;
+        this.url = "jdbc:sqlite:file:/nsfeconomy-" + UUID.randomUUID() + "?vfs=memdb";
+        this.snapshotFile = new File(plugin.getDataFolder(),
+            plugin.getConfig().getString("database.memory.snapshot_file", "memory.snapshot"));
+        this.logFile = new File(plugin.getDataFolder(),
+            plugin.getConfig().getString("database.memory.log_file", "memory.log"));
+        this.snapshotIntervalMs = Math.max(10, plugin.getConfig().getLong("database.memory.snapshot_interval_seconds", 300)) * 1000L;
+        this.logFsyncMs = Math.max(0, plugin.getConfig().getLong("database.memory.log_fsync_ms", 1000));
+        this.busyTimeout = plugin.getConfig().getInt("database.memory.busy_timeout", 5000);
+    }
+
+    /**
+     * Load the snapshot and log, then open the writer and reader pools
+     *
+     * @return The writer pool; see {@link #getReaders()}
+     */
+    public HikariDataSource open() throws SQLException, IOException {
+        if (!plugin.getDataFolder().exists()) {
+            plugin.getDataFolder().mkdirs();
+        }
+        anchor = DriverManager.getConnection(url);
+        if (snapshotFile.exists()) {
+            try (Statement stmt = anchor.createStatement()) {
+                stmt.executeUpdate("restore from \"" + snapshotFile.getAbsolutePath() + "\"");
+            }
+        }
+        try (Statement stmt = anchor.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS memory_store (id INTEGER PRIMARY KEY, applied_seq BIGINT NOT NULL)");
+        }
+        lastSeq = readAppliedSeq();
+
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int replayed = replayLog();
+        plugin.getLogger().info("In-memory database loaded (" + (snapshotFile.exists() ? "snapshot" : "empty")
+            + ", " + replayed + " logged statement(s) replayed)");
+
+        HikariConfig writer = new HikariConfig();
+        writer.setDriverClassName("org.sqlite.JDBC");
+        writer.setJdbcUrl(url);
+        writer.setMaximumPoolSize(1);
+        writer.setConnectionTestQuery("SELECT 1");
+        writer.setPoolName("NSFEconomy-Memory-Writer");
+        writer.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        pool = new HikariDataSource(writer);
+
+        int readerCount = Math.max(1, plugin.getConfig().getInt("database.memory.reader_pool_size", 4));
+        HikariConfig reader = new HikariConfig();
+        reader.setDriverClassName("org.sqlite.JDBC");
+        reader.setJdbcUrl(url);
+        reader.setMaximumPoolSize(readerCount);
+        reader.setMinimumIdle(Math.min(2, readerCount));
+        reader.setConnectionInitSql("PRAGMA query_only = ON");
+        reader.setConnectionTestQuery("SELECT 1");
+        reader.setPoolName("NSFEconomy-Memory-Reader");
+        reader.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        readers = new HikariDataSource(reader);
+        return pool;
+    }
+
+    /**
+     * Query-only pool opened alongside the writer
+     */
+    public HikariDataSource getReaders() {
+        return readers;
+    }
+
+    /**
+     * Take snapshots and force the log in the background
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-MemoryStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::snapshotSafely, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        if (logFsyncMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::forceLogSafely, logFsyncMs, logFsyncMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write a final snapshot and close the log. Call before the pool closes.
+     */
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshotSafely();
+        try {
+            if (log != null) {
+                log.force(true);
+                log.close();
+            }
+            if (anchor != null) {
+                anchor.close();
+            }
+        } catch (IOException | SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to close the in-memory database", e);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Snapshots
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void snapshotSafely() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to snapshot the in-memory database", e);
+        }
+    }
+
+    /**
+     * Copy the database to the snapshot file, then drop the log records the
+     * copy contains. The copy is taken from a query-only connection of its
+     * own under the log lock, so it holds exactly the logged commits up to
+     * its sequence; reads go on meanwhile and commits wait.
+     */
+    public void snapshot() throws SQLException, IOException {
+        if (pool == null || pool.isClosed()) {
+            return;
+        }
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        Files.deleteIfExists(temp.toPath());
+        long seq;
+        long logEnd;
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeout);
+            synchronized (logLock) {
+                seq = lastSeq;
+                logEnd = log.size();
+                stmt.executeUpdate("backup to \"" + temp.getAbsolutePath() + "\"");
+            }
+        }
+
+        // The snapshot records which log entries it already contains
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + temp.getAbsolutePath());
+             PreparedStatement ps = conn.prepareStatement(
+                 "INSERT OR REPLACE INTO memory_store (id, applied_seq) VALUES (1, ?)")) {
+            ps.setLong(1, seq);
+            ps.executeUpdate();
+        }
+        try (FileChannel written = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        Files.move(temp.toPath(), snapshotFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        trimLog(logEnd);
+
+        snapshots.increment();
+        lastSnapshotAt = System.currentTimeMillis();
+        lastSnapshotBytes = snapshotFile.length();
+    }
+
+    /**
+     * Drop the log records before an offset. Records appended since the
+     * snapshot are copied to a new log that replaces the old one whole.
+     */
+    private void trimLog(long offset) throws IOException {
+        synchronized (logLock) {
+            long size = log.size();
+            if (size == offset) {
+                log.truncate(0);
+                log.force(true);
+                logDirty = false;
+                return;
+            }
+            File tail = new File(logFile.getPath() + ".tmp");
+            try (FileChannel out = FileChannel.open(tail.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long position = offset;
+                while (position < size) {
+                    position += log.transferTo(position, size - position, out);
+                }
+                out.force(true);
+            }
+            log.close();
+            Files.move(tail.toPath(), logFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logDirty = false;
+        }
+    }
+
+    private long readAppliedSeq() throws SQLException {
+        try (Statement stmt = anchor.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT applied_seq FROM memory_store WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Statement Log
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Log the writes made through a pooled connection once they commit
+     */
+    public Connection wrap(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(MemoryStore.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, new ConnectionHandler(conn));
+    }
+
+    /**
+     * Append committed statements, forcing the log now if log_fsync_ms is 0
+     */
+    private void append(List<LoggedStatement> statements) throws SQLException {
+        if (statements.isEmpty()) {
+            return;
+        }
+        try {
+            synchronized (logLock) {
+                long position = log.size();
+                for (LoggedStatement statement : statements) {
+                    byte[] payload = statement.encode(++lastSeq);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+                    frame.putInt(payload.length);
+                    frame.putInt((int) crc.getValue());
+                    frame.put(payload);
+                    frame.flip();
+                    while (frame.hasRemaining()) {
+                        position += log.write(frame, position);
+                    }
+                }
+                if (logFsyncMs == 0) {
+                    log.force(false);
+                } else {
+                    logDirty = true;
+                }
+            }
+            logged.add(statements.size());
+        } catch (IOException e) {
+            // The write is in memory but would not survive a restart
+            throw new SQLException("Failed to append to the in-memory database log", e);
+        }
+    }
+
+    private void forceLogSafely() {
+        if (!logDirty) {
+            return;
+        }
+        try {
+            synchronized (logLock) {
+                logDirty = false;
+                log.force(false);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to force the in-memory database log", e);
+        }
+    }
+
+    /**
+     * Apply logged statements newer than the snapshot. A torn record at the
+     * end, left by a crash mid-append, is cut off.
+     */
+    private int replayLog() throws SQLException, IOException {
+        long size = log.size();
+        long position = 0;
+        long applied = lastSeq;
+        int replayed = 0;
+
+        anchor.setAutoCommit(false);
+        try {
+            while (position < size) {
+                byte[] payload = readFrame(position, size);
+                if (payload == null) {
+                    plugin.getLogger().warning("In-memory database log has a torn record at byte " + position
+                        + "; discarding the last " + (size - position) + " bytes.");
+                    log.truncate(position);
+                    log.force(true);
+                    break;
+                }
+                position += HEADER_BYTES + payload.length;
+
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                long seq = in.readLong();
+                lastSeq = Math.max(lastSeq, seq);
+                if (seq > applied) {
+                    LoggedStatement.decode(in).replay(anchor);
+                    replayed++;
+                }
+            }
+            anchor.commit();
+        } catch (SQLException | IOException e) {
+            anchor.rollback();
+            throw e;
+        } finally {
+            anchor.setAutoCommit(true);
+        }
+        return replayed;
+    }
+
+    private byte[] readFrame(long position, long limit) throws IOException {
+        if (limit - position < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, position);
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || length > MAX_RECORD_BYTES || limit - position - HEADER_BYTES < length) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(payload, position + HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        return (int) crc.getValue() == checksum ? payload.array() : null;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * Statements that cannot change data are not logged
+     */
+    static boolean isWrite(String sql) {
+        String head = sql.stripLeading();
+        int end = 0;
+        while (end < head.length() && Character.isLetter(head.charAt(end))) {
+            end++;
+        }
+        String keyword = head.substring(0, end).toUpperCase(Locale.ROOT);
+        return !(keyword.equals("SELECT") || keyword.equals("EXPLAIN") || keyword.equals("PRAGMA")
+            || keyword.equals("VACUUM"));
+    }
+
+    public MemoryStats getStats() {
+        long logBytes;
+        synchronized (logLock) {
+            try {
+                logBytes = log.size();
+            } catch (IOException e) {
+                logBytes = -1;
+            }
+        }
+        return new MemoryStats(logged.sum(), logBytes, snapshots.sum(), lastSnapshotAt, lastSnapshotBytes);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Connection Proxies
+    // ══════════════════════════════════════════════════════════════════════
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        // Writes of the open transaction, logged when it commits
+        private final List<LoggedStatement> uncommitted = new ArrayList<>();
+        // Position in uncommitted at each savepoint
+        private final Map<Savepoint, Integer> savepoints = new HashMap<>();
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "commit" -> {
+                    synchronized (logLock) {
+                        Object result = call(target, method, args);
+                        flush();
+                        return result;
+                    }
+                }
+                case "rollback" -> {
+                    Object result = call(target, method, args);
+                    if (args == null) {
+                        uncommitted.clear();
+                        savepoints.clear();
+                    } else {
+                        Integer mark = savepoints.get((Savepoint) args[0]);
+                        if (mark != null && mark < uncommitted.size()) {
+                            uncommitted.subList(mark, uncommitted.size()).clear();
+                        }
+                    }
+                    return result;
+                }
+                case "setSavepoint" -> {
+                    Savepoint savepoint = (Savepoint) call(target, method, args);
+                    savepoints.put(savepoint, uncommitted.size());
+                    return savepoint;
+                }
+                case "releaseSavepoint" -> savepoints.remove((Savepoint) args[0]);
+                case "setAutoCommit" -> {
+                    // Turning auto-commit back on commits the open transaction
+                    synchronized (logLock) {
+                        boolean wasAutoCommit = target.getAutoCommit();
+                        Object result = call(target, method, args);
+                        if (!wasAutoCommit && (Boolean) args[0]) {
+                            flush();
+                        }
+                        return result;
+                    }
+                }
+                case "close" -> {
+                    uncommitted.clear();
+                    savepoints.clear();
+                }
+                default -> { }
+            }
+
+            Object result = call(target, method, args);
+            if (result instanceof PreparedStatement statement && args != null && args[0] instanceof String sql) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+                return Proxy.newProxyInstance(MemoryStore.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(this, statement, sql));
+            }
+            if (result instanceof Statement statement) {
+                return Proxy.newProxyInstance(MemoryStore.class.getClassLoader(),
+                    new Class<?>[]{Statement.class}, new StatementHandler(this, statement, null));
+            }
+            return result;
+        }
+
+        /**
+         * Lock to hold while running a statement that may commit as it runs
+         */
+        Object commitLock() throws SQLException {
+            return target.getAutoCommit() ? logLock : new Object();
+        }
+
+        void executed(List<LoggedStatement> statements) throws SQLException {
+            if (target.getAutoCommit()) {
+                append(statements);
+            } else {
+                uncommitted.addAll(statements);
+            }
+        }
+
+        private void flush() throws SQLException {
+            List<LoggedStatement> committed = new ArrayList<>(uncommitted);
+            uncommitted.clear();
+            savepoints.clear();
+            append(committed);
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final ConnectionHandler connection;
+        private final Statement target;
+        private final String preparedSql;
+        private final TreeMap<Integer, Object> parameters = new TreeMap<>();
+        private final List<LoggedStatement> batch = new ArrayList<>();
+
+        StatementHandler(ConnectionHandler connection, Statement target, String preparedSql) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (preparedSql != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+            } else if (name.equals("addBatch")) {
+                String sql = args != null ? (String) args[0] : preparedSql;
+                if (isWrite(sql)) {
+                    batch.add(new LoggedStatement(sql, args != null ? Map.of() : parameters));
+                }
+            }
+
+            if (!name.startsWith("execute") || name.equals("executeQuery")) {
+                return call(target, method, args);
+            }
+            // An auto-commit write is logged under the same lock as a commit
+            synchronized (connection.commitLock()) {
+                Object result = call(target, method, args);
+                if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                    List<LoggedStatement> executed = new ArrayList<>(batch);
+                    batch.clear();
+                    connection.executed(executed);
+                } else {
+                    String sql = args != null && args.length > 0 ? (String) args[0] : preparedSql;
+                    if (sql != null && isWrite(sql)) {
+                        connection.executed(List.of(new LoggedStatement(sql, args != null ? Map.of() : parameters)));
+                    }
+                }
+                return result;
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * A write and its bind parameters as they were when it ran
+     */
+    private static class LoggedStatement {
+        private static final byte NULL = 0, STRING = 1, LONG = 2, DOUBLE = 3, BOOLEAN = 4, BYTES = 5,
+            TIMESTAMP = 6, DATE = 7, DECIMAL = 8;
+
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+
+        LoggedStatement(String sql, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.parameters = new TreeMap<>(parameters);
+        }
+
+        byte[] encode(long seq) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + sql.length());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(seq);
+            byte[] text = sql.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+            out.writeInt(parameters.size());
+            for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                out.writeInt(parameter.getKey());
+                writeValue(out, parameter.getValue());
+            }
+            return bytes.toByteArray();
+        }
+
+        static LoggedStatement decode(DataInputStream in) throws IOException {
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            Map<Integer, Object> parameters = new TreeMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                parameters.put(in.readInt(), readValue(in));
+            }
+            return new LoggedStatement(new String(text, java.nio.charset.StandardCharsets.UTF_8), parameters);
+        }
+
+        void replay(Connection conn) throws SQLException {
+            if (parameters.isEmpty()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(sql);
+                }
+                return;
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                    ps.setObject(parameter.getKey(), parameter.getValue());
+                }
+                ps.execute();
+            }
+        }
+
+        private static void writeValue(DataOutputStream out, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Timestamp timestamp) {
+                out.writeByte(TIMESTAMP);
+                out.writeLong(timestamp.getTime());
+                out.writeInt(timestamp.getNanos());
+            } else if (value instanceof java.sql.Date date) {
+                out.writeByte(DATE);
+                out.writeLong(date.getTime());
+            } else if (value instanceof BigDecimal decimal) {
+                out.writeByte(DECIMAL);
+                out.writeUTF(decimal.toPlainString());
+            } else if (value instanceof Double || value instanceof Float) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof Number number) {
+                out.writeByte(LONG);
+                out.writeLong(number.longValue());
+            } else if (value instanceof Boolean bool) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(bool);
+            } else if (value instanceof byte[] array) {
+                out.writeByte(BYTES);
+                out.writeInt(array.length);
+                out.write(array);
+            } else {
+                byte[] text = value.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                out.writeByte(STRING);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+
+        private static Object readValue(DataInputStream in) throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+                case NULL:
+                    return null;
+                case STRING: {
+                    byte[] text = new byte[in.readInt()];
+                    in.readFully(text);
+                    return new String(text, java.nio.charset.StandardCharsets.UTF_8);
+                }
+                case LONG:
+                    return in.readLong();
+                case DOUBLE:
+                    return in.readDouble();
+                case BOOLEAN:
+                    return in.readBoolean();
+                case BYTES: {
+                    byte[] array = new byte[in.readInt()];
+                    in.readFully(array);
+                    return array;
+                }
+                case TIMESTAMP: {
+                    Timestamp timestamp = new Timestamp(in.readLong());
+                    timestamp.setNanos(in.readInt());
+                    return timestamp;
+                }
+                case DATE:
+                    return new java.sql.Date(in.readLong());
+                case DECIMAL:
+                    return new BigDecimal(in.readUTF());
+                default:
+                    throw new IOException("Unknown value type " + type + " in the in-memory database log");
+            }
+        }
+    }
+
+    public static class MemoryStats {
+        private final long logged;
+        private final long logBytes;
+        private final long snapshots;
+        private final long lastSnapshotAt;
+        private final long lastSnapshotBytes;
+
+        public MemoryStats(long logged, long logBytes, long snapshots, long lastSnapshotAt, long lastSnapshotBytes) {
+            this.logged = logged;
+            this.logBytes = logBytes;
+            this.snapshots = snapshots;
+            this.lastSnapshotAt = lastSnapshotAt;
+            this.lastSnapshotBytes = lastSnapshotBytes;
+        }
+
+        public long getLogged() { return logged; }
+        public long getLogBytes() { return logBytes; }
+        public long getSnapshots() { return snapshots; }
+        public long getLastSnapshotAt() { return lastSnapshotAt; }
+        public long getLastSnapshotBytes() { return lastSnapshotBytes; }
+    }
+}
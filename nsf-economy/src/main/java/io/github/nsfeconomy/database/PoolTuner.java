@@ -0,0 +1,336 @@
+package io.github.nsfeconomy.database;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Resizes connection pools from how long callers actually wait for them.
+ *
+ * Every sample_interval_ms the tuner reads each pool's active and waiting
+ * counts from Hikari and the p99 checkout wait recorded since the last
+ * sample. A pool is starved when that p99 passes target_wait_ms, callers are
+ * queued, or a checkout timed out; it then grows by the number of queued
+ * callers, at least grow_step. A pool that stays below shrink_utilization
+ * busy with nobody waiting for shrink_after_seconds gives back one
+ * connection. Sizes stay between min_size and max_size, and after a change
+ * the pool keeps its size for cooldown_seconds so one burst is not counted
+ * twice. Idle connections above a smaller size close after idle_timeout.
+ *
+ * The MySQL primary is tuned. SQLite has a single writer by design, so only
+ * the WAL reader pool is.
+ */
+public class PoolTuner {
+
+    private static final int DECISION_HISTORY = 20;
+
+    private final NSFEconomy plugin;
+    private final long sampleIntervalMs;
+    private final long targetWaitNanos;
+    private final double shrinkUtilization;
+    private final long shrinkAfterMs;
+    private final long cooldownMs;
+    private final int growStep;
+    private final int minSize;
+    private final int maxSize;
+
+    private final Map<String, Target> targets = new LinkedHashMap<>();
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+    private ScheduledExecutorService sampler;
+    private volatile boolean held;
+
+    public PoolTuner(NSFEconomy plugin) {
+        this.plugin = plugin;
+        this.sampleIntervalMs = Math.max(250, plugin.getConfig().getLong("database.pool_tuner.sample_interval_ms", 1000));
+        this.targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(1, plugin.getConfig().getLong("database.pool_tuner.target_wait_ms", 20)));
+        this.shrinkUtilization = plugin.getConfig().getDouble("database.pool_tuner.shrink_utilization", 0.5);
+        this.shrinkAfterMs = TimeUnit.SECONDS.toMillis(
+            Math.max(1, plugin.getConfig().getLong("database.pool_tuner.shrink_after_seconds", 120)));
+        this.cooldownMs = TimeUnit.SECONDS.toMillis(
+            Math.max(0, plugin.getConfig().getLong("database.pool_tuner.cooldown_seconds", 10)));
+        this.growStep = Math.max(1, plugin.getConfig().getInt("database.pool_tuner.grow_step", 2));
+        this.minSize = Math.max(1, plugin.getConfig().getInt("database.pool_tuner.min_size", 2));
+        this.maxSize = Math.max(minSize, plugin.getConfig().getInt("database.pool_tuner.max_size", 20));
+    }
+
+    /**
+     * Tune a pool, starting from its configured size clamped to the bounds
+     */
+    public void register(String name, HikariDataSource pool) {
+        Target target = new Target(name, pool);
+        int size = clamp(target.config().getMaximumPoolSize());
+        if (size != target.config().getMaximumPoolSize()) {
+            resize(target, size, "configured size is outside " + minSize + "-" + maxSize);
+        }
+        targets.put(name, target);
+    }
+
+    public boolean hasTargets() {
+        return !targets.isEmpty();
+    }
+
+    public boolean isTuned(String name) {
+        return targets.containsKey(name);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getSampleIntervalMs() {
+        return sampleIntervalMs;
+    }
+
+    public long getCooldownMs() {
+        return cooldownMs;
+    }
+
+    public void start() {
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-PoolTuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sampleSafely, sampleIntervalMs, sampleIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * Keep sampling without resizing, for the fixed phase of PoolBenchmark in src/test
+     */
+    public void setHeld(boolean held) {
+        this.held = held;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Signals
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Record how long a checkout waited. Untuned pools are ignored.
+     */
+    void recordWait(String name, long nanos) {
+        Target target = targets.get(name);
+        if (target != null) {
+            target.window.get().record(nanos);
+        }
+    }
+
+    void recordTimeout(String name) {
+        Target target = targets.get(name);
+        if (target != null) {
+            target.timeouts.increment();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Controller
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void sampleSafely() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Target target : targets.values()) {
+                sample(target, now);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Connection pool tuning failed", e);
+        }
+    }
+
+    private void sample(Target target, long now) {
+        QueryMetrics.Histogram window = target.window.getAndSet(new QueryMetrics.Histogram());
+        long timeouts = target.timeouts.sumThenReset();
+        HikariPoolMXBean mx = target.pool.getHikariPoolMXBean();
+        if (mx == null) {
+            return;
+        }
+        int size = target.config().getMaximumPoolSize();
+        int waiting = mx.getThreadsAwaitingConnection();
+        double utilization = size > 0 ? (double) mx.getActiveConnections() / size : 0;
+        long p99 = window.getPercentileNanos(0.99);
+        target.last = new TargetStatus(target.name, size, mx.getActiveConnections(), mx.getIdleConnections(),
+            waiting, p99, window.getCount(), timeouts);
+
+        if (held) {
+            target.quietSince = 0;
+            return;
+        }
+        boolean starved = timeouts > 0 || waiting > 0 || p99 > targetWaitNanos;
+        if (starved) {
+            target.quietSince = 0;
+            if (size < maxSize && now >= target.cooldownUntil) {
+                int next = clamp(size + Math.max(growStep, waiting));
+                resize(target, next, "p99 checkout wait " + millis(p99) + "ms, " + waiting + " waiting, "
+                    + timeouts + " timed out, " + percent(utilization) + "% busy");
+                target.cooldownUntil = now + cooldownMs;
+            }
+            return;
+        }
+        if (utilization >= shrinkUtilization || p99 > targetWaitNanos / 2) {
+            target.quietSince = 0;
+            return;
+        }
+        if (target.quietSince == 0) {
+            target.quietSince = now;
+        } else if (now - target.quietSince >= shrinkAfterMs && size > minSize && now >= target.cooldownUntil) {
+            resize(target, size - 1, "at most " + percent(utilization) + "% busy for "
+                + TimeUnit.MILLISECONDS.toSeconds(now - target.quietSince) + "s");
+            // Another shrink_after_seconds before the next connection goes
+            target.quietSince = now;
+            target.cooldownUntil = now + cooldownMs;
+        }
+    }
+
+    private void resize(Target target, int size, String reason) {
+        HikariConfigMXBean config = target.config();
+        int previous = config.getMaximumPoolSize();
+        if (size > previous) {
+            config.setMaximumPoolSize(size);
+            config.setMinimumIdle(Math.min(target.baseMinIdle, size));
+        } else {
+            // Lower the idle floor first so the pool never has min_idle above its size
+            config.setMinimumIdle(Math.min(target.baseMinIdle, size));
+            config.setMaximumPoolSize(size);
+        }
+        Decision decision = new Decision(System.currentTimeMillis(), target.name, previous, size, reason);
+        synchronized (decisions) {
+            decisions.addFirst(decision);
+            while (decisions.size() > DECISION_HISTORY) {
+                decisions.removeLast();
+            }
+        }
+        plugin.getLogger().info("Connection pool " + target.name + " resized " + previous + " -> " + size + ": " + reason);
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static long percent(double ratio) {
+        return Math.round(ratio * 100);
+    }
+
+    public List<TargetStatus> getStatus() {
+        List<TargetStatus> status = new ArrayList<>();
+        for (Target target : targets.values()) {
+            TargetStatus last = target.last;
+            status.add(last != null ? last
+                : new TargetStatus(target.name, target.config().getMaximumPoolSize(), 0, 0, 0, 0, 0, 0));
+        }
+        return status;
+    }
+
+    /**
+     * Most recent resizes, newest first
+     */
+    public List<Decision> getDecisions() {
+        synchronized (decisions) {
+            return new ArrayList<>(decisions);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static final class Target {
+        private final String name;
+        private final HikariDataSource pool;
+        private final int baseMinIdle;
+        private final AtomicReference<QueryMetrics.Histogram> window = new AtomicReference<>(new QueryMetrics.Histogram());
+        private final LongAdder timeouts = new LongAdder();
+        // Sampler thread only
+        private long quietSince;
+        private long cooldownUntil;
+        private volatile TargetStatus last;
+
+        Target(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+            this.baseMinIdle = pool.getHikariConfigMXBean().getMinimumIdle();
+        }
+
+        HikariConfigMXBean config() {
+            return pool.getHikariConfigMXBean();
+        }
+    }
+
+    public static class TargetStatus {
+        private final String pool;
+        private final int size;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final long p99WaitNanos;
+        private final long checkouts;
+        private final long timeouts;
+
+        public TargetStatus(String pool, int size, int active, int idle, int waiting,
+                            long p99WaitNanos, long checkouts, long timeouts) {
+            this.pool = pool;
+            this.size = size;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.p99WaitNanos = p99WaitNanos;
+            this.checkouts = checkouts;
+            this.timeouts = timeouts;
+        }
+
+        public String getPool() { return pool; }
+        public int getSize() { return size; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public long getP99WaitNanos() { return p99WaitNanos; }
+        public long getCheckouts() { return checkouts; }
+        public long getTimeouts() { return timeouts; }
+    }
+
+    public static class Decision {
+        private final long at;
+        private final String pool;
+        private final int from;
+        private final int to;
+        private final String reason;
+
+        public Decision(long at, String pool, int from, int to, String reason) {
+            this.at = at;
+            this.pool = pool;
+            this.from = from;
+            this.to = to;
+            this.reason = reason;
+        }
+
+        public long getAt() { return at; }
+        public String getPool() { return pool; }
+        public int getFrom() { return from; }
+        public int getTo() { return to; }
+        public String getReason() { return reason; }
+    }
+}
@@ -0,0 +1,639 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Double-entry journal for virtual money.
+ *
+ * Every movement is one ledger_entries row with postings to two or more
+ * accounts that sum to zero. The postings and the materialized balance of
+ * each account in ledger_accounts are written in one database transaction,
+ * so the two cannot drift, and a balance read is a single primary-key
+ * lookup however long the history grows.
+ *
+ * Player accounts never go below zero. System accounts stand for the other
+ * side of money entering or leaving player hands (Vault, opening balances,
+ * admin adjustments) and may.
+ *
+ * Reconciliation is incremental: each account keeps the last entry it was
+ * verified up to and its balance at that point, so a check only sums the
+ * postings made since.
+ */
+public class PostingLedger {
+
+    public static final String PLAYER_PREFIX = "player:";
+    public static final String SYSTEM_PREFIX = "system:";
+
+    /** Money paid in or out through Vault by other plugins */
+    public static final String EXTERNAL = SYSTEM_PREFIX + "external";
+    /** Balances set directly by an admin */
+    public static final String ADJUSTMENT = SYSTEM_PREFIX + "adjustment";
+    /** Balances carried over from player_data when the ledger was introduced */
+    public static final String OPENING = SYSTEM_PREFIX + "opening";
+
+    // Balances kept to answer reads while the database is unavailable
+    private static final int LAST_KNOWN_LIMIT = 10000;
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final long reconcileIntervalMs;
+    private final int reconcileBatch;
+    private final Map<String, Money> lastKnown = Collections.synchronizedMap(
+        new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Money> eldest) {
+                return size() > LAST_KNOWN_LIMIT;
+            }
+        });
+    // Accounts with spooled postings the database has not seen yet
+    private final Set<String> spooledAccounts = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService reconciler;
+
+    public PostingLedger(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.reconcileIntervalMs = plugin.getConfig().getLong("database.ledger.reconcile_interval_seconds", 300) * 1000L;
+        this.reconcileBatch = Math.max(1, plugin.getConfig().getInt("database.ledger.reconcile_batch", 200));
+    }
+
+    public static String playerAccount(UUID uuid) {
+        return PLAYER_PREFIX + uuid;
+    }
+
+    /**
+     * The player owning an account, or null for system accounts
+     */
+    public static UUID playerOf(String account) {
+        return account.startsWith(PLAYER_PREFIX) ? UUID.fromString(account.substring(PLAYER_PREFIX.length())) : null;
+    }
+
+    /**
+     * Reconcile accounts with new postings in the background
+     */
+    public void start() {
+        if (reconcileIntervalMs <= 0) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-LedgerReconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcileSafely,
+            reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.shutdown();
+            try {
+                reconciler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Balances
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Materialized balance. Player balances may come from a read replica
+     * unless this server changed them moments ago. While the database is
+     * unavailable, or has not yet replayed this server's spooled postings,
+     * the last balance this server saw is returned instead.
+     */
+    public Money getBalance(String account) {
+        if (spooledAccounts.contains(account)) {
+            Money balance = lastKnown.get(account);
+            if (balance != null) {
+                return balance;
+            }
+        }
+        UUID player = playerOf(account);
+        try (Connection conn = player != null
+                ? databaseManager.getReplicaConnection(ChangeOutbox.TOPIC_BALANCE, player.toString())
+                : databaseManager.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT balance FROM ledger_accounts WHERE account = ?")) {
+            ps.setString(1, account);
+            try (ResultSet rs = ps.executeQuery()) {
+                Money balance = rs.next() ? Money.ofMinor(rs.getLong("balance")) : Money.ZERO;
+                lastKnown.put(account, balance);
+                return balance;
+            }
+        } catch (SQLException e) {
+            if (!(e instanceof DatabaseGuard.CircuitOpenException)) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to get ledger balance for " + account, e);
+            }
+            return lastKnown.getOrDefault(account, Money.ZERO);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Posting
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Move money from one account to another
+     */
+    public PostResult transfer(String from, String to, Money amount, String type, String details) {
+        return post(new Entry(type, details).debit(from, amount).credit(to, amount));
+    }
+
+    /**
+     * Write a balanced entry and apply it to every account it touches, or
+     * nothing at all
+     */
+    public PostResult post(Entry entry) {
+        entry.checkBalanced();
+        if (entry.isEmpty()) {
+            // Nothing to write; report the current balances
+            Map<String, Money> balances = new TreeMap<>();
+            for (String account : entry.legs.keySet()) {
+                balances.put(account, getBalance(account));
+            }
+            return new PostResult(PostResult.Status.SUCCESS, 0, balances);
+        }
+        WriteSpool spool = databaseManager.getWriteSpool();
+        if (spool.hasPending() && !UnitOfWork.isActive()) {
+            // Stay behind the spooled postings so they replay in order
+            return spool(spool, entry);
+        }
+        try (Connection conn = databaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                PostResult result = postOn(conn, entry);
+                if (result.isSuccess()) {
+                    conn.commit();
+                    UnitOfWork.afterCommit(() -> lastKnown.putAll(result.balances));
+                } else {
+                    conn.rollback();
+                }
+                return result;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            if (spool.accepts(e)) {
+                return spool(spool, entry);
+            }
+            plugin.getLogger().log(Level.SEVERE, "Failed to post ledger entry " + entry.type, e);
+            return PostResult.failed();
+        }
+    }
+
+    /**
+     * Accept an entry into the write spool, checking player debits against
+     * the last balances this server saw. Player accounts with no known
+     * balance cannot be checked and are refused. In cluster mode other
+     * servers may be spending the same balances, so player debits are
+     * refused outright.
+     */
+    private PostResult spool(WriteSpool spool, Entry entry) {
+        boolean clustered = databaseManager.getChangeOutbox().isEnabled();
+        Map<String, Money> balances = new TreeMap<>();
+        synchronized (lastKnown) {
+            for (Map.Entry<String, Long> leg : entry.legs.entrySet()) {
+                boolean player = leg.getKey().startsWith(PLAYER_PREFIX);
+                Money current = lastKnown.get(leg.getKey());
+                if (current == null && player) {
+                    return PostResult.failed();
+                }
+                if (clustered && player && leg.getValue() < 0) {
+                    return PostResult.failed();
+                }
+                if (player && leg.getValue() < 0 && current.minor() + leg.getValue() < 0) {
+                    return PostResult.insufficientFunds(leg.getKey());
+                }
+            }
+            // Reserve the change before the fsync so concurrent debits see it
+            for (Map.Entry<String, Long> leg : entry.legs.entrySet()) {
+                Money current = lastKnown.get(leg.getKey());
+                if (current != null) {
+                    Money updated = current.plus(Money.ofMinor(leg.getValue()));
+                    lastKnown.put(leg.getKey(), updated);
+                    balances.put(leg.getKey(), updated);
+                }
+            }
+        }
+
+        try {
+            spool.spoolPosting(entry);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to spool ledger entry " + entry.type, e);
+            synchronized (lastKnown) {
+                for (Map.Entry<String, Long> leg : entry.legs.entrySet()) {
+                    lastKnown.computeIfPresent(leg.getKey(),
+                        (account, balance) -> balance.minus(Money.ofMinor(leg.getValue())));
+                }
+            }
+            return PostResult.failed();
+        }
+        spooledAccounts.addAll(balances.keySet());
+        return new PostResult(PostResult.Status.SUCCESS, 0, balances);
+    }
+
+    /**
+     * Called once the spool has been replayed; balances are read from the
+     * database again
+     */
+    void spoolDrained() {
+        spooledAccounts.clear();
+    }
+
+    /**
+     * Set an account to an exact balance, posting the difference against
+     * {@link #ADJUSTMENT}
+     */
+    public PostResult setBalance(String account, Money balance, String details) {
+        try (Connection conn = databaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                ensureAccount(conn, account);
+                long current;
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT balance FROM ledger_accounts WHERE account = ?" + (databaseManager.isMySQL() ? " FOR UPDATE" : ""))) {
+                    ps.setString(1, account);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        current = rs.next() ? rs.getLong("balance") : 0;
+                    }
+                }
+
+                Money difference = balance.minus(Money.ofMinor(current));
+                PostResult result = difference.isZero()
+                    ? new PostResult(PostResult.Status.SUCCESS, 0, Map.of(account, balance))
+                    : postOn(conn, new Entry("admin_set", details).credit(account, difference).debit(ADJUSTMENT, difference));
+                if (result.isSuccess()) {
+                    conn.commit();
+                    UnitOfWork.afterCommit(() -> lastKnown.putAll(result.balances));
+                } else {
+                    conn.rollback();
+                }
+                return result;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to set ledger balance for " + account, e);
+            return PostResult.failed();
+        }
+    }
+
+    /**
+     * Post within the caller's transaction. Accounts are updated in key
+     * order so concurrent entries on MySQL lock rows in the same order.
+     */
+    PostResult postOn(Connection conn, Entry entry) throws SQLException {
+        long entryId;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ledger_entries (entry_type, details, created_at) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, entry.type);
+            ps.setString(2, entry.details);
+            ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id returned for ledger entry");
+                }
+                entryId = keys.getLong(1);
+            }
+        }
+
+        try (PreparedStatement update = conn.prepareStatement(
+                "UPDATE ledger_accounts SET balance = balance + ?, last_entry_id = ? WHERE account = ?");
+             PreparedStatement debit = conn.prepareStatement(
+                "UPDATE ledger_accounts SET balance = balance + ?, last_entry_id = ? WHERE account = ? AND balance + ? >= 0")) {
+            for (Map.Entry<String, Long> leg : entry.legs.entrySet()) {
+                String account = leg.getKey();
+                long amount = leg.getValue();
+                if (amount == 0) {
+                    continue;
+                }
+                ensureAccount(conn, account);
+
+                // Player balances are checked and changed in one statement
+                boolean guarded = amount < 0 && account.startsWith(PLAYER_PREFIX);
+                PreparedStatement ps = guarded ? debit : update;
+                ps.setLong(1, amount);
+                ps.setLong(2, entryId);
+                ps.setString(3, account);
+                if (guarded) {
+                    ps.setLong(4, amount);
+                }
+                if (ps.executeUpdate() == 0) {
+                    return PostResult.insufficientFunds(account);
+                }
+            }
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ledger_postings (entry_id, account, amount) VALUES (?, ?, ?)")) {
+            for (Map.Entry<String, Long> leg : entry.legs.entrySet()) {
+                if (leg.getValue() == 0) {
+                    continue;
+                }
+                ps.setLong(1, entryId);
+                ps.setString(2, leg.getKey());
+                ps.setLong(3, leg.getValue());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        Map<String, Money> balances = new TreeMap<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT balance FROM ledger_accounts WHERE account = ?")) {
+            for (String account : entry.legs.keySet()) {
+                ps.setString(1, account);
+                try (ResultSet rs = ps.executeQuery()) {
+                    balances.put(account, rs.next() ? Money.ofMinor(rs.getLong("balance")) : Money.ZERO);
+                }
+                UUID player = playerOf(account);
+                if (player != null) {
+                    databaseManager.getChangeOutbox().publish(conn, ChangeOutbox.TOPIC_BALANCE, player.toString());
+                }
+            }
+        }
+        return new PostResult(PostResult.Status.SUCCESS, entryId, balances);
+    }
+
+    private void ensureAccount(Connection conn, String account) throws SQLException {
+        String sql = databaseManager.isMySQL()
+            ? "INSERT IGNORE INTO ledger_accounts (account) VALUES (?)"
+            : "INSERT OR IGNORE INTO ledger_accounts (account) VALUES (?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, account);
+            ps.executeUpdate();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Reconciliation
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void reconcileSafely() {
+        try {
+            ReconcileSummary summary = reconcilePending(reconcileBatch);
+            if (summary.getMismatched() > 0) {
+                plugin.getLogger().severe("Ledger reconciliation: " + summary.getMismatched() + " of "
+                    + summary.getChecked() + " account(s) do not match their postings.");
+            }
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Ledger reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Reconcile up to limit accounts that have postings since their last check
+     */
+    public ReconcileSummary reconcilePending(int limit) throws SQLException {
+        List<String> accounts = new ArrayList<>();
+        try (Connection conn = databaseManager.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                 "SELECT account FROM ledger_accounts WHERE last_entry_id > checked_entry_id ORDER BY checked_entry_id LIMIT ?")) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    accounts.add(rs.getString("account"));
+                }
+            }
+        }
+
+        // One account per transaction, so posting is never held up for long
+        int mismatched = 0;
+        for (String account : accounts) {
+            if (!reconcile(account).isConsistent()) {
+                mismatched++;
+            }
+        }
+        return new ReconcileSummary(accounts.size(), mismatched);
+    }
+
+    /**
+     * Check that an account's balance equals its last verified balance plus
+     * the postings made since, and move the checkpoint forward if it does
+     */
+    public ReconcileResult reconcile(String account) throws SQLException {
+        try (Connection conn = databaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                ReconcileResult result = reconcileOn(conn, account);
+                conn.commit();
+                return result;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private ReconcileResult reconcileOn(Connection conn, String account) throws SQLException {
+        long balance;
+        long checkedEntry;
+        long checkedBalance;
+        // Locking the account row keeps new postings out until the check is done
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT balance, checked_entry_id, checked_balance FROM ledger_accounts WHERE account = ?"
+                    + (databaseManager.isMySQL() ? " FOR UPDATE" : ""))) {
+            ps.setString(1, account);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return new ReconcileResult(account, Money.ZERO, Money.ZERO, 0);
+                }
+                balance = rs.getLong("balance");
+                checkedEntry = rs.getLong("checked_entry_id");
+                checkedBalance = rs.getLong("checked_balance");
+            }
+        }
+
+        long sum;
+        long lastEntry;
+        int postings;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT COALESCE(SUM(amount), 0), COALESCE(MAX(entry_id), 0), COUNT(*) FROM ledger_postings WHERE account = ? AND entry_id > ?")) {
+            ps.setString(1, account);
+            ps.setLong(2, checkedEntry);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                sum = rs.getLong(1);
+                lastEntry = Math.max(checkedEntry, rs.getLong(2));
+                postings = rs.getInt(3);
+            }
+        }
+
+        long expected = checkedBalance + sum;
+        if (expected != balance) {
+            plugin.getLogger().severe("Ledger account " + account + " holds " + Money.ofMinor(balance)
+                + " but its postings add up to " + Money.ofMinor(expected) + " (checked up to entry " + checkedEntry + ")");
+            return new ReconcileResult(account, Money.ofMinor(balance), Money.ofMinor(expected), postings);
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE ledger_accounts SET checked_entry_id = ?, checked_balance = ?, checked_at = ? WHERE account = ?")) {
+            ps.setLong(1, lastEntry);
+            ps.setLong(2, balance);
+            ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            ps.setString(4, account);
+            ps.executeUpdate();
+        }
+        return new ReconcileResult(account, Money.ofMinor(balance), Money.ofMinor(expected), postings);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * A journal entry being built. Amounts to the same account are netted.
+     */
+    public static class Entry {
+        private final String type;
+        private final String details;
+        private final TreeMap<String, Long> legs = new TreeMap<>();
+
+        public Entry(String type, String details) {
+            this.type = type;
+            this.details = details;
+        }
+
+        /** Add money to an account */
+        public Entry credit(String account, Money amount) {
+            legs.merge(account, amount.minor(), Long::sum);
+            return this;
+        }
+
+        /** Take money from an account */
+        public Entry debit(String account, Money amount) {
+            legs.merge(account, -amount.minor(), Long::sum);
+            return this;
+        }
+
+        public String getType() { return type; }
+        public String getDetails() { return details; }
+
+        Map<String, Long> getLegs() { return Collections.unmodifiableMap(legs); }
+
+        /**
+         * True if no account changes, e.g. a zero-amount Vault call
+         */
+        public boolean isEmpty() {
+            return legs.values().stream().allMatch(amount -> amount == 0);
+        }
+
+        private void checkBalanced() {
+            long total = 0;
+            for (long amount : legs.values()) {
+                total += amount;
+            }
+            if (total != 0) {
+                throw new IllegalArgumentException("Ledger entry " + type + " is unbalanced: " + legs);
+            }
+        }
+    }
+
+    public static class PostResult {
+        public enum Status { SUCCESS, INSUFFICIENT_FUNDS, FAILED }
+
+        private final Status status;
+        private final long entryId;
+        private final Map<String, Money> balances;
+        private final String account;
+
+        PostResult(Status status, long entryId, Map<String, Money> balances) {
+            this(status, entryId, balances, null);
+        }
+
+        private PostResult(Status status, long entryId, Map<String, Money> balances, String account) {
+            this.status = status;
+            this.entryId = entryId;
+            this.balances = balances;
+            this.account = account;
+        }
+
+        static PostResult insufficientFunds(String account) {
+            return new PostResult(Status.INSUFFICIENT_FUNDS, 0, Collections.emptyMap(), account);
+        }
+
+        static PostResult failed() {
+            return new PostResult(Status.FAILED, 0, Collections.emptyMap(), null);
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isSuccess() { return status == Status.SUCCESS; }
+        public long getEntryId() { return entryId; }
+
+        /** The account that lacked funds, if any */
+        public String getFailedAccount() { return account; }
+
+        /**
+         * Balance of an account right after the entry, null if it was not
+         * part of it
+         */
+        public Money getBalance(String account) {
+            return balances.get(account);
+        }
+    }
+
+    public static class ReconcileResult {
+        private final String account;
+        private final Money balance;
+        private final Money expected;
+        private final int postings;
+
+        public ReconcileResult(String account, Money balance, Money expected, int postings) {
+            this.account = account;
+            this.balance = balance;
+            this.expected = expected;
+            this.postings = postings;
+        }
+
+        public String getAccount() { return account; }
+        public Money getBalance() { return balance; }
+        public Money getExpected() { return expected; }
+        /** Postings checked in this pass */
+        public int getPostings() { return postings; }
+        public boolean isConsistent() { return balance.equals(expected); }
+    }
+
+    public static class ReconcileSummary {
+        private final int checked;
+        private final int mismatched;
+
+        public ReconcileSummary(int checked, int mismatched) {
+            this.checked = checked;
+            this.mismatched = mismatched;
+        }
+
+        public int getChecked() { return checked; }
+        public int getMismatched() { return mismatched; }
+    }
+}
@@ -0,0 +1,420 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the plan of every statement the plugin runs against the live
+ * database.
+ *
+ * Statements are taken from {@link QueryMetrics}, one real statement per
+ * shape, and explained with sample values of the recorded parameter types:
+ * EXPLAIN QUERY PLAN on SQLite, EXPLAIN on MySQL. Plain inserts and schema
+ * statements have no plan worth checking and are skipped. A full table scan
+ * in a statement run at least hot_min_calls times in the metrics window
+ * fails the audit, unless the table is listed in allow_scans; scans of a
+ * whole index and scans on cold statements are reported as warnings.
+ *
+ * A baseline of plans and p50/p99 latencies can be saved to
+ * explain-baseline.tsv. Later audits fail a statement whose p99 has grown
+ * past regression_factor times its baseline, by at least regression_min_ms,
+ * or whose plan has turned into a full scan.
+ */
+public class QueryPlanAudit {
+
+    private static final String BASELINE_FILE = "explain-baseline.tsv";
+    private static final int MIN_SAMPLES = 20;
+
+    // "SCAN t", "SCAN TABLE t" (before SQLite 3.36), optionally "AS x" and "USING ..."
+    private static final Pattern SQLITE_SCAN = Pattern.compile("^SCAN (?:TABLE )?(\\S+)(.*)$");
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final Path baselineFile;
+    private final int hotMinCalls;
+    private final Set<String> allowScans = new HashSet<>();
+    private final double regressionFactor;
+    private final long regressionMinNanos;
+    private final long intervalMinutes;
+
+    private final Map<String, Baseline> baseline = new ConcurrentHashMap<>();
+    // Findings already logged by the scheduled audit
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+    private volatile Report lastReport;
+
+    public QueryPlanAudit(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.baselineFile = plugin.getDataFolder().toPath().resolve(BASELINE_FILE);
+        this.hotMinCalls = Math.max(1, plugin.getConfig().getInt("database.explain.hot_min_calls", 50));
+        for (String table : plugin.getConfig().getStringList("database.explain.allow_scans")) {
+            allowScans.add(table.toLowerCase(Locale.ROOT));
+        }
+        this.regressionFactor = Math.max(1.0, plugin.getConfig().getDouble("database.explain.regression_factor", 2.0));
+        this.regressionMinNanos = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(0, plugin.getConfig().getLong("database.explain.regression_min_ms", 5)));
+        this.intervalMinutes = Math.max(0, plugin.getConfig().getLong("database.explain.interval_minutes", 60));
+        loadBaseline();
+    }
+
+    /**
+     * Audit every interval_minutes and log new failures; 0 leaves it to
+     * /nsf db explain
+     */
+    public void start() {
+        if (intervalMinutes == 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-Explain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runScheduled, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    public boolean hasBaseline() {
+        return !baseline.isEmpty();
+    }
+
+    private void runScheduled() {
+        try {
+            for (Finding finding : run().getFailures()) {
+                if (reported.add(finding.getKind() + " " + finding.getShape())) {
+                    plugin.getLogger().warning("Query plan audit: " + finding.getKind().getLabel() + " "
+                        + finding.getDetail() + ": " + finding.getShape());
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Query plan audit failed", e);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Audit
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Explain every recorded statement and compare it with the baseline.
+     * Blocks; run it off the server thread.
+     */
+    public Report run() throws SQLException {
+        QueryMetrics metrics = databaseManager.getQueryMetrics();
+        if (metrics == null) {
+            throw new IllegalStateException("database.metrics.enabled is off; there are no statements to audit");
+        }
+        Report report = new Report(System.currentTimeMillis());
+        try (Connection conn = databaseManager.getConnection()) {
+            for (QueryMetrics.QueryStats stats : metrics.getQueries()) {
+                String sql = stats.getSql();
+                if (sql == null || !isExplainable(sql)) {
+                    report.skipped++;
+                    continue;
+                }
+                Plan plan;
+                try {
+                    plan = explain(conn, sql, stats.getParams());
+                } catch (SQLException e) {
+                    report.findings.add(new Finding(stats.getShape(), Kind.UNEXPLAINABLE, e.getMessage(), false));
+                    continue;
+                }
+                report.explained++;
+                report.plans.put(stats.getShape(), new Baseline(plan.summary,
+                    stats.getLatency().getPercentileNanos(0.50), stats.getLatency().getPercentileNanos(0.99)));
+                check(report, stats, plan);
+            }
+        }
+        lastReport = report;
+        return report;
+    }
+
+    private void check(Report report, QueryMetrics.QueryStats stats, Plan plan) {
+        String shape = stats.getShape();
+        boolean hot = stats.getLatency().getCount() >= hotMinCalls;
+        for (String table : plan.fullScans) {
+            if (!allowScans.contains(table.toLowerCase(Locale.ROOT))) {
+                report.findings.add(new Finding(shape, Kind.FULL_SCAN, "of " + table, hot));
+            }
+        }
+        for (String table : plan.indexScans) {
+            if (!allowScans.contains(table.toLowerCase(Locale.ROOT))) {
+                report.findings.add(new Finding(shape, Kind.INDEX_SCAN, "of " + table, false));
+            }
+        }
+
+        Baseline base = baseline.get(shape);
+        if (base == null) {
+            return;
+        }
+        if (!plan.fullScans.isEmpty() && !base.plan.contains("full scan")) {
+            report.findings.add(new Finding(shape, Kind.PLAN_CHANGED, "was " + base.plan, true));
+        }
+        long p99 = stats.getLatency().getPercentileNanos(0.99);
+        if (stats.getLatency().getCount() >= MIN_SAMPLES && base.p99Nanos > 0
+                && p99 > base.p99Nanos * regressionFactor && p99 - base.p99Nanos >= regressionMinNanos) {
+            report.findings.add(new Finding(shape, Kind.LATENCY_REGRESSION, String.format("p99 %.1fms, baseline %.1fms",
+                p99 / 1e6, base.p99Nanos / 1e6), true));
+        }
+    }
+
+    /**
+     * Statements with an access path: queries, updates, deletes and
+     * INSERT ... SELECT
+     */
+    static boolean isExplainable(String sql) {
+        String head = sql.stripLeading().toUpperCase(Locale.ROOT);
+        if (head.startsWith("SELECT") || head.startsWith("UPDATE") || head.startsWith("DELETE") || head.startsWith("WITH")) {
+            // Catalog lookups made by migrations and maintenance
+            return !head.contains("SQLITE_MASTER") && !head.contains("INFORMATION_SCHEMA");
+        }
+        return (head.startsWith("INSERT") || head.startsWith("REPLACE")) && head.contains(" SELECT ");
+    }
+
+    private Plan explain(Connection conn, String sql, String params) throws SQLException {
+        boolean mysql = databaseManager.isMySQL();
+        try (PreparedStatement ps = conn.prepareStatement((mysql ? "EXPLAIN " : "EXPLAIN QUERY PLAN ") + sql)) {
+            bindSamples(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return mysql ? readMySqlPlan(rs) : readSqlitePlan(rs);
+            }
+        }
+    }
+
+    private static Plan readSqlitePlan(ResultSet rs) throws SQLException {
+        Plan plan = new Plan();
+        StringJoiner summary = new StringJoiner("; ");
+        while (rs.next()) {
+            String detail = rs.getString("detail");
+            summary.add(detail);
+            Matcher scan = SQLITE_SCAN.matcher(detail);
+            if (!scan.matches() || scan.group(1).startsWith("(") || scan.group(1).equals("CONSTANT")) {
+                continue;
+            }
+            String rest = scan.group(2);
+            if (!rest.contains("USING")) {
+                plan.fullScans.add(scan.group(1));
+            } else if (rest.contains("INDEX")) {
+                plan.indexScans.add(scan.group(1));
+            }
+        }
+        plan.summary = (plan.fullScans.isEmpty() ? "" : "full scan: ") + summary;
+        return plan;
+    }
+
+    private static Plan readMySqlPlan(ResultSet rs) throws SQLException {
+        Plan plan = new Plan();
+        StringJoiner summary = new StringJoiner("; ");
+        while (rs.next()) {
+            String table = rs.getString("table");
+            String type = rs.getString("type");
+            String key = rs.getString("key");
+            if (table == null || type == null) {
+                summary.add(String.valueOf(rs.getString("Extra")));
+                continue;
+            }
+            summary.add(table + " " + type + (key != null ? " " + key : ""));
+            // Derived tables are named <derived2> and the like
+            if (table.startsWith("<")) {
+                continue;
+            }
+            if (type.equals("ALL")) {
+                plan.fullScans.add(table);
+            } else if (type.equals("index")) {
+                plan.indexScans.add(table);
+            }
+        }
+        plan.summary = (plan.fullScans.isEmpty() ? "" : "full scan: ") + summary;
+        return plan;
+    }
+
+    /**
+     * Bind a value of each recorded parameter type. The values match no
+     * rows, but the access path is the same.
+     */
+    private static void bindSamples(PreparedStatement ps, String params) throws SQLException {
+        List<String> types = new ArrayList<>();
+        if (params != null && params.length() > 2) {
+            for (String type : params.substring(1, params.length() - 1).split(", ")) {
+                types.add(type);
+            }
+        }
+        int count = ps.getParameterMetaData().getParameterCount();
+        for (int i = 1; i <= count; i++) {
+            String type = i <= types.size() ? types.get(i - 1) : "null";
+            if (type.startsWith("bytes[")) {
+                ps.setBytes(i, new byte[Integer.parseInt(type.substring(6, type.length() - 1))]);
+                continue;
+            }
+            switch (type) {
+                case "int", "integer", "short", "long" -> ps.setLong(i, 0);
+                case "double", "float", "bigdecimal" -> ps.setDouble(i, 0);
+                case "boolean" -> ps.setBoolean(i, false);
+                case "timestamp" -> ps.setTimestamp(i, new Timestamp(System.currentTimeMillis()));
+                case "string" -> ps.setString(i, "");
+                default -> ps.setNull(i, Types.NULL);
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Baseline
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Save the plans and latencies of the last audit as the baseline
+     */
+    public int saveBaseline() throws IOException {
+        Report report = lastReport;
+        if (report == null) {
+            return 0;
+        }
+        StringBuilder out = new StringBuilder("# shape\tp50_nanos\tp99_nanos\tplan\n");
+        for (Map.Entry<String, Baseline> entry : new TreeMap<>(report.plans).entrySet()) {
+            Baseline base = entry.getValue();
+            out.append(entry.getKey()).append('\t').append(base.p50Nanos).append('\t')
+                .append(base.p99Nanos).append('\t').append(base.plan).append('\n');
+        }
+        Path tmp = baselineFile.resolveSibling(BASELINE_FILE + ".tmp");
+        Files.createDirectories(baselineFile.getParent());
+        Files.writeString(tmp, out, StandardCharsets.UTF_8);
+        Files.move(tmp, baselineFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        baseline.clear();
+        baseline.putAll(report.plans);
+        reported.clear();
+        return report.plans.size();
+    }
+
+    private void loadBaseline() {
+        if (!Files.exists(baselineFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(baselineFile, StandardCharsets.UTF_8)) {
+                if (line.startsWith("#") || line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split("\t", 4);
+                if (fields.length == 4) {
+                    baseline.put(fields[0], new Baseline(fields[3], Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not read " + BASELINE_FILE + "; ignoring the query baseline", e);
+            baseline.clear();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static final class Plan {
+        private final Set<String> fullScans = new TreeSet<>();
+        private final Set<String> indexScans = new TreeSet<>();
+        private String summary;
+    }
+
+    private static final class Baseline {
+        private final String plan;
+        private final long p50Nanos;
+        private final long p99Nanos;
+
+        Baseline(String plan, long p50Nanos, long p99Nanos) {
+            this.plan = plan;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+    }
+
+    public enum Kind {
+        FULL_SCAN("full table scan"),
+        INDEX_SCAN("full index scan"),
+        PLAN_CHANGED("plan changed to a full scan"),
+        LATENCY_REGRESSION("latency regression"),
+        UNEXPLAINABLE("could not explain");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    public static class Finding {
+        private final String shape;
+        private final Kind kind;
+        private final String detail;
+        private final boolean failure;
+
+        public Finding(String shape, Kind kind, String detail, boolean failure) {
+            this.shape = shape;
+            this.kind = kind;
+            this.detail = detail;
+            this.failure = failure;
+        }
+
+        public String getShape() { return shape; }
+        public Kind getKind() { return kind; }
+        public String getDetail() { return detail; }
+        /** Whether this fails the audit rather than being a warning */
+        public boolean isFailure() { return failure; }
+    }
+
+    public static class Report {
+        private final long at;
+        private final List<Finding> findings = new ArrayList<>();
+        private final Map<String, Baseline> plans = new HashMap<>();
+        private int explained;
+        private int skipped;
+
+        Report(long at) {
+            this.at = at;
+        }
+
+        public long getAt() { return at; }
+        public int getExplained() { return explained; }
+        public int getSkipped() { return skipped; }
+        public List<Finding> getFindings() { return findings; }
+
+        public List<Finding> getFailures() {
+            List<Finding> failures = new ArrayList<>();
+            for (Finding finding : findings) {
+                if (finding.isFailure()) {
+                    failures.add(finding);
+                }
+            }
+            return failures;
+        }
+
+        public boolean isPassed() {
+            return getFailures().isEmpty();
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Authoritative in-memory Nether Star reserve.
+ *
+ * Reads never touch the database. Every change is appended to a local
+ * journal segment and forced to disk before it takes effect, then the
+ * counter is checkpointed to the reserve row in the background, together
+ * with the sequence number of the last change it includes. On startup any
+ * journal records newer than the checkpoint are replayed.
+ *
+ * Inside a unit of work nothing is journaled until the unit commits, so a
+ * crash cannot replay a change the database rolled back. A removal holds
+ * its stars meanwhile, so two open units cannot both spend the same stars.
+ *
+ * Only one server may own the reserve, so the ledger is not used when
+ * database.cluster is enabled.
+ */
+public class ReserveLedger {
+
+    private static final String SEGMENT_PREFIX = "reserve-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final File folder;
+    private final boolean fsync;
+    private final int checkpointEvery;
+    private final long checkpointIntervalMs;
+
+    private final AtomicLong balance = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private ScheduledExecutorService checkpointer;
+
+    // Guarded by writeLock
+    private long sequence;
+    private FileChannel segment;
+    private File segmentFile;
+    private int sinceCheckpoint;
+    // Stars set aside for removals waiting on their unit of work
+    private long held;
+
+    private volatile long checkpointedSequence;
+    private volatile long lastCheckpointAt;
+
+    public ReserveLedger(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.folder = new File(plugin.getDataFolder(),
+            plugin.getConfig().getString("database.reserve.journal_folder", "reserve"));
+        this.fsync = plugin.getConfig().getBoolean("database.reserve.fsync", true);
+        this.checkpointEvery = Math.max(1, plugin.getConfig().getInt("database.reserve.checkpoint_every", 500));
+        this.checkpointIntervalMs = Math.max(100, plugin.getConfig().getLong("database.reserve.checkpoint_interval_ms", 5000));
+    }
+
+    /**
+     * Load the checkpoint, replay the journal and start checkpointing
+     */
+    public void open() throws SQLException, IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Cannot create reserve journal folder " + folder);
+        }
+
+        long stars = 0;
+        long checkpointSeq = 0;
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT nether_stars, journal_seq FROM reserve WHERE id = 1");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                stars = rs.getLong("nether_stars");
+                checkpointSeq = rs.getLong("journal_seq");
+            }
+        }
+
+        // Replay whatever the last checkpoint did not include
+        long lastSeq = checkpointSeq;
+        int replayed = 0;
+        for (File file : listSegments()) {
+            for (Record record : readSegment(file)) {
+                if (record.seq > checkpointSeq) {
+                    stars += record.delta;
+                    lastSeq = Math.max(lastSeq, record.seq);
+                    replayed++;
+                }
+            }
+        }
+
+        balance.set(stars);
+        sequence = lastSeq;
+        checkpointedSequence = checkpointSeq;
+        openSegment();
+
+        if (replayed > 0) {
+            plugin.getLogger().warning("Reserve journal: replayed " + replayed
+                + " change(s) not in the last checkpoint; reserve is " + stars + " stars.");
+        }
+        checkpoint();
+
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-ReserveCheckpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpointSafely,
+            checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Reserve Operations
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Current reserve in Nether Stars
+     */
+    public long get() {
+        return balance.get();
+    }
+
+    /**
+     * Add stars. Returns false if the change could not be journaled.
+     */
+    public boolean add(long amount) {
+        if (amount < 0) {
+            return false;
+        }
+        return apply(amount, false, false);
+    }
+
+    /**
+     * Remove stars only if the reserve holds at least that many
+     */
+    public boolean tryRemove(long amount) {
+        if (amount < 0) {
+            return false;
+        }
+        return apply(-amount, true, false);
+    }
+
+    /**
+     * Set stars aside for a removal that {@link #settle} applies later.
+     * Fails if the reserve, less what is already held, is short.
+     */
+    public boolean hold(long amount) {
+        if (amount < 0) {
+            return false;
+        }
+        writeLock.lock();
+        try {
+            if (balance.get() - held < amount) {
+                return false;
+            }
+            held += amount;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Give back stars held for a removal that did not happen
+     */
+    public void release(long amount) {
+        writeLock.lock();
+        try {
+            held -= amount;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Apply a change the database has already committed. If held is set,
+     * the stars held for it are released first. The change always takes
+     * effect; if it cannot be journaled the next checkpoint records it.
+     */
+    public void settle(long delta, boolean wasHeld) {
+        writeLock.lock();
+        try {
+            if (wasHeld) {
+                held += delta;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        apply(delta, false, true);
+    }
+
+    private boolean apply(long delta, boolean conditional, boolean committed) {
+        boolean checkpointDue;
+        writeLock.lock();
+        try {
+            long current = balance.get();
+            if (conditional && current - held + delta < 0) {
+                return false;
+            }
+            long seq = sequence + 1;
+            try {
+                append(new Record(seq, delta, current + delta));
+                sequence = seq;
+            } catch (IOException e) {
+                if (!committed) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to journal reserve change; change rejected", e);
+                    return false;
+                }
+                // Already in the database; checkpoint it now rather than lose it
+                plugin.getLogger().log(Level.SEVERE, "Failed to journal committed reserve change of "
+                    + delta + " stars; checkpointing instead", e);
+                sinceCheckpoint = checkpointEvery;
+            }
+            balance.set(current + delta);
+            checkpointDue = ++sinceCheckpoint >= checkpointEvery;
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (checkpointDue && checkpointer != null) {
+            checkpointer.execute(this::checkpointSafely);
+        }
+        return true;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Checkpoints
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void checkpointSafely() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Reserve checkpoint failed; journal kept for replay", e);
+        }
+    }
+
+    /**
+     * Write the counter to the reserve row and drop journal segments it covers
+     */
+    public void checkpoint() throws SQLException, IOException {
+        long stars;
+        long seq;
+        File current;
+        writeLock.lock();
+        try {
+            if (sequence == checkpointedSequence && sinceCheckpoint == 0) {
+                return;
+            }
+            stars = balance.get();
+            seq = sequence;
+            sinceCheckpoint = 0;
+            // New changes go to a fresh segment so older ones can be deleted
+            rotateSegment();
+            current = segmentFile;
+        } finally {
+            writeLock.unlock();
+        }
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                 "UPDATE reserve SET nether_stars = ?, journal_seq = ?, last_updated = CURRENT_TIMESTAMP WHERE id = 1")) {
+            ps.setLong(1, stars);
+            ps.setLong(2, seq);
+            ps.executeUpdate();
+        }
+        checkpointedSequence = seq;
+        lastCheckpointAt = System.currentTimeMillis();
+
+        for (File file : listSegments()) {
+            if (!file.equals(current)) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    /**
+     * Final checkpoint and close the journal
+     */
+    public void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            try {
+                checkpointer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkpointSafely();
+        writeLock.lock();
+        try {
+            if (segment != null) {
+                segment.close();
+                segment = null;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close reserve journal", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public LedgerStats getStats() {
+        return new LedgerStats(balance.get(), sequence, checkpointedSequence, lastCheckpointAt);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Journal Segments
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void append(Record record) throws IOException {
+        segment.write(ByteBuffer.wrap(record.encode().getBytes(StandardCharsets.US_ASCII)));
+        if (fsync) {
+            segment.force(false);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segmentFile = new File(folder, SEGMENT_PREFIX + (sequence + 1) + SEGMENT_SUFFIX);
+        segment = FileChannel.open(segmentFile.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void rotateSegment() throws IOException {
+        if (segment != null) {
+            segment.force(true);
+            segment.close();
+        }
+        openSegment();
+    }
+
+    private List<File> listSegments() {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        List<File> segments = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingLong(ReserveLedger::segmentStart));
+        return segments;
+    }
+
+    private static long segmentStart(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Read intact records; a torn or corrupt line ends the segment
+     */
+    private List<Record> readSegment(File file) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Record record = Record.decode(line);
+                if (record == null) {
+                    plugin.getLogger().warning("Reserve journal " + file.getName()
+                        + ": ignoring unreadable record after seq " + (records.isEmpty() ? "start" : records.get(records.size() - 1).seq));
+                    break;
+                }
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * One journaled change: "seq,delta,balance,crc" per line
+     */
+    private static class Record {
+        private final long seq;
+        private final long delta;
+        private final long balanceAfter;
+
+        Record(long seq, long delta, long balanceAfter) {
+            this.seq = seq;
+            this.delta = delta;
+            this.balanceAfter = balanceAfter;
+        }
+
+        String encode() {
+            String body = seq + "," + delta + "," + balanceAfter;
+            return body + "," + checksum(body) + "\n";
+        }
+
+        static Record decode(String line) {
+            int lastComma = line.lastIndexOf(',');
+            if (lastComma < 0) {
+                return null;
+            }
+            String body = line.substring(0, lastComma);
+            String[] parts = body.split(",");
+            try {
+                if (parts.length != 3 || Long.parseLong(line.substring(lastComma + 1)) != checksum(body)) {
+                    return null;
+                }
+                return new Record(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static long checksum(String body) {
+            CRC32 crc = new CRC32();
+            crc.update(body.getBytes(StandardCharsets.US_ASCII));
+            return crc.getValue();
+        }
+    }
+
+    public static class LedgerStats {
+        private final long balance;
+        private final long sequence;
+        private final long checkpointedSequence;
+        private final long lastCheckpointAt;
+
+        public LedgerStats(long balance, long sequence, long checkpointedSequence, long lastCheckpointAt) {
+            this.balance = balance;
+            this.sequence = sequence;
+            this.checkpointedSequence = checkpointedSequence;
+            this.lastCheckpointAt = lastCheckpointAt;
+        }
+
+        public long getBalance() { return balance; }
+        public long getSequence() { return sequence; }
+        public long getCheckpointedSequence() { return checkpointedSequence; }
+        public long getLastCheckpointAt() { return lastCheckpointAt; }
+
+        /**
+         * Changes journaled but not yet in the reserve row
+         */
+        public long getUncheckpointed() { return sequence - checkpointedSequence; }
+    }
+}
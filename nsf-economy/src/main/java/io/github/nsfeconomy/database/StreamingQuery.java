@@ -0,0 +1,192 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.sql.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Forward-only, read-only queries that hand rows over one at a time instead
+ * of collecting them into lists, so audits and reports use the same memory
+ * however large the tables grow.
+ *
+ * MySQL rows are streamed by Connector/J, either row by row (the default)
+ * or through a server-side cursor fetching database.streaming.fetch_size
+ * rows at a time. SQLite steps rows as they are read.
+ *
+ * The read connection stays checked out until every row has been handled,
+ * so row handlers must not query the database themselves.
+ */
+public class StreamingQuery {
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final int fetchSize;
+    private final boolean cursorFetch;
+
+    public StreamingQuery(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.fetchSize = Math.max(1, plugin.getConfig().getInt("database.streaming.fetch_size", 500));
+        this.cursorFetch = databaseManager.isMySQL()
+            && plugin.getConfig().getBoolean("database.streaming.mysql_cursor_fetch", false);
+    }
+
+    /**
+     * JDBC URL parameters needed on MySQL for the configured streaming mode
+     */
+    static String mysqlUrlParameters(NSFEconomy plugin) {
+        return plugin.getConfig().getBoolean("database.streaming.mysql_cursor_fetch", false)
+            ? "&useCursorFetch=true" : "";
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Statements
+    // ══════════════════════════════════════════════════════════════════════
+
+    public PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(streamingFetchSize());
+        return ps;
+    }
+
+    public Statement createStatement(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(streamingFetchSize());
+        return stmt;
+    }
+
+    private int streamingFetchSize() {
+        // Connector/J only streams row by row with this sentinel fetch size
+        return databaseManager.isMySQL() && !cursorFetch ? Integer.MIN_VALUE : fetchSize;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Row Callbacks
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Run a query on the read pool and hand each row to the handler.
+     * Returning false from the handler stops early.
+     *
+     * @return Number of rows handled
+     */
+    public long forEach(String sql, Binder binder, RowHandler handler) throws SQLException {
+        long rows = 0;
+        try (Connection conn = databaseManager.getReadConnection();
+             PreparedStatement ps = prepare(conn, sql)) {
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                    if (!handler.handle(rs)) {
+                        break;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Map each row and pass it to the consumer
+     */
+    public <T> long forEach(String sql, Binder binder, RowMapper<T> mapper, Consumer<? super T> consumer)
+            throws SQLException {
+        return forEach(sql, binder, rs -> {
+            consumer.accept(mapper.map(rs));
+            return true;
+        });
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Streams
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Lazily mapped rows. The stream holds a connection until closed, so
+     * always use it in try-with-resources. Read failures surface as
+     * {@link StreamingException}.
+     */
+    public <T> Stream<T> stream(String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        Connection conn = databaseManager.getReadConnection();
+        PreparedStatement ps = null;
+        ResultSet rs;
+        try {
+            ps = prepare(conn, sql);
+            binder.bind(ps);
+            rs = ps.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(ps);
+            closeQuietly(conn);
+            throw e;
+        }
+
+        PreparedStatement statement = ps;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new StreamingException("Failed to read row: " + sql, e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            closeQuietly(rs);
+            closeQuietly(statement);
+            closeQuietly(conn);
+        });
+    }
+
+    private void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close streaming query resource", e);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    @FunctionalInterface
+    public interface Binder {
+        Binder NONE = ps -> { };
+
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @return false to stop reading
+         */
+        boolean handle(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    public static class StreamingException extends RuntimeException {
+        public StreamingException(String message, SQLException cause) {
+            super(message, cause);
+        }
+    }
+}
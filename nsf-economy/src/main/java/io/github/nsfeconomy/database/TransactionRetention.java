@@ -0,0 +1,932 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the transactions table bounded.
+ *
+ * The log is split by month: native RANGE partitions on MySQL, and on SQLite
+ * the live table is renamed to transactions_yyyyMM when the month changes and
+ * an empty one takes its place. Months that fall out of the hot window are
+ * folded into daily per-player, per-type totals (transaction_rollups), their
+ * raw rows are written to a gzip file under the archive folder, and the
+ * partition or table is dropped. Archived months can still be searched with
+ * {@link #queryArchive}.
+ *
+ * With {@link ShardSet shards} or the {@link LogStore} every such file
+ * rotates its own log and its archives are named after it; rollups and the
+ * archive catalog stay in the core database. Tables rotated in the core file
+ * before either was enabled are still archived from there.
+ */
+public class TransactionRetention {
+
+    static final String PERIOD_SETTING = "transactions_period";
+    static final String MAX_PARTITION = "pmax";
+
+    private static final String HOT_TABLE = "transactions";
+    private static final String HOT_INDEX = "idx_transactions_player_time";
+    private static final String COLUMNS = "id, type, player, amount_f, amount_stars, details, timestamp";
+    private static final String ARCHIVE_HEADER = "# id\ttimestamp\ttype\tplayer\tamount_f\tamount_stars\tdetails";
+    private static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String SHARD_MARKER = "-shard-";
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final boolean isMySQL;
+    private final int hotMonths;
+    private final File archiveFolder;
+    private final Object maintenanceLock = new Object();
+
+    private BukkitTask maintenanceTask;
+
+    public TransactionRetention(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.isMySQL = databaseManager.isMySQL();
+        this.hotMonths = Math.max(1, plugin.getConfig().getInt("database.retention.hot_months", 3));
+        this.archiveFolder = new File(plugin.getDataFolder(),
+            plugin.getConfig().getString("database.retention.archive_folder", "archive"));
+    }
+
+    /**
+     * Schedule maintenance passes on an async timer
+     */
+    public void start() {
+        long interval = Math.max(1L, plugin.getConfig().getLong("database.retention.check_interval_minutes", 60L));
+        maintenanceTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::runMaintenanceSafely,
+            20L * 60, 20L * 60 * interval);
+    }
+
+    public void stop() {
+        if (maintenanceTask != null) {
+            maintenanceTask.cancel();
+            maintenanceTask = null;
+        }
+    }
+
+    private void runMaintenanceSafely() {
+        try {
+            runMaintenance();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Transaction log maintenance failed", e);
+        }
+    }
+
+    /**
+     * Start the current month's partition and archive every month that has
+     * left the hot window
+     *
+     * @return number of partitions or tables archived
+     */
+    public int runMaintenance() throws SQLException, IOException {
+        synchronized (maintenanceLock) {
+            YearMonth current = YearMonth.now();
+            if (isMySQL) {
+                ensurePartitions(current);
+            } else {
+                rotateIfDue(core(), current);
+            }
+
+            for (Store store : fileStores()) {
+                rotateIfDue(store, current);
+            }
+
+            YearMonth cutoff = current.minusMonths(hotMonths - 1);
+            int archived = 0;
+            for (Store store : stores()) {
+                for (Segment segment : listSegments(store)) {
+                    if (segment.period.isBefore(cutoff)) {
+                        archive(store, segment);
+                        archived++;
+                    }
+                }
+            }
+            return archived;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Partitions
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * MySQL: keep a partition ready for next month so rows never land in pmax
+     */
+    private void ensurePartitions(YearMonth current) throws SQLException {
+        List<Segment> segments = listSegments(core());
+        if (segments.isEmpty()) {
+            return;
+        }
+        YearMonth last = segments.get(segments.size() - 1).period;
+        YearMonth target = current.plusMonths(1);
+        if (!last.isBefore(target)) {
+            return;
+        }
+
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            SchemaMigrator.execute(conn, "ALTER TABLE " + HOT_TABLE + " REORGANIZE PARTITION " + MAX_PARTITION
+                + " INTO (" + partitionDefinitions(last.plusMonths(1), target) + ")");
+        }
+        plugin.getLogger().info("Added transaction partitions up to " + partitionName(target));
+    }
+
+    /**
+     * SQLite: when the month changes, rename the live table to
+     * transactions_yyyyMM and recreate it empty. The rename and recreate run
+     * in one transaction so writers only wait for a few catalog updates.
+     */
+    private void rotateIfDue(Store store, YearMonth current) throws SQLException {
+        try (Connection conn = store.write()) {
+            String stored = databaseManager.getStorageSetting(conn, PERIOD_SETTING, null);
+            if (stored == null) {
+                // Existing rows stay in the live table until the first rotation
+                databaseManager.setStorageSetting(conn, PERIOD_SETTING, current.format(PERIOD_FORMAT));
+                return;
+            }
+            YearMonth period = YearMonth.parse(stored, PERIOD_FORMAT);
+            if (!period.isBefore(current)) {
+                return;
+            }
+
+            String rotated = HOT_TABLE + "_" + stored;
+            String createSql;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+                ps.setString(1, HOT_TABLE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Table " + HOT_TABLE + " not found");
+                    }
+                    createSql = rs.getString(1);
+                }
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                // Index names are global in SQLite, so the live index can't follow the rename
+                SchemaMigrator.execute(conn, "DROP INDEX IF EXISTS " + HOT_INDEX);
+                SchemaMigrator.execute(conn, "ALTER TABLE " + HOT_TABLE + " RENAME TO " + rotated);
+                SchemaMigrator.execute(conn, createSql);
+                SchemaMigrator.execute(conn, "CREATE INDEX " + HOT_INDEX + " ON " + HOT_TABLE + "(player, timestamp)");
+                // Carry the AUTOINCREMENT counter over so ids stay unique across months
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO sqlite_sequence (name, seq) SELECT ?, seq FROM sqlite_sequence WHERE name = ?")) {
+                    ps.setString(1, HOT_TABLE);
+                    ps.setString(2, rotated);
+                    ps.executeUpdate();
+                }
+                databaseManager.setStorageSetting(conn, PERIOD_SETTING, current.format(PERIOD_FORMAT));
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+
+            SchemaMigrator.execute(conn, "CREATE INDEX IF NOT EXISTS idx_" + rotated + "_player_time ON "
+                + rotated + "(player, timestamp)");
+            plugin.getLogger().info("Rotated transaction log to " + store.qualify(rotated));
+        }
+    }
+
+    /**
+     * Closed monthly segments, oldest first. On MySQL this includes the
+     * partitions for the current and next month; the live SQLite table is
+     * never listed.
+     */
+    private List<Segment> listSegments(Store store) throws SQLException {
+        String sql = isMySQL
+            ? "SELECT partition_name FROM information_schema.partitions WHERE table_schema = DATABASE() "
+                + "AND table_name = '" + HOT_TABLE + "' AND partition_name IS NOT NULL"
+            : "SELECT name FROM sqlite_master WHERE type = 'table' "
+                + "AND name GLOB '" + HOT_TABLE + "_[0-9][0-9][0-9][0-9][0-9][0-9]'";
+        List<Segment> segments = new ArrayList<>();
+        try (Connection conn = store.read();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (!name.equalsIgnoreCase(MAX_PARTITION)) {
+                    String period = name.substring(name.length() - 6);
+                    segments.add(new Segment(name, YearMonth.parse(period, PERIOD_FORMAT)));
+                }
+            }
+        }
+        segments.sort(Comparator.comparing(segment -> segment.period));
+        return segments;
+    }
+
+    static String partitionName(YearMonth month) {
+        return "p" + month.format(PERIOD_FORMAT);
+    }
+
+    /**
+     * RANGE partition clauses for each month in [from, to] followed by pmax.
+     * Bounds are epoch seconds of the next month's start in the server's zone.
+     */
+    static String partitionDefinitions(YearMonth from, YearMonth to) {
+        StringBuilder sb = new StringBuilder();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            long bound = month.plusMonths(1).atDay(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+            sb.append("PARTITION ").append(partitionName(month))
+              .append(" VALUES LESS THAN (").append(bound).append("), ");
+        }
+        return sb.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN MAXVALUE").toString();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Archiving
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Roll up, archive and drop one segment. The rollups and catalog row
+     * commit before the drop, so a crash in between only repeats the drop.
+     */
+    private void archive(Store store, Segment segment) throws SQLException, IOException {
+        String source = store.qualify(segment.name);
+        boolean archived;
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            archived = isArchived(conn, source);
+        }
+        if (archived) {
+            try (Connection conn = store.write()) {
+                dropSegment(conn, segment);
+            }
+            return;
+        }
+
+        if (!archiveFolder.exists() && !archiveFolder.mkdirs()) {
+            throw new IOException("Could not create " + archiveFolder);
+        }
+        File file = new File(archiveFolder, HOT_TABLE + "-" + segment.period.format(PERIOD_FORMAT)
+            + store.fileSuffix() + ".tsv.gz");
+        File temp = new File(archiveFolder, file.getName() + ".tmp");
+
+        Map<RollupKey, long[]> rollups = new HashMap<>();
+        long rows = 0;
+        long firstAt = Long.MAX_VALUE;
+        long lastAt = Long.MIN_VALUE;
+
+        try (Connection conn = store.read();
+             Statement stmt = databaseManager.getStreaming().createStatement(conn);
+             ResultSet rs = stmt.executeQuery("SELECT " + COLUMNS + " FROM " + segment.source());
+             FileOutputStream fileOut = new FileOutputStream(temp)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(fileOut, 1 << 16);
+            Writer out = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 1 << 16);
+            out.write(ARCHIVE_HEADER);
+            out.write('\n');
+
+            while (rs.next()) {
+                TransactionEntry entry = readEntry(rs);
+                writeEntry(out, entry);
+
+                String day = LocalDate.ofInstant(Instant.ofEpochMilli(entry.timestamp), ZoneId.systemDefault()).toString();
+                long[] totals = rollups.computeIfAbsent(new RollupKey(day, entry.player, entry.type), key -> new long[3]);
+                totals[0]++;
+                totals[1] += entry.amount != null ? entry.amount.minor() : 0;
+                totals[2] += entry.amountStars;
+
+                rows++;
+                firstAt = Math.min(firstAt, entry.timestamp);
+                lastAt = Math.max(lastAt, entry.timestamp);
+            }
+
+            out.flush();
+            gzip.finish();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                writeRollups(conn, rollups);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO transaction_archives (source, period, first_at, last_at, row_count, file) "
+                            + "VALUES (?, ?, ?, ?, ?, ?)")) {
+                    ps.setString(1, source);
+                    ps.setString(2, segment.period.format(PERIOD_FORMAT));
+                    ps.setLong(3, rows > 0 ? firstAt : 0);
+                    ps.setLong(4, rows > 0 ? lastAt : 0);
+                    ps.setLong(5, rows);
+                    ps.setString(6, file.getName());
+                    ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        try (Connection conn = store.write()) {
+            dropSegment(conn, segment);
+        }
+
+        plugin.getLogger().info("Archived " + rows + " transactions from " + source + " to " + file.getName()
+            + " (" + rollups.size() + " daily rollups)");
+    }
+
+    private void writeRollups(Connection conn, Map<RollupKey, long[]> rollups) throws SQLException {
+        String sql = isMySQL
+            ? "INSERT INTO transaction_rollups (day, player, type, tx_count, amount_f, amount_stars) "
+                + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE tx_count = tx_count + VALUES(tx_count), "
+                + "amount_f = amount_f + VALUES(amount_f), amount_stars = amount_stars + VALUES(amount_stars)"
+            : "INSERT INTO transaction_rollups (day, player, type, tx_count, amount_f, amount_stars) "
+                + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT(player, day, type) DO UPDATE SET "
+                + "tx_count = tx_count + excluded.tx_count, amount_f = amount_f + excluded.amount_f, "
+                + "amount_stars = amount_stars + excluded.amount_stars";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int batched = 0;
+            for (Map.Entry<RollupKey, long[]> rollup : rollups.entrySet()) {
+                RollupKey key = rollup.getKey();
+                long[] totals = rollup.getValue();
+                ps.setString(1, key.day);
+                databaseManager.setUuid(ps, 2, key.player);
+                ps.setString(3, key.type);
+                ps.setLong(4, totals[0]);
+                ps.setLong(5, totals[1]);
+                ps.setLong(6, totals[2]);
+                ps.addBatch();
+                if (++batched % 500 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private boolean isArchived(Connection conn, String source) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM transaction_archives WHERE source = ?")) {
+            ps.setString(1, source);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void dropSegment(Connection conn, Segment segment) throws SQLException {
+        SchemaMigrator.execute(conn, isMySQL
+            ? "ALTER TABLE " + HOT_TABLE + " DROP PARTITION " + segment.name
+            : "DROP TABLE IF EXISTS " + segment.name);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Queries
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Most recent transactions for a player that are still in the database,
+     * newest first. Up to {@code limit} rows are read from each of the
+     * {@link BinaryJournal}, the player's shard, the log store and the core
+     * file, then merged by time so no source hides newer rows in another.
+     */
+    public List<TransactionEntry> queryRecent(UUID player, int limit) throws SQLException {
+        return queryRecent(player, null, limit);
+    }
+
+    /**
+     * @param type Transaction type to keep, or null for all
+     */
+    public List<TransactionEntry> queryRecent(UUID player, String type, int limit) throws SQLException {
+        BinaryJournal binary = databaseManager.getBinaryJournal();
+        List<TransactionEntry> entries = binary != null ? binary.queryPlayer(player, type, limit) : new ArrayList<>();
+
+        List<Store> stores = new ArrayList<>();
+        ShardSet shards = databaseManager.getShards();
+        if (shards != null) {
+            stores.add(new Store(shards.shardFor(player)));
+        }
+        LogStore logStore = databaseManager.getLogStore();
+        if (logStore != null) {
+            stores.add(new Store(logStore.getFile()));
+        }
+        stores.add(core());
+
+        for (Store store : stores) {
+            entries.addAll(queryRecent(store, player, type, limit));
+        }
+        entries.sort(Comparator.comparingLong(TransactionEntry::getTimestamp)
+            .thenComparingLong(TransactionEntry::getId).reversed());
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * A store's newest rows. Rotated tables hold earlier months than the
+     * hot table, so they are read newest first until the limit is met.
+     */
+    private List<TransactionEntry> queryRecent(Store store, UUID player, String type, int limit) throws SQLException {
+        List<TransactionEntry> entries = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        sources.add(HOT_TABLE);
+        if (!isMySQL) {
+            List<Segment> rotated = listSegments(store);
+            Collections.reverse(rotated);
+            for (Segment segment : rotated) {
+                sources.add(segment.name);
+            }
+        }
+
+        try (Connection conn = store.recent()) {
+            for (String source : sources) {
+                if (entries.size() >= limit) {
+                    break;
+                }
+                // Rotated SQLite tables keep the UUID format they were written in
+                String where = (isMySQL ? "player = ?" : "player IN (?, ?)") + (type != null ? " AND type = ?" : "");
+                try (PreparedStatement ps = conn.prepareStatement("SELECT " + COLUMNS + " FROM " + source
+                        + " WHERE " + where + " ORDER BY timestamp DESC LIMIT ?")) {
+                    int index = 1;
+                    if (isMySQL) {
+                        databaseManager.setUuid(ps, index++, player);
+                    } else {
+                        ps.setString(index++, player.toString());
+                        ps.setBytes(index++, UuidCodec.toBytes(player));
+                    }
+                    if (type != null) {
+                        ps.setString(index++, type);
+                    }
+                    ps.setInt(index, limit - entries.size());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            entries.add(readEntry(rs));
+                        }
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Daily totals and raw rows for one archived month. Raw rows come from the
+     * gzip archives and are only read when {@code rawLimit} is positive; the
+     * newest {@code rawLimit} matches are returned, oldest first.
+     */
+    public ArchiveResult queryArchive(UUID player, YearMonth month, int rawLimit) throws SQLException, IOException {
+        List<DailyRollup> rollups = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        long from = month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long to = month.plusMonths(1).atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        try (Connection conn = databaseManager.getReplicaConnection(null, null)) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT day, type, tx_count, amount_f, amount_stars FROM transaction_rollups "
+                        + "WHERE player = ? AND day >= ? AND day < ? ORDER BY day, type")) {
+                databaseManager.setUuid(ps, 1, player);
+                ps.setString(2, month.atDay(1).toString());
+                ps.setString(3, month.plusMonths(1).atDay(1).toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rollups.add(new DailyRollup(
+                            LocalDate.parse(rs.getString("day")),
+                            rs.getString("type"),
+                            rs.getLong("tx_count"),
+                            Money.ofMinor(rs.getLong("amount_f")),
+                            rs.getLong("amount_stars")
+                        ));
+                    }
+                }
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT file FROM transaction_archives WHERE first_at < ? AND last_at >= ? ORDER BY first_at")) {
+                ps.setLong(1, to);
+                ps.setLong(2, from);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        files.add(rs.getString("file"));
+                    }
+                }
+            }
+        }
+
+        ArrayDeque<TransactionEntry> rows = new ArrayDeque<>();
+        if (rawLimit > 0) {
+            ShardSet shards = databaseManager.getShards();
+            String ownSuffix = shards != null ? new Store(shards.shardFor(player)).fileSuffix() + ".tsv.gz" : null;
+            for (String name : files) {
+                // Other shards' archives cannot hold the player's rows
+                if (name.contains(SHARD_MARKER) && (ownSuffix == null || !name.endsWith(ownSuffix))) {
+                    continue;
+                }
+                scanArchive(new File(archiveFolder, name), player, from, to, rawLimit, rows);
+            }
+        }
+        return new ArchiveResult(rollups, new ArrayList<>(rows), files.size());
+    }
+
+    private void scanArchive(File file, UUID player, long from, long to, int limit,
+                             ArrayDeque<TransactionEntry> rows) throws IOException {
+        if (!file.exists()) {
+            plugin.getLogger().warning("Transaction archive missing: " + file.getName());
+            return;
+        }
+        String playerId = player.toString();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file), 1 << 16), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 7 || !fields[3].equals(playerId)) {
+                    continue;
+                }
+                long timestamp = Long.parseLong(fields[1]);
+                if (timestamp < from || timestamp >= to) {
+                    continue;
+                }
+                rows.addLast(new TransactionEntry(
+                    Long.parseLong(fields[0]), timestamp, fields[2], player,
+                    fields[4].isEmpty() ? null : Money.ofMinor(Long.parseLong(fields[4])),
+                    Long.parseLong(fields[5]), unescape(fields[6])
+                ));
+                if (rows.size() > limit) {
+                    rows.removeFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * Row counts for the hot segments and the archive catalog. With shards
+     * or the log store each table's count is the sum over the core file and
+     * every other file; shards are counted in parallel.
+     */
+    public RetentionStatus getStatus() throws SQLException {
+        Map<String, Long> hotRows = new LinkedHashMap<>();
+        long archivedSegments = 0;
+        long archivedRows = 0;
+        long rollupRows = 0;
+
+        List<String> tables = new ArrayList<>();
+        if (!isMySQL) {
+            tables.add(HOT_TABLE);
+            for (Segment segment : listSegments(core())) {
+                tables.add(segment.name);
+            }
+        }
+
+        try (Connection conn = databaseManager.getReadConnection();
+             Statement stmt = conn.createStatement()) {
+            if (isMySQL) {
+                // Estimates from InnoDB statistics; exact counts would scan every partition
+                try (ResultSet rs = stmt.executeQuery("SELECT partition_name, table_rows FROM information_schema.partitions "
+                        + "WHERE table_schema = DATABASE() AND table_name = '" + HOT_TABLE + "' "
+                        + "AND partition_name IS NOT NULL ORDER BY partition_ordinal_position")) {
+                    while (rs.next()) {
+                        hotRows.put(rs.getString(1), rs.getLong(2));
+                    }
+                }
+            } else {
+                for (String table : tables) {
+                    try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                        hotRows.put(table, rs.next() ? rs.getLong(1) : 0);
+                    }
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*), COALESCE(SUM(row_count), 0) FROM transaction_archives")) {
+                if (rs.next()) {
+                    archivedSegments = rs.getLong(1);
+                    archivedRows = rs.getLong(2);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM transaction_rollups")) {
+                if (rs.next()) {
+                    rollupRows = rs.getLong(1);
+                }
+            }
+        }
+
+        List<Map<String, Long>> fileCounts = new ArrayList<>();
+        LogStore logStore = databaseManager.getLogStore();
+        if (logStore != null) {
+            fileCounts.add(countFile(logStore.getFile()));
+        }
+        ShardSet shards = databaseManager.getShards();
+        if (shards != null) {
+            fileCounts.addAll(shards.fanOut(this::countFile));
+        }
+        for (Map<String, Long> counts : fileCounts) {
+            counts.forEach((table, rows) -> hotRows.merge(table, rows, Long::sum));
+        }
+        return new RetentionStatus(hotMonths, hotRows, archivedSegments, archivedRows, rollupRows);
+    }
+
+    private Map<String, Long> countFile(SqliteFile file) throws SQLException {
+        Store store = new Store(file);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        List<String> tables = new ArrayList<>();
+        tables.add(HOT_TABLE);
+        for (Segment segment : listSegments(store)) {
+            tables.add(segment.name);
+        }
+        try (Connection conn = store.read();
+             Statement stmt = conn.createStatement()) {
+            for (String table : tables) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                    counts.put(table, rs.next() ? rs.getLong(1) : 0);
+                }
+            }
+        }
+        return counts;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Stores
+    // ══════════════════════════════════════════════════════════════════════
+
+    private Store core() {
+        return new Store(null);
+    }
+
+    /**
+     * The log store, then every shard
+     */
+    private List<Store> fileStores() {
+        List<Store> stores = new ArrayList<>();
+        LogStore logStore = databaseManager.getLogStore();
+        if (logStore != null) {
+            stores.add(new Store(logStore.getFile()));
+        }
+        ShardSet shards = databaseManager.getShards();
+        if (shards != null) {
+            for (ShardSet.Shard shard : shards.getShards()) {
+                stores.add(new Store(shard));
+            }
+        }
+        return stores;
+    }
+
+    /**
+     * The core file first, then the log store and every shard
+     */
+    private List<Store> stores() {
+        List<Store> stores = new ArrayList<>();
+        stores.add(core());
+        stores.addAll(fileStores());
+        return stores;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Row Encoding
+    // ══════════════════════════════════════════════════════════════════════
+
+    private TransactionEntry readEntry(ResultSet rs) throws SQLException {
+        long amount = rs.getLong("amount_f");
+        boolean hasAmount = !rs.wasNull();
+        return new TransactionEntry(
+            rs.getLong("id"),
+            readTimestamp(rs),
+            rs.getString("type"),
+            UuidCodec.fromValue(rs.getObject("player")),
+            hasAmount ? Money.ofMinor(amount) : null,
+            rs.getLong("amount_stars"),
+            rs.getString("details")
+        );
+    }
+
+    /**
+     * SQLite holds both driver-written epoch millis and CURRENT_TIMESTAMP text (UTC)
+     */
+    private long readTimestamp(ResultSet rs) throws SQLException {
+        if (isMySQL) {
+            Timestamp timestamp = rs.getTimestamp("timestamp");
+            return timestamp != null ? timestamp.getTime() : 0L;
+        }
+        Object value = rs.getObject("timestamp");
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value == null) {
+            return 0L;
+        }
+        String text = value.toString();
+        if (text.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        return LocalDateTime.parse(text.replace(' ', 'T')).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private void writeEntry(Writer out, TransactionEntry entry) throws IOException {
+        out.write(Long.toString(entry.id));
+        out.write('\t');
+        out.write(Long.toString(entry.timestamp));
+        out.write('\t');
+        out.write(escape(entry.type));
+        out.write('\t');
+        out.write(entry.player != null ? entry.player.toString() : "");
+        out.write('\t');
+        out.write(entry.amount != null ? Long.toString(entry.amount.minor()) : "");
+        out.write('\t');
+        out.write(Long.toString(entry.amountStars));
+        out.write('\t');
+        out.write(escape(entry.details));
+        out.write('\n');
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static class Segment {
+        private final String name;
+        private final YearMonth period;
+
+        Segment(String name, YearMonth period) {
+            this.name = name;
+            this.period = period;
+        }
+
+        /**
+         * FROM clause that reads only this segment
+         */
+        String source() {
+            return name.startsWith(HOT_TABLE) ? name : HOT_TABLE + " PARTITION (" + name + ")";
+        }
+    }
+
+    /**
+     * A database file with a transactions table: the core database, the log
+     * store or one shard
+     */
+    private final class Store {
+        private final SqliteFile file;
+
+        Store(SqliteFile file) {
+            this.file = file;
+        }
+
+        /**
+         * Connection for rotating and dropping, without a query timeout
+         */
+        Connection write() throws SQLException {
+            return file == null ? databaseManager.getMaintenanceConnection()
+                : databaseManager.getFileMaintenanceConnection(file);
+        }
+
+        Connection read() throws SQLException {
+            return file == null ? databaseManager.getReadConnection() : databaseManager.getFileReadConnection(file);
+        }
+
+        /**
+         * Connection for player lookups, which may use a replica
+         */
+        Connection recent() throws SQLException {
+            return file == null ? databaseManager.getReplicaConnection(null, null) : read();
+        }
+
+        /**
+         * Name of a segment in the archive catalog and log messages
+         */
+        String qualify(String segment) {
+            return file == null ? segment : file.getName() + "." + segment;
+        }
+
+        String fileSuffix() {
+            return file == null ? "" : "-" + file.getName();
+        }
+    }
+
+    private record RollupKey(String day, UUID player, String type) {}
+
+    public static class TransactionEntry {
+        private final long id;
+        private final long timestamp;
+        private final String type;
+        private final UUID player;
+        private final Money amount;
+        private final long amountStars;
+        private final String details;
+
+        public TransactionEntry(long id, long timestamp, String type, UUID player, Money amount,
+                                long amountStars, String details) {
+            this.id = id;
+            this.timestamp = timestamp;
+            this.type = type;
+            this.player = player;
+            this.amount = amount;
+            this.amountStars = amountStars;
+            this.details = details;
+        }
+
+        public long getId() { return id; }
+        public long getTimestamp() { return timestamp; }
+        public String getType() { return type; }
+        public UUID getPlayer() { return player; }
+        public Money getAmount() { return amount; }
+        public long getAmountStars() { return amountStars; }
+        public String getDetails() { return details; }
+    }
+
+    public static class DailyRollup {
+        private final LocalDate day;
+        private final String type;
+        private final long count;
+        private final Money amount;
+        private final long amountStars;
+
+        public DailyRollup(LocalDate day, String type, long count, Money amount, long amountStars) {
+            this.day = day;
+            this.type = type;
+            this.count = count;
+            this.amount = amount;
+            this.amountStars = amountStars;
+        }
+
+        public LocalDate getDay() { return day; }
+        public String getType() { return type; }
+        public long getCount() { return count; }
+        public Money getAmount() { return amount; }
+        public long getAmountStars() { return amountStars; }
+    }
+
+    public static class ArchiveResult {
+        private final List<DailyRollup> rollups;
+        private final List<TransactionEntry> rows;
+        private final int archivesScanned;
+
+        public ArchiveResult(List<DailyRollup> rollups, List<TransactionEntry> rows, int archivesScanned) {
+            this.rollups = rollups;
+            this.rows = rows;
+            this.archivesScanned = archivesScanned;
+        }
+
+        public List<DailyRollup> getRollups() { return rollups; }
+        public List<TransactionEntry> getRows() { return rows; }
+        public int getArchivesScanned() { return archivesScanned; }
+    }
+
+    public static class RetentionStatus {
+        private final int hotMonths;
+        private final Map<String, Long> hotRows;
+        private final long archivedSegments;
+        private final long archivedRows;
+        private final long rollupRows;
+
+        public RetentionStatus(int hotMonths, Map<String, Long> hotRows, long archivedSegments,
+                               long archivedRows, long rollupRows) {
+            this.hotMonths = hotMonths;
+            this.hotRows = hotRows;
+            this.archivedSegments = archivedSegments;
+            this.archivedRows = archivedRows;
+            this.rollupRows = rollupRows;
+        }
+
+        public int getHotMonths() { return hotMonths; }
+        public Map<String, Long> getHotRows() { return hotRows; }
+        public long getArchivedSegments() { return archivedSegments; }
+        public long getArchivedRows() { return archivedRows; }
+        public long getRollupRows() { return rollupRows; }
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.nsfeconomy.database;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads that run blocking JDBC work for {@link DatabaseExecutor}.
+ *
+ * Created by {@link WorkerPools}, which picks platform or virtual threads
+ * depending on the Java version the server runs.
+ */
+public interface WorkerPool extends Executor {
+
+    /**
+     * "platform" or "virtual"
+     */
+    String getKind();
+
+    /**
+     * Maximum tasks running JDBC work at once
+     */
+    int getParallelism();
+
+    int getActiveCount();
+
+    int getQueuedCount();
+
+    long getCompletedCount();
+
+    boolean isShutdown();
+
+    void shutdown();
+
+    /**
+     * Stop immediately. Tasks that never ran are handed to the pool's
+     * rejection handler; returns how many there were.
+     */
+    int shutdownNow();
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,695 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file that holds writes while the database is unreachable.
+ *
+ * Transaction log rows, new notes and ledger postings that fail with a
+ * connection error or an open circuit are appended here instead of being
+ * lost. Appends from concurrent callers share one fsync: whoever forces the
+ * file covers every record written before it. A background thread replays
+ * the records in order once the database answers; each carries an id that
+ * is recorded in spool_applied in the same transaction, so a replay cut
+ * short never applies a record twice. Transaction rows bound for a shard or
+ * the log store commit there on their own, so their id is also recorded in
+ * that file's spool_applied alongside the row. The file is cleared once everything
+ * in it has been replayed.
+ *
+ * Each record is framed as length, CRC32 and payload. A torn record at the
+ * end of the file, left by a crash mid-append, is cut off on open. Damaged
+ * bytes with intact records after them are copied to a .corrupt file beside
+ * the spool and skipped, so replay carries on with the records that follow.
+ */
+public class WriteSpool {
+
+    private static final byte OP_TRANSACTION = 1;
+    private static final byte OP_NOTE = 2;
+    private static final byte OP_POSTING = 3;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    // Applied ids are only needed until the file that held them is cleared
+    private static final long APPLIED_RETENTION_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final boolean enabled;
+    private final File file;
+    private final File refusedFile;
+    private final long replayIntervalMs;
+
+    private FileChannel channel;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    // Bytes appended (appendLock) and bytes forced to disk (syncLock)
+    private long end;
+    private volatile long synced;
+    // Replay position (replayer thread only)
+    private long replayed;
+    private final AtomicInteger pending = new AtomicInteger();
+    private ScheduledExecutorService replayer;
+
+    // Metrics
+    private final LongAdder spooled = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private volatile String lastError;
+
+    public WriteSpool(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.enabled = plugin.getConfig().getBoolean("database.spool.enabled", true);
+        this.file = new File(plugin.getDataFolder(), plugin.getConfig().getString("database.spool.file", "spool.dat"));
+        this.refusedFile = new File(plugin.getDataFolder(),
+            plugin.getConfig().getString("database.spool.refused_file", "spool-refused.log"));
+        this.replayIntervalMs = Math.max(100, plugin.getConfig().getLong("database.spool.replay_interval_ms", 1000));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open the spool file and count the records left from the last run
+     */
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long position = 0;
+        int records = 0;
+        long size = channel.size();
+        while (position < size) {
+            Frame frame = readFrame(position, size);
+            if (frame == null) {
+                long next = findFrame(position + 1, size);
+                if (next >= 0) {
+                    // Damage mid-file; replay quarantines it
+                    position = next;
+                    records++;
+                    continue;
+                }
+                plugin.getLogger().warning("Write spool has a torn record at byte " + position
+                    + "; discarding the last " + (size - position) + " bytes.");
+                channel.truncate(position);
+                channel.force(true);
+                break;
+            }
+            position = frame.next;
+            records++;
+        }
+        end = position;
+        synced = position;
+        pending.set(records);
+        if (records > 0) {
+            plugin.getLogger().warning(records + " spooled write(s) from the last run will be replayed.");
+        }
+    }
+
+    /**
+     * Replay spooled writes in the background
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        replayer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-Spool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayer.scheduleWithFixedDelay(this::replaySafely, 0, replayIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the replayer, try one last replay and close the file. Anything
+     * left stays on disk for the next start.
+     */
+    public void close() {
+        if (!enabled || channel == null) {
+            return;
+        }
+        if (replayer != null) {
+            replayer.shutdown();
+            try {
+                replayer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        replaySafely();
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to close the write spool", e);
+        }
+        if (pending.get() > 0) {
+            plugin.getLogger().warning(pending.get() + " spooled write(s) remain in " + file.getName()
+                + " and will be replayed on the next start.");
+        }
+    }
+
+    /**
+     * Whether a failed write should go to the spool: the spool is on and
+     * the database is unreachable rather than rejecting the statement
+     */
+    public boolean accepts(SQLException e) {
+        // A unit of work rolls back as a whole; spooling part of it would split it
+        return enabled && channel != null && !UnitOfWork.isActive()
+            && (e instanceof DatabaseGuard.CircuitOpenException || DatabaseGuard.isOutage(e));
+    }
+
+    /**
+     * Whether records are waiting for replay. Writes that must stay in order
+     * with them go to the spool too until it is empty.
+     */
+    public boolean hasPending() {
+        return pending.get() > 0;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Appending
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Spool transaction log records with a single fsync
+     */
+    public void spoolTransactions(List<TransactionJournal.TransactionRecord> records) throws IOException {
+        long position = 0;
+        for (TransactionJournal.TransactionRecord record : records) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = begin(bytes, OP_TRANSACTION);
+            out.writeUTF(record.type);
+            writeUuid(out, record.player);
+            out.writeLong(record.amountMinor);
+            out.writeLong(record.amountStars);
+            writeString(out, record.details);
+            out.writeLong(record.timestamp);
+            position = append(bytes.toByteArray());
+        }
+        sync(position);
+    }
+
+    public void spoolNote(UUID serial, int denomination, UUID issuedTo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = begin(bytes, OP_NOTE);
+        writeUuid(out, serial);
+        out.writeInt(denomination);
+        writeUuid(out, issuedTo);
+        sync(append(bytes.toByteArray()));
+    }
+
+    public void spoolPosting(PostingLedger.Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = begin(bytes, OP_POSTING);
+        out.writeUTF(entry.getType());
+        writeString(out, entry.getDetails());
+        Map<String, Long> legs = entry.getLegs();
+        out.writeInt(legs.size());
+        for (Map.Entry<String, Long> leg : legs.entrySet()) {
+            out.writeUTF(leg.getKey());
+            out.writeLong(leg.getValue());
+        }
+        sync(append(bytes.toByteArray()));
+    }
+
+    private DataOutputStream begin(ByteArrayOutputStream bytes, byte op) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        UUID id = UUID.randomUUID();
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+        return out;
+    }
+
+    /**
+     * Write one framed record at the end of the file
+     *
+     * @return Offset just past the record
+     */
+    private long append(byte[] payload) throws IOException {
+        if (!enabled || channel == null) {
+            throw new IOException("Write spool is not open");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.putInt(payload.length);
+        frame.putInt((int) crc.getValue());
+        frame.put(payload);
+        frame.flip();
+
+        synchronized (appendLock) {
+            long position = end;
+            while (frame.hasRemaining()) {
+                position += channel.write(frame, position);
+            }
+            end = position;
+            pending.incrementAndGet();
+            spooled.increment();
+            return position;
+        }
+    }
+
+    /**
+     * Make sure everything up to the offset is on disk. Callers that arrive
+     * while another fsync runs usually find their record covered by it.
+     */
+    private void sync(long position) throws IOException {
+        if (synced >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            long target;
+            synchronized (appendLock) {
+                target = end;
+            }
+            channel.force(false);
+            syncs.increment();
+            synced = target;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Replay
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void replaySafely() {
+        try {
+            replay();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Unexpected error while replaying the write spool", e);
+        }
+    }
+
+    /**
+     * Apply spooled records in order until the spool is empty or the
+     * database stops answering
+     */
+    public void replay() throws IOException {
+        if (!enabled || channel == null || pending.get() == 0) {
+            return;
+        }
+        long limit;
+        synchronized (appendLock) {
+            limit = end;
+        }
+
+        int replayedNow = 0;
+        try (Connection conn = databaseManager.getConnection()) {
+            while (replayed < limit) {
+                Frame frame = readFrame(replayed, limit);
+                if (frame == null) {
+                    replayed = quarantine(replayed, limit);
+                    pending.updateAndGet(count -> Math.max(0, count - 1));
+                    continue;
+                }
+                applySafely(conn, frame.payload);
+                replayed = frame.next;
+                pending.decrementAndGet();
+                replayedNow++;
+            }
+        } catch (SQLException e) {
+            // Still down; the rest waits for the next pass
+            lastError = e.getMessage();
+            return;
+        } finally {
+            if (replayedNow > 0) {
+                plugin.getLogger().info("Replayed " + replayedNow + " spooled write(s), " + pending.get() + " left.");
+            }
+        }
+
+        // syncLock first, as in sync(): a force running now would otherwise
+        // set synced back to its pre-truncate offset
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if (replayed != end) {
+                    return;
+                }
+                channel.truncate(0);
+                channel.force(true);
+                end = 0;
+                synced = 0;
+                replayed = 0;
+                // Quarantined bytes may have held more or fewer records than counted
+                pending.set(0);
+            }
+        }
+        lastError = null;
+        databaseManager.getPostingLedger().spoolDrained();
+        purgeApplied();
+    }
+
+    /**
+     * Apply one record. Connection errors propagate so replay stops and
+     * retries; a record the database rejects outright is logged and skipped
+     * so it cannot hold up the rest.
+     */
+    private void applySafely(Connection conn, byte[] payload) throws SQLException, IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String opId = new UUID(in.readLong(), in.readLong()).toString();
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            if (!isApplied(conn, opId)) {
+                if (apply(conn, op, opId, in)) {
+                    applied.increment();
+                } else {
+                    rejected.increment();
+                }
+                markApplied(conn, opId);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            if (e instanceof DatabaseGuard.CircuitOpenException || DatabaseGuard.isOutage(e)) {
+                throw e;
+            }
+            rejected.increment();
+            plugin.getLogger().log(Level.SEVERE, "Dropping spooled write " + opId + " rejected by the database", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return false if the write was refused and only its id is recorded
+     */
+    private boolean apply(Connection conn, byte op, String opId, DataInputStream in) throws SQLException, IOException {
+        switch (op) {
+            case OP_TRANSACTION -> {
+                String type = in.readUTF();
+                UUID player = readUuid(in);
+                long amountMinor = in.readLong();
+                long amountStars = in.readLong();
+                String details = readString(in);
+                long timestamp = in.readLong();
+                String sql = "INSERT INTO transactions (type, player, amount_f, amount_stars, details, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+                if (databaseManager.getShards() == null && databaseManager.getLogStore() == null) {
+                    insertTransaction(conn, sql, type, player, amountMinor, amountStars, details, timestamp);
+                    return true;
+                }
+                // A shard or the log store commits ahead of the marker in core, so it keeps its own
+                try (Connection target = databaseManager.getLogConnection(player)) {
+                    target.setAutoCommit(false);
+                    try {
+                        if (!isApplied(target, opId)) {
+                            insertTransaction(target, sql, type, player, amountMinor, amountStars, details, timestamp);
+                            markApplied(target, opId);
+                        }
+                        target.commit();
+                    } catch (SQLException e) {
+                        target.rollback();
+                        throw e;
+                    } finally {
+                        target.setAutoCommit(true);
+                    }
+                }
+                return true;
+            }
+            case OP_NOTE -> {
+                UUID serial = readUuid(in);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO currency_ledger (serial, denomination, issued_to, status) VALUES (?, ?, ?, 'circulating')")) {
+                    databaseManager.setUuid(ps, 1, serial);
+                    ps.setInt(2, in.readInt());
+                    databaseManager.setUuid(ps, 3, readUuid(in));
+                    ps.executeUpdate();
+                }
+                databaseManager.getChangeOutbox().publish(conn, ChangeOutbox.TOPIC_NOTE, serial.toString());
+                return true;
+            }
+            case OP_POSTING -> {
+                PostingLedger.Entry entry = new PostingLedger.Entry(in.readUTF(), readString(in));
+                int legs = in.readInt();
+                for (int i = 0; i < legs; i++) {
+                    entry.credit(in.readUTF(), Money.ofMinor(in.readLong()));
+                }
+                PostingLedger.PostResult result = databaseManager.getPostingLedger().postOn(conn, entry);
+                if (result.isSuccess()) {
+                    return true;
+                }
+                // Spent elsewhere while this server was cut off; the funds check used its last known balance
+                conn.rollback();
+                plugin.getLogger().severe("Spooled " + entry.getType() + " posting refused on replay: "
+                    + result.getFailedAccount() + " lacks the funds. Legs: " + entry.getLegs()
+                    + "; recorded in " + refusedFile.getName());
+                recordRefused(opId, entry, result.getFailedAccount());
+                return false;
+            }
+            default -> throw new IOException("Unknown write spool record type " + op);
+        }
+    }
+
+    /**
+     * Append a refused posting to the review file. The player already got
+     * what the posting paid for, so an admin has to settle it by hand.
+     */
+    private void recordRefused(String opId, PostingLedger.Entry entry, String account) throws IOException {
+        String line = new Timestamp(System.currentTimeMillis()) + "\t" + opId + "\t" + entry.getType()
+            + "\t" + account + "\t" + entry.getLegs() + "\t" + entry.getDetails() + "\n";
+        try (FileChannel out = FileChannel.open(refusedFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(false);
+        }
+    }
+
+    private void insertTransaction(Connection conn, String sql, String type, UUID player, long amountMinor,
+                                   long amountStars, String details, long timestamp) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, type);
+            databaseManager.setUuid(ps, 2, player);
+            ps.setLong(3, amountMinor);
+            ps.setLong(4, amountStars);
+            ps.setString(5, details);
+            ps.setTimestamp(6, new Timestamp(timestamp));
+            ps.executeUpdate();
+        }
+    }
+
+    private boolean isApplied(Connection conn, String opId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM spool_applied WHERE op_id = ?")) {
+            ps.setString(1, opId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void markApplied(Connection conn, String opId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO spool_applied (op_id, applied_at) VALUES (?, ?)")) {
+            ps.setString(1, opId);
+            ps.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            ps.executeUpdate();
+        }
+    }
+
+    private void purgeApplied() {
+        try {
+            try (Connection conn = databaseManager.getConnection()) {
+                purgeApplied(conn);
+            }
+            if (databaseManager.getShards() != null) {
+                for (ShardSet.Shard shard : databaseManager.getShards().getShards()) {
+                    try (Connection conn = databaseManager.getFileConnection(shard)) {
+                        purgeApplied(conn);
+                    }
+                }
+            }
+            if (databaseManager.getLogStore() != null) {
+                try (Connection conn = databaseManager.getFileConnection(databaseManager.getLogStore().getFile())) {
+                    purgeApplied(conn);
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to purge replayed spool ids", e);
+        }
+    }
+
+    private void purgeApplied(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM spool_applied WHERE applied_at < ?")) {
+            ps.setTimestamp(1, new Timestamp(System.currentTimeMillis() - APPLIED_RETENTION_MS));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Copy unreadable bytes to a file beside the spool so replay can go on
+     * past them
+     *
+     * @return Offset of the next intact record, or the limit if none follows
+     */
+    private long quarantine(long position, long limit) throws IOException {
+        long next = findFrame(position + 1, limit);
+        long resume = next >= 0 ? next : limit;
+        File aside = new File(file.getPath() + ".corrupt-" + System.currentTimeMillis());
+        try (FileChannel out = FileChannel.open(aside.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long copied = position;
+            while (copied < resume) {
+                copied += channel.transferTo(copied, resume - copied, out);
+            }
+            out.force(true);
+        }
+        rejected.increment();
+        lastError = "Corrupt record at byte " + position + " moved to " + aside.getName();
+        plugin.getLogger().severe("Write spool record at byte " + position + " is corrupt; moved "
+            + (resume - position) + " bytes to " + aside.getName() + " and replaying the records after it.");
+        return resume;
+    }
+
+    /**
+     * Offset of the first intact record at or after a position, or -1
+     */
+    private long findFrame(long position, long limit) throws IOException {
+        for (long offset = position; limit - offset >= HEADER_BYTES; offset++) {
+            if (readFrame(offset, limit) != null) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read the record at an offset, or null if it is torn or corrupt
+     */
+    private Frame readFrame(long position, long limit) throws IOException {
+        if (limit - position < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, position);
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || length > MAX_RECORD_BYTES || limit - position - HEADER_BYTES < length) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(payload, position + HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        return new Frame(payload.array(), position + HEADER_BYTES + length);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Encoding
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    public SpoolStats getStats() {
+        long size;
+        synchronized (appendLock) {
+            size = end;
+        }
+        return new SpoolStats(pending.get(), size, spooled.sum(), applied.sum(), rejected.sum(),
+            syncs.sum(), lastError);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static class Frame {
+        private final byte[] payload;
+        private final long next;
+
+        Frame(byte[] payload, long next) {
+            this.payload = payload;
+            this.next = next;
+        }
+    }
+
+    public static class SpoolStats {
+        private final int pending;
+        private final long bytes;
+        private final long spooled;
+        private final long applied;
+        private final long rejected;
+        private final long syncs;
+        private final String lastError;
+
+        public SpoolStats(int pending, long bytes, long spooled, long applied, long rejected,
+                          long syncs, String lastError) {
+            this.pending = pending;
+            this.bytes = bytes;
+            this.spooled = spooled;
+            this.applied = applied;
+            this.rejected = rejected;
+            this.syncs = syncs;
+            this.lastError = lastError;
+        }
+
+        public int getPending() { return pending; }
+        public long getBytes() { return bytes; }
+        public long getSpooled() { return spooled; }
+        public long getApplied() { return applied; }
+        public long getRejected() { return rejected; }
+        public long getSyncs() { return syncs; }
+        public String getLastError() { return lastError; }
+    }
+}
@@ -1,12 +1,14 @@
 package io.github.nsfeconomy.permit;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+import io.github.nsfeconomy.database.ChangeOutbox;
 
 import java.sql.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages dimension access permits
@@ -15,10 +17,131 @@ public class PermitManager {
 
     private final NSFEconomy plugin;
 
+    // Active permits of online players by dimension, for checks that must
+    // answer inside an event handler without a database round trip
+    private final Map<UUID, Map<String, Permit>> permitCache = new ConcurrentHashMap<>();
+
     public PermitManager(NSFEconomy plugin) {
         this.plugin = plugin;
+        plugin.getDatabaseManager().getChangeOutbox().subscribe(ChangeOutbox.TOPIC_PERMIT,
+            key -> reloadCached(UUID.fromString(key)));
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Permit Cache
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Load a player's active permits into the cache (call on join)
+     */
+    public CompletableFuture<List<Permit>> loadPermits(UUID playerId) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> {
+            List<Permit> permits = getPlayerPermits(playerId);
+            if (plugin.getServer().getPlayer(playerId) != null) {
+                permitCache.put(playerId, indexByDimension(permits));
+            }
+            return permits;
+        });
+    }
+
+    /**
+     * Drop a player's cached permits (call on quit)
+     */
+    public void unloadPermits(UUID playerId) {
+        permitCache.remove(playerId);
+    }
+
+    /**
+     * Whether a player's permits have been loaded into the cache
+     */
+    public boolean isLoaded(UUID playerId) {
+        return permitCache.containsKey(playerId);
+    }
+
+    /**
+     * Permit check for the server thread. Answers from the cache once the
+     * player's permits are loaded and only queries the database before that.
+     */
+    public boolean hasValidPermitCached(UUID playerId, String dimension) {
+        Map<String, Permit> cached = permitCache.get(playerId);
+        if (cached == null) {
+            return hasValidPermit(playerId, dimension);
+        }
+        Permit permit = cached.get(dimension.toLowerCase());
+        return permit != null && !permit.isExpired();
+    }
+
+    /**
+     * Cached active permit for a loaded player, or null if none is cached
+     */
+    public Permit getCachedPermit(UUID playerId, String dimension) {
+        Map<String, Permit> cached = permitCache.get(playerId);
+        return cached != null ? cached.get(dimension.toLowerCase()) : null;
+    }
+
+    /**
+     * Latest-expiring permit per dimension
+     */
+    private Map<String, Permit> indexByDimension(List<Permit> permits) {
+        Map<String, Permit> byDimension = new ConcurrentHashMap<>();
+        for (Permit permit : permits) {
+            byDimension.merge(permit.getDimension().toLowerCase(), permit,
+                (a, b) -> a.getExpiresAt().isAfter(b.getExpiresAt()) ? a : b);
+        }
+        return byDimension;
+    }
+
+    /**
+     * Replace the cached permits of a loaded player after a write, and have
+     * other servers do the same
+     */
+    private void refreshCache(Connection conn, UUID playerId) {
+        plugin.getDatabaseManager().getChangeOutbox().publish(conn, ChangeOutbox.TOPIC_PERMIT, playerId.toString());
+        reloadCached(playerId);
+    }
+
+    private void reloadCached(UUID playerId) {
+        if (permitCache.containsKey(playerId)) {
+            getPlayerPermits(playerId);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Async API
+    // ══════════════════════════════════════════════════════════════════════
+
+    public CompletableFuture<Boolean> hasValidPermitAsync(UUID playerId, String dimension) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> hasValidPermit(playerId, dimension));
+    }
+
+    public CompletableFuture<Permit> getPermitAsync(UUID playerId, String dimension) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> getPermit(playerId, dimension));
+    }
+
+    public CompletableFuture<List<Permit>> getPlayerPermitsAsync(UUID playerId) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> getPlayerPermits(playerId));
+    }
+
+    public CompletableFuture<PermitResult> purchasePermitAsync(UUID playerId, String dimension) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> purchasePermit(playerId, dimension));
+    }
+
+    public CompletableFuture<PermitResult> extendPermitAsync(UUID playerId, String dimension) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> extendPermit(playerId, dimension));
+    }
+
+    public CompletableFuture<PermitResult> grantPermitAsync(UUID playerId, String dimension, int durationDays) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> grantPermit(playerId, dimension, durationDays));
     }
 
+    public CompletableFuture<Boolean> revokePermitAsync(UUID playerId, String dimension) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> revokePermit(playerId, dimension));
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Permit Operations
+    // ══════════════════════════════════════════════════════════════════════
+
     /**
      * Check if a player has a valid permit for a dimension
      */
@@ -26,10 +149,10 @@ public class PermitManager {
         String sql = "SELECT id FROM permits WHERE player_id = ? AND dimension = ? AND " +
                      "expires_at > ? AND status = 'active'";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(stmt, 1, playerId);
             stmt.setString(2, dimension.toLowerCase());
             stmt.setString(3, LocalDateTime.now().toString());
             
@@ -49,21 +172,21 @@ public class PermitManager {
         String sql = "SELECT * FROM permits WHERE player_id = ? AND dimension = ? AND status = 'active' " +
                      "ORDER BY expires_at DESC LIMIT 1";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(stmt, 1, playerId);
             stmt.setString(2, dimension.toLowerCase());
             
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
                 return new Permit(
                     rs.getInt("id"),
-                    UUID.fromString(rs.getString("player_id")),
+                    plugin.getDatabaseManager().getUuid(rs, "player_id"),
                     rs.getString("dimension"),
                     LocalDateTime.parse(rs.getString("purchased_at")),
                     LocalDateTime.parse(rs.getString("expires_at")),
-                    rs.getDouble("price_paid"),
+                    Money.ofMinor(rs.getLong("price_paid")),
                     rs.getString("status")
                 );
             }
@@ -82,25 +205,27 @@ public class PermitManager {
         List<Permit> permits = new ArrayList<>();
         String sql = "SELECT * FROM permits WHERE player_id = ? AND status = 'active' AND expires_at > ?";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(stmt, 1, playerId);
             stmt.setString(2, LocalDateTime.now().toString());
             
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
                 permits.add(new Permit(
                     rs.getInt("id"),
-                    UUID.fromString(rs.getString("player_id")),
+                    plugin.getDatabaseManager().getUuid(rs, "player_id"),
                     rs.getString("dimension"),
                     LocalDateTime.parse(rs.getString("purchased_at")),
                     LocalDateTime.parse(rs.getString("expires_at")),
-                    rs.getDouble("price_paid"),
+                    Money.ofMinor(rs.getLong("price_paid")),
                     rs.getString("status")
                 ));
             }
             
+            permitCache.computeIfPresent(playerId, (id, old) -> indexByDimension(permits));
+            
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to get player permits: " + e.getMessage());
         }
@@ -123,7 +248,7 @@ public class PermitManager {
             return new PermitResult(false, "Unknown dimension: " + dimension, -1);
         }
 
-        double price = plugin.getConfig().getDouble(configPath + ".price", 10.0);
+        Money price = getPermitPrice(dimension);
         int durationDays = plugin.getConfig().getInt(configPath + ".duration_days", 30);
 
         // TODO: Verify player has enough F-notes at bank and deduct them
@@ -138,11 +263,11 @@ public class PermitManager {
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(stmt, 1, playerId);
             stmt.setString(2, dimension.toLowerCase());
             stmt.setString(3, now.toString());
             stmt.setString(4, expires.toString());
-            stmt.setDouble(5, price);
+            stmt.setLong(5, price.minor());
             
             stmt.executeUpdate();
             
@@ -153,8 +278,9 @@ public class PermitManager {
             plugin.getDatabaseManager().logTransaction(
                 playerId, "permit_purchase",
                 "Purchased " + dimension + " permit for " + durationDays + " days",
-                -price, null
+                price.negate(), null
             );
+            refreshCache(conn, playerId);
             
             return new PermitResult(true, "Permit purchased successfully!", permitId);
             
@@ -171,7 +297,7 @@ public class PermitManager {
         Permit existing = getPermit(playerId, dimension);
         
         String configPath = "permits." + dimension.toLowerCase();
-        double price = plugin.getConfig().getDouble(configPath + ".price", 10.0);
+        Money price = getPermitPrice(dimension);
         int durationDays = plugin.getConfig().getInt(configPath + ".duration_days", 30);
 
         LocalDateTime newExpiry;
@@ -191,7 +317,7 @@ public class PermitManager {
                  PreparedStatement stmt = conn.prepareStatement(sql)) {
                 
                 stmt.setString(1, newExpiry.toString());
-                stmt.setDouble(2, price);
+                stmt.setLong(2, price.minor());
                 stmt.setInt(3, existing.getId());
                 
                 stmt.executeUpdate();
@@ -199,8 +325,9 @@ public class PermitManager {
                 plugin.getDatabaseManager().logTransaction(
                     playerId, "permit_extension",
                     "Extended " + dimension + " permit by " + durationDays + " days",
-                    -price, null
+                    price.negate(), null
                 );
+                refreshCache(conn, playerId);
                 
                 return new PermitResult(true, "Permit extended!", existing.getId());
                 
@@ -233,6 +360,7 @@ public class PermitManager {
                 stmt.setString(1, expires.toString());
                 stmt.setInt(2, existing.getId());
                 stmt.executeUpdate();
+                refreshCache(conn, playerId);
                 
                 return new PermitResult(true, "Permit extended!", existing.getId());
                 
@@ -248,7 +376,7 @@ public class PermitManager {
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(stmt, 1, playerId);
             stmt.setString(2, dimension.toLowerCase());
             stmt.setString(3, now.toString());
             stmt.setString(4, expires.toString());
@@ -257,6 +385,7 @@ public class PermitManager {
             
             ResultSet rs = stmt.getGeneratedKeys();
             int permitId = rs.next() ? rs.getInt(1) : -1;
+            refreshCache(conn, playerId);
             
             return new PermitResult(true, "Permit granted!", permitId);
             
@@ -275,10 +404,12 @@ public class PermitManager {
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, playerId.toString());
+            plugin.getDatabaseManager().setUuid(stmt, 1, playerId);
             stmt.setString(2, dimension.toLowerCase());
             
-            return stmt.executeUpdate() > 0;
+            boolean revoked = stmt.executeUpdate() > 0;
+            refreshCache(conn, playerId);
+            return revoked;
             
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to revoke permit: " + e.getMessage());
@@ -289,8 +420,8 @@ public class PermitManager {
     /**
      * Get the price for a dimension permit
      */
-    public double getPermitPrice(String dimension) {
-        return plugin.getConfig().getDouble("permits." + dimension.toLowerCase() + ".price", 10.0);
+    public Money getPermitPrice(String dimension) {
+        return Money.fromDouble(plugin.getConfig().getDouble("permits." + dimension.toLowerCase() + ".price", 10.0));
     }
 
     /**
@@ -339,11 +470,11 @@ public class PermitManager {
         private final String dimension;
         private final LocalDateTime purchasedAt;
         private final LocalDateTime expiresAt;
-        private final double pricePaid;
+        private final Money pricePaid;
         private final String status;
 
         public Permit(int id, UUID playerId, String dimension, LocalDateTime purchasedAt,
-                      LocalDateTime expiresAt, double pricePaid, String status) {
+                      LocalDateTime expiresAt, Money pricePaid, String status) {
             this.id = id;
             this.playerId = playerId;
             this.dimension = dimension;
@@ -358,7 +489,7 @@ public class PermitManager {
         public String getDimension() { return dimension; }
         public LocalDateTime getPurchasedAt() { return purchasedAt; }
         public LocalDateTime getExpiresAt() { return expiresAt; }
-        public double getPricePaid() { return pricePaid; }
+        public Money getPricePaid() { return pricePaid; }
         public String getStatus() { return status; }
         
         public boolean isExpired() {
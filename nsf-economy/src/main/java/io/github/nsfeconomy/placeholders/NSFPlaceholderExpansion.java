@@ -1,6 +1,7 @@
 package io.github.nsfeconomy.placeholders;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
@@ -119,20 +120,18 @@ public class NSFPlaceholderExpansion extends PlaceholderExpansion {
                 return plugin.getCurrencyManager().formatCurrency(0);
             
             case "virtual_balance":
-                return String.format("%.2f", 
-                    plugin.getDatabaseManager().getVirtualBalance(offlinePlayer.getUniqueId()));
+                return plugin.getDatabaseManager().getVirtualBalance(offlinePlayer.getUniqueId()).toString();
             
             case "virtual_balance_formatted":
                 return plugin.getCurrencyManager().formatCurrency(
                     plugin.getDatabaseManager().getVirtualBalance(offlinePlayer.getUniqueId()));
             
             case "tax_owed":
-                double taxOwed = plugin.getTaxManager().getTotalOwed(offlinePlayer.getUniqueId());
+                Money taxOwed = plugin.getTaxManager().getTotalOwed(offlinePlayer.getUniqueId());
                 return plugin.getCurrencyManager().formatCurrency(taxOwed);
             
             case "tax_owed_raw":
-                return String.format("%.2f", 
-                    plugin.getTaxManager().getTotalOwed(offlinePlayer.getUniqueId()));
+                return plugin.getTaxManager().getTotalOwed(offlinePlayer.getUniqueId()).toString();
             
             case "permit_nether":
                 return getPermitDaysRemaining(offlinePlayer, "nether");
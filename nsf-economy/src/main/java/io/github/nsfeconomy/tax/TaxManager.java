@@ -1,6 +1,11 @@
 package io.github.nsfeconomy.tax;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+import io.github.nsfeconomy.database.BinaryJournal;
+import io.github.nsfeconomy.database.ChangeOutbox;
+import io.github.nsfeconomy.database.StreamingQuery;
+import io.github.nsfeconomy.database.TransactionRetention;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -8,6 +13,7 @@ import java.sql.*;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 /**
@@ -29,33 +35,33 @@ public class TaxManager {
             return;
         }
 
-        String sql = "SELECT * FROM tax_obligations WHERE paid = 0";
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        // Streamed: the unpaid table can be large and only online players matter
+        String sql = "SELECT player, amount, due_date FROM tax_obligations WHERE paid = 0";
+        Instant now = Instant.now();
+        try {
+            plugin.getDatabaseManager().getStreaming().forEach(sql, StreamingQuery.Binder.NONE, rs -> {
+                UUID playerUUID = plugin.getDatabaseManager().getUuid(rs, "player");
+                Player player = Bukkit.getPlayer(playerUUID);
+                if (player == null || !player.isOnline()) {
+                    return true;
+                }
 
-            while (rs.next()) {
-                UUID playerUUID = UUID.fromString(rs.getString("player"));
-                double amount = rs.getDouble("amount");
+                Money amount = Money.ofMinor(rs.getLong("amount"));
                 Timestamp dueDate = rs.getTimestamp("due_date");
-                
-                Player player = Bukkit.getPlayer(playerUUID);
-                if (player != null && player.isOnline()) {
-                    Instant now = Instant.now();
-                    Instant due = dueDate.toInstant();
-                    
-                    if (now.isAfter(due)) {
-                        // Overdue
-                        player.sendMessage(plugin.getMessage("tax_overdue"));
-                    } else if (ChronoUnit.DAYS.between(now, due) <= 3) {
-                        // Due soon
-                        String msg = plugin.getRawMessage("tax_reminder")
-                            .replace("{amount}", plugin.getCurrencyManager().formatCurrency(amount))
-                            .replace("{date}", dueDate.toString());
-                        player.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + msg));
-                    }
+                Instant due = dueDate.toInstant();
+
+                if (now.isAfter(due)) {
+                    // Overdue
+                    player.sendMessage(plugin.getMessage("tax_overdue"));
+                } else if (ChronoUnit.DAYS.between(now, due) <= 3) {
+                    // Due soon
+                    String msg = plugin.getRawMessage("tax_reminder")
+                        .replace("{amount}", plugin.getCurrencyManager().formatCurrency(amount))
+                        .replace("{date}", dueDate.toString());
+                    player.sendMessage(plugin.colorize(plugin.getConfig().getString("messages.prefix", "") + msg));
                 }
-            }
+                return true;
+            });
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to check tax due dates", e);
         }
@@ -64,15 +70,16 @@ public class TaxManager {
     /**
      * Create a tax obligation for a player
      */
-    public boolean createTaxObligation(UUID player, String type, double amount, Timestamp dueDate) {
+    public boolean createTaxObligation(UUID player, String type, Money amount, Timestamp dueDate) {
         String sql = "INSERT INTO tax_obligations (player, type, amount, due_date) VALUES (?, ?, ?, ?)";
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, player.toString());
+            plugin.getDatabaseManager().setUuid(ps, 1, player);
             ps.setString(2, type);
-            ps.setDouble(3, amount);
+            ps.setLong(3, amount.minor());
             ps.setTimestamp(4, dueDate);
-            return ps.executeUpdate() > 0;
+            return plugin.getDatabaseManager().getChangeOutbox().publishIfChanged(conn, ps.executeUpdate(),
+                ChangeOutbox.TOPIC_TAX, player.toString());
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to create tax obligation", e);
             return false;
@@ -86,16 +93,16 @@ public class TaxManager {
         List<TaxObligation> obligations = new ArrayList<>();
         String sql = "SELECT * FROM tax_obligations WHERE player = ? AND paid = 0 ORDER BY due_date";
         
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, player.toString());
+            plugin.getDatabaseManager().setUuid(ps, 1, player);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     obligations.add(new TaxObligation(
                         rs.getInt("id"),
-                        UUID.fromString(rs.getString("player")),
+                        plugin.getDatabaseManager().getUuid(rs, "player"),
                         rs.getString("type"),
-                        rs.getDouble("amount"),
+                        Money.ofMinor(rs.getLong("amount")),
                         rs.getTimestamp("due_date"),
                         rs.getBoolean("paid")
                     ));
@@ -110,41 +117,54 @@ public class TaxManager {
     /**
      * Get total amount owed by a player
      */
-    public double getTotalOwed(UUID player) {
+    public Money getTotalOwed(UUID player) {
         String sql = "SELECT SUM(amount) as total FROM tax_obligations WHERE player = ? AND paid = 0";
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
+        try (Connection conn = plugin.getDatabaseManager().getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, player.toString());
+            plugin.getDatabaseManager().setUuid(ps, 1, player);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getDouble("total");
+                    return Money.ofMinor(rs.getLong("total"));
                 }
             }
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to get total owed", e);
         }
-        return 0;
+        return Money.ZERO;
     }
 
     /**
-     * Pay off tax obligations
+     * Pay off tax obligations. The obligation updates and the log entry
+     * commit together or not at all.
      */
-    public PaymentResult payTaxes(UUID player, double amount) {
+    public PaymentResult payTaxes(UUID player, Money amount) {
+        try {
+            return plugin.getDatabaseManager().inTransaction(unit -> payTaxesInUnit(player, amount));
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to process tax payment", e);
+            return new PaymentResult(false, Money.ZERO, "Database error");
+        }
+    }
+
+    private PaymentResult payTaxesInUnit(UUID player, Money amount) throws SQLException {
         List<TaxObligation> obligations = getUnpaidTaxes(player);
         
         if (obligations.isEmpty()) {
-            return new PaymentResult(false, 0, "No taxes owed");
+            return new PaymentResult(false, Money.ZERO, "No taxes owed");
         }
         
-        double paid = 0;
+        // Minor units throughout so the loop stays primitive
+        long budget = amount.minor();
+        long paid = 0;
         
         try (Connection conn = plugin.getDatabaseManager().getConnection()) {
             for (TaxObligation obligation : obligations) {
-                if (paid >= amount) break;
+                if (paid >= budget) break;
                 
-                double toPay = Math.min(obligation.getAmount(), amount - paid);
+                long owed = obligation.getAmount().minor();
+                long toPay = Math.min(owed, budget - paid);
                 
-                if (toPay >= obligation.getAmount()) {
+                if (toPay >= owed) {
                     // Pay in full
                     String sql = "UPDATE tax_obligations SET paid = 1, paid_at = CURRENT_TIMESTAMP WHERE id = ?";
                     try (PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -155,7 +175,7 @@ public class TaxManager {
                     // Partial payment
                     String sql = "UPDATE tax_obligations SET amount = amount - ? WHERE id = ?";
                     try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                        ps.setDouble(1, toPay);
+                        ps.setLong(1, toPay);
                         ps.setInt(2, obligation.getId());
                         ps.executeUpdate();
                     }
@@ -163,15 +183,35 @@ public class TaxManager {
                 
                 paid += toPay;
             }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to process tax payment", e);
-            return new PaymentResult(false, paid, "Database error");
+            if (paid > 0) {
+                plugin.getDatabaseManager().getChangeOutbox().publish(conn, ChangeOutbox.TOPIC_TAX, player.toString());
+            }
         }
         
         // Log transaction
-        plugin.getDatabaseManager().logTransaction("tax", player, paid, 0, "Tax payment");
+        plugin.getDatabaseManager().logTransaction("tax", player, Money.ofMinor(paid), 0, "Tax payment");
         
-        return new PaymentResult(true, paid, "Success");
+        return new PaymentResult(true, Money.ofMinor(paid), "Success");
+    }
+
+    /**
+     * Get a player's most recent tax payments from the transaction log,
+     * newest first
+     */
+    public List<TransactionRetention.TransactionEntry> getPaymentHistory(UUID player, int limit) {
+        TransactionRetention retention = plugin.getDatabaseManager().getTransactionRetention();
+        BinaryJournal journal = plugin.getDatabaseManager().getBinaryJournal();
+        try {
+            if (retention != null) {
+                return retention.queryRecent(player, "tax", limit);
+            }
+            if (journal != null) {
+                return journal.queryPlayer(player, "tax", limit);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to get tax payment history", e);
+        }
+        return new ArrayList<>();
     }
 
     /**
@@ -182,8 +222,9 @@ public class TaxManager {
                     "WHERE player = ? AND paid = 0 LIMIT 1";
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, player.toString());
-            return ps.executeUpdate() > 0;
+            plugin.getDatabaseManager().setUuid(ps, 1, player);
+            return plugin.getDatabaseManager().getChangeOutbox().publishIfChanged(conn, ps.executeUpdate(),
+                ChangeOutbox.TOPIC_TAX, player.toString());
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to forgive taxes", e);
             return false;
@@ -203,8 +244,32 @@ public class TaxManager {
     /**
      * Calculate sales tax for a transaction
      */
-    public double calculateSalesTax(double salePrice) {
-        return salePrice * getSalesTaxRate();
+    public Money calculateSalesTax(Money salePrice) {
+        return salePrice.times(getSalesTaxRate());
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Async API
+    // ══════════════════════════════════════════════════════════════════════
+
+    public CompletableFuture<List<TaxObligation>> getUnpaidTaxesAsync(UUID player) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> getUnpaidTaxes(player));
+    }
+
+    public CompletableFuture<Money> getTotalOwedAsync(UUID player) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> getTotalOwed(player));
+    }
+
+    public CompletableFuture<List<TransactionRetention.TransactionEntry>> getPaymentHistoryAsync(UUID player, int limit) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> getPaymentHistory(player, limit));
+    }
+
+    public CompletableFuture<PaymentResult> payTaxesAsync(UUID player, Money amount) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> payTaxes(player, amount));
+    }
+
+    public CompletableFuture<Boolean> forgiveTaxesAsync(UUID player, double amount) {
+        return plugin.getDatabaseManager().getExecutor().supply(() -> forgiveTaxes(player, amount));
     }
 
     // ══════════════════════════════════════════════════════════════════════
@@ -215,11 +280,11 @@ public class TaxManager {
         private final int id;
         private final UUID player;
         private final String type;
-        private final double amount;
+        private final Money amount;
         private final Timestamp dueDate;
         private final boolean paid;
 
-        public TaxObligation(int id, UUID player, String type, double amount, Timestamp dueDate, boolean paid) {
+        public TaxObligation(int id, UUID player, String type, Money amount, Timestamp dueDate, boolean paid) {
             this.id = id;
             this.player = player;
             this.type = type;
@@ -231,24 +296,24 @@ public class TaxManager {
         public int getId() { return id; }
         public UUID getPlayer() { return player; }
         public String getType() { return type; }
-        public double getAmount() { return amount; }
+        public Money getAmount() { return amount; }
         public Timestamp getDueDate() { return dueDate; }
         public boolean isPaid() { return paid; }
     }
 
     public static class PaymentResult {
         private final boolean success;
-        private final double amountPaid;
+        private final Money amountPaid;
         private final String message;
 
-        public PaymentResult(boolean success, double amountPaid, String message) {
+        public PaymentResult(boolean success, Money amountPaid, String message) {
             this.success = success;
             this.amountPaid = amountPaid;
             this.message = message;
         }
 
         public boolean isSuccess() { return success; }
-        public double getAmountPaid() { return amountPaid; }
+        public Money getAmountPaid() { return amountPaid; }
         public String getMessage() { return message; }
     }
 }
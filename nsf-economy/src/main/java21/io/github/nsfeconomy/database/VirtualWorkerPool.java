@@ -0,0 +1,126 @@
+package io.github.nsfeconomy.database;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One virtual thread per task, with a semaphore capping how many run JDBC
+ * work at once.
+ *
+ * The cap matches the connection pool so waiting happens on the cheap
+ * semaphore rather than inside Hikari's getConnection(). It also bounds
+ * carrier pinning: the SQLite and MySQL drivers block inside synchronized
+ * blocks, which pins the carrier thread on Java 21.
+ *
+ * Tasks it will not run, because the queue is full, the pool has shut down
+ * or shutdownNow interrupted them while waiting, go to the rejection
+ * handler.
+ */
+public class VirtualWorkerPool implements WorkerPool {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int parallelism;
+    private final int queueSize;
+    private final Consumer<Runnable> rejected;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    public VirtualWorkerPool(String name, int parallelism, int queueSize, Consumer<Runnable> rejected) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-v", 1).factory());
+        this.permits = new Semaphore(parallelism, true);
+        this.parallelism = parallelism;
+        this.queueSize = queueSize;
+        this.rejected = rejected;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (waiting.get() >= queueSize) {
+            rejected.accept(task);
+            return;
+        }
+        waiting.incrementAndGet();
+        try {
+            executor.execute(() -> runGated(task));
+        } catch (RejectedExecutionException e) {
+            waiting.decrementAndGet();
+            rejected.accept(task);
+        }
+    }
+
+    private void runGated(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            // shutdownNow before the task got a permit
+            waiting.decrementAndGet();
+            rejected.accept(task);
+            return;
+        }
+        waiting.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            completed.incrementAndGet();
+            permits.release();
+        }
+    }
+
+    @Override
+    public String getKind() {
+        return "virtual";
+    }
+
+    @Override
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return waiting.get();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public int shutdownNow() {
+        int pending = waiting.get();
+        executor.shutdownNow();
+        return pending;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
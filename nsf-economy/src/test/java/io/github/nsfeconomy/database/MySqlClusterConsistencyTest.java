@@ -0,0 +1,80 @@
+package io.github.nsfeconomy.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The cluster tests against a MySQL or MariaDB database shared by both
+ * servers, run when NSF_TEST_MYSQL_HOST is set (see {@link TestPlugins}).
+ * Unlike SQLite, MySQL hands out outbox ids before commit, so changes can
+ * become visible out of id order.
+ */
+@EnabledIfEnvironmentVariable(named = TestPlugins.MYSQL_HOST, matches = ".+")
+class MySqlClusterConsistencyTest extends ClusterConsistencyTest {
+
+    private String database;
+
+    @Override
+    Object[] overrides(String id) throws Exception {
+        if (database == null) {
+            database = TestPlugins.createMySqlDatabase();
+        }
+        return TestPlugins.mysql(database, super.overrides(id));
+    }
+
+    @Override
+    void dropDatabase() throws Exception {
+        if (database != null) {
+            TestPlugins.dropMySqlDatabase(database);
+        }
+    }
+
+    @Test
+    void changeCommittedBelowTheHighWaterMarkIsDelivered() throws Exception {
+        BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+        second.getChangeOutbox().subscribe(ChangeOutbox.TOPIC_NOTE, changes::add);
+
+        UUID player = UUID.randomUUID();
+        UUID late = UUID.randomUUID();
+        UUID early = UUID.randomUUID();
+        CountDownLatch written = new CountDownLatch(1);
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            // Takes the lower outbox id and holds it uncommitted
+            Future<Boolean> held = writer.submit(() -> first.inTransaction(unit -> {
+                boolean recorded = first.recordNote(late, 1, player);
+                written.countDown();
+                commit.join();
+                return recorded;
+            }));
+            assertTrue(written.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+            assertTrue(first.recordNote(early, 1, player));
+            assertEquals(early.toString(), changes.poll(WAIT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(second.getChangeOutbox().getStats().getGaps() > 0, "the uncommitted id was not tracked as a gap");
+
+            commit.complete(null);
+            assertTrue(held.get(WAIT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(late.toString(), changes.poll(WAIT_SECONDS, TimeUnit.SECONDS),
+                "change committed below the high-water mark was not delivered");
+            assertTrue(second.isNoteValid(late));
+        } finally {
+            commit.complete(null);
+            writer.shutdown();
+        }
+    }
+}
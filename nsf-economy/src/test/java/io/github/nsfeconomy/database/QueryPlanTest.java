@@ -0,0 +1,279 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.bank.BankManager;
+import io.github.nsfeconomy.bounty.BountyManager;
+import io.github.nsfeconomy.currency.CurrencyManager;
+import io.github.nsfeconomy.currency.Money;
+import io.github.nsfeconomy.permit.PermitManager;
+import io.github.nsfeconomy.tax.TaxManager;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+/**
+ * Seeds a database with 10^5 ledger entries and transaction rows, runs the
+ * plugin's statements against it, then explains every one the metrics
+ * recorded. Fails on any full table scan outside database.explain.allow_scans
+ * and on any plan or p99 latency that regressed against the checked-in
+ * explain-baseline.tsv.
+ *
+ * Runs on SQLite, and on MySQL or MariaDB as well when NSF_TEST_MYSQL_HOST is
+ * set (see {@link TestPlugins}). The journal is off so log rows are written,
+ * and read back, by plain statements; the reserve is kept in the database
+ * rather than in memory.
+ *
+ * To record a new baseline, run with -Dnsf.explain.baseline=src/test/resources/explain-baseline.tsv
+ */
+class QueryPlanTest {
+
+    private static final int PLAYERS = 10_000;
+    private static final int ENTRIES_PER_PLAYER = 10;
+    /** Players per seeding transaction */
+    private static final int SEED_BATCH = 500;
+    /** Players the measured calls run for; above the audit's minimum sample count */
+    private static final int SAMPLED = 200;
+    private static final String BASELINE = "explain-baseline.tsv";
+
+    /** Statements that must have been recorded, so a renamed query cannot drop out of the audit */
+    private static final List<String> REQUIRED = List.of(
+        "SELECT balance FROM ledger_accounts WHERE account = ?",
+        "UPDATE ledger_accounts SET balance = balance + ?, last_entry_id = ? WHERE account = ?",
+        "UPDATE currency_ledger SET status = ?, status_changed_at = CURRENT_TIMESTAMP, status_changed_by = ? WHERE serial = ? AND status = ?",
+        "UPDATE reserve SET nether_stars = nether_stars - ?, last_updated = CURRENT_TIMESTAMP WHERE id = ? AND nether_stars >= ?",
+        "SELECT * FROM tax_obligations WHERE player = ? AND paid = ? ORDER BY due_date",
+        "SELECT id FROM permits WHERE player_id = ? AND dimension = ? AND expires_at > ? AND status = ?",
+        "DELETE FROM withdrawal_queue WHERE player = ? AND processed = ?",
+        "SELECT * FROM bank_locations",
+        "SELECT denomination, COUNT(*) as count FROM currency_ledger WHERE status = ? GROUP BY denomination",
+        "SELECT player, amount, due_date FROM tax_obligations WHERE paid = ?",
+        "SELECT * FROM bounties WHERE status = ? ORDER BY created_at DESC");
+
+    @TempDir
+    Path folder;
+
+    private NSFEconomy plugin;
+    private DatabaseManager databaseManager;
+    private String mysqlDatabase;
+
+    @AfterEach
+    void close() throws Exception {
+        if (databaseManager != null) {
+            databaseManager.close();
+        }
+        if (mysqlDatabase != null) {
+            TestPlugins.dropMySqlDatabase(mysqlDatabase);
+        }
+    }
+
+    @Test
+    void sqlitePlansMatchTheBaseline() throws Exception {
+        plugin = TestPlugins.create(folder, overrides());
+        audit();
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = TestPlugins.MYSQL_HOST, matches = ".+")
+    void mysqlPlansMatchTheBaseline() throws Exception {
+        mysqlDatabase = TestPlugins.createMySqlDatabase();
+        plugin = TestPlugins.create(folder, TestPlugins.mysql(mysqlDatabase, overrides()));
+        audit();
+    }
+
+    private static Object[] overrides() {
+        return new Object[] {
+            "database.journal.enabled", false,
+            "database.reserve.in_memory", false,
+            // Every recorded statement counts as hot
+            "database.explain.hot_min_calls", 1
+        };
+    }
+
+    private void audit() throws Exception {
+        databaseManager = TestPlugins.open(plugin);
+        try (InputStream in = Objects.requireNonNull(QueryPlanTest.class.getResourceAsStream("/" + BASELINE))) {
+            Files.copy(in, folder.resolve(BASELINE), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try (MockedStatic<Bukkit> bukkit = mockStatic(Bukkit.class)) {
+            BukkitScheduler scheduler = mock(BukkitScheduler.class);
+            bukkit.when(Bukkit::getScheduler).thenReturn(scheduler);
+            List<UUID> players = seed();
+            // Only the measured calls count towards the baseline latencies
+            databaseManager.getQueryMetrics().reset();
+            measure(players);
+        }
+
+        QueryPlanAudit audit = new QueryPlanAudit(plugin, databaseManager);
+        assertTrue(audit.hasBaseline(), BASELINE + " was not loaded");
+        QueryPlanAudit.Report report = audit.run();
+        assertTrue(report.getExplained() > 0, "no statements were recorded");
+
+        String record = System.getProperty("nsf.explain.baseline");
+        if (record != null) {
+            audit.saveBaseline();
+            Files.copy(folder.resolve(BASELINE), Path.of(record), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Set<String> recorded = new HashSet<>();
+        for (QueryMetrics.QueryStats stats : databaseManager.getQueryMetrics().getQueries()) {
+            recorded.add(stats.getShape());
+        }
+        List<String> missing = new ArrayList<>(REQUIRED);
+        missing.removeAll(recorded);
+        assertTrue(missing.isEmpty(), () -> "statements not run:\n" + String.join("\n", missing));
+
+        List<String> failures = new ArrayList<>();
+        for (QueryPlanAudit.Finding finding : report.getFailures()) {
+            failures.add(finding.getKind().getLabel() + ": " + finding.getShape() + " (" + finding.getDetail() + ")");
+        }
+        assertTrue(failures.isEmpty(), () -> "query plan audit failed:\n" + String.join("\n", failures));
+    }
+
+    /**
+     * PLAYERS accounts with ENTRIES_PER_PLAYER ledger entries and
+     * transaction rows each, plus a note, tax obligation and permit per
+     * player, written through the same calls the plugin makes in
+     * SEED_BATCH-player transactions
+     */
+    private List<UUID> seed() throws Exception {
+        TaxManager taxes = new TaxManager(plugin);
+        BountyManager bounties = new BountyManager(plugin);
+        PermitManager permits = new PermitManager(plugin);
+        when(plugin.getTaxManager()).thenReturn(taxes);
+        when(plugin.getBountyManager()).thenReturn(bounties);
+        when(plugin.getPermitManager()).thenReturn(permits);
+        PostingLedger ledger = databaseManager.getPostingLedger();
+        Timestamp due = new Timestamp(System.currentTimeMillis() + 86_400_000L);
+
+        List<UUID> players = new ArrayList<>(PLAYERS);
+        databaseManager.addToReserve((long) PLAYERS * ENTRIES_PER_PLAYER);
+        for (int start = 0; start < PLAYERS; start += SEED_BATCH) {
+            int first = start;
+            databaseManager.inTransaction(unit -> {
+                for (int i = first; i < Math.min(first + SEED_BATCH, PLAYERS); i++) {
+                    UUID player = UUID.randomUUID();
+                    String account = PostingLedger.playerAccount(player);
+                    players.add(player);
+
+                    databaseManager.createPlayerAccount(player, "player" + i);
+                    for (int entry = 0; entry < ENTRIES_PER_PLAYER; entry++) {
+                        ledger.transfer(PostingLedger.EXTERNAL, account, Money.ofMinor(100), "vault_deposit", "Seed");
+                        databaseManager.logTransaction("deposit", player, Money.ofMinor(100), 1, "Seed");
+                    }
+                    databaseManager.recordNote(UUID.randomUUID(), 1, player);
+                    taxes.createTaxObligation(player, "sales", Money.ofMinor(50), due);
+                    permits.grantPermit(player, "nether", 7);
+                    if (i % 10 == 0) {
+                        bounties.createBounty("Seed bounty " + i, Money.ofMinor(100), player, due);
+                    }
+                }
+                return null;
+            });
+        }
+        return players;
+    }
+
+    /**
+     * The statements under audit, each run for SAMPLED players. The bank's
+     * deposit and withdrawal need a player inventory, so their database
+     * steps are made here in the same transactions the bank makes them.
+     */
+    private void measure(List<UUID> players) throws Exception {
+        TaxManager taxes = plugin.getTaxManager();
+        BountyManager bounties = plugin.getBountyManager();
+        PermitManager permits = plugin.getPermitManager();
+        TransactionRetention retention = new TransactionRetention(plugin, databaseManager);
+        PostingLedger ledger = databaseManager.getPostingLedger();
+        Timestamp due = new Timestamp(System.currentTimeMillis() + 86_400_000L);
+
+        CurrencyManager currency = mock(CurrencyManager.class);
+        when(currency.getDenominations()).thenReturn(List.of(1, 5, 10, 20, 50, 100));
+        when(plugin.getCurrencyManager()).thenReturn(currency);
+        BankManager bank = new BankManager(plugin);
+        World world = mock(World.class);
+        when(world.getName()).thenReturn("world");
+        bank.createBankLocation("Seed branch", "branch", new Location(world, 0, 64, 0), 5);
+        bank.loadBankLocations();
+
+        for (UUID player : players.subList(0, SAMPLED)) {
+            String account = PostingLedger.playerAccount(player);
+            Player online = mock(Player.class);
+            when(online.getUniqueId()).thenReturn(player);
+
+            databaseManager.hasPlayerAccount(player);
+            ledger.getBalance(account);
+            databaseManager.getVirtualBalance(player);
+            databaseManager.updateVirtualBalance(player, Money.ofMinor(-100));
+            retention.queryRecent(player, 10);
+            retention.queryRecent(player, "deposit", 10);
+
+            // Deposit: reserve, notes and log in one transaction
+            UUID serial = UUID.randomUUID();
+            databaseManager.inTransaction(unit -> {
+                databaseManager.addToReserve(1);
+                databaseManager.recordNote(serial, 1, player);
+                databaseManager.logTransaction("deposit", player, Money.ofMajor(1), 1, "Seed");
+                return null;
+            });
+            databaseManager.isNoteValid(serial);
+            databaseManager.getNoteDenomination(serial);
+            // Withdrawal: redeem, reserve and log in one transaction
+            databaseManager.inTransaction(unit -> {
+                databaseManager.redeemNote(serial, player);
+                databaseManager.removeFromReserve(1);
+                databaseManager.logTransaction("withdraw", player, Money.ofMajor(1), 1, "Seed");
+                return null;
+            });
+            bank.addToWithdrawalQueue(online, Money.ofMajor(1));
+            bank.removeFromQueue(player);
+
+            taxes.getUnpaidTaxes(player);
+            taxes.getTotalOwed(player);
+            taxes.payTaxes(player, Money.ofMinor(25));
+            taxes.createTaxObligation(player, "sales", Money.ofMinor(50), due);
+
+            int bounty = bounties.createBounty("Measured bounty", Money.ofMinor(100), player, due);
+            bounties.getBounty(bounty);
+            bounties.claimBounty(bounty, player);
+            bounties.getPlayerBounties(player);
+
+            permits.hasValidPermit(player, "nether");
+            permits.getPermit(player, "nether");
+            permits.getPlayerPermits(player);
+        }
+
+        // Reserve report and the streamed scans
+        bank.getReserveStats();
+        bank.getCirculatingByDenomination();
+        taxes.checkTaxDueDates();
+        bounties.forEachBounty("open", b -> { });
+        bounties.getOpenBounties();
+        permits.expireOldPermits();
+        bank.removeBankLocation("Seed branch");
+    }
+}
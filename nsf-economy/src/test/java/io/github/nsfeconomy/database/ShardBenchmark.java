@@ -0,0 +1,104 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Write throughput of {@link ShardSet}: the same batches of journal-sized
+ * inserts sent by one caller per shard, first all into shard-0 as if the
+ * log had a single file, then each caller into its own shard.
+ *
+ * Runs against throwaway shard files in a temporary folder;
+ * mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class ShardBenchmark {
+
+    private static final String TABLE = "shard_benchmark";
+    private static final int SHARDS = 4;
+    private static final int RECORDS = 50000;
+    private static final int BATCH_SIZE = 500;
+
+    @Test
+    void oneFileThenAllShards(@TempDir Path folder) throws Exception {
+        NSFEconomy plugin = TestPlugins.create(folder, "database.sqlite.shards.count", SHARDS);
+        DatabaseManager databaseManager = TestPlugins.open(plugin);
+        ExecutorService pool = Executors.newFixedThreadPool(SHARDS, runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-ShardBench");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ShardSet shards = databaseManager.getShards();
+            assertNotNull(shards, "shards did not open");
+            for (ShardSet.Shard shard : shards.getShards()) {
+                try (Connection conn = databaseManager.getFileMaintenanceConnection(shard)) {
+                    SchemaMigrator.execute(conn, "CREATE TABLE " + TABLE
+                        + " (id INTEGER PRIMARY KEY, player BLOB NOT NULL, details TEXT, timestamp BIGINT)");
+                }
+            }
+            System.out.printf("Shard benchmark: %d rows from %d writers%n", RECORDS, SHARDS);
+            phase(databaseManager, pool, shards, "one file", false);
+            phase(databaseManager, pool, shards, SHARDS + " shards", true);
+        } finally {
+            pool.shutdownNow();
+            databaseManager.close();
+        }
+    }
+
+    private void phase(DatabaseManager databaseManager, ExecutorService pool, ShardSet shards, String name,
+                       boolean spread) throws Exception {
+        int perCaller = RECORDS / SHARDS;
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            ShardSet.Shard target = shards.getShards().get(spread ? i : 0);
+            futures.add(pool.submit(() -> write(databaseManager, target, perCaller)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("  %s: %d rows in %.0fms (%.0f rows/s)%n", name, perCaller * SHARDS,
+            elapsed / 1e6, perCaller * SHARDS * 1e9 / elapsed);
+    }
+
+    private Void write(DatabaseManager databaseManager, ShardSet.Shard shard, int rows) throws SQLException {
+        try (Connection conn = databaseManager.getFileConnection(shard);
+             PreparedStatement ps = conn.prepareStatement(
+                 "INSERT INTO " + TABLE + " (player, details, timestamp) VALUES (?, ?, ?)")) {
+            conn.setAutoCommit(false);
+            try {
+                for (int i = 1; i <= rows; i++) {
+                    ps.setBytes(1, UuidCodec.toBytes(UUID.randomUUID()));
+                    ps.setString(2, "benchmark");
+                    ps.setLong(3, System.currentTimeMillis());
+                    ps.addBatch();
+                    if (i % BATCH_SIZE == 0 || i == rows) {
+                        // One commit per batch, like a journal flush
+                        ps.executeBatch();
+                        conn.commit();
+                    }
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plugin mocks for running the database layer against files in a temporary
+ * folder, without a server.
+ *
+ * The config is the shipped config.yml with the parts that need the Bukkit
+ * scheduler switched off, plus the overrides a test passes as path, value
+ * pairs.
+ *
+ * Tests that need MySQL or MariaDB run when NSF_TEST_MYSQL_HOST names a
+ * server, with NSF_TEST_MYSQL_PORT, NSF_TEST_MYSQL_USER and
+ * NSF_TEST_MYSQL_PASSWORD. Each gets a database of its own, created and
+ * dropped by the test, so the user needs CREATE and DROP.
+ */
+final class TestPlugins {
+
+    static final String MYSQL_HOST = "NSF_TEST_MYSQL_HOST";
+
+    private TestPlugins() {
+    }
+
+    static NSFEconomy create(Path dataFolder, Object... overrides) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        try (Reader reader = new InputStreamReader(
+                Objects.requireNonNull(TestPlugins.class.getResourceAsStream("/config.yml")), StandardCharsets.UTF_8)) {
+            config.load(reader);
+        }
+        // Started from the Bukkit scheduler
+        config.set("database.retention.enabled", false);
+        config.set("database.maintenance.enabled", false);
+        config.set("database.explain.enabled", false);
+        for (int i = 0; i < overrides.length; i += 2) {
+            config.set((String) overrides[i], overrides[i + 1]);
+        }
+
+        NSFEconomy plugin = mock(NSFEconomy.class);
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("NSFEconomy-Test"));
+        when(plugin.isEnabled()).thenReturn(true);
+        return plugin;
+    }
+
+    /**
+     * Create an empty database on the NSF_TEST_MYSQL_HOST server
+     *
+     * @return its name
+     */
+    static String createMySqlDatabase() throws SQLException {
+        String database = "nsf_test_" + Long.toHexString(System.nanoTime());
+        try (Connection conn = mysqlServer(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE DATABASE " + database);
+        }
+        return database;
+    }
+
+    static void dropMySqlDatabase(String database) throws SQLException {
+        try (Connection conn = mysqlServer(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS " + database);
+        }
+    }
+
+    /**
+     * Overrides that point the plugin at a database on the
+     * NSF_TEST_MYSQL_HOST server, followed by the given ones
+     */
+    static Object[] mysql(String database, Object... overrides) {
+        List<Object> all = new ArrayList<>(List.of(
+            "database.type", "mysql",
+            "database.mysql.host", System.getenv(MYSQL_HOST),
+            "database.mysql.port", mysqlPort(),
+            "database.mysql.database", database,
+            "database.mysql.username", mysqlEnv("USER", "root"),
+            "database.mysql.password", mysqlEnv("PASSWORD", "")));
+        all.addAll(Arrays.asList(overrides));
+        return all.toArray();
+    }
+
+    private static Connection mysqlServer() throws SQLException {
+        return DriverManager.getConnection("jdbc:mysql://" + System.getenv(MYSQL_HOST) + ":" + mysqlPort()
+            + "/?useSSL=false&allowPublicKeyRetrieval=true", mysqlEnv("USER", "root"), mysqlEnv("PASSWORD", ""));
+    }
+
+    private static int mysqlPort() {
+        return Integer.parseInt(mysqlEnv("PORT", "3306"));
+    }
+
+    private static String mysqlEnv(String name, String defaultValue) {
+        String value = System.getenv("NSF_TEST_MYSQL_" + name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Initialize a database manager for the plugin and hand it out through
+     * getDatabaseManager()
+     */
+    static DatabaseManager open(NSFEconomy plugin) {
+        DatabaseManager databaseManager = new DatabaseManager(plugin);
+        when(plugin.getDatabaseManager()).thenReturn(databaseManager);
+        assertTrue(databaseManager.initialize(), "database did not initialize; see the log");
+        return databaseManager;
+    }
+}
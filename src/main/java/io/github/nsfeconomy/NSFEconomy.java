@@ -103,7 +103,7 @@ public class NSFEconomy extends JavaPlugin {
             bankManager.saveBankLocations();
         }
         
-        // Close database connection
+        // Close database connection; close() drains the journal first
         if (databaseManager != null) {
             databaseManager.close();
         }
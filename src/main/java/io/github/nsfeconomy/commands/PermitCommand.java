@@ -1,6 +1,7 @@
 package io.github.nsfeconomy.commands;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
 import io.github.nsfeconomy.permit.PermitManager;
 import io.github.nsfeconomy.permit.PermitManager.Permit;
 import org.bukkit.command.Command;
@@ -61,27 +62,29 @@ public class PermitCommand implements CommandExecutor, TabCompleter {
         }
 
         PermitManager permitManager = plugin.getPermitManager();
-        List<Permit> permits = permitManager.getPlayerPermits(player.getUniqueId());
+        var permitsFuture = permitManager.getPlayerPermitsAsync(player.getUniqueId());
 
-        sender.sendMessage(plugin.colorize("&6══════ &lYour Permits &r&6══════"));
+        plugin.getDatabaseManager().getExecutor().sync(permitsFuture, permits -> {
+            sender.sendMessage(plugin.colorize("&6══════ &lYour Permits &r&6══════"));
         
-        if (permits.isEmpty()) {
-            sender.sendMessage(plugin.colorize("&7You have no active permits."));
-        } else {
-            for (Permit permit : permits) {
-                String status = permit.isExpired() ? "&c[EXPIRED]" : "&a[ACTIVE]";
-                long days = permit.getDaysRemaining();
-                sender.sendMessage(plugin.colorize(String.format(
-                    "  %s &f%s &7- %d days remaining",
-                    status,
-                    capitalize(permit.getDimension()),
-                    days
-                )));
+            if (permits.isEmpty()) {
+                sender.sendMessage(plugin.colorize("&7You have no active permits."));
+            } else {
+                for (Permit permit : permits) {
+                    String status = permit.isExpired() ? "&c[EXPIRED]" : "&a[ACTIVE]";
+                    long days = permit.getDaysRemaining();
+                    sender.sendMessage(plugin.colorize(String.format(
+                        "  %s &f%s &7- %d days remaining",
+                        status,
+                        capitalize(permit.getDimension()),
+                        days
+                    )));
+                }
             }
-        }
         
-        sender.sendMessage(plugin.colorize("&6══════════════════════════════"));
-        sender.sendMessage(plugin.colorize("&7Use &e/permit info <dimension> &7for pricing."));
+            sender.sendMessage(plugin.colorize("&6══════════════════════════════"));
+            sender.sendMessage(plugin.colorize("&7Use &e/permit info <dimension> &7for pricing."));
+        });
     }
 
     private void handleBuy(CommandSender sender, String[] args) {
@@ -117,24 +120,26 @@ public class PermitCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        double price = permitManager.getPermitPrice(dimension);
+        Money price = permitManager.getPermitPrice(dimension);
         int duration = permitManager.getPermitDuration(dimension);
 
         // TODO: Verify player has enough F-notes
 
-        PermitManager.PermitResult result = permitManager.purchasePermit(
+        var purchaseFuture = permitManager.purchasePermitAsync(
             player.getUniqueId(),
             dimension
         );
 
-        if (result.isSuccess()) {
-            sender.sendMessage(plugin.colorize("&a" + capitalize(dimension) + " permit purchased!"));
-            sender.sendMessage(plugin.colorize("&7Duration: &e" + duration + " days"));
-            sender.sendMessage(plugin.colorize("&7Cost: &e" + 
-                plugin.getCurrencyManager().formatCurrency(price)));
-        } else {
-            sender.sendMessage(plugin.colorize("&c" + result.getMessage()));
-        }
+        plugin.getDatabaseManager().getExecutor().sync(purchaseFuture, result -> {
+            if (result.isSuccess()) {
+                sender.sendMessage(plugin.colorize("&a" + capitalize(dimension) + " permit purchased!"));
+                sender.sendMessage(plugin.colorize("&7Duration: &e" + duration + " days"));
+                sender.sendMessage(plugin.colorize("&7Cost: &e" + 
+                    plugin.getCurrencyManager().formatCurrency(price)));
+            } else {
+                sender.sendMessage(plugin.colorize("&c" + result.getMessage()));
+            }
+        });
     }
 
     private void handleExtend(CommandSender sender, String[] args) {
@@ -162,21 +167,23 @@ public class PermitCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        PermitManager.PermitResult result = permitManager.extendPermit(
+        var extendFuture = permitManager.extendPermitAsync(
             player.getUniqueId(),
             dimension
         );
 
-        if (result.isSuccess()) {
-            Permit permit = permitManager.getPermit(player.getUniqueId(), dimension);
-            sender.sendMessage(plugin.colorize("&aPermit extended!"));
-            if (permit != null) {
-                sender.sendMessage(plugin.colorize("&7New expiry: &e" + 
-                    permit.getExpiresAt().toString().substring(0, 10)));
+        plugin.getDatabaseManager().getExecutor().sync(extendFuture, result -> {
+            if (result.isSuccess()) {
+                Permit permit = permitManager.getCachedPermit(player.getUniqueId(), dimension);
+                sender.sendMessage(plugin.colorize("&aPermit extended!"));
+                if (permit != null) {
+                    sender.sendMessage(plugin.colorize("&7New expiry: &e" + 
+                        permit.getExpiresAt().toString().substring(0, 10)));
+                }
+            } else {
+                sender.sendMessage(plugin.colorize("&c" + result.getMessage()));
             }
-        } else {
-            sender.sendMessage(plugin.colorize("&c" + result.getMessage()));
-        }
+        });
     }
 
     private void handleCheck(CommandSender sender, String[] args) {
@@ -198,18 +205,19 @@ public class PermitCommand implements CommandExecutor, TabCompleter {
         String dimension = args[1].toLowerCase();
         PermitManager permitManager = plugin.getPermitManager();
 
-        if (permitManager.hasValidPermit(player.getUniqueId(), dimension)) {
-            Permit permit = permitManager.getPermit(player.getUniqueId(), dimension);
-            sender.sendMessage(plugin.colorize("&aYou have a valid " + capitalize(dimension) + " permit!"));
-            if (permit != null) {
+        var permitFuture = permitManager.getPermitAsync(player.getUniqueId(), dimension);
+
+        plugin.getDatabaseManager().getExecutor().sync(permitFuture, permit -> {
+            if (permit != null && !permit.isExpired()) {
+                sender.sendMessage(plugin.colorize("&aYou have a valid " + capitalize(dimension) + " permit!"));
                 sender.sendMessage(plugin.colorize("&7Days remaining: &e" + permit.getDaysRemaining()));
                 sender.sendMessage(plugin.colorize("&7Expires: &e" + 
                     permit.getExpiresAt().toString().substring(0, 10)));
+            } else {
+                sender.sendMessage(plugin.colorize("&cYou do not have a valid " + capitalize(dimension) + " permit."));
+                sender.sendMessage(plugin.colorize("&7Purchase one with &e/permit buy " + dimension));
             }
-        } else {
-            sender.sendMessage(plugin.colorize("&cYou do not have a valid " + capitalize(dimension) + " permit."));
-            sender.sendMessage(plugin.colorize("&7Purchase one with &e/permit buy " + dimension));
-        }
+        });
     }
 
     private void handleInfo(CommandSender sender, String[] args) {
@@ -228,7 +236,7 @@ public class PermitCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        double price = permitManager.getPermitPrice(dimension);
+        Money price = permitManager.getPermitPrice(dimension);
         int duration = permitManager.getPermitDuration(dimension);
 
         sender.sendMessage(plugin.colorize("&6══════ &l" + capitalize(dimension) + " Permit &r&6══════"));
@@ -260,20 +268,22 @@ public class PermitCommand implements CommandExecutor, TabCompleter {
         int days = args.length > 3 ? Integer.parseInt(args[3]) : 
                    plugin.getPermitManager().getPermitDuration(dimension);
 
-        PermitManager.PermitResult result = plugin.getPermitManager().grantPermit(
+        var grantFuture = plugin.getPermitManager().grantPermitAsync(
             target.getUniqueId(),
             dimension,
             days
         );
 
-        if (result.isSuccess()) {
-            sender.sendMessage(plugin.colorize("&aGranted " + capitalize(dimension) + 
-                " permit to " + target.getName() + " for " + days + " days."));
-            target.sendMessage(plugin.colorize("&aYou have been granted a " + 
-                capitalize(dimension) + " permit for " + days + " days!"));
-        } else {
-            sender.sendMessage(plugin.colorize("&c" + result.getMessage()));
-        }
+        plugin.getDatabaseManager().getExecutor().sync(grantFuture, result -> {
+            if (result.isSuccess()) {
+                sender.sendMessage(plugin.colorize("&aGranted " + capitalize(dimension) + 
+                    " permit to " + target.getName() + " for " + days + " days."));
+                target.sendMessage(plugin.colorize("&aYou have been granted a " + 
+                    capitalize(dimension) + " permit for " + days + " days!"));
+            } else {
+                sender.sendMessage(plugin.colorize("&c" + result.getMessage()));
+            }
+        });
     }
 
     private void handleRevoke(CommandSender sender, String[] args) {
@@ -295,14 +305,18 @@ public class PermitCommand implements CommandExecutor, TabCompleter {
 
         String dimension = args[2].toLowerCase();
 
-        if (plugin.getPermitManager().revokePermit(target.getUniqueId(), dimension)) {
-            sender.sendMessage(plugin.colorize("&aRevoked " + capitalize(dimension) + 
-                " permit from " + target.getName()));
-            target.sendMessage(plugin.colorize("&cYour " + capitalize(dimension) + 
-                " permit has been revoked!"));
-        } else {
-            sender.sendMessage(plugin.colorize("&cPlayer does not have that permit."));
-        }
+        var revokeFuture = plugin.getPermitManager().revokePermitAsync(target.getUniqueId(), dimension);
+
+        plugin.getDatabaseManager().getExecutor().sync(revokeFuture, revoked -> {
+            if (revoked) {
+                sender.sendMessage(plugin.colorize("&aRevoked " + capitalize(dimension) + 
+                    " permit from " + target.getName()));
+                target.sendMessage(plugin.colorize("&cYour " + capitalize(dimension) + 
+                    " permit has been revoked!"));
+            } else {
+                sender.sendMessage(plugin.colorize("&cPlayer does not have that permit."));
+            }
+        });
     }
 
     private void showAvailableDimensions(CommandSender sender) {
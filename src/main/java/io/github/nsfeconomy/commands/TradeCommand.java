@@ -1,6 +1,7 @@
 package io.github.nsfeconomy.commands;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -8,8 +9,13 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 /**
@@ -209,9 +215,9 @@ public class TradeCommand implements CommandExecutor, TabCompleter {
             // Offer currency
             try {
                 String amountStr = args[1].replace(plugin.getCurrencyManager().getCurrencySymbol(), "");
-                double amount = Double.parseDouble(amountStr);
+                Money amount = Money.fromDouble(Double.parseDouble(amountStr));
                 
-                if (amount < 0) throw new NumberFormatException();
+                if (amount.isNegative()) throw new NumberFormatException();
                 
                 session.setCurrencyOffer(player.getUniqueId(), amount);
                 
@@ -293,25 +299,62 @@ public class TradeCommand implements CommandExecutor, TabCompleter {
         }
 
         // Calculate total monetary value for sales tax
-        double totalValue = session.getCurrencyOffer(session.getPlayer1()) + 
-                           session.getCurrencyOffer(session.getPlayer2());
+        Money totalValue = session.getCurrencyOffer(session.getPlayer1())
+            .plus(session.getCurrencyOffer(session.getPlayer2()));
         double salesTaxRate = plugin.getConfig().getDouble("tax.sales_tax.rate", 0.05);
-        double salesTax = totalValue * salesTaxRate;
+        Money salesTax = totalValue.times(salesTaxRate);
+        // Split between both parties; player 2 takes the odd cent
+        Money p1Tax = salesTax.divideFloor(2);
+        Money p2Tax = salesTax.minus(p1Tax);
 
         // TODO: Verify both players have the items/currency they offered
         // For now, do basic validation
         
-        double p1Currency = session.getCurrencyOffer(session.getPlayer1());
-        double p2Currency = session.getCurrencyOffer(session.getPlayer2());
+        Money p1Currency = session.getCurrencyOffer(session.getPlayer1());
+        Money p2Currency = session.getCurrencyOffer(session.getPlayer2());
         ItemStack p1Item = session.getItemOffer(session.getPlayer1());
         ItemStack p2Item = session.getItemOffer(session.getPlayer2());
 
-        // Execute swaps
-        boolean success = true;
-        
         // TODO: Implement actual F-note transfer using CurrencyManager
         // For now, log the trade
-        
+
+        // Log entries and tax obligations commit together before anything moves
+        boolean success;
+        try {
+            success = plugin.getDatabaseManager().inTransaction(unit -> {
+                plugin.getDatabaseManager().logTransaction(
+                    session.getPlayer1(), "trade",
+                    "Trade with " + player2.getName(),
+                    p2Currency.minus(p1Currency), null
+                );
+                plugin.getDatabaseManager().logTransaction(
+                    session.getPlayer2(), "trade",
+                    "Trade with " + player1.getName(),
+                    p1Currency.minus(p2Currency), null
+                );
+
+                // Create tax obligation for sales tax if significant
+                if (salesTax.isPositive()) {
+                    // Split tax between both parties
+                    Timestamp dueDate = Timestamp.from(Instant.now().plus(
+                        plugin.getConfig().getInt("tax.sales_tax.due_days", 7), ChronoUnit.DAYS));
+                    if (!plugin.getTaxManager().createTaxObligation(session.getPlayer1(), "sales", p1Tax, dueDate)
+                            || !plugin.getTaxManager().createTaxObligation(session.getPlayer2(), "sales", p2Tax, dueDate)) {
+                        unit.setRollbackOnly();
+                        return false;
+                    }
+                }
+                return true;
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to record trade", e);
+            success = false;
+        }
+        if (!success) {
+            endTrade(session.getPlayer1(), "The trade could not be recorded.");
+            return;
+        }
+
         // Item swaps
         if (p1Item != null && !p1Item.getType().isAir()) {
             player1.getInventory().removeItem(p1Item);
@@ -324,38 +367,19 @@ public class TradeCommand implements CommandExecutor, TabCompleter {
         }
 
         if (success) {
-            // Log transaction
-            plugin.getDatabaseManager().logTransaction(
-                session.getPlayer1(), "trade",
-                "Trade with " + player2.getName(),
-                p2Currency - p1Currency, null
-            );
-            plugin.getDatabaseManager().logTransaction(
-                session.getPlayer2(), "trade", 
-                "Trade with " + player1.getName(),
-                p1Currency - p2Currency, null
-            );
-
-            // Create tax obligation for sales tax if significant
-            if (salesTax >= 0.01) {
-                // Split tax between both parties
-                plugin.getTaxManager().createObligation(session.getPlayer1(), "sales", salesTax / 2);
-                plugin.getTaxManager().createObligation(session.getPlayer2(), "sales", salesTax / 2);
-            }
-
             player1.sendMessage(plugin.colorize("&a═══════════════════════════════"));
             player1.sendMessage(plugin.colorize("&a✓ Trade completed with " + player2.getName() + "!"));
-            if (salesTax > 0) {
+            if (salesTax.isPositive()) {
                 player1.sendMessage(plugin.colorize("&7Sales tax owed: &e" + 
-                    plugin.getCurrencyManager().formatCurrency(salesTax / 2)));
+                    plugin.getCurrencyManager().formatCurrency(p1Tax)));
             }
             player1.sendMessage(plugin.colorize("&a═══════════════════════════════"));
 
             player2.sendMessage(plugin.colorize("&a═══════════════════════════════"));
             player2.sendMessage(plugin.colorize("&a✓ Trade completed with " + player1.getName() + "!"));
-            if (salesTax > 0) {
+            if (salesTax.isPositive()) {
                 player2.sendMessage(plugin.colorize("&7Sales tax owed: &e" + 
-                    plugin.getCurrencyManager().formatCurrency(salesTax / 2)));
+                    plugin.getCurrencyManager().formatCurrency(p2Tax)));
             }
             player2.sendMessage(plugin.colorize("&a═══════════════════════════════"));
         }
@@ -392,17 +416,17 @@ public class TradeCommand implements CommandExecutor, TabCompleter {
         
         // Your offer
         player.sendMessage(plugin.colorize("&a▸ Your Offer:"));
-        double yourCurrency = session.getCurrencyOffer(player.getUniqueId());
+        Money yourCurrency = session.getCurrencyOffer(player.getUniqueId());
         ItemStack yourItem = session.getItemOffer(player.getUniqueId());
         
-        if (yourCurrency > 0) {
+        if (yourCurrency.isPositive()) {
             player.sendMessage(plugin.colorize("    &e" + plugin.getCurrencyManager().formatCurrency(yourCurrency)));
         }
         if (yourItem != null && !yourItem.getType().isAir()) {
             player.sendMessage(plugin.colorize("    &f" + yourItem.getAmount() + "x " + 
                 formatItemName(yourItem.getType().name())));
         }
-        if (yourCurrency <= 0 && (yourItem == null || yourItem.getType().isAir())) {
+        if (!yourCurrency.isPositive() && (yourItem == null || yourItem.getType().isAir())) {
             player.sendMessage(plugin.colorize("    &7(nothing)"));
         }
         
@@ -411,17 +435,17 @@ public class TradeCommand implements CommandExecutor, TabCompleter {
 
         // Their offer
         player.sendMessage(plugin.colorize("&c▸ " + partnerName + "'s Offer:"));
-        double theirCurrency = session.getCurrencyOffer(partnerId);
+        Money theirCurrency = session.getCurrencyOffer(partnerId);
         ItemStack theirItem = session.getItemOffer(partnerId);
         
-        if (theirCurrency > 0) {
+        if (theirCurrency.isPositive()) {
             player.sendMessage(plugin.colorize("    &e" + plugin.getCurrencyManager().formatCurrency(theirCurrency)));
         }
         if (theirItem != null && !theirItem.getType().isAir()) {
             player.sendMessage(plugin.colorize("    &f" + theirItem.getAmount() + "x " + 
                 formatItemName(theirItem.getType().name())));
         }
-        if (theirCurrency <= 0 && (theirItem == null || theirItem.getType().isAir())) {
+        if (!theirCurrency.isPositive() && (theirItem == null || theirItem.getType().isAir())) {
             player.sendMessage(plugin.colorize("    &7(nothing)"));
         }
         
@@ -495,8 +519,8 @@ public class TradeCommand implements CommandExecutor, TabCompleter {
     private static class TradeSession {
         private final UUID player1;
         private final UUID player2;
-        private double currency1 = 0;
-        private double currency2 = 0;
+        private Money currency1 = Money.ZERO;
+        private Money currency2 = Money.ZERO;
         private ItemStack item1 = null;
         private ItemStack item2 = null;
         private boolean confirmed1 = false;
@@ -514,12 +538,12 @@ public class TradeCommand implements CommandExecutor, TabCompleter {
             return playerId.equals(player1) ? player2 : player1;
         }
 
-        public void setCurrencyOffer(UUID playerId, double amount) {
+        public void setCurrencyOffer(UUID playerId, Money amount) {
             if (playerId.equals(player1)) currency1 = amount;
             else currency2 = amount;
         }
 
-        public double getCurrencyOffer(UUID playerId) {
+        public Money getCurrencyOffer(UUID playerId) {
             return playerId.equals(player1) ? currency1 : currency2;
         }
 
@@ -0,0 +1,837 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Transaction log kept as fixed-size binary records in memory-mapped segment
+ * files instead of SQL rows (database.journal.engine: binary).
+ *
+ * Each record is 64 bytes: sequence, timestamp, player UUID, amount in minor
+ * units, stars, a reference into the segment's details file, a type id from
+ * types.txt and a CRC32. An append is a few stores into mapped pages; a
+ * background thread forces them to disk every force_interval_ms. Once a
+ * segment holds segment_records records, or its details file is full, the
+ * next segment is started.
+ *
+ * For every player a segment keeps the blocks of index_block records they
+ * appear in, written next to it as a .idx file when it is sealed. A player
+ * lookup reads only those blocks, newest first. On open the last segment is
+ * scanned up to the first record whose CRC does not match.
+ *
+ * Rows written to the transactions table before the switch stay there and
+ * are still read by {@link TransactionRetention}. {@link #export} loads
+ * records into the journal_export table for ad-hoc SQL, recording its
+ * progress with each batch so an interrupted export can be resumed.
+ */
+public class BinaryJournal {
+
+    private static final int MAGIC = 0x4E534A31;
+    private static final int INDEX_MAGIC = 0x4E534931;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 64;
+    private static final int MAX_DETAILS_CHARS = 2048;
+    private static final short FLAG_AMOUNT = 1;
+    private static final int EXPORT_BATCH = 1000;
+    private static final String TYPES_FILE = "types.txt";
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    // Record layout
+    private static final int SEQUENCE = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int PLAYER_MSB = 16;
+    private static final int PLAYER_LSB = 24;
+    private static final int AMOUNT = 32;
+    private static final int STARS = 40;
+    private static final int DETAILS_OFFSET = 48;
+    private static final int DETAILS_LENGTH = 52;
+    private static final int TYPE = 56;
+    private static final int FLAGS = 58;
+    private static final int CRC = 60;
+
+    private static final String EXPORT_TABLE = "journal_export";
+    // Time range of the last export, and the last record it committed or "done"
+    private static final String EXPORT_RANGE_SETTING = "journal_export_range";
+    private static final String EXPORT_LAST_SETTING = "journal_export_last";
+    private static final String EXPORT_DONE = "done";
+    private static final String EXPORT_SCHEMA = """
+        CREATE TABLE IF NOT EXISTS journal_export (
+            id BIGINT PRIMARY KEY,
+            type VARCHAR(32) NOT NULL,
+            player VARCHAR(36) NOT NULL,
+            amount_f BIGINT NULL,
+            amount_stars BIGINT,
+            details TEXT,
+            timestamp BIGINT NOT NULL
+        )
+        """;
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final File folder;
+    private final int segmentRecords;
+    private final int segmentDetailsBytes;
+    private final int indexBlock;
+    private final long forceIntervalMs;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, Short> typeIds = new ConcurrentHashMap<>();
+    private final List<String> typeNames = new CopyOnWriteArrayList<>();
+    private final Object appendLock = new Object();
+    // Segment being appended to and the next sequence (appendLock)
+    private Segment active;
+    private long nextSequence;
+    private boolean closed;
+    private volatile boolean dirty;
+    private ScheduledExecutorService forcer;
+
+    // Metrics
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+
+    public BinaryJournal(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.folder = new File(plugin.getDataFolder(),
+            plugin.getConfig().getString("database.journal.binary.folder", "journal"));
+        this.segmentRecords = Math.max(1024, plugin.getConfig().getInt("database.journal.binary.segment_records", 262144));
+        this.segmentDetailsBytes = Math.max(1 << 20,
+            plugin.getConfig().getInt("database.journal.binary.segment_details_bytes", 16 << 20));
+        this.indexBlock = Math.max(16, plugin.getConfig().getInt("database.journal.binary.index_block", 256));
+        this.forceIntervalMs = Math.max(10, plugin.getConfig().getLong("database.journal.binary.force_interval_ms", 1000));
+    }
+
+    /**
+     * Map the existing segments, recovering the last one, or start the first
+     */
+    public void open() throws IOException {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Cannot create " + folder);
+        }
+        loadTypes();
+
+        List<Integer> numbers = new ArrayList<>();
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(".rec"));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                numbers.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - 4)));
+            }
+        }
+        Collections.sort(numbers);
+
+        for (int i = 0; i < numbers.size(); i++) {
+            Segment segment = new Segment(numbers.get(i));
+            if (i < numbers.size() - 1) {
+                segment.openSealed();
+            } else {
+                segment.openActive(i > 0 ? segments.get(i - 1) : null);
+            }
+            segments.add(segment);
+        }
+
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            active = startSegment(1);
+        } else {
+            active = segments.get(segments.size() - 1);
+            nextSequence = active.firstSequence + active.count;
+        }
+        plugin.getLogger().info("Binary transaction journal: " + segments.size() + " segment(s), "
+            + (nextSequence - 1) + " records");
+        String last = databaseManager.getStorageSetting(EXPORT_LAST_SETTING, EXPORT_DONE);
+        if (!last.equals(EXPORT_DONE)) {
+            plugin.getLogger().warning("The last journal export stopped after record " + last
+                + "; run the same /nsf db journal export again to finish it.");
+        }
+    }
+
+    /**
+     * Force appended records to disk in the background
+     */
+    public void start() {
+        forcer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-BinaryJournal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        forcer.scheduleWithFixedDelay(this::forceSafely, forceIntervalMs, forceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the forcer and force the last segment. Appends after this fail.
+     */
+    public void close() {
+        if (forcer != null) {
+            forcer.shutdown();
+            try {
+                forcer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (appendLock) {
+            closed = true;
+            if (active != null) {
+                active.force();
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Appending
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Append one transaction
+     *
+     * @return false if it could not be written and should go to SQL instead
+     */
+    public boolean append(String type, UUID player, Money amount, long amountStars, String details) {
+        try {
+            short typeId = typeId(type);
+            byte[] text = null;
+            if (details != null) {
+                String trimmed = details.length() > MAX_DETAILS_CHARS ? details.substring(0, MAX_DETAILS_CHARS) : details;
+                text = trimmed.getBytes(StandardCharsets.UTF_8);
+            }
+            synchronized (appendLock) {
+                if (closed) {
+                    return false;
+                }
+                if (!active.fits(text)) {
+                    roll();
+                }
+                active.write(nextSequence++, System.currentTimeMillis(), typeId, player, amount, amountStars, text);
+            }
+            appended.increment();
+            dirty = true;
+            return true;
+        } catch (IOException e) {
+            failed.increment();
+            plugin.getLogger().log(Level.SEVERE, "Failed to append to the binary journal", e);
+            return false;
+        }
+    }
+
+    private void roll() throws IOException {
+        active.seal();
+        active = startSegment(active.number + 1);
+    }
+
+    private Segment startSegment(int number) throws IOException {
+        Segment segment = new Segment(number);
+        segment.create(nextSequence);
+        segments.add(segment);
+        return segment;
+    }
+
+    private void forceSafely() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Segment segment;
+        synchronized (appendLock) {
+            segment = active;
+        }
+        try {
+            segment.force();
+            forces.increment();
+        } catch (RuntimeException e) {
+            dirty = true;
+            plugin.getLogger().log(Level.SEVERE, "Failed to force the binary journal", e);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Types
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void loadTypes() throws IOException {
+        File file = new File(folder, TYPES_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                typeIds.put(line, (short) typeNames.size());
+                typeNames.add(line);
+            }
+        }
+    }
+
+    /**
+     * Id of a transaction type, adding it to types.txt the first time
+     */
+    private short typeId(String type) throws IOException {
+        Short id = typeIds.get(type);
+        if (id != null) {
+            return id;
+        }
+        synchronized (typeNames) {
+            id = typeIds.get(type);
+            if (id != null) {
+                return id;
+            }
+            if (typeNames.size() >= Short.MAX_VALUE) {
+                throw new IOException("Too many transaction types in " + TYPES_FILE);
+            }
+            // On disk before any record refers to it
+            try (FileChannel channel = FileChannel.open(new File(folder, TYPES_FILE).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap((type + "\n").getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+            short next = (short) typeNames.size();
+            typeNames.add(type);
+            typeIds.put(type, next);
+            return next;
+        }
+    }
+
+    private String typeName(short id) {
+        return id >= 0 && id < typeNames.size() ? typeNames.get(id) : "unknown";
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Reading
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * A player's most recent records, newest first
+     *
+     * @param type Transaction type to keep, or null for all
+     */
+    public List<TransactionRetention.TransactionEntry> queryPlayer(UUID player, String type, int limit) {
+        List<TransactionRetention.TransactionEntry> entries = new ArrayList<>();
+        Short typeId = null;
+        if (type != null) {
+            typeId = typeIds.get(type);
+            if (typeId == null) {
+                return entries;
+            }
+        }
+        long msb = player.getMostSignificantBits();
+        long lsb = player.getLeastSignificantBits();
+        Cursor cursor = new Cursor();
+
+        List<Segment> snapshot = new ArrayList<>(segments);
+        for (int s = snapshot.size() - 1; s >= 0 && entries.size() < limit; s--) {
+            Segment segment = snapshot.get(s);
+            BitSet blocks = segment.blocksFor(player);
+            if (blocks == null) {
+                continue;
+            }
+            ByteBuffer records = segment.records;
+            int count = segment.count;
+            for (int block = blocks.previousSetBit(blocks.length() - 1); block >= 0 && entries.size() < limit;
+                 block = blocks.previousSetBit(block - 1)) {
+                int first = block * segment.block;
+                for (int i = Math.min(count, first + segment.block) - 1; i >= first && entries.size() < limit; i--) {
+                    int slot = HEADER_BYTES + i * RECORD_BYTES;
+                    if (records.getLong(slot + PLAYER_MSB) == msb && records.getLong(slot + PLAYER_LSB) == lsb
+                            && (typeId == null || records.getShort(slot + TYPE) == typeId)) {
+                        entries.add(cursor.at(segment, slot).toEntry());
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Visit every record with a timestamp in [from, to), oldest first. Whole
+     * segments outside the range are skipped.
+     *
+     * @return number of records visited
+     */
+    public long scan(long from, long to, RecordVisitor visitor) throws SQLException {
+        Cursor cursor = new Cursor();
+        long visited = 0;
+        for (Segment segment : new ArrayList<>(segments)) {
+            int count = segment.count;
+            if (count == 0 || segment.lastTimestamp < from || segment.firstTimestamp >= to) {
+                continue;
+            }
+            ByteBuffer records = segment.records;
+            for (int i = 0; i < count; i++) {
+                int slot = HEADER_BYTES + i * RECORD_BYTES;
+                long timestamp = records.getLong(slot + TIMESTAMP);
+                if (timestamp < from || timestamp >= to) {
+                    continue;
+                }
+                visited++;
+                if (!visitor.visit(cursor.at(segment, slot))) {
+                    return visited;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Replace the journal_export table with the records in [from, to).
+     * Timestamps are exported as epoch millis and players as text.
+     *
+     * Rows are committed in batches, each with the sequence of its last
+     * record. An export of the same range that was cut short carries on
+     * after that record instead of starting over.
+     *
+     * @return number of rows in the table afterwards
+     */
+    public long export(long from, long to) throws SQLException {
+        String insert = "INSERT INTO " + EXPORT_TABLE
+            + " (id, type, player, amount_f, amount_stars, details, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String range = from + ":" + to;
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            SchemaMigrator.execute(conn, EXPORT_SCHEMA);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                String last = databaseManager.getStorageSetting(conn, EXPORT_LAST_SETTING, EXPORT_DONE);
+                long after;
+                long resumed;
+                if (!last.equals(EXPORT_DONE)
+                        && range.equals(databaseManager.getStorageSetting(conn, EXPORT_RANGE_SETTING, null))) {
+                    after = Long.parseLong(last);
+                    resumed = countExported(conn);
+                    plugin.getLogger().info("Resuming the journal export after record " + after);
+                } else {
+                    SchemaMigrator.execute(conn, "DELETE FROM " + EXPORT_TABLE);
+                    databaseManager.setStorageSetting(conn, EXPORT_RANGE_SETTING, range);
+                    databaseManager.setStorageSetting(conn, EXPORT_LAST_SETTING, "0");
+                    conn.commit();
+                    after = 0;
+                    resumed = 0;
+                }
+
+                long[] batched = {0};
+                long[] lastSequence = {after};
+                scan(from, to, record -> {
+                    if (record.getSequence() <= after) {
+                        return true;
+                    }
+                    lastSequence[0] = record.getSequence();
+                    ps.setLong(1, record.getSequence());
+                    ps.setString(2, record.getType());
+                    ps.setString(3, record.getPlayer().toString());
+                    Money amount = record.getAmount();
+                    if (amount != null) {
+                        ps.setLong(4, amount.minor());
+                    } else {
+                        ps.setNull(4, Types.BIGINT);
+                    }
+                    ps.setLong(5, record.getAmountStars());
+                    ps.setString(6, record.getDetails());
+                    ps.setLong(7, record.getTimestamp());
+                    ps.addBatch();
+                    if (++batched[0] % EXPORT_BATCH == 0) {
+                        ps.executeBatch();
+                        databaseManager.setStorageSetting(conn, EXPORT_LAST_SETTING, String.valueOf(lastSequence[0]));
+                        conn.commit();
+                    }
+                    return true;
+                });
+                ps.executeBatch();
+                databaseManager.setStorageSetting(conn, EXPORT_LAST_SETTING, EXPORT_DONE);
+                conn.commit();
+                return resumed + batched[0];
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private long countExported(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + EXPORT_TABLE)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    public JournalStats getStats() {
+        long records = 0;
+        long bytes = 0;
+        for (Segment segment : segments) {
+            records += segment.count;
+            bytes += (long) HEADER_BYTES + (long) segment.count * RECORD_BYTES + segment.detailsEnd;
+        }
+        return new JournalStats(segments.size(), records, bytes, appended.sum(), failed.sum(), forces.sum());
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Segments
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * One .rec file of fixed records, its .txt details file and, once sealed,
+     * its .idx file
+     */
+    private final class Segment {
+        private final int number;
+        private final File recordsFile;
+        private final File detailsFile;
+        private final File indexFile;
+        private final Map<UUID, BitSet> blocks = new HashMap<>();
+        private MappedByteBuffer records;
+        private MappedByteBuffer details;
+        private int capacity;
+        private int block;
+        private long firstSequence;
+        // Written by the appender, read without the lock
+        private volatile int count;
+        private volatile int detailsEnd;
+        private volatile long firstTimestamp = Long.MAX_VALUE;
+        private volatile long lastTimestamp = Long.MIN_VALUE;
+
+        Segment(int number) {
+            this.number = number;
+            String base = SEGMENT_PREFIX + String.format("%06d", number);
+            this.recordsFile = new File(folder, base + ".rec");
+            this.detailsFile = new File(folder, base + ".txt");
+            this.indexFile = new File(folder, base + ".idx");
+        }
+
+        void create(long sequence) throws IOException {
+            firstSequence = sequence;
+            capacity = segmentRecords;
+            block = indexBlock;
+            records = map(recordsFile, HEADER_BYTES + (long) capacity * RECORD_BYTES, FileChannel.MapMode.READ_WRITE);
+            details = map(detailsFile, segmentDetailsBytes, FileChannel.MapMode.READ_WRITE);
+            records.putInt(0, MAGIC);
+            records.putLong(8, number);
+            records.putLong(16, firstSequence);
+            records.force();
+        }
+
+        /**
+         * Map the last segment for appending and find where its records end
+         */
+        void openActive(Segment previous) throws IOException {
+            records = map(recordsFile, Math.max(recordsFile.length(), HEADER_BYTES + (long) segmentRecords * RECORD_BYTES),
+                FileChannel.MapMode.READ_WRITE);
+            details = map(detailsFile, Math.max(detailsFile.length(), segmentDetailsBytes), FileChannel.MapMode.READ_WRITE);
+            if (records.getInt(0) == 0) {
+                // Created just before a crash, ahead of its header
+                records.putInt(0, MAGIC);
+                records.putLong(8, number);
+                records.putLong(16, previous != null ? previous.firstSequence + previous.count : 1);
+                records.force();
+            }
+            readHeader();
+            block = indexBlock;
+            int dropped = recover();
+            if (dropped > 0) {
+                plugin.getLogger().warning("Binary journal " + recordsFile.getName() + " ends in a torn record; "
+                    + "kept " + count + " records and discarded " + dropped + ".");
+            }
+        }
+
+        /**
+         * Map a sealed segment read-only, taking its index from the .idx file
+         */
+        void openSealed() throws IOException {
+            records = map(recordsFile, recordsFile.length(), FileChannel.MapMode.READ_ONLY);
+            details = map(detailsFile, detailsFile.length(), FileChannel.MapMode.READ_ONLY);
+            readHeader();
+            if (!readIndex()) {
+                block = indexBlock;
+                recover();
+                writeIndex();
+            }
+        }
+
+        private void readHeader() throws IOException {
+            if (records.capacity() < HEADER_BYTES || records.getInt(0) != MAGIC) {
+                throw new IOException(recordsFile.getName() + " is not a binary journal segment");
+            }
+            firstSequence = records.getLong(16);
+            capacity = (records.capacity() - HEADER_BYTES) / RECORD_BYTES;
+        }
+
+        /**
+         * Scan records up to the first bad CRC, rebuilding the player index.
+         * Anything written past it is cleared when the segment is writable.
+         *
+         * @return number of records dropped after the last valid one
+         */
+        private int recover() {
+            CRC32 crc = new CRC32();
+            int valid = 0;
+            int end = 0;
+            while (valid < capacity) {
+                int slot = HEADER_BYTES + valid * RECORD_BYTES;
+                if (records.getLong(slot + SEQUENCE) == 0) {
+                    break;
+                }
+                crc.reset();
+                crc.update(records.slice(slot, CRC));
+                if ((int) crc.getValue() != records.getInt(slot + CRC)) {
+                    break;
+                }
+                int length = records.getInt(slot + DETAILS_LENGTH);
+                if (length > 0) {
+                    end = Math.max(end, records.getInt(slot + DETAILS_OFFSET) + length);
+                }
+                indexRecord(valid, slot);
+                valid++;
+            }
+
+            // Pages may reach the disk out of order, so check every slot after it
+            int dropped = 0;
+            for (int i = valid; i < capacity; i++) {
+                int slot = HEADER_BYTES + i * RECORD_BYTES;
+                if (records.getLong(slot + SEQUENCE) != 0) {
+                    dropped++;
+                    if (!records.isReadOnly()) {
+                        records.putLong(slot + SEQUENCE, 0);
+                    }
+                }
+            }
+            if (dropped > 0 && !records.isReadOnly()) {
+                records.force();
+            }
+            count = valid;
+            detailsEnd = end;
+            return dropped;
+        }
+
+        private void indexRecord(int index, int slot) {
+            UUID player = new UUID(records.getLong(slot + PLAYER_MSB), records.getLong(slot + PLAYER_LSB));
+            synchronized (blocks) {
+                blocks.computeIfAbsent(player, key -> new BitSet()).set(index / block);
+            }
+            long timestamp = records.getLong(slot + TIMESTAMP);
+            if (timestamp < firstTimestamp) {
+                firstTimestamp = timestamp;
+            }
+            if (timestamp > lastTimestamp) {
+                lastTimestamp = timestamp;
+            }
+        }
+
+        boolean fits(byte[] text) {
+            return count < capacity && (text == null || detailsEnd + text.length <= details.capacity());
+        }
+
+        void write(long sequence, long timestamp, short typeId, UUID player, Money amount, long amountStars,
+                   byte[] text) {
+            int index = count;
+            int slot = HEADER_BYTES + index * RECORD_BYTES;
+            int offset = detailsEnd;
+            if (text != null) {
+                details.put(offset, text);
+                detailsEnd = offset + text.length;
+            }
+            records.putLong(slot + SEQUENCE, sequence);
+            records.putLong(slot + TIMESTAMP, timestamp);
+            records.putLong(slot + PLAYER_MSB, player.getMostSignificantBits());
+            records.putLong(slot + PLAYER_LSB, player.getLeastSignificantBits());
+            records.putLong(slot + AMOUNT, amount != null ? amount.minor() : 0L);
+            records.putLong(slot + STARS, amountStars);
+            records.putInt(slot + DETAILS_OFFSET, text != null ? offset : 0);
+            records.putInt(slot + DETAILS_LENGTH, text != null ? text.length : -1);
+            records.putShort(slot + TYPE, typeId);
+            records.putShort(slot + FLAGS, amount != null ? FLAG_AMOUNT : 0);
+            CRC32 crc = new CRC32();
+            crc.update(records.slice(slot, CRC));
+            records.putInt(slot + CRC, (int) crc.getValue());
+            indexRecord(index, slot);
+            // Readers see the record once the count covers it
+            count = index + 1;
+        }
+
+        BitSet blocksFor(UUID player) {
+            synchronized (blocks) {
+                BitSet bits = blocks.get(player);
+                return bits != null ? (BitSet) bits.clone() : null;
+            }
+        }
+
+        void force() {
+            records.force();
+            details.force();
+        }
+
+        /**
+         * Force the segment and write its index; no more appends follow
+         */
+        void seal() throws IOException {
+            force();
+            writeIndex();
+        }
+
+        private void writeIndex() throws IOException {
+            File temp = new File(folder, indexFile.getName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(count);
+                out.writeInt(detailsEnd);
+                out.writeInt(block);
+                out.writeLong(firstTimestamp);
+                out.writeLong(lastTimestamp);
+                synchronized (blocks) {
+                    out.writeInt(blocks.size());
+                    for (Map.Entry<UUID, BitSet> entry : blocks.entrySet()) {
+                        out.writeLong(entry.getKey().getMostSignificantBits());
+                        out.writeLong(entry.getKey().getLeastSignificantBits());
+                        long[] words = entry.getValue().toLongArray();
+                        out.writeInt(words.length);
+                        for (long word : words) {
+                            out.writeLong(word);
+                        }
+                    }
+                }
+            }
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * @return false if the .idx file is missing or unreadable
+         */
+        private boolean readIndex() {
+            if (!indexFile.exists()) {
+                return false;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                if (in.readInt() != INDEX_MAGIC) {
+                    return false;
+                }
+                count = in.readInt();
+                detailsEnd = in.readInt();
+                block = in.readInt();
+                firstTimestamp = in.readLong();
+                lastTimestamp = in.readLong();
+                int players = in.readInt();
+                for (int i = 0; i < players; i++) {
+                    UUID player = new UUID(in.readLong(), in.readLong());
+                    long[] words = new long[in.readInt()];
+                    for (int w = 0; w < words.length; w++) {
+                        words[w] = in.readLong();
+                    }
+                    blocks.put(player, BitSet.valueOf(words));
+                }
+                return count <= capacity;
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Rebuilding unreadable index " + indexFile.getName(), e);
+                blocks.clear();
+                return false;
+            }
+        }
+
+        private MappedByteBuffer map(File file, long size, FileChannel.MapMode mode) throws IOException {
+            Set<StandardOpenOption> options = mode == FileChannel.MapMode.READ_ONLY
+                ? EnumSet.of(StandardOpenOption.READ)
+                : EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // The mapping stays valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(file.toPath(), options)) {
+                return channel.map(mode, 0, size);
+            }
+        }
+    }
+
+    /**
+     * A position in a segment, read through getters without copying the record
+     */
+    public final class Cursor {
+        private Segment segment;
+        private int slot;
+
+        Cursor at(Segment segment, int slot) {
+            this.segment = segment;
+            this.slot = slot;
+            return this;
+        }
+
+        public long getSequence() { return segment.records.getLong(slot + SEQUENCE); }
+        public long getTimestamp() { return segment.records.getLong(slot + TIMESTAMP); }
+        public String getType() { return typeName(segment.records.getShort(slot + TYPE)); }
+        public long getAmountStars() { return segment.records.getLong(slot + STARS); }
+
+        public UUID getPlayer() {
+            return new UUID(segment.records.getLong(slot + PLAYER_MSB), segment.records.getLong(slot + PLAYER_LSB));
+        }
+
+        public Money getAmount() {
+            return (segment.records.getShort(slot + FLAGS) & FLAG_AMOUNT) != 0
+                ? Money.ofMinor(segment.records.getLong(slot + AMOUNT)) : null;
+        }
+
+        public String getDetails() {
+            int length = segment.records.getInt(slot + DETAILS_LENGTH);
+            if (length < 0) {
+                return null;
+            }
+            byte[] text = new byte[length];
+            segment.details.get(segment.records.getInt(slot + DETAILS_OFFSET), text);
+            return new String(text, StandardCharsets.UTF_8);
+        }
+
+        TransactionRetention.TransactionEntry toEntry() {
+            return new TransactionRetention.TransactionEntry(getSequence(), getTimestamp(), getType(), getPlayer(),
+                getAmount(), getAmountStars(), getDetails());
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * @return false to stop the scan
+         */
+        boolean visit(Cursor record) throws SQLException;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    public static class JournalStats {
+        private final int segments;
+        private final long records;
+        private final long bytes;
+        private final long appended;
+        private final long failed;
+        private final long forces;
+
+        public JournalStats(int segments, long records, long bytes, long appended, long failed, long forces) {
+            this.segments = segments;
+            this.records = records;
+            this.bytes = bytes;
+            this.appended = appended;
+            this.failed = failed;
+            this.forces = forces;
+        }
+
+        public int getSegments() { return segments; }
+        public long getRecords() { return records; }
+        public long getBytes() { return bytes; }
+        public long getAppended() { return appended; }
+        public long getFailed() { return failed; }
+        public long getForces() { return forces; }
+    }
+}
@@ -0,0 +1,320 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Change notifications between servers sharing one database.
+ *
+ * Every write that another server may have cached appends a row to
+ * change_outbox naming a topic and key. Each server polls the table by id
+ * past its high-water mark and hands other servers' changes to the local
+ * subscribers of that topic, which drop or reload their cached copy.
+ *
+ * MySQL assigns auto-increment ids before commit, so a lower id can become
+ * visible after a higher one. Ids skipped by a poll are rechecked until
+ * they show up or database.cluster.gap_timeout_ms passes (a rolled-back
+ * insert leaves a permanent gap).
+ *
+ * With database.cluster.enabled off nothing is written or polled.
+ */
+public class ChangeOutbox {
+
+    public static final String TOPIC_BALANCE = "balance";
+    public static final String TOPIC_NOTE = "note";
+    public static final String TOPIC_RESERVE = "reserve";
+    public static final String TOPIC_PERMIT = "permit";
+    public static final String TOPIC_BANK = "bank";
+    public static final String TOPIC_TAX = "tax";
+    public static final String TOPIC_BOUNTY = "bounty";
+
+    private static final int MAX_TRACKED_GAPS = 1000;
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final boolean enabled;
+    private final String serverId;
+    private final long pollIntervalMs;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final long retentionMs;
+
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+    // Ids below the high-water mark not yet seen, with the time they were first missed
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private ScheduledExecutorService poller;
+    private volatile long highWater;
+    private volatile int gapCount;
+    private long lastPrune;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder published = new LongAdder();
+
+    public ChangeOutbox(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.enabled = plugin.getConfig().getBoolean("database.cluster.enabled", false);
+        String configuredId = plugin.getConfig().getString("database.cluster.server_id", "");
+        this.serverId = configuredId == null || configuredId.isEmpty()
+            ? UUID.randomUUID().toString() : configuredId;
+        this.pollIntervalMs = Math.max(100, plugin.getConfig().getLong("database.cluster.poll_interval_ms", 1000));
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("database.cluster.batch_size", 500));
+        this.gapTimeoutMs = plugin.getConfig().getLong("database.cluster.gap_timeout_ms", 10000);
+        this.retentionMs = plugin.getConfig().getLong("database.cluster.retention_minutes", 60) * 60_000L;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start polling from the current end of the outbox; caches are empty at
+     * startup, so older changes do not matter
+     */
+    public void start() throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM change_outbox")) {
+            highWater = rs.next() ? rs.getLong(1) : 0;
+        }
+
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-ChangeOutbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        plugin.getLogger().info("Cluster change feed started as " + serverId + " from id " + highWater);
+    }
+
+    public void stop() {
+        if (poller != null) {
+            poller.shutdown();
+            try {
+                poller.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Publishing
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Record a change on the connection that made it, right after the write.
+     * Reads of it on this server also stay on the primary for a while.
+     */
+    public void publish(Connection conn, String topic, String key) {
+        databaseManager.pinToPrimary(topic, key);
+        if (!enabled) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO change_outbox (origin, topic, entity_key) VALUES (?, ?, ?)")) {
+            ps.setString(1, serverId);
+            ps.setString(2, topic);
+            ps.setString(3, key);
+            ps.executeUpdate();
+            published.increment();
+        } catch (SQLException e) {
+            // Other servers keep a stale copy until it expires or they restart
+            plugin.getLogger().log(Level.WARNING, "Failed to publish " + topic + " change for " + key, e);
+        }
+    }
+
+    /**
+     * Publish if the write touched any rows; returns whether it did
+     */
+    public boolean publishIfChanged(Connection conn, int updated, String topic, String key) {
+        if (updated > 0) {
+            publish(conn, topic, key);
+        }
+        return updated > 0;
+    }
+
+    /**
+     * Record a change using a connection of its own
+     */
+    public void publish(String topic, String key) {
+        databaseManager.pinToPrimary(topic, key);
+        if (!enabled) {
+            return;
+        }
+        try (Connection conn = databaseManager.getConnection()) {
+            publish(conn, topic, key);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to publish " + topic + " change for " + key, e);
+        }
+    }
+
+    /**
+     * Be told the key of every change to the topic made by another server.
+     * Handlers run on the poller thread.
+     */
+    public void subscribe(String topic, Consumer<String> handler) {
+        subscribers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Polling
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Change outbox poll failed", e);
+        }
+    }
+
+    private void poll() throws SQLException {
+        List<Change> changes = new ArrayList<>();
+        try (Connection conn = databaseManager.getConnection()) {
+            if (!gaps.isEmpty()) {
+                readGaps(conn, changes);
+            }
+            readNew(conn, changes);
+            gapCount = gaps.size();
+            pruneIfDue(conn);
+        }
+
+        // Dispatch after the connection is back, handlers may query
+        for (Change change : changes) {
+            if (serverId.equals(change.origin)) {
+                continue;
+            }
+            received.increment();
+            List<Consumer<String>> handlers = subscribers.get(change.topic);
+            if (handlers == null) {
+                continue;
+            }
+            for (Consumer<String> handler : handlers) {
+                try {
+                    handler.accept(change.key);
+                } catch (RuntimeException e) {
+                    plugin.getLogger().log(Level.WARNING, "Change handler failed for " + change.topic + " " + change.key, e);
+                }
+            }
+        }
+    }
+
+    private void readNew(Connection conn, List<Change> changes) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, origin, topic, entity_key FROM change_outbox WHERE id > ? ORDER BY id LIMIT ?")) {
+            ps.setLong(1, highWater);
+            ps.setInt(2, batchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                long now = System.currentTimeMillis();
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    for (long missing = highWater + 1; missing < id && gaps.size() < MAX_TRACKED_GAPS; missing++) {
+                        gaps.put(missing, now);
+                    }
+                    highWater = id;
+                    changes.add(readChange(rs));
+                }
+            }
+        }
+    }
+
+    private void readGaps(Connection conn, List<Change> changes) throws SQLException {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(firstMissed -> now - firstMissed > gapTimeoutMs);
+        if (gaps.isEmpty()) {
+            return;
+        }
+
+        StringJoiner ids = new StringJoiner(", ", "(", ")");
+        for (Long id : gaps.keySet()) {
+            ids.add(Long.toString(id));
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT id, origin, topic, entity_key FROM change_outbox WHERE id IN " + ids + " ORDER BY id")) {
+            while (rs.next()) {
+                gaps.remove(rs.getLong("id"));
+                changes.add(readChange(rs));
+            }
+        }
+    }
+
+    private Change readChange(ResultSet rs) throws SQLException {
+        return new Change(rs.getString("origin"), rs.getString("topic"), rs.getString("entity_key"));
+    }
+
+    /**
+     * Any server may prune; rows only need to outlive the slowest poller
+     */
+    private void pruneIfDue(Connection conn) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPrune < 60_000) {
+            return;
+        }
+        lastPrune = now;
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM change_outbox WHERE created_at < ?")) {
+            ps.setTimestamp(1, new Timestamp(now - retentionMs));
+            ps.executeUpdate();
+        }
+    }
+
+    public OutboxStats getStats() {
+        return new OutboxStats(serverId, highWater, gapCount, published.sum(), received.sum());
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static class Change {
+        private final String origin;
+        private final String topic;
+        private final String key;
+
+        Change(String origin, String topic, String key) {
+            this.origin = origin;
+            this.topic = topic;
+            this.key = key;
+        }
+    }
+
+    public static class OutboxStats {
+        private final String serverId;
+        private final long highWater;
+        private final int gaps;
+        private final long published;
+        private final long received;
+
+        public OutboxStats(String serverId, long highWater, int gaps, long published, long received) {
+            this.serverId = serverId;
+            this.highWater = highWater;
+            this.gaps = gaps;
+            this.published = published;
+            this.received = received;
+        }
+
+        public String getServerId() { return serverId; }
+        public long getHighWater() { return highWater; }
+        public int getGaps() { return gaps; }
+        public long getPublished() { return published; }
+        public long getReceived() { return received; }
+    }
+}
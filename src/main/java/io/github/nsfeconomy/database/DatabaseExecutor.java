@@ -0,0 +1,208 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Bounded thread pool for database work started from the server thread.
+ *
+ * Async methods on the managers hand their JDBC work to {@link #supply} and
+ * return the future; callers that need to touch the world or a player's
+ * inventory afterwards continue with {@link #sync(CompletableFuture, Consumer)}
+ * or {@code thenApplyAsync(..., executor.mainThread())}.
+ *
+ * The threads come from {@link WorkerPools}: virtual threads on Java 21+,
+ * platform threads on Java 17. Either way at most as many tasks run at once
+ * as the connection pool has connections.
+ *
+ * Every future handed out completes. A task the pool will not take, because
+ * its queue is full on the server thread or it has shut down, fails its
+ * future with a RejectedExecutionException, and so does a task still queued
+ * when shutdown gives up waiting. While the plugin disables, main-thread
+ * continuations run inline, since the scheduler no longer runs tasks.
+ */
+public class DatabaseExecutor {
+
+    private final NSFEconomy plugin;
+    private final WorkerPool pool;
+    private final Executor mainThread;
+    private volatile long lastSaturationWarning;
+
+    public DatabaseExecutor(NSFEconomy plugin, int connections) {
+        this.plugin = plugin;
+        int threads = plugin.getConfig().getInt("database.async.threads", 0);
+        int parallelism = Math.max(1, threads > 0 ? threads : connections);
+        int queueSize = Math.max(16, plugin.getConfig().getInt("database.async.queue_size", 1000));
+
+        this.pool = WorkerPools.create(plugin, "NSFEconomy-DB", parallelism, queueSize, this::saturated);
+        plugin.getLogger().info("Database executor: " + pool.getKind() + " threads, " + parallelism + " concurrent");
+
+        this.mainThread = runnable -> {
+            if (Bukkit.isPrimaryThread() || !plugin.isEnabled()) {
+                runnable.run();
+                return;
+            }
+            try {
+                Bukkit.getScheduler().runTask(plugin, runnable);
+            } catch (IllegalPluginAccessException e) {
+                // Disabled since the check above
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * Queue full, or the pool has shut down. Off the server thread the
+     * submitter runs the task itself, which slows it down to the pool's pace;
+     * the server thread never runs JDBC work, so there the task fails.
+     */
+    private void saturated(Runnable runnable) {
+        if (!(runnable instanceof Task<?> task)) {
+            runnable.run();
+            return;
+        }
+        if (pool.isShutdown()) {
+            task.reject("Database executor has shut down");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastSaturationWarning > 60_000L) {
+            lastSaturationWarning = now;
+            plugin.getLogger().warning("Database executor queue is full (" + pool.getQueuedCount()
+                + " tasks); rejecting work from the server thread.");
+        }
+        if (Bukkit.isPrimaryThread()) {
+            task.reject("Database executor queue is full");
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Run a database call on the pool
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        Task<T> queued = new Task<>(task);
+        try {
+            pool.execute(queued);
+        } catch (RejectedExecutionException e) {
+            queued.future.completeExceptionally(e);
+        }
+        return queued.future;
+    }
+
+    /**
+     * Run a database call with no result on the pool
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executor that runs on the server thread, for use with {@code thenApplyAsync}
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Continue on the server thread once the future completes. Failures are
+     * logged rather than handed to the action.
+     */
+    public <T> void sync(CompletableFuture<T> future, Consumer<T> action) {
+        future.whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "Async database task failed", unwrap(error));
+                return;
+            }
+            action.accept(result);
+        }, mainThread);
+    }
+
+    /**
+     * Stop accepting work and wait for queued tasks; whatever is still
+     * queued after that fails rather than vanishing
+     */
+    public void shutdown() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Database executor did not finish in time; "
+                    + pool.shutdownNow() + " tasks abandoned.");
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * "platform" or "virtual"
+     */
+    public String getKind() {
+        return pool.getKind();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return pool.getQueuedCount();
+    }
+
+    public long getCompletedCount() {
+        return pool.getCompletedCount();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * A queued call and the future it completes, so the future can be
+     * failed if the call never runs
+     */
+    private static final class Task<T> implements Runnable {
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void reject(String reason) {
+            future.completeExceptionally(new RejectedExecutionException(reason));
+        }
+    }
+}
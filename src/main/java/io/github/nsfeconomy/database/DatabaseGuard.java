@@ -0,0 +1,278 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import org.bukkit.Bukkit;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker and statement timeouts around the connection pools.
+ *
+ * Connection timeouts, statement timeouts and lost connections count as
+ * failures; only a statement that completes counts as a success. After
+ * database.guard.failure_threshold failures in a row the circuit
+ * opens and every checkout fails at once instead of waiting on the pool,
+ * so callers fall back to cached values or keep their writes queued. After
+ * open_ms one caller is let through as a probe; its success closes the
+ * circuit, its failure opens it again.
+ *
+ * Statements get a query timeout when created: main_thread_timeout_seconds
+ * on the server thread, query_timeout_seconds elsewhere. The server thread
+ * limits apply once startup has finished.
+ */
+public class DatabaseGuard {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final NSFEconomy plugin;
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openMs;
+    private final int queryTimeoutSeconds;
+    private final int mainThreadTimeoutSeconds;
+    private final long mainThreadCheckoutMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+    private final AtomicLong openedAt = new AtomicLong();
+    private volatile String lastFailure;
+    private volatile boolean armed;
+
+    public DatabaseGuard(NSFEconomy plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("database.guard.enabled", true);
+        this.failureThreshold = Math.max(1, plugin.getConfig().getInt("database.guard.failure_threshold", 5));
+        this.openMs = Math.max(500, plugin.getConfig().getLong("database.guard.open_ms", 10000));
+        this.queryTimeoutSeconds = Math.max(0, plugin.getConfig().getInt("database.guard.query_timeout_seconds", 10));
+        this.mainThreadTimeoutSeconds = Math.max(0, plugin.getConfig().getInt("database.guard.main_thread_timeout_seconds", 1));
+        this.mainThreadCheckoutMs = Math.max(250, plugin.getConfig().getLong("database.guard.main_thread_checkout_ms", 1000));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Longest the server thread may wait for a pooled connection
+     */
+    public long getMainThreadCheckoutMs() {
+        return mainThreadCheckoutMs;
+    }
+
+    /**
+     * Start applying the server thread limits
+     */
+    public void arm() {
+        armed = true;
+    }
+
+    /**
+     * Whether the caller is the server thread after startup
+     */
+    public boolean isServerThread() {
+        return armed && Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Circuit
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Throw at once while the circuit is open. Past open_ms the first caller
+     * becomes the half-open probe.
+     */
+    public void beforeCheckout() throws CircuitOpenException {
+        if (!enabled) {
+            return;
+        }
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return;
+        }
+        // One probe per open_ms; a probe that never reports back does not wedge the circuit
+        long now = System.currentTimeMillis();
+        long opened = openedAt.get();
+        if (now - opened >= openMs && openedAt.compareAndSet(opened, now)) {
+            state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            return;
+        }
+        rejected.increment();
+        throw new CircuitOpenException(lastFailure);
+    }
+
+    public void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() != State.CLOSED && state.getAndSet(State.CLOSED) != State.CLOSED) {
+            plugin.getLogger().info("Database circuit closed; the database is reachable again.");
+        }
+    }
+
+    public void recordFailure(SQLException e) {
+        if (!enabled || e instanceof CircuitOpenException) {
+            return;
+        }
+        lastFailure = e.getMessage();
+        if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+            openedAt.set(System.currentTimeMillis());
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            openedAt.set(System.currentTimeMillis());
+            trips.increment();
+            plugin.getLogger().severe("Database circuit opened after " + failureThreshold
+                + " failures in a row (" + lastFailure + "); failing fast for " + openMs + "ms.");
+        }
+    }
+
+    /**
+     * Whether an error means the database is unreachable or too slow, as
+     * opposed to a bad statement
+     */
+    static boolean isOutage(SQLException e) {
+        String sqlState = e.getSQLState();
+        return e instanceof SQLTimeoutException
+            || e instanceof SQLTransientConnectionException
+            || e instanceof SQLNonTransientConnectionException
+            || (sqlState != null && sqlState.startsWith("08"));
+    }
+
+    /**
+     * Force the circuit open or closed from a command
+     */
+    public void force(State target) {
+        state.set(target);
+        consecutiveFailures.set(0);
+        if (target == State.OPEN) {
+            openedAt.set(System.currentTimeMillis());
+            lastFailure = "opened by an administrator";
+        }
+    }
+
+    public GuardStats getStats() {
+        return new GuardStats(state.get(), consecutiveFailures.get(), trips.sum(), rejected.sum(),
+            openedAt.get(), lastFailure);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Statement Timeouts
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Report outages from statements created on the connection and, when
+     * timed, give them the query timeout for the calling thread
+     */
+    public Connection wrap(Connection conn, boolean timed) {
+        int timeout = !timed ? 0 : isServerThread() ? mainThreadTimeoutSeconds : queryTimeoutSeconds;
+        return (Connection) Proxy.newProxyInstance(DatabaseGuard.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, new ConnectionHandler(conn, timeout));
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final int timeoutSeconds;
+
+        ConnectionHandler(Connection target, int timeoutSeconds) {
+            this.target = target;
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = call(target, method, args);
+            if (result instanceof Statement statement) {
+                if (timeoutSeconds > 0) {
+                    statement.setQueryTimeout(timeoutSeconds);
+                }
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                    : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(DatabaseGuard.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+
+        StatementHandler(Statement target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return call(target, method, args);
+            }
+            try {
+                Object result = call(target, method, args);
+                recordSuccess();
+                return result;
+            } catch (SQLException e) {
+                if (isOutage(e)) {
+                    recordFailure(e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Thrown instead of waiting on the pool while the circuit is open
+     */
+    public static class CircuitOpenException extends SQLTransientConnectionException {
+        public CircuitOpenException(String lastFailure) {
+            super("Database circuit is open" + (lastFailure != null ? " (last failure: " + lastFailure + ")" : ""), "08000");
+        }
+    }
+
+    public static class GuardStats {
+        private final State state;
+        private final int consecutiveFailures;
+        private final long trips;
+        private final long rejected;
+        private final long openedAt;
+        private final String lastFailure;
+
+        public GuardStats(State state, int consecutiveFailures, long trips, long rejected,
+                          long openedAt, String lastFailure) {
+            this.state = state;
+            this.consecutiveFailures = consecutiveFailures;
+            this.trips = trips;
+            this.rejected = rejected;
+            this.openedAt = openedAt;
+            this.lastFailure = lastFailure;
+        }
+
+        public State getState() { return state; }
+        public int getConsecutiveFailures() { return consecutiveFailures; }
+        public long getTrips() { return trips; }
+        public long getRejected() { return rejected; }
+        public long getOpenedAt() { return openedAt; }
+        public String getLastFailure() { return lastFailure; }
+    }
+}
@@ -2,11 +2,21 @@ package io.github.nsfeconomy.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.pool.HikariPool;
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
 
 import java.io.File;
+import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 /**
@@ -15,8 +25,44 @@ import java.util.logging.Level;
  */
 public class DatabaseManager {
 
+    public static final String POOL_PRIMARY = "primary";
+    public static final String POOL_READER = "reader";
+    public static final String POOL_REPLICA = "replica";
+
+    // Notes kept to answer validation while the database is unavailable
+    private static final int NOTE_CACHE_LIMIT = 10000;
+
     private final NSFEconomy plugin;
     private HikariDataSource dataSource;
+    private HikariDataSource readDataSource;
+    private TransactionJournal transactionJournal;
+    private BinaryJournal binaryJournal;
+    private TransactionRetention transactionRetention;
+    private DatabaseExecutor executor;
+    private ReserveLedger reserveLedger;
+    private StreamingQuery streamingQuery;
+    private QueryMetrics queryMetrics;
+    private ChangeOutbox changeOutbox;
+    private PostingLedger postingLedger;
+    private UuidStorageMigrator uuidStorage;
+    private ReplicaRouter replicaRouter;
+    private PlayerPresence presence;
+    private DatabaseGuard guard;
+    private WriteSpool writeSpool;
+    private MemoryStore memoryStore;
+    private SqliteMaintenance sqliteMaintenance;
+    private PoolTuner poolTuner;
+    private QueryPlanAudit queryPlanAudit;
+    private ShardSet shardSet;
+    private LogStore logStore;
+    private UuidCodec uuidCodec = new UuidCodec(false);
+    private final Map<UUID, NoteInfo> noteCache = Collections.synchronizedMap(
+        new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, NoteInfo> eldest) {
+                return size() > NOTE_CACHE_LIMIT;
+            }
+        });
     private boolean isMySQL;
 
     public DatabaseManager(NSFEconomy plugin) {
@@ -24,20 +70,123 @@ public class DatabaseManager {
     }
 
     /**
-     * Initialize the database connection and create tables
+     * Initialize the database connection and migrate the schema
      */
     public boolean initialize() {
         String dbType = plugin.getConfig().getString("database.type", "sqlite").toLowerCase();
         isMySQL = dbType.equals("mysql");
 
+        if (plugin.getConfig().getBoolean("database.metrics.enabled", true)) {
+            queryMetrics = new QueryMetrics(plugin);
+        }
+        guard = new DatabaseGuard(plugin);
+
         try {
             if (isMySQL) {
                 initializeMySQL();
+            } else if (dbType.equals("memory")) {
+                initializeMemory();
             } else {
                 initializeSQLite();
             }
             
-            createTables();
+            streamingQuery = new StreamingQuery(plugin, this);
+            new SchemaMigrator(plugin, this).migrate();
+
+            uuidStorage = new UuidStorageMigrator(plugin, this);
+            uuidCodec = new UuidCodec(uuidStorage.prepare());
+            uuidStorage.startBackfill();
+
+            if (memoryStore == null && !isMySQL) {
+                logStore = new LogStore(plugin, this);
+                if (!logStore.open()) {
+                    logStore = null;
+                }
+            } else if (plugin.getConfig().getBoolean("database.sqlite.log_store.enabled", false)) {
+                plugin.getLogger().warning("database.sqlite.log_store is only used with SQLite database files.");
+            }
+
+            if (memoryStore == null && !isMySQL) {
+                shardSet = new ShardSet(plugin, this);
+                if (!shardSet.open()) {
+                    shardSet = null;
+                }
+            } else if (plugin.getConfig().getInt("database.sqlite.shards.count", 0) > 0) {
+                plugin.getLogger().warning("database.sqlite.shards is only used with SQLite database files.");
+            }
+
+            writeSpool = new WriteSpool(plugin, this);
+            writeSpool.open();
+
+            if (plugin.getConfig().getString("database.journal.engine", "sql").equalsIgnoreCase("binary")) {
+                binaryJournal = new BinaryJournal(plugin, this);
+                binaryJournal.open();
+                binaryJournal.start();
+            } else if (plugin.getConfig().getBoolean("database.journal.enabled", true)) {
+                transactionJournal = new TransactionJournal(plugin, this);
+            }
+
+            presence = new PlayerPresence(plugin, this);
+            presence.start();
+
+            changeOutbox = new ChangeOutbox(plugin, this);
+            // A note spent on another server must not validate here from the fallback cache
+            changeOutbox.subscribe(ChangeOutbox.TOPIC_NOTE, key -> noteCache.remove(UUID.fromString(key)));
+            changeOutbox.start();
+
+            postingLedger = new PostingLedger(plugin, this);
+            postingLedger.start();
+            writeSpool.start();
+
+            if (plugin.getConfig().getBoolean("database.reserve.in_memory", true)) {
+                if (changeOutbox.isEnabled()) {
+                    // Each server would hold its own copy of the reserve
+                    plugin.getLogger().warning("database.reserve.in_memory is ignored while database.cluster is enabled.");
+                } else {
+                    reserveLedger = new ReserveLedger(plugin, this);
+                    reserveLedger.open();
+                }
+            }
+
+            if (memoryStore == null && plugin.getConfig().getBoolean("database.pool_tuner.enabled", true)) {
+                poolTuner = new PoolTuner(plugin);
+                if (isMySQL) {
+                    poolTuner.register(POOL_PRIMARY, dataSource);
+                } else if (readDataSource != null) {
+                    poolTuner.register(POOL_READER, readDataSource);
+                }
+                if (poolTuner.hasTargets()) {
+                    poolTuner.start();
+                } else {
+                    poolTuner = null;
+                }
+            }
+
+            executor = new DatabaseExecutor(plugin, getMaxConnections());
+
+            if (plugin.getConfig().getBoolean("database.retention.enabled", true)) {
+                transactionRetention = new TransactionRetention(plugin, this);
+                transactionRetention.start();
+            }
+
+            if (logStore != null) {
+                logStore.start();
+            }
+
+            if (memoryStore != null) {
+                memoryStore.start();
+            } else if (!isMySQL && plugin.getConfig().getBoolean("database.maintenance.enabled", true)) {
+                sqliteMaintenance = new SqliteMaintenance(plugin, this);
+                sqliteMaintenance.start();
+            }
+
+            if (queryMetrics != null && plugin.getConfig().getBoolean("database.explain.enabled", false)) {
+                queryPlanAudit = new QueryPlanAudit(plugin, this);
+                queryPlanAudit.start();
+            }
+
+            // Startup loads and migrations may run long on the server thread
+            guard.arm();
             plugin.getLogger().info("Database initialized successfully (" + dbType.toUpperCase() + ")");
             return true;
         } catch (Exception e) {
@@ -57,6 +206,12 @@ public class DatabaseManager {
             plugin.getDataFolder().mkdirs();
         }
 
+        String mode = plugin.getConfig().getString("database.sqlite.mode", "wal").toLowerCase();
+        if (mode.equals("wal")) {
+            initializeSQLiteWal(dbFile);
+            return;
+        }
+
         HikariConfig config = new HikariConfig();
         config.setDriverClassName("org.sqlite.JDBC");
         config.setJdbcUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
@@ -67,188 +222,632 @@ public class DatabaseManager {
         dataSource = new HikariDataSource(config);
     }
 
+    /**
+     * Initialize SQLite in WAL mode: one serialized writer connection plus a
+     * pool of read-only connections. WAL lets readers run alongside the writer,
+     * so SELECTs no longer queue behind transaction log and reserve updates.
+     */
+    private void initializeSQLiteWal(File dbFile) {
+        String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        int busyTimeout = plugin.getConfig().getInt("database.sqlite.wal.busy_timeout", 5000);
+        int cacheSizeKb = plugin.getConfig().getInt("database.sqlite.wal.cache_size_kb", 16384);
+        long mmapSize = plugin.getConfig().getLong("database.sqlite.wal.mmap_size", 268435456L);
+
+        // Writer: a single connection. Hikari hands it to waiting threads in
+        // arrival order, which makes the pool itself the write queue.
+        HikariConfig writer = new HikariConfig();
+        writer.setDriverClassName("org.sqlite.JDBC");
+        writer.setJdbcUrl(url);
+        writer.setMaximumPoolSize(1);
+        writer.setConnectionTestQuery("SELECT 1");
+        writer.setPoolName("NSFEconomy-SQLite-Writer");
+        writer.addDataSourceProperty("journal_mode", "WAL");
+        writer.addDataSourceProperty("synchronous",
+            plugin.getConfig().getString("database.sqlite.wal.synchronous", "FULL"));
+        writer.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        writer.addDataSourceProperty("cache_size", String.valueOf(-cacheSizeKb));
+        writer.addDataSourceProperty("temp_store", "MEMORY");
+        writer.addDataSourceProperty("foreign_keys", "true");
+        dataSource = new HikariDataSource(writer);
+
+        // Readers: opened after the writer so the database is already in WAL mode
+        int readers = Math.max(1, plugin.getConfig().getInt("database.sqlite.wal.reader_pool_size", 4));
+        HikariConfig reader = new HikariConfig();
+        reader.setDriverClassName("org.sqlite.JDBC");
+        reader.setJdbcUrl(url);
+        reader.setMaximumPoolSize(readers);
+        reader.setMinimumIdle(Math.min(2, readers));
+        reader.setConnectionInitSql("PRAGMA query_only = ON");
+        reader.setConnectionTestQuery("SELECT 1");
+        reader.setPoolName("NSFEconomy-SQLite-Reader");
+        reader.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        reader.addDataSourceProperty("cache_size", String.valueOf(-cacheSizeKb));
+        reader.addDataSourceProperty("mmap_size", String.valueOf(mmapSize));
+        reader.addDataSourceProperty("temp_store", "MEMORY");
+        readDataSource = new HikariDataSource(reader);
+
+        plugin.getLogger().info("SQLite WAL mode enabled (1 writer, " + readers + " readers)");
+    }
+
+    /**
+     * Initialize the in-memory database from its snapshot and log. It speaks
+     * the SQLite dialect, so everything else treats it as SQLite.
+     */
+    private void initializeMemory() throws SQLException, IOException {
+        memoryStore = new MemoryStore(plugin);
+        dataSource = memoryStore.open();
+        readDataSource = memoryStore.getReaders();
+    }
+
     /**
      * Initialize MySQL database
      */
     private void initializeMySQL() {
         String host = plugin.getConfig().getString("database.mysql.host", "localhost");
         int port = plugin.getConfig().getInt("database.mysql.port", 3306);
+
+        HikariConfig config = mysqlConfig(host + ":" + port);
+        
+        // Pool settings
+        config.setMaximumPoolSize(plugin.getConfig().getInt("database.mysql.pool.max_size", 10));
+        config.setMinimumIdle(plugin.getConfig().getInt("database.mysql.pool.min_idle", 2));
+        config.setConnectionTimeout(plugin.getConfig().getLong("database.mysql.pool.connection_timeout", 30000));
+        config.setPoolName("NSFEconomy-MySQL");
+
+        dataSource = new HikariDataSource(config);
+        initializeReplicas();
+    }
+
+    /**
+     * Read-only pools for database.mysql.replicas.hosts, if any. Replicas use
+     * the primary's database name and credentials.
+     */
+    private void initializeReplicas() {
+        List<String> hosts = plugin.getConfig().getStringList("database.mysql.replicas.hosts");
+        if (hosts.isEmpty()) {
+            return;
+        }
+
+        int poolSize = Math.max(1, plugin.getConfig().getInt("database.mysql.replicas.pool_size", 4));
+        List<ReplicaRouter.Replica> replicas = new ArrayList<>();
+        for (String address : hosts) {
+            String hostPort = address.contains(":") ? address : address + ":3306";
+            HikariConfig config = mysqlConfig(hostPort);
+            config.setMaximumPoolSize(poolSize);
+            config.setMinimumIdle(1);
+            // A dead replica should fail fast and fall back to the primary
+            config.setConnectionTimeout(plugin.getConfig().getLong("database.mysql.replicas.connection_timeout", 2000));
+            config.setInitializationFailTimeout(-1);
+            config.setReadOnly(true);
+            config.setPoolName("NSFEconomy-MySQL-Replica-" + (replicas.size() + 1));
+            replicas.add(new ReplicaRouter.Replica(hostPort, new HikariDataSource(config)));
+        }
+
+        replicaRouter = new ReplicaRouter(plugin, replicas);
+        replicaRouter.start();
+        plugin.getLogger().info("MySQL read replicas: " + String.join(", ", hosts));
+    }
+
+    /**
+     * Connection settings shared by the primary and replica pools
+     */
+    private HikariConfig mysqlConfig(String hostPort) {
         String database = plugin.getConfig().getString("database.mysql.database", "nsf_economy");
         String username = plugin.getConfig().getString("database.mysql.username", "minecraft");
         String password = plugin.getConfig().getString("database.mysql.password", "changeme");
 
         HikariConfig config = new HikariConfig();
         config.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + database + 
-                         "?useSSL=false&allowPublicKeyRetrieval=true&autoReconnect=true");
+        config.setJdbcUrl("jdbc:mysql://" + hostPort + "/" + database + 
+                         "?useSSL=false&allowPublicKeyRetrieval=true&autoReconnect=true" +
+                         "&rewriteBatchedStatements=true" + StreamingQuery.mysqlUrlParameters(plugin));
         config.setUsername(username);
         config.setPassword(password);
-        
-        // Pool settings
-        config.setMaximumPoolSize(plugin.getConfig().getInt("database.mysql.pool.max_size", 10));
-        config.setMinimumIdle(plugin.getConfig().getInt("database.mysql.pool.min_idle", 2));
-        config.setConnectionTimeout(plugin.getConfig().getLong("database.mysql.pool.connection_timeout", 30000));
         config.setIdleTimeout(plugin.getConfig().getLong("database.mysql.pool.idle_timeout", 600000));
         config.setMaxLifetime(plugin.getConfig().getLong("database.mysql.pool.max_lifetime", 1800000));
-        config.setPoolName("NSFEconomy-MySQL");
+        return config;
+    }
 
-        dataSource = new HikariDataSource(config);
+    /**
+     * Get a database connection from the pool. Use this for any statement that writes.
+     * Inside a {@link UnitOfWork} this is a view of the unit's connection.
+     */
+    public Connection getConnection() throws SQLException {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) {
+            return unit.view();
+        }
+        return checkout(dataSource, POOL_PRIMARY);
     }
 
     /**
-     * Create all required database tables
+     * Get a connection for read-only queries. In SQLite WAL mode this comes from
+     * the reader pool; otherwise it is the same pool as {@link #getConnection()}.
+     * Inside a {@link UnitOfWork} reads see the unit's own writes.
      */
-    private void createTables() throws SQLException {
-        try (Connection conn = getConnection()) {
-            // Bank locations table
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS bank_locations (
-                    id INTEGER PRIMARY KEY %s,
-                    name VARCHAR(64) NOT NULL UNIQUE,
-                    type VARCHAR(16) NOT NULL,
-                    world VARCHAR(64) NOT NULL,
-                    x INTEGER NOT NULL,
-                    y INTEGER NOT NULL,
-                    z INTEGER NOT NULL,
-                    radius INTEGER NOT NULL DEFAULT 10,
-                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """.formatted(isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
-
-            // Currency ledger table
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS currency_ledger (
-                    serial VARCHAR(36) PRIMARY KEY,
-                    denomination INTEGER NOT NULL,
-                    issued_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    issued_to VARCHAR(36),
-                    status VARCHAR(20) NOT NULL DEFAULT 'circulating',
-                    status_changed_at TIMESTAMP,
-                    status_changed_by VARCHAR(36)
-                )
-                """);
-
-            // Reserve table (singleton)
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS reserve (
-                    id INTEGER PRIMARY KEY,
-                    nether_stars BIGINT NOT NULL DEFAULT 0,
-                    last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """);
-            
-            // Initialize reserve if empty
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "INSERT OR IGNORE INTO reserve (id, nether_stars) VALUES (1, 0)")) {
-                ps.executeUpdate();
-            } catch (SQLException e) {
-                // MySQL syntax
-                try (PreparedStatement ps = conn.prepareStatement(
-                        "INSERT IGNORE INTO reserve (id, nether_stars) VALUES (1, 0)")) {
-                    ps.executeUpdate();
-                }
+    public Connection getReadConnection() throws SQLException {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) {
+            return unit.view();
+        }
+        return readDataSource != null ? checkout(readDataSource, POOL_READER) : checkout(dataSource, POOL_PRIMARY);
+    }
+
+    /**
+     * Get a connection for a read that may lag behind the primary. With MySQL
+     * replicas configured this comes from a healthy replica, unless this server
+     * wrote to the topic (and key) within database.mysql.replicas.pin_after_write_ms;
+     * otherwise it is the same as {@link #getReadConnection()}.
+     *
+     * @param topic {@link ChangeOutbox} topic the read depends on, or null if it
+     *              need not see this server's recent writes
+     * @param key   Entity key, or null for reads across the topic
+     */
+    public Connection getReplicaConnection(String topic, String key) throws SQLException {
+        if (replicaRouter == null || UnitOfWork.isActive() || replicaRouter.isPinned(topic, key)) {
+            return getReadConnection();
+        }
+        ReplicaRouter.Replica replica = replicaRouter.choose();
+        if (replica == null) {
+            return getReadConnection();
+        }
+        try {
+            return checkout(replica.getPool(), POOL_REPLICA + " " + replica.getName());
+        } catch (SQLException e) {
+            replicaRouter.markFailed(replica, e);
+            return getReadConnection();
+        }
+    }
+
+    /**
+     * Get a connection for writing a player's player_data row. With shards
+     * this is the writer of the player's shard, which is never part of a
+     * {@link UnitOfWork}; otherwise it is {@link #getConnection()}.
+     */
+    public Connection getPlayerConnection(UUID player) throws SQLException {
+        if (shardSet == null) {
+            return getConnection();
+        }
+        return getFileConnection(shardSet.shardFor(player));
+    }
+
+    /**
+     * Get a connection for reading a player's player_data row
+     */
+    public Connection getPlayerReadConnection(UUID player) throws SQLException {
+        if (shardSet == null) {
+            return getReadConnection();
+        }
+        return getFileReadConnection(shardSet.shardFor(player));
+    }
+
+    /**
+     * Get a connection for appending to the history tables outside a
+     * player's shard: the {@link LogStore} writer, or {@link #getConnection()}
+     * without one
+     */
+    public Connection getLogConnection() throws SQLException {
+        if (logStore == null) {
+            return getConnection();
+        }
+        return getFileConnection(logStore.getFile());
+    }
+
+    /**
+     * Get a connection for writing a player's transactions: their shard,
+     * else the log store, else the core database
+     */
+    public Connection getLogConnection(UUID player) throws SQLException {
+        if (shardSet != null) {
+            return getFileConnection(shardSet.shardFor(player));
+        }
+        return getLogConnection();
+    }
+
+    /**
+     * Get a connection for reading a player's transactions
+     */
+    public Connection getLogReadConnection(UUID player) throws SQLException {
+        if (shardSet != null) {
+            return getFileReadConnection(shardSet.shardFor(player));
+        }
+        if (logStore != null) {
+            return getFileReadConnection(logStore.getFile());
+        }
+        return getReadConnection();
+    }
+
+    /**
+     * Get the writer of a shard or the log store
+     */
+    public Connection getFileConnection(SqliteFile file) throws SQLException {
+        return checkout(file.getWriter(), file.getName());
+    }
+
+    public Connection getFileReadConnection(SqliteFile file) throws SQLException {
+        return checkout(file.getReader(), file.getName() + " " + POOL_READER);
+    }
+
+    /**
+     * File writer without a query timeout, like {@link #getMaintenanceConnection()}
+     */
+    public Connection getFileMaintenanceConnection(SqliteFile file) throws SQLException {
+        return checkout(file.getWriter(), file.getName(), false);
+    }
+
+    /**
+     * Run work in a {@link UnitOfWork}: every manager call it makes shares
+     * one connection and one transaction, committed once when it returns
+     * unless it called {@link UnitOfWork#setRollbackOnly()}, and rolled back
+     * if it throws or any statement in it failed, which throws here too.
+     * Nested calls join the unit already open on the thread.
+     *
+     * While the write spool holds records, or the database cannot be reached
+     * and the spool takes the writes, the work runs detached instead: each
+     * write goes out on its own as it did before units, spooled in order.
+     */
+    public <T> T inTransaction(UnitOfWork.Work<T> work) throws SQLException {
+        UnitOfWork current = UnitOfWork.current();
+        if (current != null) {
+            T result = work.run(current);
+            current.checkFailure();
+            return result;
+        }
+        if (writeSpool.hasPending()) {
+            return UnitOfWork.detached(work);
+        }
+        Connection conn;
+        try {
+            conn = checkout(dataSource, POOL_PRIMARY);
+        } catch (SQLException e) {
+            if (writeSpool.accepts(e)) {
+                return UnitOfWork.detached(work);
+            }
+            throw e;
+        }
+        return UnitOfWork.execute(conn, work);
+    }
+
+    /**
+     * Route reads of a topic and key to the primary for a while after this
+     * server changes it. Called for every change published to the outbox.
+     */
+    void pinToPrimary(String topic, String key) {
+        if (replicaRouter != null) {
+            replicaRouter.pin(topic, key);
+        }
+    }
+
+    /**
+     * Get a primary connection whose statements have no query timeout, for
+     * migrations, partition changes and archiving. Still subject to the
+     * circuit breaker.
+     */
+    public Connection getMaintenanceConnection() throws SQLException {
+        return checkout(dataSource, POOL_PRIMARY, false);
+    }
+
+    private Connection checkout(HikariDataSource pool, String name) throws SQLException {
+        return checkout(pool, name, true);
+    }
+
+    /**
+     * Borrow a connection through the circuit breaker, timing the wait and
+     * instrumenting it when metrics are on
+     */
+    private Connection checkout(HikariDataSource pool, String name, boolean timed) throws SQLException {
+        guard.beforeCheckout();
+        long start = System.nanoTime();
+        Connection conn;
+        try {
+            conn = timed ? borrow(pool) : pool.getConnection();
+            if (memoryStore != null) {
+                conn = memoryStore.wrap(conn);
             }
+        } catch (SQLException e) {
+            guard.recordFailure(e);
+            if (queryMetrics != null) {
+                queryMetrics.recordCheckoutTimeout(name);
+            }
+            if (poolTuner != null) {
+                poolTuner.recordTimeout(name);
+            }
+            throw e;
+        }
+        long waited = System.nanoTime() - start;
+        if (poolTuner != null) {
+            poolTuner.recordWait(name, waited);
+        }
+        if (guard.isEnabled()) {
+            conn = guard.wrap(conn, timed);
+        }
+        if (queryMetrics == null) {
+            return conn;
+        }
+        queryMetrics.recordCheckout(name, waited);
+        return queryMetrics.wrap(conn);
+    }
 
-            // Transactions log table
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS transactions (
-                    id INTEGER PRIMARY KEY %s,
-                    type VARCHAR(32) NOT NULL,
-                    player VARCHAR(36) NOT NULL,
-                    amount_f DECIMAL(15,2),
-                    amount_stars BIGINT,
-                    details TEXT,
-                    timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """.formatted(isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
-
-            // Tax obligations table
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS tax_obligations (
-                    id INTEGER PRIMARY KEY %s,
-                    player VARCHAR(36) NOT NULL,
-                    type VARCHAR(32) NOT NULL,
-                    amount DECIMAL(15,2) NOT NULL,
-                    due_date TIMESTAMP NOT NULL,
-                    paid INTEGER NOT NULL DEFAULT 0,
-                    paid_at TIMESTAMP
-                )
-                """.formatted(isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
-
-            // Bounties table
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS bounties (
-                    id INTEGER PRIMARY KEY %s,
-                    description TEXT NOT NULL,
-                    reward DECIMAL(15,2) NOT NULL,
-                    status VARCHAR(20) NOT NULL DEFAULT 'open',
-                    created_by VARCHAR(36) NOT NULL,
-                    claimed_by VARCHAR(36),
-                    deadline TIMESTAMP,
-                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """.formatted(isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
-
-            // Permits table
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS permits (
-                    id INTEGER PRIMARY KEY %s,
-                    player VARCHAR(36) NOT NULL,
-                    type VARCHAR(32) NOT NULL,
-                    expires_at TIMESTAMP NOT NULL,
-                    purchased_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """.formatted(isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
-
-            // Withdrawal queue table
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS withdrawal_queue (
-                    id INTEGER PRIMARY KEY %s,
-                    player VARCHAR(36) NOT NULL,
-                    amount DECIMAL(15,2) NOT NULL,
-                    requested_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    processed INTEGER NOT NULL DEFAULT 0
-                )
-                """.formatted(isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
-
-            // Player data table (for virtual balance tracking via Vault)
-            execute(conn, """
-                CREATE TABLE IF NOT EXISTS player_data (
-                    uuid VARCHAR(36) PRIMARY KEY,
-                    username VARCHAR(16),
-                    virtual_balance DECIMAL(15,2) NOT NULL DEFAULT 0,
-                    last_seen TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """);
-
-            // Create indexes
-            execute(conn, "CREATE INDEX IF NOT EXISTS idx_ledger_status ON currency_ledger(status)");
-            execute(conn, "CREATE INDEX IF NOT EXISTS idx_transactions_player ON transactions(player)");
-            execute(conn, "CREATE INDEX IF NOT EXISTS idx_tax_player ON tax_obligations(player)");
-            execute(conn, "CREATE INDEX IF NOT EXISTS idx_permits_player ON permits(player)");
-        }
-    }
-
-    /**
-     * Execute a SQL statement
-     */
-    private void execute(Connection conn, String sql) throws SQLException {
-        try (Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-        }
-    }
-
-    /**
-     * Get a database connection from the pool
+    /**
+     * The server thread never waits the full pool connection_timeout
      */
-    public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+    private Connection borrow(HikariDataSource pool) throws SQLException {
+        if (guard.isEnabled() && guard.isServerThread()
+                && pool.getHikariPoolMXBean() instanceof HikariPool hikariPool) {
+            return hikariPool.getConnection(guard.getMainThreadCheckoutMs());
+        }
+        return pool.getConnection();
+    }
+
+    /**
+     * Live connection counts for each pool
+     */
+    public List<QueryMetrics.PoolStatus> getPoolStatus() {
+        List<QueryMetrics.PoolStatus> pools = new ArrayList<>();
+        pools.add(poolStatus(POOL_PRIMARY, dataSource));
+        if (readDataSource != null) {
+            pools.add(poolStatus(POOL_READER, readDataSource));
+        }
+        if (replicaRouter != null) {
+            for (ReplicaRouter.Replica replica : replicaRouter.getReplicas()) {
+                pools.add(poolStatus(POOL_REPLICA + " " + replica.getName(), replica.getPool()));
+            }
+        }
+        List<SqliteFile> files = new ArrayList<>();
+        if (logStore != null) {
+            files.add(logStore.getFile());
+        }
+        if (shardSet != null) {
+            files.addAll(shardSet.getShards());
+        }
+        for (SqliteFile file : files) {
+            pools.add(poolStatus(file.getName(), file.getWriter()));
+            pools.add(poolStatus(file.getName() + " " + POOL_READER, file.getReader()));
+        }
+        return pools;
+    }
+
+    private QueryMetrics.PoolStatus poolStatus(String name, HikariDataSource pool) {
+        HikariPoolMXBean mx = pool.getHikariPoolMXBean();
+        if (mx == null) {
+            return new QueryMetrics.PoolStatus(name, 0, 0, 0, 0, pool.getMaximumPoolSize());
+        }
+        return new QueryMetrics.PoolStatus(name, mx.getActiveConnections(), mx.getIdleConnections(),
+            mx.getTotalConnections(), mx.getThreadsAwaitingConnection(), pool.getMaximumPoolSize());
+    }
+
+    /**
+     * Get the append-only history store, or null if database.sqlite.log_store is off
+     */
+    public LogStore getLogStore() {
+        return logStore;
+    }
+
+    /**
+     * Get the player data shards, or null if database.sqlite.shards is off
+     */
+    public ShardSet getShards() {
+        return shardSet;
+    }
+
+    /**
+     * Get the query plan audit, or null if metrics or database.explain are off
+     */
+    public QueryPlanAudit getQueryPlanAudit() {
+        return queryPlanAudit;
+    }
+
+    /**
+     * Get the connection pool tuner, or null if no pool is tuned
+     */
+    public PoolTuner getPoolTuner() {
+        return poolTuner;
+    }
+
+    /**
+     * Get statement and pool metrics, or null if database.metrics.enabled is off
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Read replica routing, or null without database.mysql.replicas
+     */
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    /**
+     * Total connections across the writer, reader, replica, log store and shard pools, counting
+     * tuned pools at their upper bound
+     */
+    public int getMaxConnections() {
+        int total = maxPoolSize(POOL_PRIMARY, dataSource);
+        if (readDataSource != null) {
+            total += maxPoolSize(POOL_READER, readDataSource);
+        }
+        if (replicaRouter != null) {
+            for (ReplicaRouter.Replica replica : replicaRouter.getReplicas()) {
+                total += replica.getPool().getMaximumPoolSize();
+            }
+        }
+        if (logStore != null) {
+            total += logStore.getFile().getWriter().getMaximumPoolSize()
+                + logStore.getFile().getReader().getMaximumPoolSize();
+        }
+        if (shardSet != null) {
+            for (ShardSet.Shard shard : shardSet.getShards()) {
+                total += shard.getWriter().getMaximumPoolSize() + shard.getReader().getMaximumPoolSize();
+            }
+        }
+        return total;
+    }
+
+    private int maxPoolSize(String name, HikariDataSource pool) {
+        return poolTuner != null && poolTuner.isTuned(name) ? poolTuner.getMaxSize() : pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Drain the transaction journal while the pools are still open
+     */
+    private void shutdownJournal() {
+        if (transactionJournal != null) {
+            transactionJournal.close();
+        }
+        if (binaryJournal != null) {
+            binaryJournal.close();
+        }
+    }
+
+    /**
+     * Get the write-behind transaction journal, or null if disabled
+     */
+    public TransactionJournal getTransactionJournal() {
+        return transactionJournal;
+    }
+
+    /**
+     * Get the memory-mapped transaction log, or null unless database.journal.engine is binary
+     */
+    public BinaryJournal getBinaryJournal() {
+        return binaryJournal;
+    }
+
+    /**
+     * Get the bounded executor used by the async API
+     */
+    public DatabaseExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Get the transaction log retention subsystem, or null if disabled
+     */
+    public TransactionRetention getTransactionRetention() {
+        return transactionRetention;
+    }
+
+    /**
+     * Get the forward-only query helper for scans over large tables
+     */
+    public StreamingQuery getStreaming() {
+        return streamingQuery;
+    }
+
+    /**
+     * Get the cross-server change feed. Always present; publishing is a
+     * no-op unless database.cluster.enabled is on.
+     */
+    public ChangeOutbox getChangeOutbox() {
+        return changeOutbox;
+    }
+
+    /**
+     * Background ANALYZE, vacuum and checkpoints for a SQLite file, or null
+     */
+    public SqliteMaintenance getSqliteMaintenance() {
+        return sqliteMaintenance;
+    }
+
+    /**
+     * Snapshot and statement log behind database.type: memory, or null
+     */
+    public MemoryStore getMemoryStore() {
+        return memoryStore;
+    }
+
+    /**
+     * Local spool for writes made while the database is unreachable
+     */
+    public WriteSpool getWriteSpool() {
+        return writeSpool;
+    }
+
+    /**
+     * Circuit breaker and statement timeouts
+     */
+    public DatabaseGuard getGuard() {
+        return guard;
+    }
+
+    /**
+     * Batched player_data username and last_seen updates
+     */
+    public PlayerPresence getPlayerPresence() {
+        return presence;
+    }
+
+    /**
+     * Double-entry ledger holding every player's virtual balance
+     */
+    public PostingLedger getPostingLedger() {
+        return postingLedger;
+    }
+
+    /**
+     * Get the in-memory reserve ledger, or null if the reserve is read from SQL
+     */
+    public ReserveLedger getReserveLedger() {
+        return reserveLedger;
     }
 
     /**
      * Close the database connection pool
      */
     public void close() {
+        if (queryPlanAudit != null) {
+            queryPlanAudit.stop();
+        }
+        if (poolTuner != null) {
+            poolTuner.stop();
+        }
+        if (sqliteMaintenance != null) {
+            sqliteMaintenance.stop();
+        }
+        if (presence != null) {
+            presence.stop();
+        }
+        if (uuidStorage != null) {
+            uuidStorage.stop();
+        }
+        if (transactionRetention != null) {
+            transactionRetention.stop();
+        }
+        if (logStore != null) {
+            logStore.stop();
+        }
+        if (changeOutbox != null) {
+            changeOutbox.stop();
+        }
+        if (postingLedger != null) {
+            postingLedger.stop();
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (reserveLedger != null) {
+            reserveLedger.close();
+        }
+        shutdownJournal();
+        if (writeSpool != null) {
+            writeSpool.close();
+        }
+        if (memoryStore != null) {
+            memoryStore.close();
+        }
+        if (replicaRouter != null) {
+            replicaRouter.close();
+        }
+        if (shardSet != null) {
+            shardSet.close();
+        }
+        if (logStore != null) {
+            logStore.close();
+        }
+        if (readDataSource != null && !readDataSource.isClosed()) {
+            readDataSource.close();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
@@ -261,6 +860,82 @@ public class DatabaseManager {
         return isMySQL;
     }
 
+    // ══════════════════════════════════════════════════════════════════════
+    // UUID Columns
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Codec for the UUID column format in use (string or 16-byte binary)
+     */
+    public UuidCodec getUuidCodec() {
+        return uuidCodec;
+    }
+
+    /**
+     * Bind a UUID parameter in the storage format in use
+     */
+    public void setUuid(PreparedStatement ps, int index, UUID uuid) throws SQLException {
+        uuidCodec.set(ps, index, uuid);
+    }
+
+    /**
+     * Read a UUID column in the storage format in use
+     */
+    public UUID getUuid(ResultSet rs, String column) throws SQLException {
+        return uuidCodec.get(rs, column);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Storage Settings
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Read a value from the storage_settings table
+     */
+    public String getStorageSetting(String name, String defaultValue) {
+        try (Connection conn = getConnection()) {
+            return getStorageSetting(conn, name, defaultValue);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to read storage setting " + name, e);
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Read a value from the storage_settings table on an existing connection
+     */
+    public String getStorageSetting(Connection conn, String name, String defaultValue) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT value FROM storage_settings WHERE name = ?")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("value") : defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Write a value to the storage_settings table
+     */
+    public void setStorageSetting(String name, String value) throws SQLException {
+        try (Connection conn = getConnection()) {
+            setStorageSetting(conn, name, value);
+        }
+    }
+
+    /**
+     * Write a value to the storage_settings table on an existing connection
+     */
+    public void setStorageSetting(Connection conn, String name, String value) throws SQLException {
+        String sql = isMySQL
+            ? "INSERT INTO storage_settings (name, value) VALUES (?, ?) ON DUPLICATE KEY UPDATE value = VALUES(value)"
+            : "INSERT OR REPLACE INTO storage_settings (name, value) VALUES (?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, name);
+            ps.setString(2, value);
+            ps.executeUpdate();
+        }
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     // Currency Ledger Operations
     // ══════════════════════════════════════════════════════════════════════
@@ -269,55 +944,77 @@ public class DatabaseManager {
      * Record a new note in the ledger
      */
     public boolean recordNote(UUID serial, int denomination, UUID issuedTo) {
+        if (writeSpool.hasPending() && !UnitOfWork.isActive()) {
+            return spoolNote(serial, denomination, issuedTo);
+        }
         String sql = "INSERT INTO currency_ledger (serial, denomination, issued_to, status) VALUES (?, ?, ?, 'circulating')";
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, serial.toString());
+            setUuid(ps, 1, serial);
             ps.setInt(2, denomination);
-            ps.setString(3, issuedTo != null ? issuedTo.toString() : null);
-            return ps.executeUpdate() > 0;
+            setUuid(ps, 3, issuedTo);
+            boolean recorded = changeOutbox.publishIfChanged(conn, ps.executeUpdate(), ChangeOutbox.TOPIC_NOTE, serial.toString());
+            if (recorded) {
+                UnitOfWork.afterCommit(() -> noteCache.put(serial, new NoteInfo(true, denomination)));
+            }
+            return recorded;
         } catch (SQLException e) {
+            if (writeSpool.accepts(e)) {
+                return spoolNote(serial, denomination, issuedTo);
+            }
             plugin.getLogger().log(Level.SEVERE, "Failed to record note", e);
             return false;
         }
     }
 
+    private boolean spoolNote(UUID serial, int denomination, UUID issuedTo) {
+        try {
+            writeSpool.spoolNote(serial, denomination, issuedTo);
+            noteCache.put(serial, new NoteInfo(true, denomination));
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to spool note " + serial, e);
+            return false;
+        }
+    }
+
     /**
-     * Check if a serial number is valid and circulating
+     * Check if a serial number is valid and circulating. While the database
+     * is unavailable the last status this server saw is used; unknown notes
+     * are treated as invalid.
      */
     public boolean isNoteValid(UUID serial) {
-        String sql = "SELECT status FROM currency_ledger WHERE serial = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, serial.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return "circulating".equals(rs.getString("status"));
-                }
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to validate note", e);
-        }
-        return false;
+        NoteInfo note = lookupNote(serial);
+        return note != null && note.circulating;
     }
 
     /**
-     * Get the denomination of a note
+     * Get the denomination of a note, or -1 if it is not in the ledger
      */
     public int getNoteDenomination(UUID serial) {
-        String sql = "SELECT denomination FROM currency_ledger WHERE serial = ?";
-        try (Connection conn = getConnection();
+        NoteInfo note = lookupNote(serial);
+        return note != null ? note.denomination : -1;
+    }
+
+    private NoteInfo lookupNote(UUID serial) {
+        String sql = "SELECT status, denomination FROM currency_ledger WHERE serial = ?";
+        try (Connection conn = getReplicaConnection(ChangeOutbox.TOPIC_NOTE, serial.toString());
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, serial.toString());
+            setUuid(ps, 1, serial);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("denomination");
+                if (!rs.next()) {
+                    return null;
                 }
+                NoteInfo note = new NoteInfo("circulating".equals(rs.getString("status")), rs.getInt("denomination"));
+                noteCache.put(serial, note);
+                return note;
             }
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to get note denomination", e);
+            if (!(e instanceof DatabaseGuard.CircuitOpenException)) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to look up note", e);
+            }
+            return noteCache.get(serial);
         }
-        return -1;
     }
 
     /**
@@ -327,9 +1024,11 @@ public class DatabaseManager {
         String sql = "UPDATE currency_ledger SET status = 'redeemed', status_changed_at = CURRENT_TIMESTAMP, status_changed_by = ? WHERE serial = ? AND status = 'circulating'";
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, redeemedBy.toString());
-            ps.setString(2, serial.toString());
-            return ps.executeUpdate() > 0;
+            setUuid(ps, 1, redeemedBy);
+            setUuid(ps, 2, serial);
+            // A redeemed note must never validate from the cache
+            noteCache.remove(serial);
+            return changeOutbox.publishIfChanged(conn, ps.executeUpdate(), ChangeOutbox.TOPIC_NOTE, serial.toString());
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to redeem note", e);
             return false;
@@ -341,7 +1040,7 @@ public class DatabaseManager {
      */
     public long getCirculatingCount(int denomination) {
         String sql = "SELECT COUNT(*) FROM currency_ledger WHERE denomination = ? AND status = 'circulating'";
-        try (Connection conn = getConnection();
+        try (Connection conn = getReplicaConnection(ChangeOutbox.TOPIC_NOTE, null);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, denomination);
             try (ResultSet rs = ps.executeQuery()) {
@@ -363,8 +1062,11 @@ public class DatabaseManager {
      * Get current reserve amount
      */
     public long getReserve() {
+        if (reserveLedger != null) {
+            return reserveLedger.get();
+        }
         String sql = "SELECT nether_stars FROM reserve WHERE id = 1";
-        try (Connection conn = getConnection();
+        try (Connection conn = getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             if (rs.next()) {
@@ -380,11 +1082,22 @@ public class DatabaseManager {
      * Add to reserve
      */
     public boolean addToReserve(long amount) {
+        if (reserveLedger != null) {
+            if (!UnitOfWork.isActive()) {
+                return reserveLedger.add(amount);
+            }
+            if (amount < 0) {
+                return false;
+            }
+            // Journaled once the unit commits, so a rollback leaves nothing to replay
+            UnitOfWork.afterCommit(() -> reserveLedger.settle(amount, false));
+            return true;
+        }
         String sql = "UPDATE reserve SET nether_stars = nether_stars + ?, last_updated = CURRENT_TIMESTAMP WHERE id = 1";
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, amount);
-            return ps.executeUpdate() > 0;
+            return changeOutbox.publishIfChanged(conn, ps.executeUpdate(), ChangeOutbox.TOPIC_RESERVE, "reserve");
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to add to reserve", e);
             return false;
@@ -392,15 +1105,26 @@ public class DatabaseManager {
     }
 
     /**
-     * Remove from reserve
+     * Remove from reserve; fails without change if the reserve holds less
      */
     public boolean removeFromReserve(long amount) {
+        if (reserveLedger != null) {
+            if (!UnitOfWork.isActive()) {
+                return reserveLedger.tryRemove(amount);
+            }
+            if (!reserveLedger.hold(amount)) {
+                return false;
+            }
+            UnitOfWork.onRollback(() -> reserveLedger.release(amount));
+            UnitOfWork.afterCommit(() -> reserveLedger.settle(-amount, true));
+            return true;
+        }
         String sql = "UPDATE reserve SET nether_stars = nether_stars - ?, last_updated = CURRENT_TIMESTAMP WHERE id = 1 AND nether_stars >= ?";
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, amount);
             ps.setLong(2, amount);
-            return ps.executeUpdate() > 0;
+            return changeOutbox.publishIfChanged(conn, ps.executeUpdate(), ChangeOutbox.TOPIC_RESERVE, "reserve");
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to remove from reserve", e);
             return false;
@@ -412,122 +1136,163 @@ public class DatabaseManager {
     // ══════════════════════════════════════════════════════════════════════
 
     /**
-     * Log a transaction
+     * Log a transaction. Appended to the binary journal or queued on the
+     * write-behind journal when enabled, once the current {@link UnitOfWork}
+     * commits. A shard or the log store is outside the unit, so without the
+     * journal the row is written after the commit.
      */
-    public void logTransaction(String type, UUID player, double amountF, long amountStars, String details) {
-        String sql = "INSERT INTO transactions (type, player, amount_f, amount_stars, details) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
+    public void logTransaction(String type, UUID player, Money amount, long amountStars, String details) {
+        if (binaryJournal != null) {
+            UnitOfWork.afterCommit(() -> {
+                if (!binaryJournal.append(type, player, amount, amountStars, details)) {
+                    writeTransaction(type, player, amount, amountStars, details);
+                }
+            });
+            return;
+        }
+        if (transactionJournal != null) {
+            UnitOfWork.afterCommit(() -> transactionJournal.append(type, player, amount, amountStars, details));
+            return;
+        }
+        if (shardSet != null || logStore != null) {
+            UnitOfWork.afterCommit(() -> writeTransaction(type, player, amount, amountStars, details));
+            return;
+        }
+        writeTransaction(type, player, amount, amountStars, details);
+    }
+
+    private void writeTransaction(String type, UUID player, Money amount, long amountStars, String details) {
+        // Explicit timestamp so SQLite stores the same format as the journal
+        String sql = "INSERT INTO transactions (type, player, amount_f, amount_stars, details, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+        try (Connection conn = getLogConnection(player);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, type);
-            ps.setString(2, player.toString());
-            ps.setDouble(3, amountF);
+            setUuid(ps, 2, player);
+            ps.setLong(3, amount.minor());
             ps.setLong(4, amountStars);
             ps.setString(5, details);
+            ps.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
             ps.executeUpdate();
         } catch (SQLException e) {
+            if (writeSpool.accepts(e)) {
+                try {
+                    writeSpool.spoolTransactions(List.of(new TransactionJournal.TransactionRecord(
+                        type, player, amount.minor(), amountStars, details, System.currentTimeMillis())));
+                    return;
+                } catch (IOException spoolError) {
+                    e.addSuppressed(spoolError);
+                }
+            }
             plugin.getLogger().log(Level.SEVERE, "Failed to log transaction", e);
         }
     }
 
+    /**
+     * Log a transaction (player-first argument order used by the Vault provider,
+     * permits, trades and the counterfeit listener)
+     */
+    public void logTransaction(UUID player, String type, String details, Money amount, Long amountStars) {
+        logTransaction(type, player, amount, amountStars != null ? amountStars : 0L, details);
+    }
+
+    /**
+     * Log a transaction with an amount that is still a double
+     */
+    public void logTransaction(UUID player, String type, String details, double amountF, Long amountStars) {
+        logTransaction(player, type, details, Money.fromDouble(amountF), amountStars);
+    }
+
     // ══════════════════════════════════════════════════════════════════════
     // Player Data Operations (for Vault integration)
     // ══════════════════════════════════════════════════════════════════════
 
     /**
-     * Get player's virtual balance
+     * Get player's virtual balance, materialized in their ledger account.
+     * player_data.virtual_balance is no longer written since schema v9.
      */
-    public double getVirtualBalance(UUID uuid) {
-        String sql = "SELECT virtual_balance FROM player_data WHERE uuid = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("virtual_balance");
-                }
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to get virtual balance", e);
-        }
-        return 0;
+    public Money getVirtualBalance(UUID uuid) {
+        return postingLedger.getBalance(PostingLedger.playerAccount(uuid));
     }
 
     /**
-     * Set player's virtual balance
+     * Set player's virtual balance, posting the difference as an admin adjustment
      */
-    public boolean setVirtualBalance(UUID uuid, String username, double balance) {
-        String sql = isMySQL
-            ? "INSERT INTO player_data (uuid, username, virtual_balance) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE virtual_balance = ?, username = ?, last_seen = CURRENT_TIMESTAMP"
-            : "INSERT OR REPLACE INTO player_data (uuid, username, virtual_balance, last_seen) VALUES (?, ?, ?, CURRENT_TIMESTAMP)";
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, uuid.toString());
-            ps.setString(2, username);
-            ps.setDouble(3, balance);
-            if (isMySQL) {
-                ps.setDouble(4, balance);
-                ps.setString(5, username);
-            }
-            return ps.executeUpdate() > 0;
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to set virtual balance", e);
-            return false;
-        }
+    public boolean setVirtualBalance(UUID uuid, String username, Money balance) {
+        presence.seen(uuid, username);
+        return postingLedger.setBalance(PostingLedger.playerAccount(uuid), balance,
+            "Balance set to " + balance).isSuccess();
     }
 
     /**
-     * Update player's virtual balance by adding/subtracting amount
+     * Update player's virtual balance by adding/subtracting amount. The other
+     * side is posted to {@link PostingLedger#EXTERNAL}; a withdrawal larger
+     * than the balance fails.
      */
-    public boolean updateVirtualBalance(UUID uuid, double amount) {
-        // First ensure account exists
-        createPlayerAccount(uuid, uuid.toString().substring(0, 8));
-        
-        String sql = isMySQL
-            ? "UPDATE player_data SET virtual_balance = virtual_balance + ?, last_seen = CURRENT_TIMESTAMP WHERE uuid = ?"
-            : "UPDATE player_data SET virtual_balance = virtual_balance + ?, last_seen = CURRENT_TIMESTAMP WHERE uuid = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, amount);
-            ps.setString(2, uuid.toString());
-            return ps.executeUpdate() > 0;
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to update virtual balance", e);
-            return false;
+    public boolean updateVirtualBalance(UUID uuid, Money delta) {
+        if (delta.isZero()) {
+            return true;
         }
+        presence.seen(uuid, null);
+        String account = PostingLedger.playerAccount(uuid);
+        return postingLedger.post(new PostingLedger.Entry("external", null)
+            .credit(account, delta)
+            .debit(PostingLedger.EXTERNAL, delta)).isSuccess();
     }
 
     /**
-     * Create player account if not exists
+     * Create player account if not exists. The row is written with the next
+     * presence flush.
      */
     public boolean createPlayerAccount(UUID uuid, String username) {
-        String sql = isMySQL
-            ? "INSERT IGNORE INTO player_data (uuid, username, virtual_balance) VALUES (?, ?, 0)"
-            : "INSERT OR IGNORE INTO player_data (uuid, username, virtual_balance) VALUES (?, ?, 0)";
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, uuid.toString());
-            ps.setString(2, username);
-            return ps.executeUpdate() > 0;
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to create player account", e);
-            return false;
-        }
+        return presence.create(uuid, username);
     }
 
     /**
      * Check if player has account
      */
     public boolean hasPlayerAccount(UUID uuid) {
-        String sql = "SELECT 1 FROM player_data WHERE uuid = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to check player account", e);
-        }
-        return false;
+        return presence.hasAccount(uuid);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Async API
+    // ══════════════════════════════════════════════════════════════════════
+
+    public CompletableFuture<Long> getReserveAsync() {
+        return executor.supply(this::getReserve);
+    }
+
+    public CompletableFuture<Boolean> addToReserveAsync(long amount) {
+        return executor.supply(() -> addToReserve(amount));
+    }
+
+    public CompletableFuture<Boolean> removeFromReserveAsync(long amount) {
+        return executor.supply(() -> removeFromReserve(amount));
     }
+
+    public CompletableFuture<Boolean> recordNoteAsync(UUID serial, int denomination, UUID issuedTo) {
+        return executor.supply(() -> recordNote(serial, denomination, issuedTo));
+    }
+
+    public CompletableFuture<Boolean> isNoteValidAsync(UUID serial) {
+        return executor.supply(() -> isNoteValid(serial));
+    }
+
+    public CompletableFuture<Boolean> redeemNoteAsync(UUID serial, UUID redeemedBy) {
+        return executor.supply(() -> redeemNote(serial, redeemedBy));
+    }
+
+    public CompletableFuture<Long> getCirculatingCountAsync(int denomination) {
+        return executor.supply(() -> getCirculatingCount(denomination));
+    }
+
+    public CompletableFuture<Money> getVirtualBalanceAsync(UUID uuid) {
+        return executor.supply(() -> getVirtualBalance(uuid));
+    }
+
+    public CompletableFuture<Boolean> updateVirtualBalanceAsync(UUID uuid, Money delta) {
+        return executor.supply(() -> updateVirtualBalance(uuid, delta));
+    }
+
+    private record NoteInfo(boolean circulating, int denomination) {}
 }
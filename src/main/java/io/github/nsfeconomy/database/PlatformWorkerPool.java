@@ -0,0 +1,86 @@
+package io.github.nsfeconomy.database;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Fixed pool of daemon platform threads with a bounded queue. Tasks it will
+ * not run, rejected or still queued at shutdownNow, go to the rejection
+ * handler.
+ */
+public class PlatformWorkerPool implements WorkerPool {
+
+    private final ThreadPoolExecutor executor;
+
+    private final Consumer<Runnable> rejected;
+
+    public PlatformWorkerPool(String name, int threads, int queueSize, Consumer<Runnable> rejected) {
+        this.rejected = rejected;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            (runnable, pool) -> rejected.accept(runnable));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public String getKind() {
+        return "platform";
+    }
+
+    @Override
+    public int getParallelism() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public int shutdownNow() {
+        List<Runnable> pending = executor.shutdownNow();
+        pending.forEach(rejected);
+        return pending.size();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
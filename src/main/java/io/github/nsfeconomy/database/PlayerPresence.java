@@ -0,0 +1,243 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Player rows (username, last_seen) written in batches.
+ *
+ * Joins, quits and money movements only record the player in memory; a
+ * background flush upserts everything seen since the last one, creating
+ * the player_data row if it is missing. A player seen many times between
+ * flushes costs one row in the batch, and a Vault call no longer writes
+ * player_data at all. With {@link ShardSet shards} every shard's part of
+ * the batch is written at the same time.
+ */
+public class PlayerPresence {
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final long flushIntervalMs;
+    private final int batchSize;
+
+    private final Map<UUID, Seen> pending = new ConcurrentHashMap<>();
+    // Players known to have a player_data row
+    private final Set<UUID> known = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService flusher;
+
+    public PlayerPresence(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.flushIntervalMs = Math.max(100, plugin.getConfig().getLong("database.presence.flush_interval_ms", 5000));
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("database.presence.batch_size", 500));
+    }
+
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-Presence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the flusher and write whatever is still pending
+     */
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushSafely();
+    }
+
+    /**
+     * Record that a player was active now
+     *
+     * @param username Current name, or null to keep the stored one
+     */
+    public void seen(UUID uuid, String username) {
+        long now = System.currentTimeMillis();
+        pending.merge(uuid, new Seen(username, now),
+            (old, latest) -> new Seen(latest.username != null ? latest.username : old.username, now));
+    }
+
+    /**
+     * Queue a row for a player not yet known to have one
+     *
+     * @return false if the player is already known
+     */
+    public boolean create(UUID uuid, String username) {
+        if (known.contains(uuid)) {
+            return false;
+        }
+        seen(uuid, username);
+        return true;
+    }
+
+    /**
+     * Drop anything pending for a player whose row is being deleted
+     */
+    public void forget(UUID uuid) {
+        pending.remove(uuid);
+        known.remove(uuid);
+    }
+
+    /**
+     * Whether the player has a row, or will have one at the next flush
+     */
+    public boolean hasAccount(UUID uuid) {
+        if (known.contains(uuid) || pending.containsKey(uuid)) {
+            return true;
+        }
+        try (Connection conn = databaseManager.getPlayerReadConnection(uuid);
+             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM player_data WHERE uuid = ?")) {
+            databaseManager.setUuid(ps, 1, uuid);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    known.add(uuid);
+                    return true;
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to check player account", e);
+        }
+        return false;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Flushing
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write player presence; retrying next flush", e);
+        }
+    }
+
+    /**
+     * Upsert every pending player. Entries seen again during the write stay
+     * pending for the next flush, as do the entries of a shard that failed.
+     */
+    public void flush() throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, Seen>> batch = new ArrayList<>(pending.entrySet());
+
+        ShardSet shards = databaseManager.getShards();
+        if (shards == null) {
+            try (Connection conn = databaseManager.getConnection()) {
+                upsert(conn, batch);
+            }
+            settle(batch);
+            return;
+        }
+
+        Map<ShardSet.Shard, List<Map.Entry<UUID, Seen>>> parts = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Seen> entry : batch) {
+            parts.computeIfAbsent(shards.shardFor(entry.getKey()), shard -> new ArrayList<>()).add(entry);
+        }
+        Map<ShardSet.Shard, SQLException> failures = shards.runEach(parts.keySet(), shard -> {
+            try (Connection conn = databaseManager.getFileConnection(shard)) {
+                upsert(conn, parts.get(shard));
+            }
+            return null;
+        });
+        SQLException cause = null;
+        for (Map.Entry<ShardSet.Shard, List<Map.Entry<UUID, Seen>>> part : parts.entrySet()) {
+            SQLException failure = failures.get(part.getKey());
+            if (failure == null) {
+                settle(part.getValue());
+            } else if (cause == null) {
+                cause = failure;
+            } else {
+                cause.addSuppressed(failure);
+            }
+        }
+        if (cause != null) {
+            throw cause;
+        }
+    }
+
+    private void upsert(Connection conn, List<Map.Entry<UUID, Seen>> batch) throws SQLException {
+        // Keep the stored name when none is known; new rows fall back to a uuid prefix
+        String sql = databaseManager.isMySQL()
+            ? "INSERT INTO player_data (uuid, username, virtual_balance, last_seen) VALUES (?, COALESCE(?, ?), 0, ?) "
+                + "ON DUPLICATE KEY UPDATE username = COALESCE(?, username), last_seen = VALUES(last_seen)"
+            : "INSERT INTO player_data (uuid, username, virtual_balance, last_seen) VALUES (?, COALESCE(?, ?), 0, ?) "
+                + "ON CONFLICT(uuid) DO UPDATE SET username = COALESCE(?, player_data.username), last_seen = excluded.last_seen";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int queued = 0;
+                for (Map.Entry<UUID, Seen> entry : batch) {
+                    UUID uuid = entry.getKey();
+                    Seen seen = entry.getValue();
+                    databaseManager.setUuid(ps, 1, uuid);
+                    ps.setString(2, seen.username);
+                    ps.setString(3, uuid.toString().substring(0, 8));
+                    ps.setTimestamp(4, new Timestamp(seen.at));
+                    ps.setString(5, seen.username);
+                    ps.addBatch();
+                    if (++queued % batchSize == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void settle(List<Map.Entry<UUID, Seen>> written) {
+        for (Map.Entry<UUID, Seen> entry : written) {
+            known.add(entry.getKey());
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static class Seen {
+        private final String username;
+        private final long at;
+
+        Seen(String username, long at) {
+            this.username = username;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Latency and row counts per SQL shape, plus pool checkout waits.
+ *
+ * Statements are grouped by their shape: literals become ?, IN lists
+ * collapse and whitespace is normalised, so the same query with different
+ * values lands in one histogram. Slow statements are logged with the types
+ * of their bind parameters, never the values.
+ */
+public class QueryMetrics {
+
+    private static final int MAX_SHAPES = 500;
+    private static final int MAX_SHAPE_LENGTH = 300;
+    private static final String OVERFLOW_SHAPE = "(other statements)";
+    private static final long SLOW_LOG_INTERVAL_MS = 10_000;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final NSFEconomy plugin;
+    private final long slowQueryNanos;
+    private final boolean logQueries;
+
+    private final Map<String, QueryStats> queries = new ConcurrentHashMap<>();
+    private final Map<String, String> shapes = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> checkouts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> checkoutTimeouts = new ConcurrentHashMap<>();
+    private volatile long since = System.currentTimeMillis();
+
+    public QueryMetrics(NSFEconomy plugin) {
+        this.plugin = plugin;
+        this.slowQueryNanos = plugin.getConfig().getLong("database.metrics.slow_query_ms", 250) * 1_000_000L;
+        this.logQueries = plugin.getConfig().getBoolean("debug.log_queries", false);
+    }
+
+    /**
+     * Wrap a pooled connection so its statements are timed
+     */
+    public Connection wrap(Connection conn) {
+        return InstrumentedJdbc.wrap(conn, this);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Recording
+    // ══════════════════════════════════════════════════════════════════════
+
+    void recordCheckout(String pool, long nanos) {
+        checkouts.computeIfAbsent(pool, key -> new Histogram()).record(nanos);
+    }
+
+    void recordCheckoutTimeout(String pool) {
+        checkoutTimeouts.computeIfAbsent(pool, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * @param params Bind parameter types, e.g. "(long, string)"
+     */
+    void recordStatement(String sql, String params, long nanos, long rows, boolean failed) {
+        String shape = shapeOf(sql);
+        QueryStats stats = queries.get(shape);
+        if (stats == null) {
+            if (queries.size() >= MAX_SHAPES) {
+                shape = OVERFLOW_SHAPE;
+            }
+            stats = queries.computeIfAbsent(shape, QueryStats::new);
+        }
+        stats.latency.record(nanos);
+        stats.rows.add(Math.max(0, rows));
+        if (stats.sql == null && sql != null) {
+            // One real statement per shape, for EXPLAIN
+            stats.sql = sql;
+        }
+        stats.params = params;
+        if (failed) {
+            stats.errors.increment();
+        }
+
+        if (logQueries) {
+            plugin.getLogger().info(String.format("Query %.2fms, %d rows%s: %s %s",
+                nanos / 1e6, rows, failed ? " (failed)" : "", shape, params));
+        } else if (nanos >= slowQueryNanos) {
+            long now = System.currentTimeMillis();
+            long last = stats.lastSlowLog.get();
+            // One warning per shape per interval, so a slow hot path cannot flood the console
+            if (now - last >= SLOW_LOG_INTERVAL_MS && stats.lastSlowLog.compareAndSet(last, now)) {
+                plugin.getLogger().warning(String.format("Slow query %.1fms, %d rows%s: %s params %s",
+                    nanos / 1e6, rows, failed ? " (failed)" : "", shape, params));
+            }
+        }
+    }
+
+    /**
+     * Normalise a statement to its shape; literal values are replaced by ?
+     */
+    public String shapeOf(String sql) {
+        if (sql == null) {
+            return "(unknown)";
+        }
+        String shape = shapes.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        shape = IN_LIST.matcher(shape).replaceAll("(?, ...)");
+        if (shape.length() > MAX_SHAPE_LENGTH) {
+            shape = shape.substring(0, MAX_SHAPE_LENGTH) + "...";
+        }
+        // Statements are almost all constants, so the cache stays small
+        if (shapes.size() < MAX_SHAPES * 4) {
+            shapes.put(sql, shape);
+        }
+        return shape;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Reporting
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Statement shapes ordered by total time spent, highest first
+     */
+    public List<QueryStats> getTopQueries(int limit) {
+        List<QueryStats> top = new ArrayList<>(queries.values());
+        top.sort(Comparator.comparingLong((QueryStats stats) -> stats.latency.getTotalNanos()).reversed());
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    public Histogram getCheckoutWait(String pool) {
+        return checkouts.computeIfAbsent(pool, key -> new Histogram());
+    }
+
+    public long getCheckoutTimeouts(String pool) {
+        LongAdder timeouts = checkoutTimeouts.get(pool);
+        return timeouts != null ? timeouts.sum() : 0;
+    }
+
+    /**
+     * Every statement shape seen in this window
+     */
+    public List<QueryStats> getQueries() {
+        return new ArrayList<>(queries.values());
+    }
+
+    public int getShapeCount() {
+        return queries.size();
+    }
+
+    /**
+     * When the current measurement window started
+     */
+    public long getSince() {
+        return since;
+    }
+
+    public void reset() {
+        queries.clear();
+        checkouts.clear();
+        checkoutTimeouts.clear();
+        since = System.currentTimeMillis();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    public static class QueryStats {
+        private final String shape;
+        private final Histogram latency = new Histogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong lastSlowLog = new AtomicLong();
+        private volatile String sql;
+        private volatile String params;
+
+        QueryStats(String shape) {
+            this.shape = shape;
+        }
+
+        public String getShape() { return shape; }
+        public Histogram getLatency() { return latency; }
+        public long getRows() { return rows.sum(); }
+        public long getErrors() { return errors.sum(); }
+        String getSql() { return sql; }
+        String getParams() { return params; }
+    }
+
+    public static class PoolStatus {
+        private final String name;
+        private final int active;
+        private final int idle;
+        private final int total;
+        private final int waiting;
+        private final int max;
+
+        public PoolStatus(String name, int active, int idle, int total, int waiting, int max) {
+            this.name = name;
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.waiting = waiting;
+            this.max = max;
+        }
+
+        public String getName() { return name; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getTotal() { return total; }
+        public int getWaiting() { return waiting; }
+        public int getMax() { return max; }
+    }
+
+    /**
+     * Lock-free latency histogram with power-of-two microsecond buckets.
+     * Percentiles are reported as the upper bound of their bucket.
+     */
+    public static class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        public void record(long nanos) {
+            long micros = Math.max(1, nanos / 1000);
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() { return count.sum(); }
+        public long getTotalNanos() { return totalNanos.sum(); }
+        public long getMaxNanos() { return maxNanos.get(); }
+
+        public long getMeanNanos() {
+            long n = count.sum();
+            return n > 0 ? totalNanos.sum() / n : 0;
+        }
+
+        public long getPercentileNanos(double p) {
+            long n = count.sum();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(p * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min((1L << (i + 1)) * 1000, maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+    }
+}
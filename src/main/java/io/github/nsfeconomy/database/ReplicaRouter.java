@@ -0,0 +1,218 @@
+package io.github.nsfeconomy.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Picks a MySQL read replica for reads that tolerate replication lag.
+ *
+ * Replicas are used round-robin and skipped while unhealthy or more than
+ * database.mysql.replicas.max_lag_seconds behind. Every write published to
+ * the {@link ChangeOutbox} pins its topic and key to the primary for
+ * pin_after_write_ms, so a server always reads back its own writes.
+ * With no usable replica, reads go to the primary.
+ */
+public class ReplicaRouter {
+
+    private final NSFEconomy plugin;
+    private final List<Replica> replicas;
+    private final long maxLagSeconds;
+    private final long pinMs;
+    private final long healthCheckIntervalMs;
+
+    // Pin expiry per "topic" and "topic:key"
+    private final Map<String, Long> pins = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicaRouter(NSFEconomy plugin, List<Replica> replicas) {
+        this.plugin = plugin;
+        this.replicas = replicas;
+        this.maxLagSeconds = plugin.getConfig().getLong("database.mysql.replicas.max_lag_seconds", 2);
+        // A pin shorter than the tolerated lag would not guarantee reading our own writes
+        this.pinMs = Math.max(maxLagSeconds * 1000L,
+            plugin.getConfig().getLong("database.mysql.replicas.pin_after_write_ms", 3000));
+        this.healthCheckIntervalMs = Math.max(250,
+            plugin.getConfig().getLong("database.mysql.replicas.health_check_interval_ms", 2000));
+    }
+
+    /**
+     * Check every replica once, then keep checking in the background
+     */
+    public void start() {
+        checkHealth();
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-ReplicaHealth");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth,
+            healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdown();
+            try {
+                healthChecker.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Replica replica : replicas) {
+            if (!replica.pool.isClosed()) {
+                replica.pool.close();
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Routing
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Keep reads of this topic and key on the primary for a while
+     */
+    public void pin(String topic, String key) {
+        long until = System.currentTimeMillis() + pinMs;
+        pins.put(topic, until);
+        if (key != null) {
+            pins.put(topic + ":" + key, until);
+        }
+    }
+
+    /**
+     * @param topic Change topic the read depends on, or null if it does not
+     *              need to see this server's writes
+     * @param key   Entity key, or null for reads spanning the whole topic
+     */
+    public boolean isPinned(String topic, String key) {
+        if (topic == null) {
+            return false;
+        }
+        Long until = pins.get(key != null ? topic + ":" + key : topic);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * The next usable replica in round-robin order, or null if none is
+     */
+    public Replica choose() {
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (replica.isUsable(maxLagSeconds)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take a replica out of rotation until its next successful health check
+     */
+    public void markFailed(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            plugin.getLogger().log(Level.WARNING, "Read replica " + replica.name + " failed; reading from the primary", e);
+        }
+        replica.healthy = false;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Health Checks
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void checkHealth() {
+        long now = System.currentTimeMillis();
+        pins.values().removeIf(until -> until <= now);
+
+        for (Replica replica : replicas) {
+            boolean wasUsable = replica.isUsable(maxLagSeconds);
+            try (Connection conn = replica.pool.getConnection()) {
+                replica.lagSeconds = readLag(conn);
+                replica.healthy = replica.lagSeconds >= 0;
+                replica.lastError = replica.healthy ? null : "replication stopped";
+            } catch (SQLException e) {
+                replica.healthy = false;
+                replica.lastError = e.getMessage();
+            }
+            replica.checkedAt = now;
+
+            boolean usable = replica.isUsable(maxLagSeconds);
+            if (wasUsable != usable) {
+                plugin.getLogger().info("Read replica " + replica.name + (usable
+                    ? " is back in rotation"
+                    : " left rotation (" + (replica.healthy ? replica.lagSeconds + "s behind" : replica.lastError) + ")"));
+            }
+        }
+    }
+
+    /**
+     * Seconds behind the source, or -1 if replication is not running.
+     * A server that reports no replica status is treated as current.
+     */
+    private long readLag(Connection conn) throws SQLException {
+        try {
+            return readLag(conn, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+        } catch (SQLException e) {
+            // Before MySQL 8.0.22
+            return readLag(conn, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+        }
+    }
+
+    private long readLag(Connection conn, String sql, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next()) {
+                return 0;
+            }
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? -1 : lag;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    public static class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private volatile boolean healthy;
+        private volatile long lagSeconds;
+        private volatile long checkedAt;
+        private volatile String lastError;
+
+        public Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        boolean isUsable(long maxLagSeconds) {
+            return healthy && lagSeconds <= maxLagSeconds;
+        }
+
+        public String getName() { return name; }
+        public HikariDataSource getPool() { return pool; }
+        public boolean isHealthy() { return healthy; }
+        public long getLagSeconds() { return lagSeconds; }
+        public long getCheckedAt() { return checkedAt; }
+        public String getLastError() { return lastError; }
+    }
+}
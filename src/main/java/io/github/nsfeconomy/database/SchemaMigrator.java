@@ -0,0 +1,703 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned schema migrations for SQLite and MySQL.
+ *
+ * Each step has a version number and is applied at most once; applied versions
+ * are recorded in the schema_version table. When the database is already at
+ * the latest version, startup only reads that table and runs no DDL at all.
+ */
+public class SchemaMigrator {
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final boolean isMySQL;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SchemaMigrator(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.isMySQL = databaseManager.isMySQL();
+
+        // Append new steps at the end; never renumber or edit an applied step
+        migrations.add(new Migration(1, "Baseline tables", this::createBaseline));
+        migrations.add(new Migration(2, "Rebuild permits with player_id/dimension/price_paid/status", this::rebuildPermits));
+        migrations.add(new Migration(3, "Composite indexes for hot queries", this::createHotPathIndexes));
+        migrations.add(new Migration(4, "Storage settings table", this::createStorageSettings));
+        migrations.add(new Migration(5, "Store money columns as integer minor units", this::convertMoneyColumns));
+        migrations.add(new Migration(6, "Monthly transaction partitions, rollups and archive catalog", this::createTransactionRetention));
+        migrations.add(new Migration(7, "Reserve journal checkpoint sequence", this::addReserveJournalSeq));
+        migrations.add(new Migration(8, "Cross-server change outbox", this::createChangeOutbox));
+        migrations.add(new Migration(9, "Double-entry posting ledger", this::createPostingLedger));
+        migrations.add(new Migration(10, "Applied write spool records", this::createSpoolApplied));
+    }
+
+    /**
+     * Bring the schema up to the latest version
+     */
+    public void migrate() throws SQLException {
+        int latest = getLatestVersion();
+
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            int current = getCurrentVersion(conn);
+            if (current >= latest) {
+                return;
+            }
+
+            execute(conn, """
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description VARCHAR(128) NOT NULL,
+                    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+
+            for (Migration migration : migrations) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                plugin.getLogger().info("Applying schema migration v" + migration.version + ": " + migration.description);
+                apply(conn, migration);
+            }
+        }
+    }
+
+    /**
+     * Highest version known to this build
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    /**
+     * Highest version recorded in the database, or 0 if untracked
+     */
+    public int getCurrentVersion(Connection conn) throws SQLException {
+        if (!tableExists(conn, "schema_version")) {
+            return 0;
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Run one migration. SQLite DDL is transactional, so the step and its
+     * version row commit together; MySQL commits each DDL statement implicitly,
+     * which is why every step is written to be safe to re-run.
+     */
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        if (!isMySQL) {
+            conn.setAutoCommit(false);
+        }
+        try {
+            migration.step.apply(conn);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                ps.setInt(1, migration.version);
+                ps.setString(2, migration.description);
+                ps.executeUpdate();
+            }
+            if (!isMySQL) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (!isMySQL) {
+                conn.rollback();
+            }
+            throw new SQLException("Schema migration v" + migration.version + " failed", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Migration Steps
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * v1: the tables created before migrations were tracked
+     */
+    private void createBaseline(Connection conn) throws SQLException {
+        String autoIncrement = isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT";
+
+        // Bank locations table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS bank_locations (
+                id INTEGER PRIMARY KEY %s,
+                name VARCHAR(64) NOT NULL UNIQUE,
+                type VARCHAR(16) NOT NULL,
+                world VARCHAR(64) NOT NULL,
+                x INTEGER NOT NULL,
+                y INTEGER NOT NULL,
+                z INTEGER NOT NULL,
+                radius INTEGER NOT NULL DEFAULT 10,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """.formatted(autoIncrement));
+
+        // Currency ledger table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS currency_ledger (
+                serial VARCHAR(36) PRIMARY KEY,
+                denomination INTEGER NOT NULL,
+                issued_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                issued_to VARCHAR(36),
+                status VARCHAR(20) NOT NULL DEFAULT 'circulating',
+                status_changed_at TIMESTAMP,
+                status_changed_by VARCHAR(36)
+            )
+            """);
+
+        // Reserve table (singleton)
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS reserve (
+                id INTEGER PRIMARY KEY,
+                nether_stars BIGINT NOT NULL DEFAULT 0,
+                last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+        execute(conn, isMySQL
+            ? "INSERT IGNORE INTO reserve (id, nether_stars) VALUES (1, 0)"
+            : "INSERT OR IGNORE INTO reserve (id, nether_stars) VALUES (1, 0)");
+
+        // Transactions log table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS transactions (
+                id INTEGER PRIMARY KEY %s,
+                type VARCHAR(32) NOT NULL,
+                player VARCHAR(36) NOT NULL,
+                amount_f DECIMAL(15,2),
+                amount_stars BIGINT,
+                details TEXT,
+                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """.formatted(autoIncrement));
+
+        // Tax obligations table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS tax_obligations (
+                id INTEGER PRIMARY KEY %s,
+                player VARCHAR(36) NOT NULL,
+                type VARCHAR(32) NOT NULL,
+                amount DECIMAL(15,2) NOT NULL,
+                due_date TIMESTAMP NOT NULL,
+                paid INTEGER NOT NULL DEFAULT 0,
+                paid_at TIMESTAMP
+            )
+            """.formatted(autoIncrement));
+
+        // Bounties table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS bounties (
+                id INTEGER PRIMARY KEY %s,
+                description TEXT NOT NULL,
+                reward DECIMAL(15,2) NOT NULL,
+                status VARCHAR(20) NOT NULL DEFAULT 'open',
+                created_by VARCHAR(36) NOT NULL,
+                claimed_by VARCHAR(36),
+                deadline TIMESTAMP,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """.formatted(autoIncrement));
+
+        // Permits table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS permits (
+                id INTEGER PRIMARY KEY %s,
+                player VARCHAR(36) NOT NULL,
+                type VARCHAR(32) NOT NULL,
+                expires_at TIMESTAMP NOT NULL,
+                purchased_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """.formatted(autoIncrement));
+
+        // Withdrawal queue table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS withdrawal_queue (
+                id INTEGER PRIMARY KEY %s,
+                player VARCHAR(36) NOT NULL,
+                amount DECIMAL(15,2) NOT NULL,
+                requested_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                processed INTEGER NOT NULL DEFAULT 0
+            )
+            """.formatted(autoIncrement));
+
+        // Player data table (for virtual balance tracking via Vault)
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS player_data (
+                uuid VARCHAR(36) PRIMARY KEY,
+                username VARCHAR(16),
+                virtual_balance DECIMAL(15,2) NOT NULL DEFAULT 0,
+                last_seen TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+
+        createIndex(conn, "idx_ledger_status", "currency_ledger", "status");
+        createIndex(conn, "idx_transactions_player", "transactions", "player");
+        createIndex(conn, "idx_tax_player", "tax_obligations", "player");
+        createIndex(conn, "idx_permits_player", "permits", "player");
+    }
+
+    /**
+     * v2: PermitManager reads and writes player_id, dimension, price_paid and
+     * status, which the baseline permits table never had. Rebuild it with those
+     * columns and carry existing rows over.
+     *
+     * On MySQL the swap is a single RENAME TABLE, so there is never a moment
+     * without a permits table; the old table is dropped afterwards, or on the
+     * next run if that drop did not happen.
+     */
+    private void rebuildPermits(Connection conn) throws SQLException {
+        if (columnExists(conn, "permits", "player_id")) {
+            execute(conn, "DROP TABLE IF EXISTS permits_v1");
+            return;
+        }
+
+        execute(conn, "DROP TABLE IF EXISTS permits_v2");
+        execute(conn, """
+            CREATE TABLE permits_v2 (
+                id INTEGER PRIMARY KEY %s,
+                player_id VARCHAR(36) NOT NULL,
+                dimension VARCHAR(32) NOT NULL,
+                purchased_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                expires_at TIMESTAMP NOT NULL,
+                price_paid DECIMAL(15,2) NOT NULL DEFAULT 0,
+                status VARCHAR(16) NOT NULL DEFAULT 'active'
+            )
+            """.formatted(isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
+        execute(conn, """
+            INSERT INTO permits_v2 (id, player_id, dimension, purchased_at, expires_at)
+            SELECT id, player, LOWER(type), purchased_at, expires_at FROM permits
+            """);
+        if (isMySQL) {
+            execute(conn, "DROP TABLE IF EXISTS permits_v1");
+            execute(conn, "RENAME TABLE permits TO permits_v1, permits_v2 TO permits");
+            execute(conn, "DROP TABLE permits_v1");
+        } else {
+            execute(conn, "DROP TABLE permits");
+            execute(conn, "ALTER TABLE permits_v2 RENAME TO permits");
+        }
+    }
+
+    /**
+     * v3: one composite index per hot manager query. Single-column indexes
+     * that became a prefix of a composite one are dropped.
+     */
+    private void createHotPathIndexes(Connection conn) throws SQLException {
+        // PermitManager.hasValidPermit / getPermit / getPlayerPermits
+        createIndex(conn, "idx_permits_lookup", "permits", "player_id, dimension, status, expires_at");
+
+        // TaxManager.checkTaxDueDates
+        createIndex(conn, "idx_tax_due", "tax_obligations", "paid, due_date");
+        // TaxManager.getUnpaidTaxes / getTotalOwed / payAllTaxes
+        createIndex(conn, "idx_tax_player_unpaid", "tax_obligations", "player, paid, due_date");
+        dropIndex(conn, "idx_tax_player", "tax_obligations");
+
+        // BountyManager.getOpenBounties
+        createIndex(conn, "idx_bounties_status", "bounties", "status, created_at");
+        // BountyManager.getPlayerBounties
+        createIndex(conn, "idx_bounties_claimed", "bounties", "claimed_by, status, created_at");
+
+        // Per-player audit history, newest first
+        createIndex(conn, "idx_transactions_player_time", "transactions", "player, timestamp");
+        dropIndex(conn, "idx_transactions_player", "transactions");
+
+        // DatabaseManager.getCirculatingCount / BankManager.getCirculatingByDenomination
+        createIndex(conn, "idx_ledger_status_denom", "currency_ledger", "status, denomination");
+        dropIndex(conn, "idx_ledger_status", "currency_ledger");
+
+        // BankManager withdrawal queue lookups
+        createIndex(conn, "idx_withdrawal_player", "withdrawal_queue", "player, processed");
+    }
+
+    /**
+     * v4: key/value settings describing how data is physically stored
+     */
+    private void createStorageSettings(Connection conn) throws SQLException {
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS storage_settings (
+                name VARCHAR(64) PRIMARY KEY,
+                value VARCHAR(64) NOT NULL
+            )
+            """);
+    }
+
+    /**
+     * v5: DECIMAL(15,2) money columns become BIGINT counts of cents, read and
+     * bound as longs through {@link io.github.nsfeconomy.currency.Money}
+     */
+    private void convertMoneyColumns(Connection conn) throws SQLException {
+        convertMoneyColumn(conn, "transactions", "amount_f", "BIGINT NULL");
+        convertMoneyColumn(conn, "tax_obligations", "amount", "BIGINT NOT NULL");
+        convertMoneyColumn(conn, "bounties", "reward", "BIGINT NOT NULL");
+        convertMoneyColumn(conn, "withdrawal_queue", "amount", "BIGINT NOT NULL");
+        convertMoneyColumn(conn, "player_data", "virtual_balance", "BIGINT NOT NULL DEFAULT 0");
+        convertMoneyColumn(conn, "permits", "price_paid", "BIGINT NOT NULL DEFAULT 0");
+    }
+
+    private void convertMoneyColumn(Connection conn, String table, String column, String definition) throws SQLException {
+        if (!isMySQL) {
+            // NUMERIC affinity keeps the rewritten values as integers; the step
+            // shares a transaction with its version row, so it runs exactly once
+            execute(conn, "UPDATE " + table + " SET " + column + " = CAST(ROUND(" + column + " * 100) AS INTEGER)");
+            return;
+        }
+
+        // MySQL DDL is not transactional: convert through a scratch column so
+        // that a rerun after a crash never multiplies the same value twice
+        String scratch = column + "_minor";
+        boolean hasScratch = columnExists(conn, table, scratch);
+        if (!hasScratch && "bigint".equalsIgnoreCase(columnType(conn, table, column))) {
+            return;
+        }
+        if (!hasScratch) {
+            execute(conn, "ALTER TABLE " + table + " ADD COLUMN " + scratch + " BIGINT NULL");
+        }
+        execute(conn, "UPDATE " + table + " SET " + scratch + " = ROUND(" + column + " * 100)");
+        execute(conn, "ALTER TABLE " + table + " DROP COLUMN " + column
+            + ", CHANGE " + scratch + " " + column + " " + definition);
+    }
+
+    /**
+     * v6: tables for {@link TransactionRetention}. On MySQL the transactions
+     * table is also repartitioned by month, which rewrites it once.
+     */
+    private void createTransactionRetention(Connection conn) throws SQLException {
+        String autoIncrement = isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT";
+        boolean binaryUuids = "binary".equals(
+            databaseManager.getStorageSetting(conn, UuidStorageMigrator.SETTING, "string"));
+        String uuidType = !binaryUuids ? "VARCHAR(36)" : isMySQL ? "BINARY(16)" : "BLOB";
+
+        // Daily per-player, per-type totals of archived months
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS transaction_rollups (
+                id INTEGER PRIMARY KEY %s,
+                day VARCHAR(10) NOT NULL,
+                player %s NOT NULL,
+                type VARCHAR(32) NOT NULL,
+                tx_count BIGINT NOT NULL DEFAULT 0,
+                amount_f BIGINT NOT NULL DEFAULT 0,
+                amount_stars BIGINT NOT NULL DEFAULT 0
+            )
+            """.formatted(autoIncrement, uuidType));
+        createIndex(conn, "idx_rollups_player_day", "transaction_rollups", "player, day, type", true);
+
+        // One row per archived partition or rotated table
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS transaction_archives (
+                id INTEGER PRIMARY KEY %s,
+                source VARCHAR(64) NOT NULL UNIQUE,
+                period VARCHAR(6) NOT NULL,
+                first_at BIGINT NOT NULL,
+                last_at BIGINT NOT NULL,
+                row_count BIGINT NOT NULL,
+                file VARCHAR(255) NOT NULL,
+                archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """.formatted(autoIncrement));
+
+        if (isMySQL && !isPartitioned(conn, "transactions")) {
+            partitionTransactions(conn);
+        }
+    }
+
+    /**
+     * Every unique key of a partitioned table must contain the partitioning
+     * column, so the primary key grows to (id, timestamp) first
+     */
+    private void partitionTransactions(Connection conn) throws SQLException {
+        YearMonth first = YearMonth.now();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(timestamp) FROM transactions")) {
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                first = YearMonth.from(rs.getTimestamp(1).toLocalDateTime());
+            }
+        }
+
+        execute(conn, "UPDATE transactions SET timestamp = CURRENT_TIMESTAMP WHERE timestamp IS NULL");
+        execute(conn, "ALTER TABLE transactions MODIFY timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp)");
+        execute(conn, "ALTER TABLE transactions PARTITION BY RANGE (UNIX_TIMESTAMP(timestamp)) ("
+            + TransactionRetention.partitionDefinitions(first, YearMonth.now().plusMonths(1)) + ")");
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // v7: Reserve Journal
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Last reserve journal record included in the reserve row, so startup
+     * recovery knows which records still need replaying
+     */
+    private void addReserveJournalSeq(Connection conn) throws SQLException {
+        if (!columnExists(conn, "reserve", "journal_seq")) {
+            execute(conn, "ALTER TABLE reserve ADD COLUMN journal_seq BIGINT NOT NULL DEFAULT 0");
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // v8: Change Outbox
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Changes other servers poll by id to invalidate their caches
+     */
+    private void createChangeOutbox(Connection conn) throws SQLException {
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS change_outbox (
+                id %s PRIMARY KEY %s,
+                origin VARCHAR(64) NOT NULL,
+                topic VARCHAR(32) NOT NULL,
+                entity_key VARCHAR(128) NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """.formatted(isMySQL ? "BIGINT" : "INTEGER", isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT"));
+        createIndex(conn, "idx_change_outbox_created", "change_outbox", "created_at");
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // v9: Posting Ledger
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Double-entry postings and materialized account balances. Existing
+     * virtual balances are carried over as one opening entry.
+     */
+    private void createPostingLedger(Connection conn) throws SQLException {
+        String idType = isMySQL ? "BIGINT" : "INTEGER";
+        String autoIncrement = isMySQL ? "AUTO_INCREMENT" : "AUTOINCREMENT";
+
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS ledger_entries (
+                id %s PRIMARY KEY %s,
+                entry_type VARCHAR(32) NOT NULL,
+                details TEXT,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """.formatted(idType, autoIncrement));
+
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS ledger_postings (
+                id %s PRIMARY KEY %s,
+                entry_id BIGINT NOT NULL,
+                account VARCHAR(64) NOT NULL,
+                amount BIGINT NOT NULL
+            )
+            """.formatted(idType, autoIncrement));
+        createIndex(conn, "idx_ledger_postings_account", "ledger_postings", "account, entry_id");
+
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS ledger_accounts (
+                account VARCHAR(64) PRIMARY KEY,
+                balance BIGINT NOT NULL DEFAULT 0,
+                last_entry_id BIGINT NOT NULL DEFAULT 0,
+                checked_entry_id BIGINT NOT NULL DEFAULT 0,
+                checked_balance BIGINT NOT NULL DEFAULT 0,
+                checked_at TIMESTAMP NULL
+            )
+            """);
+
+        openLedgerBalances(conn);
+    }
+
+    /**
+     * Post every non-zero player_data balance against the opening account.
+     * Skipped if the ledger already has entries, so a re-run on MySQL does
+     * not post twice.
+     */
+    private void openLedgerBalances(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM ledger_entries")) {
+            if (rs.next() && rs.getLong(1) > 0) {
+                return;
+            }
+        }
+
+        List<String> accounts = new ArrayList<>();
+        List<Long> balances = new ArrayList<>();
+        long total = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT uuid, virtual_balance FROM player_data WHERE virtual_balance <> 0")) {
+            while (rs.next()) {
+                accounts.add(PostingLedger.playerAccount(UuidCodec.fromValue(rs.getObject("uuid"))));
+                balances.add(rs.getLong("virtual_balance"));
+                total += rs.getLong("virtual_balance");
+            }
+        }
+        if (accounts.isEmpty()) {
+            return;
+        }
+        accounts.add(PostingLedger.OPENING);
+        balances.add(-total);
+
+        long entryId;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ledger_entries (entry_type, details) VALUES ('opening_balance', ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, "Carried over from player_data.virtual_balance");
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id returned for opening ledger entry");
+                }
+                entryId = keys.getLong(1);
+            }
+        }
+
+        try (PreparedStatement posting = conn.prepareStatement(
+                "INSERT INTO ledger_postings (entry_id, account, amount) VALUES (?, ?, ?)");
+             PreparedStatement account = conn.prepareStatement(
+                "INSERT INTO ledger_accounts (account, balance, last_entry_id) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < accounts.size(); i++) {
+                posting.setLong(1, entryId);
+                posting.setString(2, accounts.get(i));
+                posting.setLong(3, balances.get(i));
+                posting.addBatch();
+                account.setString(1, accounts.get(i));
+                account.setLong(2, balances.get(i));
+                account.setLong(3, entryId);
+                account.addBatch();
+            }
+            posting.executeBatch();
+            account.executeBatch();
+        }
+        plugin.getLogger().info("Opened " + (accounts.size() - 1) + " ledger account(s) from existing balances.");
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // v10: Write Spool
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Ids of spooled writes already replayed, so a replay interrupted
+     * before the spool file is cleared does not apply them twice
+     */
+    private void createSpoolApplied(Connection conn) throws SQLException {
+        execute(conn, """
+            CREATE TABLE IF NOT EXISTS spool_applied (
+                op_id VARCHAR(36) PRIMARY KEY,
+                applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+        createIndex(conn, "idx_spool_applied_at", "spool_applied", "applied_at");
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // DDL Helpers
+    // ══════════════════════════════════════════════════════════════════════
+
+    static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Create an index unless it exists (MySQL has no CREATE INDEX IF NOT EXISTS)
+     */
+    private void createIndex(Connection conn, String name, String table, String columns) throws SQLException {
+        createIndex(conn, name, table, columns, false);
+    }
+
+    private void createIndex(Connection conn, String name, String table, String columns, boolean unique) throws SQLException {
+        String create = unique ? "CREATE UNIQUE INDEX " : "CREATE INDEX ";
+        if (!isMySQL) {
+            execute(conn, create + "IF NOT EXISTS " + name + " ON " + table + "(" + columns + ")");
+        } else if (!indexExists(conn, name, table)) {
+            execute(conn, create + name + " ON " + table + "(" + columns + ")");
+        }
+    }
+
+    private void dropIndex(Connection conn, String name, String table) throws SQLException {
+        if (!isMySQL) {
+            execute(conn, "DROP INDEX IF EXISTS " + name);
+        } else if (indexExists(conn, name, table)) {
+            execute(conn, "DROP INDEX " + name + " ON " + table);
+        }
+    }
+
+    private boolean indexExists(Connection conn, String name, String table) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.statistics " +
+                     "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setString(2, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private boolean isPartitioned(Connection conn, String table) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.partitions " +
+                     "WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private String columnType(Connection conn, String table, String column) throws SQLException {
+        String sql = "SELECT data_type FROM information_schema.columns " +
+                     "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setString(2, column);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                if (column.equalsIgnoreCase(meta.getColumnName(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+}
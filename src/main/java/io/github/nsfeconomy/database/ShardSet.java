@@ -0,0 +1,493 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.io.File;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Player-sharded SQLite files for the per-player tables that take most of
+ * the writes: the transaction log and player_data.
+ *
+ * SQLite lets one connection write to a file at a time. With shards.count
+ * set, each player's transactions and player_data rows live in
+ * shards/shard-N.db, N picked from the UUID, and every file has its own
+ * writer and readers. The journal and presence flushes split their batches
+ * by shard and write the parts at once, so log throughput grows with the
+ * number of files. Notes, the reserve, the posting ledger, tax obligations
+ * and permits stay in the core database, where a {@link UnitOfWork} still
+ * covers them with one transaction.
+ *
+ * The first startup with shards moves the live rows out of the core tables.
+ * The count is fixed from then on; a different shards.count is ignored with
+ * a warning, since existing rows would be looked up in the wrong file.
+ */
+public class ShardSet {
+
+    static final String SETTING_COUNT = "shard_count";
+
+    // Shard k numbers its transactions from (k + 1) << 48, above any core id
+    private static final int ID_SHIFT = 48;
+    private static final int IMPORT_BATCH = 1000;
+
+    private static final String[] SCHEMA = {
+        """
+        CREATE TABLE IF NOT EXISTS transactions (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            type VARCHAR(32) NOT NULL,
+            player VARCHAR(36) NOT NULL,
+            amount_f BIGINT NULL,
+            amount_stars BIGINT,
+            details TEXT,
+            timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_transactions_player_time ON transactions(player, timestamp)",
+        """
+        CREATE TABLE IF NOT EXISTS player_data (
+            uuid VARCHAR(36) PRIMARY KEY,
+            username VARCHAR(16),
+            virtual_balance BIGINT NOT NULL DEFAULT 0,
+            last_seen TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS storage_settings (
+            name VARCHAR(64) PRIMARY KEY,
+            value VARCHAR(64) NOT NULL
+        )
+        """,
+        // Replayed spool records, committed with the transaction rows they wrote
+        """
+        CREATE TABLE IF NOT EXISTS spool_applied (
+            op_id VARCHAR(36) PRIMARY KEY,
+            applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_spool_applied_at ON spool_applied(applied_at)"
+    };
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final File folder;
+    private final int readersPerShard;
+    private final List<Shard> shards = new ArrayList<>();
+    private ExecutorService workers;
+
+    public ShardSet(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.folder = new File(plugin.getDataFolder(),
+            plugin.getConfig().getString("database.sqlite.shards.folder", "shards"));
+        this.readersPerShard = Math.max(1, plugin.getConfig().getInt("database.sqlite.shards.reader_pool_size", 2));
+    }
+
+    /**
+     * Settle the shard count, open every file and, the first time, move the
+     * live rows over from the core database
+     *
+     * @return false if sharding is off
+     */
+    public boolean open() throws SQLException {
+        int configured = Math.max(0, plugin.getConfig().getInt("database.sqlite.shards.count", 0));
+        String stored = databaseManager.getStorageSetting(SETTING_COUNT, null);
+        int count = stored != null ? Integer.parseInt(stored) : configured;
+        if (stored != null && configured != count) {
+            plugin.getLogger().warning("Player data is already split across " + count + " shard(s); "
+                + "database.sqlite.shards.count: " + configured + " is ignored.");
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new SQLException("Could not create " + folder);
+        }
+        AtomicInteger threads = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(count, runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-Shard-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < count; i++) {
+            Shard shard = new Shard(plugin, i, folder, readersPerShard);
+            shards.add(shard);
+            createSchema(shard);
+        }
+
+        if (stored == null) {
+            importFromCore();
+        } else if (databaseManager.getUuidCodec().isBinary()) {
+            for (Shard shard : shards) {
+                convertUuids(shard);
+            }
+        }
+        plugin.getLogger().info("Player data sharded across " + count + " SQLite file(s) in " + folder.getName() + "/");
+        return true;
+    }
+
+    public void close() {
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * The shard holding a player's rows. The hash is stored implicitly in
+     * where rows live, so it must never change.
+     */
+    public Shard shardFor(UUID player) {
+        long bits = player.getMostSignificantBits() ^ player.getLeastSignificantBits();
+        return shards.get(Math.floorMod(bits, shards.size()));
+    }
+
+    public List<Shard> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    public int getCount() {
+        return shards.size();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Parallel Work
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Run a task on each of the given shards at once and wait for all of them
+     *
+     * @return the error of every shard whose task failed; empty if all succeeded
+     */
+    public Map<Shard, SQLException> runEach(Collection<Shard> targets, ShardTask<?> task) {
+        Map<Shard, SQLException> failures = new LinkedHashMap<>();
+        if (targets.size() == 1) {
+            // Nothing to overlap; skip the hand-off
+            Shard shard = targets.iterator().next();
+            try {
+                task.run(shard);
+            } catch (SQLException e) {
+                failures.put(shard, e);
+            }
+            return failures;
+        }
+
+        Map<Shard, Future<?>> futures = new LinkedHashMap<>();
+        for (Shard shard : targets) {
+            futures.put(shard, workers.submit(() -> task.run(shard)));
+        }
+        for (Map.Entry<Shard, Future<?>> entry : futures.entrySet()) {
+            try {
+                await(entry.getValue());
+            } catch (SQLException e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Run a query on every shard at once
+     *
+     * @return results in shard order
+     * @throws SQLException the first shard's error, once every shard is done
+     */
+    public <T> List<T> fanOut(ShardTask<T> task) throws SQLException {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(workers.submit(() -> task.run(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        SQLException failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(await(future));
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    private static <T> T await(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sql) {
+                throw sql;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new SQLException("Shard task failed", cause);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Setup
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void createSchema(Shard shard) throws SQLException {
+        try (Connection conn = databaseManager.getFileMaintenanceConnection(shard)) {
+            for (String sql : SCHEMA) {
+                SchemaMigrator.execute(conn, sql);
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO sqlite_sequence (name, seq) "
+                    + "SELECT 'transactions', ? WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = 'transactions')")) {
+                ps.setLong(1, (long) (shard.index + 1) << ID_SHIFT);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Copy the core player_data and live transactions rows into their shards,
+     * then clear them from the core database in the same transaction that
+     * records the shard count. Ids are kept, so a copy interrupted by a crash
+     * is simply repeated. Transactions already in the {@link LogStore} are
+     * taken from there instead.
+     */
+    private void importFromCore() throws SQLException {
+        LogStore logStore = databaseManager.getLogStore();
+        SqliteFile log = logStore != null ? logStore.getFile() : null;
+        long players = copyTable(null, "player_data", "uuid", "uuid, username, virtual_balance, last_seen");
+        long transactions = copyTable(log, "transactions", "player",
+            "id, type, player, amount_f, amount_stars, details, timestamp");
+        if (log != null) {
+            try (Connection conn = databaseManager.getFileMaintenanceConnection(log)) {
+                SchemaMigrator.execute(conn, "DELETE FROM transactions");
+            }
+        }
+
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                SchemaMigrator.execute(conn, "DELETE FROM player_data");
+                SchemaMigrator.execute(conn, "DELETE FROM transactions");
+                databaseManager.setStorageSetting(conn, SETTING_COUNT, String.valueOf(shards.size()));
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        if (players > 0 || transactions > 0) {
+            plugin.getLogger().info("Moved " + players + " player rows and " + transactions
+                + " transactions into " + shards.size() + " shard(s).");
+        }
+    }
+
+    /**
+     * @param source File to read from, or null for the core database
+     */
+    private long copyTable(SqliteFile source, String table, String uuidColumn, String columns) throws SQLException {
+        String[] names = columns.split(", ");
+        int uuidIndex = Arrays.asList(names).indexOf(uuidColumn);
+        String insert = "INSERT OR IGNORE INTO " + table + " (" + columns + ") VALUES ("
+            + "?, ".repeat(names.length - 1) + "?)";
+        UuidCodec codec = databaseManager.getUuidCodec();
+
+        Map<Shard, List<Object[]>> buffers = new HashMap<>();
+        long copied = 0;
+        try (Connection conn = source != null ? databaseManager.getFileReadConnection(source)
+                 : databaseManager.getReadConnection();
+             Statement stmt = databaseManager.getStreaming().createStatement(conn);
+             ResultSet rs = stmt.executeQuery("SELECT " + columns + " FROM " + table)) {
+            while (rs.next()) {
+                Object[] row = new Object[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                // Shards hold one UUID format, whatever mix the core table had
+                UUID uuid = UuidCodec.fromValue(row[uuidIndex]);
+                row[uuidIndex] = codec.isBinary() ? UuidCodec.toBytes(uuid) : uuid.toString();
+
+                Shard shard = shardFor(uuid);
+                List<Object[]> buffer = buffers.computeIfAbsent(shard, key -> new ArrayList<>());
+                buffer.add(row);
+                if (buffer.size() >= IMPORT_BATCH) {
+                    writeRows(shard, insert, buffer);
+                    buffer.clear();
+                }
+                copied++;
+            }
+        }
+        for (Map.Entry<Shard, List<Object[]>> entry : buffers.entrySet()) {
+            writeRows(entry.getKey(), insert, entry.getValue());
+        }
+        return copied;
+    }
+
+    private void writeRows(Shard shard, String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try (Connection conn = databaseManager.getFileMaintenanceConnection(shard);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            try {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Bring rows written before the core database switched to binary UUIDs
+     * into the same format. A player_data row that already exists in binary
+     * is newer, so the string copy is dropped.
+     */
+    private void convertUuids(Shard shard) throws SQLException {
+        long converted = convertColumn(shard, "transactions", "player", "UPDATE");
+        converted += convertColumn(shard, "player_data", "uuid", "UPDATE OR IGNORE");
+        if (converted == 0) {
+            return;
+        }
+        try (Connection conn = databaseManager.getFileMaintenanceConnection(shard)) {
+            SchemaMigrator.execute(conn, "DELETE FROM player_data WHERE typeof(uuid) = 'text'");
+        }
+        plugin.getLogger().info("Converted " + converted + " UUIDs in " + shard.getName() + " to binary.");
+    }
+
+    private long convertColumn(Shard shard, String table, String column, String update) throws SQLException {
+        long converted = 0;
+        long cursor = 0;
+        try (Connection conn = databaseManager.getFileMaintenanceConnection(shard)) {
+            while (true) {
+                List<Object[]> chunk = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement("SELECT rowid, " + column + " FROM " + table
+                        + " WHERE rowid > ? AND typeof(" + column + ") = 'text' ORDER BY rowid LIMIT " + IMPORT_BATCH)) {
+                    ps.setLong(1, cursor);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            chunk.add(new Object[]{rs.getLong(1), rs.getString(2)});
+                        }
+                    }
+                }
+                if (chunk.isEmpty()) {
+                    return converted;
+                }
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        update + " " + table + " SET " + column + " = ? WHERE rowid = ?")) {
+                    for (Object[] row : chunk) {
+                        ps.setBytes(1, UuidCodec.toBytes(UUID.fromString((String) row[1])));
+                        ps.setLong(2, (Long) row[0]);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                converted += chunk.size();
+                cursor = (Long) chunk.get(chunk.size() - 1)[0];
+            }
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Status
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Row counts and file size of every shard, counted in parallel
+     */
+    public List<ShardStatus> getStatus() throws SQLException {
+        return fanOut(shard -> {
+            try (Connection conn = databaseManager.getFileReadConnection(shard);
+                 Statement stmt = conn.createStatement()) {
+                long transactions;
+                long players;
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM transactions")) {
+                    transactions = rs.next() ? rs.getLong(1) : 0;
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM player_data")) {
+                    players = rs.next() ? rs.getLong(1) : 0;
+                }
+                return new ShardStatus(shard.getName(), players, transactions, shard.getFile().length());
+            }
+        });
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    @FunctionalInterface
+    public interface ShardTask<T> {
+        T run(Shard shard) throws SQLException;
+    }
+
+    public static final class Shard extends SqliteFile {
+        private final int index;
+
+        Shard(NSFEconomy plugin, int index, File folder, int readers) {
+            super(plugin, "shard-" + index, new File(folder, "shard-" + index + ".db"), readers);
+            this.index = index;
+        }
+
+        public int getIndex() { return index; }
+    }
+
+    public static class ShardStatus {
+        private final String shard;
+        private final long players;
+        private final long transactions;
+        private final long fileBytes;
+
+        public ShardStatus(String shard, long players, long transactions, long fileBytes) {
+            this.shard = shard;
+            this.players = players;
+            this.transactions = transactions;
+            this.fileBytes = fileBytes;
+        }
+
+        public String getShard() { return shard; }
+        public long getPlayers() { return players; }
+        public long getTransactions() { return transactions; }
+        public long getFileBytes() { return fileBytes; }
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.nsfeconomy.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.io.File;
+
+/**
+ * A SQLite file next to the core database, such as a {@link ShardSet shard}
+ * or the {@link LogStore}, with one writer connection and a few read-only
+ * ones. Connections are taken through DatabaseManager's getFile* methods so
+ * the circuit breaker and metrics see them.
+ */
+public class SqliteFile {
+
+    private final String name;
+    private final File file;
+    private final HikariDataSource writer;
+    private final HikariDataSource reader;
+
+    SqliteFile(NSFEconomy plugin, String name, File file, int readers) {
+        this.name = name;
+        this.file = file;
+        String url = "jdbc:sqlite:" + file.getAbsolutePath();
+        String poolName = "NSFEconomy-" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        int busyTimeout = plugin.getConfig().getInt("database.sqlite.wal.busy_timeout", 5000);
+        int cacheSizeKb = plugin.getConfig().getInt("database.sqlite.wal.cache_size_kb", 16384);
+
+        // Same settings as the core database in WAL mode
+        HikariConfig writerConfig = new HikariConfig();
+        writerConfig.setDriverClassName("org.sqlite.JDBC");
+        writerConfig.setJdbcUrl(url);
+        writerConfig.setMaximumPoolSize(1);
+        writerConfig.setConnectionTestQuery("SELECT 1");
+        writerConfig.setPoolName(poolName + "-Writer");
+        writerConfig.addDataSourceProperty("journal_mode", "WAL");
+        writerConfig.addDataSourceProperty("synchronous",
+            plugin.getConfig().getString("database.sqlite.wal.synchronous", "NORMAL"));
+        writerConfig.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        writerConfig.addDataSourceProperty("cache_size", String.valueOf(-cacheSizeKb));
+        writerConfig.addDataSourceProperty("temp_store", "MEMORY");
+        this.writer = new HikariDataSource(writerConfig);
+
+        HikariConfig readerConfig = new HikariConfig();
+        readerConfig.setDriverClassName("org.sqlite.JDBC");
+        readerConfig.setJdbcUrl(url);
+        readerConfig.setMaximumPoolSize(Math.max(1, readers));
+        readerConfig.setMinimumIdle(1);
+        readerConfig.setConnectionInitSql("PRAGMA query_only = ON");
+        readerConfig.setConnectionTestQuery("SELECT 1");
+        readerConfig.setPoolName(poolName + "-Reader");
+        readerConfig.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        readerConfig.addDataSourceProperty("cache_size", String.valueOf(-cacheSizeKb));
+        readerConfig.addDataSourceProperty("temp_store", "MEMORY");
+        this.reader = new HikariDataSource(readerConfig);
+    }
+
+    public String getName() { return name; }
+    public File getFile() { return file; }
+    HikariDataSource getWriter() { return writer; }
+    HikariDataSource getReader() { return reader; }
+
+    void close() {
+        if (!reader.isClosed()) {
+            reader.close();
+        }
+        if (!writer.isClosed()) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Keeps a SQLite database file healthy: planner statistics, free pages and
+ * the WAL file.
+ *
+ * Work only starts in a quiet window, with at most idle_max_players online
+ * and the server at min_tps or better. It is split into short steps, each
+ * holding the writer connection briefly: PRAGMA optimize, ANALYZE of one
+ * table, a WAL checkpoint, or incremental_vacuum of vacuum_pages_per_step
+ * pages. Between steps the connection is released and the window checked
+ * again, so players logging in stop the run.
+ *
+ * Incremental vacuum needs auto_vacuum = INCREMENTAL. Databases created
+ * without it are converted with one full VACUUM, but only when
+ * convert_to_incremental is set, since that blocks writers until it ends.
+ */
+public class SqliteMaintenance {
+
+    private static final String SETTING_LAST_ANALYZE = "maintenance_last_analyze";
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final long checkIntervalMinutes;
+    private final int idleMaxPlayers;
+    private final double minTps;
+    private final long analyzeIntervalMs;
+    private final int analysisLimit;
+    private final int vacuumPagesPerStep;
+    private final int minFreePages;
+    private final long stepPauseMs;
+    private final boolean convertToIncremental;
+
+    private ScheduledExecutorService worker;
+    private BukkitTask sampler;
+    // Sampled on the server thread
+    private volatile int onlinePlayers;
+    private volatile double tps = 20.0;
+
+    private volatile RunReport lastRun;
+    private boolean conversionNoticeLogged;
+
+    public SqliteMaintenance(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.checkIntervalMinutes = Math.max(1, plugin.getConfig().getLong("database.maintenance.check_interval_minutes", 10));
+        this.idleMaxPlayers = plugin.getConfig().getInt("database.maintenance.idle_max_players", 2);
+        this.minTps = plugin.getConfig().getDouble("database.maintenance.min_tps", 19.0);
+        this.analyzeIntervalMs = TimeUnit.HOURS.toMillis(Math.max(1, plugin.getConfig().getLong("database.maintenance.analyze_interval_hours", 24)));
+        this.analysisLimit = Math.max(0, plugin.getConfig().getInt("database.maintenance.analysis_limit", 1000));
+        this.vacuumPagesPerStep = Math.max(1, plugin.getConfig().getInt("database.maintenance.vacuum_pages_per_step", 500));
+        this.minFreePages = Math.max(0, plugin.getConfig().getInt("database.maintenance.min_free_pages", 1000));
+        this.stepPauseMs = Math.max(0, plugin.getConfig().getLong("database.maintenance.step_pause_ms", 250));
+        this.convertToIncremental = plugin.getConfig().getBoolean("database.maintenance.convert_to_incremental", false);
+    }
+
+    public void start() {
+        sampler = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            onlinePlayers = Bukkit.getOnlinePlayers().size();
+            double[] recent = Bukkit.getTPS();
+            tps = recent != null && recent.length > 0 ? recent[0] : 20.0;
+        }, 20L, 20L * 30);
+
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-Maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(() -> runSafely(false), checkIntervalMinutes, checkIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        if (sampler != null) {
+            sampler.cancel();
+        }
+        if (worker != null) {
+            worker.shutdownNow();
+            try {
+                worker.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Whether the server is quiet enough for maintenance
+     */
+    public boolean isQuiet() {
+        return onlinePlayers <= idleMaxPlayers && tps >= minTps;
+    }
+
+    /**
+     * Run a pass on the maintenance thread now
+     *
+     * @param force Ignore the quiet window
+     */
+    public void runNow(boolean force) {
+        if (worker != null) {
+            worker.execute(() -> runSafely(force));
+        }
+    }
+
+    public RunReport getLastRun() {
+        return lastRun;
+    }
+
+    public int getOnlinePlayers() { return onlinePlayers; }
+    public double getTps() { return tps; }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Steps
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void runSafely(boolean force) {
+        try {
+            run(force);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "SQLite maintenance failed", e);
+        }
+    }
+
+    private void run(boolean force) throws SQLException, InterruptedException {
+        if (!force && !isQuiet()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        RunReport report = new RunReport(start);
+        lastRun = report;
+
+        step(conn -> execute(conn, "PRAGMA optimize"));
+        report.optimized = true;
+
+        // Full statistics now and then, one table per step
+        long lastAnalyze = Long.parseLong(databaseManager.getStorageSetting(SETTING_LAST_ANALYZE, "0"));
+        if (start - lastAnalyze >= analyzeIntervalMs) {
+            for (String table : listTables()) {
+                if (!pause(force)) {
+                    return;
+                }
+                step(conn -> {
+                    // Sample at most analysis_limit rows per index
+                    execute(conn, "PRAGMA analysis_limit = " + analysisLimit);
+                    execute(conn, "ANALYZE \"" + table.replace("\"", "\"\"") + "\"");
+                });
+                report.analyzed++;
+            }
+            databaseManager.setStorageSetting(SETTING_LAST_ANALYZE, String.valueOf(start));
+        }
+
+        if (!pause(force)) {
+            return;
+        }
+        if (ensureIncrementalVacuum(force)) {
+            int free;
+            while ((free = queryInt("PRAGMA freelist_count")) > minFreePages) {
+                if (!pause(force)) {
+                    return;
+                }
+                step(conn -> execute(conn, "PRAGMA incremental_vacuum(" + vacuumPagesPerStep + ")"));
+                report.vacuumedPages += Math.min(free, vacuumPagesPerStep);
+            }
+        }
+
+        if (!pause(force)) {
+            return;
+        }
+        if ("wal".equalsIgnoreCase(queryString("PRAGMA journal_mode"))) {
+            // TRUNCATE also shrinks the -wal file back to zero bytes
+            step(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(TRUNCATE)")) {
+                    if (rs.next()) {
+                        report.checkpointBusy = rs.getInt(1) != 0;
+                        report.checkpointedFrames = rs.getInt(3);
+                    }
+                }
+            });
+        }
+
+        report.durationMs = System.currentTimeMillis() - start;
+        report.completed = true;
+        plugin.debug("SQLite maintenance finished in " + report.durationMs + "ms: analyzed " + report.analyzed
+            + " table(s), vacuumed " + report.vacuumedPages + " page(s), checkpointed " + report.checkpointedFrames + " frame(s)");
+    }
+
+    /**
+     * Whether incremental vacuum is available, converting the database once
+     * if allowed
+     */
+    private boolean ensureIncrementalVacuum(boolean force) throws SQLException {
+        int mode = queryInt("PRAGMA auto_vacuum");
+        if (mode == 2) {
+            return true;
+        }
+        if (!convertToIncremental) {
+            if (!conversionNoticeLogged) {
+                conversionNoticeLogged = true;
+                plugin.getLogger().info("SQLite incremental vacuum is off for this database; set "
+                    + "database.maintenance.convert_to_incremental to convert it with one full VACUUM.");
+            }
+            return false;
+        }
+        if (!force && onlinePlayers > 0) {
+            // The full VACUUM blocks every write until it ends
+            return false;
+        }
+        plugin.getLogger().info("Converting the SQLite database to incremental vacuum (full VACUUM)...");
+        long start = System.currentTimeMillis();
+        step(conn -> {
+            execute(conn, "PRAGMA auto_vacuum = INCREMENTAL");
+            execute(conn, "VACUUM");
+        });
+        plugin.getLogger().info("SQLite database converted in " + (System.currentTimeMillis() - start) + "ms.");
+        return true;
+    }
+
+    /**
+     * Release the writer between steps; false if the window has closed
+     */
+    private boolean pause(boolean force) throws InterruptedException {
+        if (stepPauseMs > 0) {
+            Thread.sleep(stepPauseMs);
+        }
+        if (!force && !isQuiet()) {
+            plugin.debug("SQLite maintenance paused; the server is busy.");
+            return false;
+        }
+        return true;
+    }
+
+    private void step(Step step) throws SQLException {
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            step.run(conn);
+        }
+    }
+
+    private List<String> listTables() throws SQLException {
+        List<String> tables = new ArrayList<>();
+        step(conn -> {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                     "SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%' ORDER BY name")) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+        });
+        return tables;
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        int[] value = new int[1];
+        step(conn -> {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                value[0] = rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+        return value[0];
+    }
+
+    private String queryString(String sql) throws SQLException {
+        String[] value = new String[1];
+        step(conn -> {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                value[0] = rs.next() ? rs.getString(1) : null;
+            }
+        });
+        return value[0];
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    @FunctionalInterface
+    private interface Step {
+        void run(Connection conn) throws SQLException;
+    }
+
+    public static class RunReport {
+        private final long startedAt;
+        private boolean optimized;
+        private boolean completed;
+        private int analyzed;
+        private long vacuumedPages;
+        private int checkpointedFrames;
+        private boolean checkpointBusy;
+        private long durationMs;
+
+        RunReport(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        public long getStartedAt() { return startedAt; }
+        public boolean isOptimized() { return optimized; }
+        public boolean isCompleted() { return completed; }
+        public int getAnalyzed() { return analyzed; }
+        public long getVacuumedPages() { return vacuumedPages; }
+        public int getCheckpointedFrames() { return checkpointedFrames; }
+        public boolean isCheckpointBusy() { return checkpointBusy; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,440 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Write-behind journal for the transactions table.
+ *
+ * Callers hand records to {@link #append} without touching the connection pool.
+ * A single background writer drains the queue and inserts the records as JDBC
+ * batches, one database transaction per batch. Batches are flushed when they
+ * reach the configured size or when the flush interval elapses, whichever
+ * comes first. With {@link ShardSet shards} a batch is split by player and
+ * the parts are written to their shards at the same time.
+ */
+public class TransactionJournal {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO transactions (type, player, amount_f, amount_stars, details, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+
+    private final ConcurrentLinkedQueue<TransactionRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService writer;
+
+    private final int capacity;
+    private final int batchSize;
+    private final int maxRetries;
+    private final OverflowPolicy overflowPolicy;
+
+    // Batch that failed to commit, retried on the next flush (writer thread only)
+    private List<TransactionRecord> retryBatch;
+    private int retryAttempts;
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private volatile long lastFlushNanos;
+    private volatile long lastOverflowWarning;
+
+    public TransactionJournal(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.capacity = Math.max(1, plugin.getConfig().getInt("database.journal.capacity", 10000));
+        // The log store has a writer of its own, so it takes larger batches
+        this.batchSize = Math.max(1, databaseManager.getLogStore() != null
+            ? plugin.getConfig().getInt("database.sqlite.log_store.batch_size", 2000)
+            : plugin.getConfig().getInt("database.journal.batch_size", 500));
+        this.maxRetries = Math.max(0, plugin.getConfig().getInt("database.journal.max_retries", 5));
+        this.overflowPolicy = OverflowPolicy.fromConfig(
+            plugin.getConfig().getString("database.journal.overflow_policy", "sync"));
+
+        long flushInterval = Math.max(50, plugin.getConfig().getLong("database.journal.flush_interval_ms", 1000));
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-TransactionJournal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushSafely, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a transaction record for the next batch.
+     *
+     * @return false if the record was dropped because the journal is full
+     */
+    public boolean append(String type, UUID player, Money amount, long amountStars, String details) {
+        TransactionRecord record = new TransactionRecord(type, player, amount.minor(), amountStars, details,
+            System.currentTimeMillis());
+
+        if (closed) {
+            // Late writes during shutdown go straight to the database
+            return writeDirect(record);
+        }
+
+        int size = pending.incrementAndGet();
+        if (size > capacity) {
+            pending.decrementAndGet();
+            return handleOverflow(record);
+        }
+
+        queue.offer(record);
+        accepted.increment();
+        highWaterMark.accumulateAndGet(size, Math::max);
+
+        if (size >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+        return true;
+    }
+
+    private boolean handleOverflow(TransactionRecord record) {
+        long now = System.currentTimeMillis();
+        if (now - lastOverflowWarning > 60_000L) {
+            lastOverflowWarning = now;
+            plugin.getLogger().warning("Transaction journal is full (" + capacity + " pending records), "
+                + (overflowPolicy == OverflowPolicy.DROP ? "dropping" : "writing synchronously") + ".");
+        }
+
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            dropped.increment();
+            return false;
+        }
+
+        overflowed.increment();
+        return writeDirect(record);
+    }
+
+    private boolean writeDirect(TransactionRecord record) {
+        List<TransactionRecord> single = new ArrayList<>(1);
+        single.add(record);
+        try (Connection conn = databaseManager.getLogConnection(record.player)) {
+            insertBatch(conn, single);
+            written.increment();
+            return true;
+        } catch (SQLException e) {
+            if (spill(single, e)) {
+                return true;
+            }
+            plugin.getLogger().log(Level.SEVERE, "Failed to log transaction", e);
+            dropped.increment();
+            return false;
+        }
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (Throwable t) {
+            plugin.getLogger().log(Level.SEVERE, "Unexpected error while flushing transaction journal", t);
+        }
+    }
+
+    /**
+     * Drain the queue into the database. Only ever runs on the writer thread,
+     * or on the caller of {@link #close()} once the writer has stopped.
+     */
+    private void flush() {
+        if (retryBatch != null && !writeBatch(retryBatch)) {
+            return;
+        }
+
+        while (!queue.isEmpty()) {
+            List<TransactionRecord> batch = new ArrayList<>(Math.min(batchSize, pending.get()));
+            TransactionRecord record;
+            while (batch.size() < batchSize && (record = queue.poll()) != null) {
+                batch.add(record);
+            }
+            pending.addAndGet(-batch.size());
+
+            if (batch.isEmpty() || !writeBatch(batch)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write one batch inside a single transaction.
+     *
+     * @return true if the batch was committed or given up on, false if it will be retried
+     */
+    private boolean writeBatch(List<TransactionRecord> batch) {
+        ShardSet shards = databaseManager.getShards();
+        if (shards != null) {
+            return writeSharded(shards, batch);
+        }
+        long start = System.nanoTime();
+        try (Connection conn = databaseManager.getLogConnection()) {
+            insertBatch(conn, batch);
+            written.add(batch.size());
+            batches.incrementAndGet();
+            lastFlushNanos = System.nanoTime() - start;
+            retryBatch = null;
+            retryAttempts = 0;
+            return true;
+        } catch (SQLException e) {
+            return handleFailure(batch, e);
+        }
+    }
+
+    /**
+     * Split a batch by shard and write the parts at once, one transaction
+     * per shard. Records from the parts that failed go on as one batch.
+     */
+    private boolean writeSharded(ShardSet shards, List<TransactionRecord> batch) {
+        long start = System.nanoTime();
+        Map<ShardSet.Shard, List<TransactionRecord>> parts = new LinkedHashMap<>();
+        for (TransactionRecord record : batch) {
+            parts.computeIfAbsent(shards.shardFor(record.player), shard -> new ArrayList<>()).add(record);
+        }
+        Map<ShardSet.Shard, SQLException> failures = shards.runEach(parts.keySet(), shard -> {
+            try (Connection conn = databaseManager.getFileConnection(shard)) {
+                insertBatch(conn, parts.get(shard));
+            }
+            return null;
+        });
+        if (failures.isEmpty()) {
+            written.add(batch.size());
+            batches.incrementAndGet();
+            lastFlushNanos = System.nanoTime() - start;
+            retryBatch = null;
+            retryAttempts = 0;
+            return true;
+        }
+
+        List<TransactionRecord> failed = new ArrayList<>();
+        SQLException cause = null;
+        for (Map.Entry<ShardSet.Shard, SQLException> failure : failures.entrySet()) {
+            failed.addAll(parts.get(failure.getKey()));
+            if (cause == null) {
+                cause = failure.getValue();
+            } else {
+                cause.addSuppressed(failure.getValue());
+            }
+        }
+        written.add(batch.size() - failed.size());
+        return handleFailure(failed, cause);
+    }
+
+    /**
+     * Spool, keep or give up on a batch that failed to commit
+     */
+    private boolean handleFailure(List<TransactionRecord> batch, SQLException e) {
+        if (spill(batch, e)) {
+            retryBatch = null;
+            retryAttempts = 0;
+            return true;
+        }
+        if (e instanceof DatabaseGuard.CircuitOpenException) {
+            // Keep the batch without spending a retry; it goes out once the circuit closes
+            retryBatch = batch;
+            return false;
+        }
+        failedFlushes.increment();
+        if (++retryAttempts > maxRetries) {
+            plugin.getLogger().log(Level.SEVERE, "Giving up on " + batch.size()
+                + " transaction log records after " + maxRetries + " retries", e);
+            dropped.add(batch.size());
+            retryBatch = null;
+            retryAttempts = 0;
+            return true;
+        }
+        plugin.getLogger().log(Level.WARNING, "Failed to flush " + batch.size()
+            + " transaction log records, will retry", e);
+        retryBatch = batch;
+        return false;
+    }
+
+    /**
+     * Move records the database could not take into the write spool
+     *
+     * @return true if the spool now holds them
+     */
+    private boolean spill(List<TransactionRecord> batch, SQLException cause) {
+        WriteSpool spool = databaseManager.getWriteSpool();
+        if (spool == null || !spool.accepts(cause)) {
+            return false;
+        }
+        try {
+            spool.spoolTransactions(batch);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to spool " + batch.size() + " transaction log records", e);
+            return false;
+        }
+    }
+
+    private void insertBatch(Connection conn, List<TransactionRecord> batch) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            for (TransactionRecord record : batch) {
+                ps.setString(1, record.type);
+                databaseManager.setUuid(ps, 2, record.player);
+                ps.setLong(3, record.amountMinor);
+                ps.setLong(4, record.amountStars);
+                ps.setString(5, record.details);
+                ps.setTimestamp(6, new Timestamp(record.timestamp));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Stop the background writer and write out everything still queued.
+     * Safe to call more than once.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Transaction journal writer did not stop in time.");
+                writer.shutdownNow();
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        // Final drain on the calling thread; retries are pointless past this point
+        flush();
+        if (retryBatch != null) {
+            plugin.getLogger().severe("Lost " + retryBatch.size() + " transaction log records during shutdown.");
+            dropped.add(retryBatch.size());
+            retryBatch = null;
+        }
+        if (!queue.isEmpty()) {
+            plugin.getLogger().severe("Lost " + queue.size() + " transaction log records during shutdown.");
+            dropped.add(queue.size());
+            queue.clear();
+        }
+
+        plugin.getLogger().info("Transaction journal drained (" + written.sum() + " records written, "
+            + dropped.sum() + " dropped).");
+    }
+
+    /**
+     * Whether the journal is more than three quarters full
+     */
+    public boolean isBackpressured() {
+        return pending.get() >= capacity * 3 / 4;
+    }
+
+    public JournalStats getStats() {
+        return new JournalStats(
+            pending.get(), capacity, highWaterMark.get(),
+            accepted.sum(), written.sum(), dropped.sum(), overflowed.sum(),
+            batches.get(), failedFlushes.sum(), lastFlushNanos / 1_000_000.0
+        );
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    public enum OverflowPolicy {
+        SYNC, DROP;
+
+        static OverflowPolicy fromConfig(String value) {
+            return "drop".equalsIgnoreCase(value) ? DROP : SYNC;
+        }
+    }
+
+    static class TransactionRecord {
+        final String type;
+        final UUID player;
+        final long amountMinor;
+        final long amountStars;
+        final String details;
+        final long timestamp;
+
+        TransactionRecord(String type, UUID player, long amountMinor, long amountStars, String details, long timestamp) {
+            this.type = type;
+            this.player = player;
+            this.amountMinor = amountMinor;
+            this.amountStars = amountStars;
+            this.details = details;
+            this.timestamp = timestamp;
+        }
+    }
+
+    public static class JournalStats {
+        private final int pending;
+        private final int capacity;
+        private final int highWaterMark;
+        private final long accepted;
+        private final long written;
+        private final long dropped;
+        private final long overflowed;
+        private final long batches;
+        private final long failedFlushes;
+        private final double lastFlushMillis;
+
+        public JournalStats(int pending, int capacity, int highWaterMark, long accepted, long written,
+                            long dropped, long overflowed, long batches, long failedFlushes, double lastFlushMillis) {
+            this.pending = pending;
+            this.capacity = capacity;
+            this.highWaterMark = highWaterMark;
+            this.accepted = accepted;
+            this.written = written;
+            this.dropped = dropped;
+            this.overflowed = overflowed;
+            this.batches = batches;
+            this.failedFlushes = failedFlushes;
+            this.lastFlushMillis = lastFlushMillis;
+        }
+
+        public int getPending() { return pending; }
+        public int getCapacity() { return capacity; }
+        public int getHighWaterMark() { return highWaterMark; }
+        public long getAccepted() { return accepted; }
+        public long getWritten() { return written; }
+        public long getDropped() { return dropped; }
+        public long getOverflowed() { return overflowed; }
+        public long getBatches() { return batches; }
+        public long getFailedFlushes() { return failedFlushes; }
+        public double getLastFlushMillis() { return lastFlushMillis; }
+    }
+}
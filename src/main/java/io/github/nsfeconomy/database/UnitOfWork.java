@@ -0,0 +1,316 @@
+package io.github.nsfeconomy.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One connection and one database transaction shared by every manager call
+ * made for a logical operation, such as a deposit or a trade.
+ *
+ * While a unit is open on a thread, {@link DatabaseManager} hands out views
+ * of its connection instead of pool checkouts, so recordNote, addToReserve
+ * and the rest write into the same transaction, which commits once when the
+ * unit ends. Units opened inside another join it.
+ *
+ * A view behaves like a connection of its own to the code using it. Closing
+ * it does nothing; turning auto-commit off starts a savepoint, and commit or
+ * rollback release or roll back to that savepoint, so code that manages its
+ * own transaction, such as the posting ledger, nests inside the unit.
+ *
+ * Effects outside the database wait for the outcome: journal appends and
+ * cache updates are registered with {@link #afterCommit}, undo steps for the
+ * in-memory reserve with {@link #onRollback}.
+ *
+ * A statement that fails inside the unit fails the whole unit: the work is
+ * rolled back and the caller gets the SQLException, even when the manager
+ * that ran the statement only logged it and returned false.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    // Null for a detached unit, whose writes go out one by one
+    private final Connection connection;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final List<Runnable> onRollback = new ArrayList<>();
+    private boolean rollbackOnly;
+    // First statement that failed in the unit
+    private SQLException failure;
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * The unit open on this thread, or null
+     */
+    public static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Run an action once the current unit commits, or now outside a unit
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit != null) {
+            unit.afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Run an action if the current unit rolls back; nothing outside a unit
+     */
+    public static void onRollback(Runnable action) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit != null) {
+            unit.onRollback.add(action);
+        }
+    }
+
+    /**
+     * Roll the unit back when the work returns instead of committing it
+     */
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Throw if a statement failed in the unit, so work nested in it stops
+     * before handing anything out
+     */
+    public void checkFailure() throws SQLException {
+        if (failure != null) {
+            throw new SQLException("Unit of work rolled back after a failed statement", failure);
+        }
+    }
+
+    /**
+     * Whether the writes share one transaction. A detached unit runs its
+     * work with ordinary connections; see {@link DatabaseManager#inTransaction}.
+     */
+    public boolean isBound() {
+        return connection != null;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Lifecycle
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Run work in a new unit on a pool connection, which is closed after
+     */
+    static <T> T execute(Connection conn, Work<T> work) throws SQLException {
+        UnitOfWork unit = new UnitOfWork(conn);
+        try (conn) {
+            conn.setAutoCommit(false);
+            T result;
+            CURRENT.set(unit);
+            try {
+                result = work.run(unit);
+            } catch (SQLException | RuntimeException | Error e) {
+                unit.rollback(e);
+                throw e;
+            } finally {
+                CURRENT.remove();
+            }
+
+            if (unit.failure != null) {
+                SQLException e = new SQLException("Unit of work rolled back after a failed statement", unit.failure);
+                unit.rollback(e);
+                throw e;
+            }
+            if (unit.rollbackOnly) {
+                unit.rollback(null);
+                return result;
+            }
+            try {
+                conn.commit();
+            } catch (SQLException e) {
+                unit.rollback(e);
+                throw e;
+            }
+            conn.setAutoCommit(true);
+            for (Runnable action : unit.afterCommit) {
+                action.run();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Run work without a shared transaction
+     */
+    static <T> T detached(Work<T> work) throws SQLException {
+        return work.run(new UnitOfWork(null));
+    }
+
+    private void rollback(Throwable cause) throws SQLException {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            if (cause == null) {
+                throw e;
+            }
+            cause.addSuppressed(e);
+        } finally {
+            // Undo in reverse order
+            for (int i = onRollback.size() - 1; i >= 0; i--) {
+                onRollback.get(i).run();
+            }
+        }
+    }
+
+    /**
+     * A connection over the unit's transaction for one caller
+     */
+    Connection view() {
+        return (Connection) Proxy.newProxyInstance(UnitOfWork.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, new ViewHandler());
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Connection Views
+    // ══════════════════════════════════════════════════════════════════════
+
+    private final class ViewHandler implements InvocationHandler {
+        private boolean autoCommit = true;
+        private boolean closed;
+        // Marks where the caller's own transaction began
+        private Savepoint savepoint;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        release();
+                        closed = true;
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                case "getAutoCommit" -> {
+                    return autoCommit;
+                }
+                case "setAutoCommit" -> {
+                    boolean enable = (Boolean) args[0];
+                    if (enable && !autoCommit) {
+                        release();
+                    } else if (!enable && autoCommit) {
+                        savepoint = connection.setSavepoint();
+                    }
+                    autoCommit = enable;
+                    return null;
+                }
+                case "commit" -> {
+                    // The unit commits; the caller's transaction just ends
+                    if (!autoCommit) {
+                        release();
+                        savepoint = connection.setSavepoint();
+                    }
+                    return null;
+                }
+                case "rollback" -> {
+                    if (args != null) {
+                        return call(connection, method, args);
+                    }
+                    if (savepoint != null) {
+                        connection.rollback(savepoint);
+                    } else {
+                        rollbackOnly = true;
+                    }
+                    return null;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> { }
+            }
+
+            Object result = call(connection, method, args);
+            if (result instanceof Statement statement) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                    : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(UnitOfWork.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement));
+            }
+            return result;
+        }
+
+        private void release() throws SQLException {
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+                savepoint = null;
+            }
+        }
+    }
+
+    /**
+     * A failed statement fails the unit: the manager that ran it may only
+     * report false, and MySQL may already have undone the transaction on a
+     * deadlock
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+
+        StatementHandler(Statement target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return call(target, method, args);
+            } catch (SQLException e) {
+                if (method.getName().startsWith("execute")) {
+                    rollbackOnly = true;
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(UnitOfWork unit) throws SQLException;
+    }
+}
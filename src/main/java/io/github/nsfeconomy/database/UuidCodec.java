@@ -0,0 +1,87 @@
+package io.github.nsfeconomy.database;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Converts UUIDs between their Java form and the column format in use.
+ *
+ * String storage keeps the 36-character text form. Binary storage keeps the
+ * 16 raw bytes (BINARY(16) on MySQL, a BLOB value on SQLite), most
+ * significant half first so that byte order matches the text order.
+ */
+public final class UuidCodec {
+
+    public static final int BINARY_LENGTH = 16;
+
+    private final boolean binary;
+
+    public UuidCodec(boolean binary) {
+        this.binary = binary;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Bind a UUID (or SQL NULL) to a statement parameter
+     */
+    public void set(PreparedStatement ps, int index, UUID uuid) throws SQLException {
+        if (uuid == null) {
+            ps.setNull(index, binary ? Types.BINARY : Types.VARCHAR);
+        } else if (binary) {
+            ps.setBytes(index, toBytes(uuid));
+        } else {
+            ps.setString(index, uuid.toString());
+        }
+    }
+
+    /**
+     * Read a UUID column, or null if the column is NULL
+     */
+    public UUID get(ResultSet rs, String column) throws SQLException {
+        if (binary) {
+            byte[] bytes = rs.getBytes(column);
+            return bytes != null ? fromBytes(bytes) : null;
+        }
+        String value = rs.getString(column);
+        return value != null ? UUID.fromString(value) : null;
+    }
+
+    /**
+     * Decode a raw column value in either format, for tables that may have
+     * been written before a format switch
+     */
+    public static UUID fromValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.length == BINARY_LENGTH
+                ? fromBytes(bytes)
+                : UUID.fromString(new String(bytes, StandardCharsets.US_ASCII));
+        }
+        return UUID.fromString(value.toString());
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(BINARY_LENGTH)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes.length != BINARY_LENGTH) {
+            throw new IllegalArgumentException("Expected " + BINARY_LENGTH + " bytes, got " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,456 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Moves UUID columns from 36-character strings to 16-byte binary.
+ *
+ * Conversion is opt-in via database.uuid_storage and happens in three stages:
+ * <ol>
+ *   <li>A nullable shadow column (e.g. player_bin) is added next to every UUID column.</li>
+ *   <li>While the server runs in string mode, a background task fills the
+ *       shadow columns in small chunks.</li>
+ *   <li>At the next startup, before anything else touches the database, rows
+ *       written since are swept up, the shadow values are copied over the
+ *       originals and the shadow columns are dropped.</li>
+ * </ol>
+ * Small databases skip stage two and convert immediately.
+ */
+public class UuidStorageMigrator {
+
+    static final String SETTING = "uuid_format";
+    private static final String STRING = "string";
+    private static final String CONVERTING = "converting";
+    private static final String BINARY = "binary";
+
+    private static final String SHADOW_SUFFIX = "_bin";
+
+    // Every UUID column in the schema, grouped by table
+    private static final List<UuidTable> TABLES = List.of(
+        new UuidTable("currency_ledger", "serial", new UuidColumn("serial", true),
+            new UuidColumn("issued_to", false), new UuidColumn("status_changed_by", false)),
+        new UuidTable("transactions", "id", new UuidColumn("player", true)),
+        new UuidTable("tax_obligations", "id", new UuidColumn("player", true)),
+        new UuidTable("bounties", "id", new UuidColumn("created_by", true), new UuidColumn("claimed_by", false)),
+        new UuidTable("permits", "id", new UuidColumn("player_id", true)),
+        new UuidTable("withdrawal_queue", "id", new UuidColumn("player", true)),
+        new UuidTable("player_data", "uuid", new UuidColumn("uuid", true)),
+        new UuidTable("transaction_rollups", "id", new UuidColumn("player", true))
+    );
+
+    private final NSFEconomy plugin;
+    private final DatabaseManager databaseManager;
+    private final boolean isMySQL;
+    private final int chunkSize;
+
+    // Background backfill state (scheduler thread only)
+    private BukkitTask backfillTask;
+    private int tableIndex;
+    private Object cursor;
+    private long convertedRows;
+
+    public UuidStorageMigrator(NSFEconomy plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.isMySQL = databaseManager.isMySQL();
+        this.chunkSize = Math.max(100, plugin.getConfig().getInt("database.uuid_migration.chunk_size", 1000));
+    }
+
+    /**
+     * Reconcile the stored format with the configured one.
+     *
+     * @return true if UUID columns are binary from now on
+     */
+    public boolean prepare() throws SQLException {
+        boolean wantBinary = BINARY.equalsIgnoreCase(plugin.getConfig().getString("database.uuid_storage", STRING));
+        String state = databaseManager.getStorageSetting(SETTING, STRING);
+
+        if (state.equals(BINARY)) {
+            if (!wantBinary) {
+                plugin.getLogger().warning("UUIDs are already stored as binary; database.uuid_storage: string is ignored.");
+            }
+            return true;
+        }
+
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            if (!wantBinary) {
+                if (state.equals(CONVERTING)) {
+                    plugin.getLogger().info("UUID conversion cancelled, removing shadow columns.");
+                    dropShadowColumns(conn);
+                    databaseManager.setStorageSetting(conn, SETTING, STRING);
+                }
+                return false;
+            }
+
+            if (state.equals(STRING)) {
+                addShadowColumns(conn);
+                databaseManager.setStorageSetting(conn, SETTING, CONVERTING);
+                if (countRows(conn) > chunkSize) {
+                    plugin.getLogger().info("Converting UUID columns to binary in the background; "
+                        + "binary storage activates on the next restart.");
+                    return false;
+                }
+            } else {
+                // Tables added by schema migrations since the conversion began
+                addShadowColumns(conn);
+            }
+
+            // Either a previous run backfilled the shadow columns, or the database is small
+            finishConversion(conn);
+            return true;
+        }
+    }
+
+    /**
+     * Start filling shadow columns in the background, if a conversion is pending
+     */
+    public void startBackfill() {
+        if (!CONVERTING.equals(databaseManager.getStorageSetting(SETTING, STRING))) {
+            return;
+        }
+        long interval = Math.max(1L, plugin.getConfig().getLong("database.uuid_migration.interval_ticks", 20L));
+        backfillTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::backfillChunk, interval, interval);
+    }
+
+    public void stop() {
+        if (backfillTask != null) {
+            backfillTask.cancel();
+            backfillTask = null;
+        }
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Backfill
+    // ══════════════════════════════════════════════════════════════════════
+
+    private void backfillChunk() {
+        if (tableIndex >= TABLES.size()) {
+            return;
+        }
+        UuidTable table = TABLES.get(tableIndex);
+
+        try (Connection conn = databaseManager.getMaintenanceConnection()) {
+            int rows = fillShadowColumns(conn, table,
+                "SELECT " + table.selectList() + " FROM " + table.name
+                    + (cursor != null ? " WHERE " + table.key + " > ?" : "")
+                    + " ORDER BY " + table.key + " LIMIT " + chunkSize,
+                cursor);
+            convertedRows += rows;
+
+            if (rows < chunkSize) {
+                plugin.getLogger().info("UUID backfill: " + table.name + " done.");
+                tableIndex++;
+                cursor = null;
+                if (tableIndex >= TABLES.size()) {
+                    plugin.getLogger().info("UUID backfill complete (" + convertedRows
+                        + " rows). Binary storage activates on the next restart.");
+                    stop();
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "UUID backfill chunk failed on " + table.name + ", will retry", e);
+        }
+    }
+
+    /**
+     * Convert the rows returned by a query and write their shadow columns
+     * in one transaction. Advances the cursor to the last key seen.
+     *
+     * @return number of rows converted
+     */
+    private int fillShadowColumns(Connection conn, UuidTable table, String selectSql, Object after) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+            if (after != null) {
+                ps.setObject(1, after);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Object[] row = new Object[table.columns.length + 1];
+                    row[0] = rs.getObject(1);
+                    for (int i = 0; i < table.columns.length; i++) {
+                        String value = rs.getString(i + 2);
+                        row[i + 1] = value != null ? UuidCodec.toBytes(UUID.fromString(value)) : null;
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE " + table.name + " SET " + table.shadowAssignments() + " WHERE " + table.key + " = ?")) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < table.columns.length; i++) {
+                    if (row[i + 1] != null) {
+                        ps.setBytes(i + 1, (byte[]) row[i + 1]);
+                    } else {
+                        ps.setNull(i + 1, Types.BINARY);
+                    }
+                }
+                ps.setObject(table.columns.length + 1, row[0]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        cursor = rows.get(rows.size() - 1)[0];
+        return rows.size();
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Cut-over
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Sweep up rows the backfill missed and swap every UUID column to binary.
+     * Runs during startup while nothing else is using the database.
+     */
+    private void finishConversion(Connection conn) throws SQLException {
+        StorageSnapshot before = measure(conn, false);
+
+        for (UuidTable table : TABLES) {
+            String selectSql = "SELECT " + table.selectList() + " FROM " + table.name
+                + " WHERE " + table.missingShadowCondition() + " LIMIT " + chunkSize;
+            cursor = null;
+            while (fillShadowColumns(conn, table, selectSql, null) == chunkSize) {
+                // Keep sweeping; each pass shrinks the set of unconverted rows
+            }
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        if (!isMySQL) {
+            conn.setAutoCommit(false);
+        }
+        try {
+            for (UuidTable table : TABLES) {
+                swapColumns(conn, table);
+            }
+            databaseManager.setStorageSetting(conn, SETTING, BINARY);
+            if (!isMySQL) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (!isMySQL) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        StorageSnapshot after = measure(conn, true);
+        plugin.getLogger().info("UUID columns converted to binary. Index size: "
+            + before.formatIndexSize() + " -> " + after.formatIndexSize()
+            + ", serial lookup: " + before.formatLookup() + " -> " + after.formatLookup());
+        if (!isMySQL) {
+            plugin.getLogger().info("Run VACUUM on the SQLite file to return freed pages to the filesystem.");
+        }
+    }
+
+    private void swapColumns(Connection conn, UuidTable table) throws SQLException {
+        if (isMySQL) {
+            // VARBINARY(36) holds both forms while the values are swapped, and
+            // MODIFY keeps the primary key and indexes on each column intact
+            SchemaMigrator.execute(conn, "ALTER TABLE " + table.name + " " + table.modifyList("VARBINARY(36)"));
+        }
+        SchemaMigrator.execute(conn, "UPDATE " + table.name + " SET " + table.copyBackAssignments());
+        if (isMySQL) {
+            SchemaMigrator.execute(conn, "ALTER TABLE " + table.name + " " + table.modifyList("BINARY(16)"));
+        }
+        for (UuidColumn column : table.columns) {
+            SchemaMigrator.execute(conn, "ALTER TABLE " + table.name + " DROP COLUMN " + column.shadow());
+        }
+    }
+
+    private void addShadowColumns(Connection conn) throws SQLException {
+        String type = isMySQL ? "BINARY(16) NULL" : "BLOB";
+        for (UuidTable table : TABLES) {
+            for (UuidColumn column : table.columns) {
+                if (!SchemaMigrator.columnExists(conn, table.name, column.shadow())) {
+                    SchemaMigrator.execute(conn, "ALTER TABLE " + table.name
+                        + " ADD COLUMN " + column.shadow() + " " + type);
+                }
+            }
+        }
+    }
+
+    private void dropShadowColumns(Connection conn) throws SQLException {
+        for (UuidTable table : TABLES) {
+            for (UuidColumn column : table.columns) {
+                if (SchemaMigrator.columnExists(conn, table.name, column.shadow())) {
+                    SchemaMigrator.execute(conn, "ALTER TABLE " + table.name + " DROP COLUMN " + column.shadow());
+                }
+            }
+        }
+    }
+
+    private long countRows(Connection conn) throws SQLException {
+        long total = 0;
+        for (UuidTable table : TABLES) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table.name)) {
+                if (rs.next()) {
+                    total += rs.getLong(1);
+                }
+            }
+        }
+        return total;
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Measurements
+    // ══════════════════════════════════════════════════════════════════════
+
+    /**
+     * Total index size plus the mean latency of point lookups on the ledger
+     */
+    private StorageSnapshot measure(Connection conn, boolean binary) {
+        long indexBytes = -1;
+        String sizeSql = isMySQL
+            ? "SELECT SUM(index_length) FROM information_schema.tables WHERE table_schema = DATABASE()"
+            : "SELECT SUM(pgsize) FROM dbstat WHERE name LIKE 'idx_%' OR name LIKE 'sqlite_autoindex_%'";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sizeSql)) {
+            if (rs.next()) {
+                indexBytes = rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            // dbstat is an optional SQLite module
+        }
+
+        UuidCodec codec = new UuidCodec(binary);
+        List<UUID> samples = new ArrayList<>();
+        double lookupMicros = -1;
+        try {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT serial FROM currency_ledger LIMIT 500")) {
+                while (rs.next()) {
+                    samples.add(codec.get(rs, "serial"));
+                }
+            }
+            if (!samples.isEmpty()) {
+                long start = System.nanoTime();
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT status FROM currency_ledger WHERE serial = ?")) {
+                    for (UUID serial : samples) {
+                        codec.set(ps, 1, serial);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            rs.next();
+                        }
+                    }
+                }
+                lookupMicros = (System.nanoTime() - start) / 1000.0 / samples.size();
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.FINE, "Could not time ledger lookups", e);
+        }
+        return new StorageSnapshot(indexBytes, lookupMicros);
+    }
+
+    // ══════════════════════════════════════════════════════════════════════
+    // Inner Classes
+    // ══════════════════════════════════════════════════════════════════════
+
+    private static class UuidColumn {
+        private final String name;
+        private final boolean notNull;
+
+        UuidColumn(String name, boolean notNull) {
+            this.name = name;
+            this.notNull = notNull;
+        }
+
+        String shadow() {
+            return name + SHADOW_SUFFIX;
+        }
+    }
+
+    private static class UuidTable {
+        private final String name;
+        private final String key;
+        private final UuidColumn[] columns;
+
+        UuidTable(String name, String key, UuidColumn... columns) {
+            this.name = name;
+            this.key = key;
+            this.columns = columns;
+        }
+
+        String selectList() {
+            StringBuilder sb = new StringBuilder(key);
+            for (UuidColumn column : columns) {
+                sb.append(", ").append(column.name);
+            }
+            return sb.toString();
+        }
+
+        String shadowAssignments() {
+            List<String> parts = new ArrayList<>();
+            for (UuidColumn column : columns) {
+                parts.add(column.shadow() + " = ?");
+            }
+            return String.join(", ", parts);
+        }
+
+        String copyBackAssignments() {
+            List<String> parts = new ArrayList<>();
+            for (UuidColumn column : columns) {
+                parts.add(column.name + " = " + column.shadow());
+            }
+            return String.join(", ", parts);
+        }
+
+        String missingShadowCondition() {
+            List<String> parts = new ArrayList<>();
+            for (UuidColumn column : columns) {
+                parts.add("(" + column.name + " IS NOT NULL AND " + column.shadow() + " IS NULL)");
+            }
+            return String.join(" OR ", parts);
+        }
+
+        String modifyList(String type) {
+            List<String> parts = new ArrayList<>();
+            for (UuidColumn column : columns) {
+                parts.add("MODIFY " + column.name + " " + type + (column.notNull ? " NOT NULL" : " NULL"));
+            }
+            return String.join(", ", parts);
+        }
+    }
+
+    private static class StorageSnapshot {
+        private final long indexBytes;
+        private final double lookupMicros;
+
+        StorageSnapshot(long indexBytes, double lookupMicros) {
+            this.indexBytes = indexBytes;
+            this.lookupMicros = lookupMicros;
+        }
+
+        String formatIndexSize() {
+            return indexBytes < 0 ? "n/a" : String.format("%,d KB", indexBytes / 1024);
+        }
+
+        String formatLookup() {
+            return lookupMicros < 0 ? "n/a" : String.format("%.1f µs", lookupMicros);
+        }
+    }
+}
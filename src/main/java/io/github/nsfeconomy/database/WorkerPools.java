@@ -0,0 +1,47 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.util.function.Consumer;
+
+/**
+ * Creates the {@link WorkerPool} behind the async database API.
+ *
+ * This is the Java 17 version and always uses platform threads. The jar is
+ * multi-release: on Java 21+ the class in src/main/java21 is loaded instead
+ * and hands out virtual threads.
+ */
+public final class WorkerPools {
+
+    private WorkerPools() {
+    }
+
+    /**
+     * Whether this runtime can create virtual-thread pools
+     */
+    public static boolean virtualThreadsAvailable() {
+        return false;
+    }
+
+    /**
+     * The pool configured for this server
+     *
+     * @param parallelism Maximum concurrent JDBC tasks (normally the connection pool size)
+     * @param saturated Called with tasks the pool will not run: the queue is full or it has shut down
+     */
+    public static WorkerPool create(NSFEconomy plugin, String name, int parallelism, int queueSize,
+                                    Consumer<Runnable> saturated) {
+        return platform(name, parallelism, queueSize, saturated);
+    }
+
+    public static WorkerPool platform(String name, int parallelism, int queueSize, Consumer<Runnable> saturated) {
+        return new PlatformWorkerPool(name, parallelism, queueSize, saturated);
+    }
+
+    /**
+     * A virtual-thread pool, or null on runtimes without virtual threads
+     */
+    public static WorkerPool virtual(String name, int parallelism, int queueSize, Consumer<Runnable> saturated) {
+        return null;
+    }
+}
@@ -2,6 +2,7 @@ package io.github.nsfeconomy.listeners;
 
 import io.github.nsfeconomy.NSFEconomy;
 import io.github.nsfeconomy.commands.TradeCommand;
+import io.github.nsfeconomy.currency.Money;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
@@ -37,6 +38,10 @@ public class PlayerListener implements Listener {
     @EventHandler(priority = EventPriority.NORMAL)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        plugin.getDatabaseManager().getPlayerPresence().seen(player.getUniqueId(), player.getName());
+        
+        // Warm the permit cache used by the portal and teleport checks
+        plugin.getPermitManager().loadPermits(player.getUniqueId());
         
         // Check for outstanding taxes (delayed to let player fully load)
         plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
@@ -54,6 +59,7 @@ public class PlayerListener implements Listener {
     @EventHandler(priority = EventPriority.NORMAL)
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
+        plugin.getDatabaseManager().getPlayerPresence().seen(player.getUniqueId(), player.getName());
         
         // Clean up any active trade sessions
         TradeCommand tradeCommand = plugin.getTradeCommand();
@@ -63,6 +69,7 @@ public class PlayerListener implements Listener {
         
         // Clear permit warning cache
         permitWarnings.remove(player.getUniqueId());
+        plugin.getPermitManager().unloadPermits(player.getUniqueId());
     }
 
     /**
@@ -99,10 +106,10 @@ public class PlayerListener implements Listener {
         }
 
         // Check if player has valid permit
-        if (!plugin.getPermitManager().hasValidPermit(player.getUniqueId(), dimension)) {
+        if (!plugin.getPermitManager().hasValidPermitCached(player.getUniqueId(), dimension)) {
             event.setCancelled(true);
             
-            double price = plugin.getPermitManager().getPermitPrice(dimension);
+            Money price = plugin.getPermitManager().getPermitPrice(dimension);
             player.sendMessage(plugin.colorize("&c═══════════════════════════════════"));
             player.sendMessage(plugin.colorize("&c⚠ ACCESS DENIED"));
             player.sendMessage(plugin.colorize("&7You need a &e" + capitalize(dimension) + " Permit &7to enter!"));
@@ -153,10 +160,10 @@ public class PlayerListener implements Listener {
             return;
         }
 
-        if (!plugin.getPermitManager().hasValidPermit(player.getUniqueId(), dimension)) {
+        if (!plugin.getPermitManager().hasValidPermitCached(player.getUniqueId(), dimension)) {
             event.setCancelled(true);
             
-            double price = plugin.getPermitManager().getPermitPrice(dimension);
+            Money price = plugin.getPermitManager().getPermitPrice(dimension);
             player.sendMessage(plugin.colorize("&c⚠ You need a &e" + capitalize(dimension) + 
                 " Permit &cto teleport there!"));
             player.sendMessage(plugin.colorize("&7Purchase at any bank: &e/permit buy " + dimension));
@@ -197,8 +204,11 @@ public class PlayerListener implements Listener {
             return;
         }
 
-        // Check permit status
-        var permit = plugin.getPermitManager().getPermit(player.getUniqueId(), dimension);
+        // Check permit status (skipped until the join-time load has finished)
+        if (!plugin.getPermitManager().isLoaded(player.getUniqueId())) {
+            return;
+        }
+        var permit = plugin.getPermitManager().getCachedPermit(player.getUniqueId(), dimension);
         if (permit == null || permit.isExpired()) {
             // Permit expired while in dimension!
             permitWarnings.put(player.getUniqueId(), System.currentTimeMillis());
@@ -250,23 +260,30 @@ public class PlayerListener implements Listener {
     // ==================== Helper Methods ====================
 
     private void checkTaxReminders(Player player) {
-        double owed = plugin.getTaxManager().getTotalOwed(player.getUniqueId());
-        if (owed > 0) {
-            player.sendMessage(plugin.colorize("&6[Tax Notice] &7You have &c" + 
-                plugin.getCurrencyManager().formatCurrency(owed) + " &7in outstanding taxes."));
-            player.sendMessage(plugin.colorize("&7View details: &e/tax owed"));
-        }
+        var owedFuture = plugin.getTaxManager().getTotalOwedAsync(player.getUniqueId());
+        plugin.getDatabaseManager().getExecutor().sync(owedFuture, owed -> {
+            if (owed.isPositive() && player.isOnline()) {
+                player.sendMessage(plugin.colorize("&6[Tax Notice] &7You have &c" + 
+                    plugin.getCurrencyManager().formatCurrency(owed) + " &7in outstanding taxes."));
+                player.sendMessage(plugin.colorize("&7View details: &e/tax owed"));
+            }
+        });
     }
 
     private void checkPermitExpiry(Player player) {
-        var permits = plugin.getPermitManager().getPlayerPermits(player.getUniqueId());
-        for (var permit : permits) {
-            if (permit.getDaysRemaining() <= 3 && permit.getDaysRemaining() > 0) {
-                player.sendMessage(plugin.colorize("&e[Permit Notice] &7Your &f" + 
-                    capitalize(permit.getDimension()) + " &7permit expires in &e" + 
-                    permit.getDaysRemaining() + " day(s)&7!"));
+        var permitsFuture = plugin.getPermitManager().getPlayerPermitsAsync(player.getUniqueId());
+        plugin.getDatabaseManager().getExecutor().sync(permitsFuture, permits -> {
+            if (!player.isOnline()) {
+                return;
             }
-        }
+            for (var permit : permits) {
+                if (permit.getDaysRemaining() <= 3 && permit.getDaysRemaining() > 0) {
+                    player.sendMessage(plugin.colorize("&e[Permit Notice] &7Your &f" + 
+                        capitalize(permit.getDimension()) + " &7permit expires in &e" + 
+                        permit.getDaysRemaining() + " day(s)&7!"));
+                }
+            }
+        });
     }
 
     private void checkWithdrawalQueue(Player player) {
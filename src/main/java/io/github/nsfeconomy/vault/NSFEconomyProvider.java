@@ -1,6 +1,8 @@
 package io.github.nsfeconomy.vault;
 
 import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+import io.github.nsfeconomy.database.PostingLedger;
 import net.milkbowl.vault.economy.AbstractEconomy;
 import net.milkbowl.vault.economy.EconomyResponse;
 import org.bukkit.Bukkit;
@@ -96,7 +98,7 @@ public class NSFEconomyProvider extends AbstractEconomy {
     @Override
     public double getBalance(OfflinePlayer player) {
         // Return virtual balance from database
-        return plugin.getDatabaseManager().getVirtualBalance(player.getUniqueId());
+        return plugin.getDatabaseManager().getVirtualBalance(player.getUniqueId()).toDouble();
     }
 
     @Override
@@ -111,12 +113,16 @@ public class NSFEconomyProvider extends AbstractEconomy {
 
     @Override
     public boolean has(String playerName, double amount) {
-        return getBalance(playerName) >= amount;
+        return has(Bukkit.getOfflinePlayer(playerName), amount);
     }
 
     @Override
     public boolean has(OfflinePlayer player, double amount) {
-        return getBalance(player) >= amount;
+        if (amount < 0) {
+            return false;
+        }
+        Money value = toMoney(amount);
+        return value != null && !plugin.getDatabaseManager().getVirtualBalance(player.getUniqueId()).isLessThan(value);
     }
 
     @Override
@@ -129,6 +135,18 @@ public class NSFEconomyProvider extends AbstractEconomy {
         return has(player, amount);
     }
 
+    /**
+     * Money for an amount passed in by another plugin, or null if it is NaN,
+     * infinite or out of range
+     */
+    private static Money toMoney(double amount) {
+        try {
+            return Money.fromDouble(amount);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return null;
+        }
+    }
+
     // ==================== Withdrawal Methods ====================
 
     @Override
@@ -143,6 +161,11 @@ public class NSFEconomyProvider extends AbstractEconomy {
             return new EconomyResponse(0, getBalance(player), 
                 EconomyResponse.ResponseType.FAILURE, "Cannot withdraw negative amounts");
         }
+        Money value = toMoney(amount);
+        if (value == null) {
+            return new EconomyResponse(0, getBalance(player),
+                EconomyResponse.ResponseType.FAILURE, "Invalid amount");
+        }
 
         // Check if economy is frozen
         if (plugin.getConfig().getBoolean("economy.frozen", false)) {
@@ -150,32 +173,32 @@ public class NSFEconomyProvider extends AbstractEconomy {
                 EconomyResponse.ResponseType.FAILURE, "Economy is currently frozen");
         }
 
-        double balance = getBalance(player);
-        if (balance < amount) {
-            return new EconomyResponse(0, balance, 
-                EconomyResponse.ResponseType.FAILURE, "Insufficient funds");
-        }
-
-        // Perform withdrawal from virtual balance
-        boolean success = plugin.getDatabaseManager().updateVirtualBalance(
-            player.getUniqueId(), -amount
+        // Funds are checked and taken in one ledger entry
+        String account = PostingLedger.playerAccount(player.getUniqueId());
+        PostingLedger.PostResult result = plugin.getDatabaseManager().getPostingLedger().transfer(
+            account, PostingLedger.EXTERNAL, value,
+            "vault_withdraw", "Virtual balance withdrawal via Vault API"
         );
 
-        if (success) {
-            double newBalance = getBalance(player);
-            
+        if (result.isSuccess()) {
+            plugin.getDatabaseManager().getPlayerPresence().seen(player.getUniqueId(), player.getName());
+
             // Log transaction
             plugin.getDatabaseManager().logTransaction(
                 player.getUniqueId(), "vault_withdraw",
                 "Virtual balance withdrawal via Vault API",
-                -amount, null
+                value.negate(), null
             );
 
-            return new EconomyResponse(amount, newBalance, 
+            return new EconomyResponse(value.toDouble(), result.getBalance(account).toDouble(), 
                 EconomyResponse.ResponseType.SUCCESS, null);
         }
 
-        return new EconomyResponse(0, balance, 
+        if (result.getStatus() == PostingLedger.PostResult.Status.INSUFFICIENT_FUNDS) {
+            return new EconomyResponse(0, getBalance(player), 
+                EconomyResponse.ResponseType.FAILURE, "Insufficient funds");
+        }
+        return new EconomyResponse(0, getBalance(player), 
             EconomyResponse.ResponseType.FAILURE, "Transaction failed");
     }
 
@@ -203,6 +226,11 @@ public class NSFEconomyProvider extends AbstractEconomy {
             return new EconomyResponse(0, getBalance(player), 
                 EconomyResponse.ResponseType.FAILURE, "Cannot deposit negative amounts");
         }
+        Money value = toMoney(amount);
+        if (value == null) {
+            return new EconomyResponse(0, getBalance(player),
+                EconomyResponse.ResponseType.FAILURE, "Invalid amount");
+        }
 
         // Check if economy is frozen
         if (plugin.getConfig().getBoolean("economy.frozen", false)) {
@@ -211,21 +239,22 @@ public class NSFEconomyProvider extends AbstractEconomy {
         }
 
         // Perform deposit to virtual balance
-        boolean success = plugin.getDatabaseManager().updateVirtualBalance(
-            player.getUniqueId(), amount
+        String account = PostingLedger.playerAccount(player.getUniqueId());
+        plugin.getDatabaseManager().getPlayerPresence().seen(player.getUniqueId(), player.getName());
+        PostingLedger.PostResult result = plugin.getDatabaseManager().getPostingLedger().transfer(
+            PostingLedger.EXTERNAL, account, value,
+            "vault_deposit", "Virtual balance deposit via Vault API"
         );
 
-        if (success) {
-            double newBalance = getBalance(player);
-            
+        if (result.isSuccess()) {
             // Log transaction
             plugin.getDatabaseManager().logTransaction(
                 player.getUniqueId(), "vault_deposit",
                 "Virtual balance deposit via Vault API",
-                amount, null
+                value, null
             );
 
-            return new EconomyResponse(amount, newBalance, 
+            return new EconomyResponse(value.toDouble(), result.getBalance(account).toDouble(), 
                 EconomyResponse.ResponseType.SUCCESS, null);
         }
 
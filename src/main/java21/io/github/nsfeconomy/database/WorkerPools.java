@@ -0,0 +1,49 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+
+import java.util.function.Consumer;
+
+/**
+ * Creates the {@link WorkerPool} behind the async database API.
+ *
+ * Java 21 version, packaged under META-INF/versions/21. Uses virtual threads
+ * unless database.async.virtual_threads is false.
+ */
+public final class WorkerPools {
+
+    private WorkerPools() {
+    }
+
+    /**
+     * Whether this runtime can create virtual-thread pools
+     */
+    public static boolean virtualThreadsAvailable() {
+        return true;
+    }
+
+    /**
+     * The pool configured for this server
+     *
+     * @param parallelism Maximum concurrent JDBC tasks (normally the connection pool size)
+     * @param saturated Called with tasks the pool will not run: the queue is full or it has shut down
+     */
+    public static WorkerPool create(NSFEconomy plugin, String name, int parallelism, int queueSize,
+                                    Consumer<Runnable> saturated) {
+        if (plugin.getConfig().getBoolean("database.async.virtual_threads", true)) {
+            return virtual(name, parallelism, queueSize, saturated);
+        }
+        return platform(name, parallelism, queueSize, saturated);
+    }
+
+    public static WorkerPool platform(String name, int parallelism, int queueSize, Consumer<Runnable> saturated) {
+        return new PlatformWorkerPool(name, parallelism, queueSize, saturated);
+    }
+
+    /**
+     * A virtual-thread pool, or null on runtimes without virtual threads
+     */
+    public static WorkerPool virtual(String name, int parallelism, int queueSize, Consumer<Runnable> saturated) {
+        return new VirtualWorkerPool(name, parallelism, queueSize, saturated);
+    }
+}
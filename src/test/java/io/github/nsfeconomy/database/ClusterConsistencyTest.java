@@ -0,0 +1,175 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.bank.BankManager;
+import io.github.nsfeconomy.permit.PermitManager;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two servers, each with its own data folder, sharing one SQLite database
+ * file. With database.cluster on the reserve is read from the database
+ * rather than a per-server ledger, and each server hears of the other's
+ * changes through the change outbox and reloads what it had cached.
+ *
+ * {@link MySqlClusterConsistencyTest} runs the same tests against MySQL or
+ * MariaDB.
+ */
+class ClusterConsistencyTest {
+
+    static final long WAIT_SECONDS = 5;
+
+    @TempDir
+    Path folder;
+
+    NSFEconomy firstPlugin;
+    NSFEconomy secondPlugin;
+    DatabaseManager first;
+    DatabaseManager second;
+    private MockedStatic<Bukkit> bukkit;
+
+    @BeforeEach
+    void open() throws Exception {
+        // BankManager schedules its hourly reset on the Bukkit scheduler
+        bukkit = mockStatic(Bukkit.class);
+        BukkitScheduler scheduler = mock(BukkitScheduler.class);
+        bukkit.when(Bukkit::getScheduler).thenReturn(scheduler);
+
+        firstPlugin = TestPlugins.create(folder.resolve("a"), overrides("a"));
+        secondPlugin = TestPlugins.create(folder.resolve("b"), overrides("b"));
+        first = TestPlugins.open(firstPlugin);
+        second = TestPlugins.open(secondPlugin);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+        bukkit.close();
+        dropDatabase();
+    }
+
+    /**
+     * Config overrides for server id
+     */
+    Object[] overrides(String id) throws Exception {
+        return new Object[] {
+            "database.sqlite.file", "../shared.db",
+            "database.journal.enabled", false,
+            "database.cluster.enabled", true,
+            "database.cluster.server_id", id,
+            "database.cluster.poll_interval_ms", 100
+        };
+    }
+
+    void dropDatabase() throws Exception {
+    }
+
+    @Test
+    void noteRedeemedOnOneServerIsSpentOnTheOther() throws Exception {
+        BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+        second.getChangeOutbox().subscribe(ChangeOutbox.TOPIC_NOTE, changes::add);
+
+        UUID serial = UUID.randomUUID();
+        UUID player = UUID.randomUUID();
+        assertTrue(first.recordNote(serial, 1, player));
+        assertEquals(serial.toString(), changes.poll(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(second.isNoteValid(serial));
+
+        assertTrue(first.redeemNote(serial, player));
+        assertEquals(serial.toString(), changes.poll(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(second.isNoteValid(serial));
+        assertFalse(second.redeemNote(serial, player), "note redeemed twice");
+    }
+
+    @Test
+    void reserveIsSharedBetweenServers() throws Exception {
+        BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+        first.getChangeOutbox().subscribe(ChangeOutbox.TOPIC_RESERVE, changes::add);
+
+        long start = first.getReserve();
+        assertTrue(first.addToReserve(10));
+        assertEquals(start + 10, second.getReserve());
+
+        assertTrue(second.removeFromReserve(start + 10));
+        assertEquals("reserve", changes.poll(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, first.getReserve());
+        assertFalse(first.removeFromReserve(1), "reserve spent on both servers");
+    }
+
+    @Test
+    void bankLocationCreatedOnOneServerIsLoadedOnTheOther() throws Exception {
+        BankManager firstBanks = new BankManager(firstPlugin);
+        BankManager secondBanks = new BankManager(secondPlugin);
+        World world = mock(World.class);
+        when(world.getName()).thenReturn("world");
+
+        assertTrue(firstBanks.createBankLocation("Harbour", "branch", new Location(world, 10, 64, -20), 5));
+        awaitTrue(() -> secondBanks.getBankLocation("harbour") != null, "bank location not loaded on the other server");
+        assertEquals(10, secondBanks.getBankLocation("harbour").getX());
+
+        assertTrue(firstBanks.removeBankLocation("Harbour"));
+        awaitTrue(() -> secondBanks.getBankLocation("harbour") == null, "removed bank location still cached");
+    }
+
+    @Test
+    void permitGrantedOnOneServerReloadsTheOthersCache() throws Exception {
+        UUID player = UUID.randomUUID();
+        Server server = mock(Server.class);
+        Player online = mock(Player.class);
+        when(server.getPlayer(player)).thenReturn(online);
+        when(secondPlugin.getServer()).thenReturn(server);
+
+        PermitManager firstPermits = new PermitManager(firstPlugin);
+        PermitManager secondPermits = new PermitManager(secondPlugin);
+        secondPermits.loadPermits(player).get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(secondPermits.isLoaded(player));
+        assertFalse(secondPermits.hasValidPermitCached(player, "nether"));
+
+        assertTrue(firstPermits.grantPermit(player, "nether", 7).isSuccess());
+        awaitTrue(() -> secondPermits.getCachedPermit(player, "nether") != null,
+            "permit cache not reloaded on the other server");
+
+        assertTrue(firstPermits.revokePermit(player, "nether"));
+        awaitTrue(() -> !secondPermits.hasValidPermitCached(player, "nether"), "revoked permit still cached");
+    }
+
+    /**
+     * Poll a condition that turns true once the other server has handled a
+     * change
+     */
+    static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.nsfeconomy.database;
+
+import io.github.nsfeconomy.NSFEconomy;
+import io.github.nsfeconomy.currency.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Compares concurrent balance deposits, the work behind Vault's
+ * depositPlayer, on a platform-thread pool and, on Java 21+, a
+ * virtual-thread pool with the same parallelism. The java21 profile compiles
+ * the Java 21 classes into the test classes so the test runtime loads them.
+ *
+ * Runs against a throwaway database; mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class ExecutorBenchmark {
+
+    private static final UUID ACCOUNT = UUID.nameUUIDFromBytes("NSFEconomy:benchmark".getBytes(StandardCharsets.UTF_8));
+    private static final Money DEPOSIT = Money.ofMinor(1);
+    private static final int CALLS = 5000;
+
+    @Test
+    void compareExecutors(@TempDir Path folder) throws Exception {
+        NSFEconomy plugin = TestPlugins.create(folder);
+        DatabaseManager databaseManager = TestPlugins.open(plugin);
+        try {
+            int parallelism = databaseManager.getExecutor().getParallelism();
+            System.out.printf("Executor benchmark: %d deposits, Java %d%n", CALLS, Runtime.version().feature());
+            measure(databaseManager, WorkerPools.platform("NSFEconomy-Bench", parallelism, CALLS, Runnable::run));
+            WorkerPool virtual = WorkerPools.virtual("NSFEconomy-Bench", parallelism, CALLS, Runnable::run);
+            if (Runtime.version().feature() >= 21) {
+                assertNotNull(virtual, "Java 21 runtime but the Java 21 WorkerPools was not loaded");
+            }
+            if (virtual != null) {
+                measure(databaseManager, virtual);
+            } else {
+                System.out.println("  virtual threads need Java 21");
+            }
+        } finally {
+            databaseManager.close();
+        }
+    }
+
+    private void measure(DatabaseManager databaseManager, WorkerPool pool) throws InterruptedException {
+        // Warm up connections and JIT outside the measured window
+        runBatch(databaseManager, pool, Math.min(CALLS, pool.getParallelism() * 4), null);
+
+        long[] latencies = new long[CALLS];
+        long start = System.nanoTime();
+        int failures = runBatch(databaseManager, pool, CALLS, latencies);
+        long elapsed = System.nanoTime() - start;
+
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        Arrays.sort(latencies);
+        System.out.printf("  %s x%d: %,.0f ops/s, p50 %.2fms p95 %.2fms p99 %.2fms max %.2fms%n",
+            pool.getKind(), pool.getParallelism(), CALLS / (elapsed / 1e9),
+            percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.95) / 1e6,
+            percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6);
+        assertEquals(0, failures, "failed deposits");
+    }
+
+    /**
+     * Submit all calls at once and wait; latency runs from submit to completion
+     */
+    private int runBatch(DatabaseManager databaseManager, WorkerPool pool, int calls, long[] latencies)
+            throws InterruptedException {
+        String account = PostingLedger.playerAccount(ACCOUNT);
+        CountDownLatch done = new CountDownLatch(calls);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < calls; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            pool.execute(() -> {
+                try {
+                    PostingLedger.PostResult result = databaseManager.getPostingLedger().transfer(
+                        PostingLedger.EXTERNAL, account, DEPOSIT, "vault_deposit", "Benchmark deposit");
+                    if (result.isSuccess()) {
+                        databaseManager.logTransaction(ACCOUNT, "vault_deposit", "Benchmark deposit", DEPOSIT, null);
+                    } else {
+                        failures.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    if (latencies != null) {
+                        latencies[index] = System.nanoTime() - submitted;
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return failures.get();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.nsfeconomy.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.nsfeconomy.NSFEconomy;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test for {@link PoolTuner}: bursts of concurrent checkouts from a
+ * scratch pool, first with its size held and then with the tuner resizing
+ * it, reporting the checkout wait of every burst.
+ *
+ * Each caller holds its connection for HOLD_MS around a SELECT 1, like a
+ * slow query during a rush, so a burst wider than the pool queues. Bursts
+ * are spaced past the tuner's cooldown so it can react between them. Fails
+ * unless the last tuned burst's p99 wait is under MAX_TUNED_RATIO of the
+ * best fixed-size p99. Runs against a throwaway SQLite file;
+ * mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class PoolBenchmark {
+
+    private static final String POOL = "scratch";
+    private static final int BURSTS = 5;
+    private static final int CALLERS = 32;
+    private static final long HOLD_MS = 50;
+    private static final double MAX_TUNED_RATIO = 0.5;
+
+    @Test
+    void fixedThenTuned(@TempDir Path folder) throws Exception {
+        NSFEconomy plugin = TestPlugins.create(folder,
+            "database.pool_tuner.sample_interval_ms", 250,
+            "database.pool_tuner.cooldown_seconds", 1);
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + folder.resolve("scratch.db").toAbsolutePath());
+        config.setMaximumPoolSize(2);
+        config.setPoolName("NSFEconomy-PoolBench");
+        config.addDataSourceProperty("journal_mode", "WAL");
+
+        PoolTuner tuner = new PoolTuner(plugin);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS, runnable -> {
+            Thread thread = new Thread(runnable, "NSFEconomy-PoolBench");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (HikariDataSource pool = new HikariDataSource(config)) {
+            tuner.register(POOL, pool);
+            tuner.start();
+            long spacingMs = Math.max(tuner.getSampleIntervalMs() * 2, tuner.getCooldownMs() + tuner.getSampleIntervalMs());
+
+            System.out.printf("Pool benchmark: %d bursts of %d checkouts held %dms%n", BURSTS, CALLERS, HOLD_MS);
+            tuner.setHeld(true);
+            long fixedP99 = Long.MAX_VALUE;
+            for (int i = 1; i <= BURSTS; i++) {
+                fixedP99 = Math.min(fixedP99, burst(callers, pool, tuner, "fixed", i));
+                Thread.sleep(spacingMs);
+            }
+            tuner.setHeld(false);
+            long tunedP99 = 0;
+            for (int i = 1; i <= BURSTS; i++) {
+                tunedP99 = burst(callers, pool, tuner, "tuned", i);
+                Thread.sleep(spacingMs);
+            }
+            long tuned = tunedP99;
+            long fixed = fixedP99;
+            assertTrue(tuned < fixed * MAX_TUNED_RATIO, () -> String.format(
+                "tuned pool p99 %.2fms is not clearly below the fixed pool's %.2fms", tuned / 1e6, fixed / 1e6));
+        } finally {
+            tuner.stop();
+            callers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return p99 checkout wait in nanoseconds
+     */
+    private long burst(ExecutorService callers, HikariDataSource pool, PoolTuner tuner, String phase, int number)
+            throws InterruptedException {
+        int size = tuner.getStatus().get(0).getSize();
+        long[] waits = new long[CALLERS];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(CALLERS);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            int index = i;
+            callers.execute(() -> {
+                try {
+                    ready.countDown();
+                    go.await();
+                    long start = System.nanoTime();
+                    try (Connection conn = pool.getConnection()) {
+                        waits[index] = System.nanoTime() - start;
+                        // What DatabaseManager reports for its own pools
+                        tuner.recordWait(POOL, waits[index]);
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.execute("SELECT 1");
+                        }
+                        Thread.sleep(HOLD_MS);
+                    }
+                } catch (SQLException e) {
+                    failures.incrementAndGet();
+                    tuner.recordTimeout(POOL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        ready.await();
+        go.countDown();
+        done.await();
+
+        Arrays.sort(waits);
+        System.out.printf("  %s #%d size %d: p50 %.2fms p99 %.2fms max %.2fms%n", phase, number, size,
+            percentile(waits, 0.50) / 1e6, percentile(waits, 0.99) / 1e6, waits[waits.length - 1] / 1e6);
+        assertEquals(0, failures.get(), "failed checkouts");
+        return percentile(waits, 0.99);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}